@@ -0,0 +1,231 @@
+package com.napier.proj.bench;
+
+import com.napier.proj.model.CapitalCity;
+import com.napier.proj.model.City;
+import com.napier.proj.model.Country;
+import com.napier.proj.model.Language;
+import com.napier.proj.model.Population;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and throughput of every query method, for each backend.
+ * <p>
+ * Each benchmark runs one query with the same arguments {@code App} uses and
+ * returns the result so it is not optimised away. Run with {@code -prof gc} to
+ * see the allocation per query.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+    // *** Country queries ***
+
+    @Benchmark
+    public List<Country> allCountries(WorldDatabase db) {
+        return db.countries.getAllCountriesByPopulation();
+    }
+
+    @Benchmark
+    public List<Country> allCountriesInContinent(WorldDatabase db) {
+        return db.countries.getAllCountriesInContinentByPopulation("Europe");
+    }
+
+    @Benchmark
+    public List<Country> allCountriesInRegion(WorldDatabase db) {
+        return db.countries.getAllCountriesInRegionByPopulation("Southern and Central Asia");
+    }
+
+    @Benchmark
+    public List<Country> topCountries(WorldDatabase db) {
+        return db.countries.getTopNPopulatedCountriesIntheworld(10);
+    }
+
+    @Benchmark
+    public List<Country> topCountriesInContinent(WorldDatabase db) {
+        return db.countries.getTopNPopulatedCountriesInContinent("North America", 10);
+    }
+
+    @Benchmark
+    public List<Country> topCountriesInRegion(WorldDatabase db) {
+        return db.countries.getTopNPopulatedCountriesInRegion("Middle East", 10);
+    }
+
+    // *** City queries ***
+
+    @Benchmark
+    public List<City> allCities(WorldDatabase db) {
+        return db.cities.getAllinWorldCitiesByPopulation();
+    }
+
+    @Benchmark
+    public List<City> allCitiesInContinent(WorldDatabase db) {
+        return db.cities.getAllCitiesInContinentByPopulation("Asia");
+    }
+
+    @Benchmark
+    public List<City> allCitiesInRegion(WorldDatabase db) {
+        return db.cities.getAllCitiesInRegionByPopulation("Central Africa");
+    }
+
+    @Benchmark
+    public List<City> allCitiesInCountry(WorldDatabase db) {
+        return db.cities.getAllCitiesInCountryByPopulation("Argentina");
+    }
+
+    @Benchmark
+    public List<City> allCitiesInDistrict(WorldDatabase db) {
+        return db.cities.getAllCitiesInDistrictByPopulation("Benguela");
+    }
+
+    @Benchmark
+    public int streamAllCities(WorldDatabase db, Blackhole bh) {
+        return db.cities.streamAllCitiesInWorldByPopulation(bh::consume);
+    }
+
+    @Benchmark
+    public int streamAllCitiesInContinent(WorldDatabase db, Blackhole bh) {
+        return db.cities.streamAllCitiesInContinentByPopulation("Asia", bh::consume);
+    }
+
+    @Benchmark
+    public int streamAllCitiesInRegion(WorldDatabase db, Blackhole bh) {
+        return db.cities.streamAllCitiesInRegionByPopulation("Central Africa", bh::consume);
+    }
+
+    @Benchmark
+    public int streamAllCitiesInCountry(WorldDatabase db, Blackhole bh) {
+        return db.cities.streamAllCitiesInCountryByPopulation("Argentina", bh::consume);
+    }
+
+    @Benchmark
+    public int streamAllCitiesInDistrict(WorldDatabase db, Blackhole bh) {
+        return db.cities.streamAllCitiesInDistrictByPopulation("Benguela", bh::consume);
+    }
+
+    @Benchmark
+    public List<City> topCities(WorldDatabase db) {
+        return db.cities.getTopNPopulatedCitiesInWorld(10);
+    }
+
+    @Benchmark
+    public List<City> topCitiesInContinent(WorldDatabase db) {
+        return db.cities.getTopNPopulatedCitiesInContinent("Asia", 10);
+    }
+
+    @Benchmark
+    public List<City> topCitiesInRegion(WorldDatabase db) {
+        return db.cities.getTopNPopulatedCitiesInRegion("Eastern Europe", 10);
+    }
+
+    @Benchmark
+    public List<City> topCitiesInCountry(WorldDatabase db) {
+        return db.cities.getTopNPopulatedCitiesInCountry("Brazil", 10);
+    }
+
+    @Benchmark
+    public List<City> topCitiesInDistrict(WorldDatabase db) {
+        return db.cities.getTopNPopulatedCitiesInDistrict("California", 10);
+    }
+
+    // *** Capital city queries ***
+
+    @Benchmark
+    public List<CapitalCity> allCapitals(WorldDatabase db) {
+        return db.capitals.getAllCapitalCities();
+    }
+
+    @Benchmark
+    public List<CapitalCity> allCapitalsInContinent(WorldDatabase db) {
+        return db.capitals.getAllCapitalCitiesInContinent("Asia");
+    }
+
+    @Benchmark
+    public List<CapitalCity> allCapitalsInRegion(WorldDatabase db) {
+        return db.capitals.getAllCapitalCitiesInRegion("Caribbean");
+    }
+
+    @Benchmark
+    public List<CapitalCity> topCapitals(WorldDatabase db) {
+        return db.capitals.getTopNPopulatedCapitalCities(10);
+    }
+
+    @Benchmark
+    public List<CapitalCity> topCapitalsInContinent(WorldDatabase db) {
+        return db.capitals.getTopNPopulatedCapitalCitiesByContinent("Asia", 10);
+    }
+
+    @Benchmark
+    public List<CapitalCity> topCapitalsInRegion(WorldDatabase db) {
+        return db.capitals.getTopNPopulatedCapitalCitiesByRegion("Central Africa", 10);
+    }
+
+    // *** Population queries ***
+
+    @Benchmark
+    public List<Population> continentSplit(WorldDatabase db) {
+        return db.populations.getEachContinentPopulationWithUrbanAndNonUrban();
+    }
+
+    @Benchmark
+    public List<Population> regionSplit(WorldDatabase db) {
+        return db.populations.getEachRegionPopulationWithUrbanAndNonUrban();
+    }
+
+    @Benchmark
+    public List<Population> countrySplit(WorldDatabase db) {
+        return db.populations.getEachCountryPopulationWithUrbanAndNonUrban();
+    }
+
+    @Benchmark
+    public List<Population> worldPopulation(WorldDatabase db) {
+        return db.populations.getWorldPopulation();
+    }
+
+    @Benchmark
+    public List<Population> continentPopulation(WorldDatabase db) {
+        return db.populations.getContinentPopulation("Asia");
+    }
+
+    @Benchmark
+    public List<Population> regionPopulation(WorldDatabase db) {
+        return db.populations.getRegionPopulation("Central Africa");
+    }
+
+    @Benchmark
+    public List<Population> countryPopulation(WorldDatabase db) {
+        return db.populations.getCountryPopulation("Argentina");
+    }
+
+    @Benchmark
+    public List<Population> districtPopulation(WorldDatabase db) {
+        return db.populations.getDistrictPopulation("Benguela");
+    }
+
+    @Benchmark
+    public List<Population> cityPopulation(WorldDatabase db) {
+        return db.populations.getCityPopulation("Tokyo");
+    }
+
+    // *** Language queries ***
+
+    @Benchmark
+    public List<Language> majorLanguages(WorldDatabase db) {
+        return db.languages.getMajorLanguageReport();
+    }
+}
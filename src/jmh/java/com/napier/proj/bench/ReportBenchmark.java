@@ -0,0 +1,200 @@
+package com.napier.proj.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and throughput of every report print method, for each backend.
+ * <p>
+ * Each benchmark covers the query and the formatting of one report, with the
+ * same arguments {@code App} uses. The output is discarded, so the difference to
+ * the matching {@link DaoBenchmark} is the cost of printing. Run with
+ * {@code -prof gc} to see the allocation per report.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    // *** Country Reports ***
+
+    @Benchmark
+    public void printAllCountries(WorldDatabase db) {
+        db.reports.getCountryReport().printAllCountriesByPopulation();
+    }
+
+    @Benchmark
+    public void printAllCountriesInContinent(WorldDatabase db) {
+        db.reports.getCountryReport().printAllCountriesInContinentByPopulation("Europe");
+    }
+
+    @Benchmark
+    public void printAllCountriesInRegion(WorldDatabase db) {
+        db.reports.getCountryReport().printAllCountriesInRegionByPopulation("Southern and Central Asia");
+    }
+
+    @Benchmark
+    public void printTopCountries(WorldDatabase db) {
+        db.reports.getCountryReport().getTopNPopulatedCountriesIntheworld(10);
+    }
+
+    @Benchmark
+    public void printTopCountriesInContinent(WorldDatabase db) {
+        db.reports.getCountryReport().getTopNPopulatedCountriesInContinent("North America", 10);
+    }
+
+    @Benchmark
+    public void printTopCountriesInRegion(WorldDatabase db) {
+        db.reports.getCountryReport().getTopNPopulatedCountriesInRegion("Middle East", 10);
+    }
+
+    // *** City Reports ***
+
+    @Benchmark
+    public void printAllCities(WorldDatabase db) {
+        db.reports.getCityReport().printAllCitiesInWorldByPopulation();
+    }
+
+    @Benchmark
+    public void printAllCitiesInContinent(WorldDatabase db) {
+        db.reports.getCityReport().printAllCitiesInContinentByPopulation("Asia");
+    }
+
+    @Benchmark
+    public void printAllCitiesInRegion(WorldDatabase db) {
+        db.reports.getCityReport().printAllCitiesInRegionByPopulation("Central Africa");
+    }
+
+    @Benchmark
+    public void printAllCitiesInCountry(WorldDatabase db) {
+        db.reports.getCityReport().printAllCitiesInCountryByPopulation("Argentina");
+    }
+
+    @Benchmark
+    public void printAllCitiesInDistrict(WorldDatabase db) {
+        db.reports.getCityReport().printAllCitiesInDistrictByPopulation("Benguela");
+    }
+
+    @Benchmark
+    public void printTopCities(WorldDatabase db) {
+        db.reports.getCityReport().printTopNPopulatedCitiesInWorld(10);
+    }
+
+    @Benchmark
+    public void printTopCitiesInContinent(WorldDatabase db) {
+        db.reports.getCityReport().printTopNPopulatedCitiesInContinent("Asia", 10);
+    }
+
+    @Benchmark
+    public void printTopCitiesInRegion(WorldDatabase db) {
+        db.reports.getCityReport().printTopNPopulatedCitiesInRegion("Eastern Europe", 10);
+    }
+
+    @Benchmark
+    public void printTopCitiesInCountry(WorldDatabase db) {
+        db.reports.getCityReport().printTopNPopulatedCitiesInCountry("Brazil", 10);
+    }
+
+    @Benchmark
+    public void printTopCitiesInDistrict(WorldDatabase db) {
+        db.reports.getCityReport().printTopNPopulatedCitiesInDistrict("California", 10);
+    }
+
+    // *** Capital Cities Reports ***
+
+    @Benchmark
+    public void printAllCapitals(WorldDatabase db) {
+        db.reports.getCapitalCityReport().printAllCapitalCities();
+    }
+
+    @Benchmark
+    public void printAllCapitalsInContinent(WorldDatabase db) {
+        db.reports.getCapitalCityReport().printAllCapitalCitiesInContinent("Asia");
+    }
+
+    @Benchmark
+    public void printAllCapitalsInRegion(WorldDatabase db) {
+        db.reports.getCapitalCityReport().printAllCapitalCitiesInRegion("Caribbean");
+    }
+
+    @Benchmark
+    public void printTopCapitals(WorldDatabase db) {
+        db.reports.getCapitalCityReport().printTopNPopulatedCapitalCities(10);
+    }
+
+    @Benchmark
+    public void printTopCapitalsInContinent(WorldDatabase db) {
+        db.reports.getCapitalCityReport().printTopNPopulatedCapitalCitiesInContinent("Asia", 10);
+    }
+
+    @Benchmark
+    public void printTopCapitalsInRegion(WorldDatabase db) {
+        db.reports.getCapitalCityReport().printTopNPopulatedCapitalCitiesInRegion("Central Africa", 10);
+    }
+
+    // *** Population Reports ***
+
+    @Benchmark
+    public void printContinentSplit(WorldDatabase db) {
+        db.reports.getPopulationReport().printEachContinentPopulationWithUrbanAndNonUrban();
+    }
+
+    @Benchmark
+    public void printRegionSplit(WorldDatabase db) {
+        db.reports.getPopulationReport().printEachRegionPopulationWithUrbanAndNonUrban();
+    }
+
+    @Benchmark
+    public void printCountrySplit(WorldDatabase db) {
+        db.reports.getPopulationReport().printEachCountryPopulationWithUrbanAndNonUrban();
+    }
+
+    @Benchmark
+    public void printWorldPopulation(WorldDatabase db) {
+        db.reports.getPopulationReport().printWorldPopulation();
+    }
+
+    @Benchmark
+    public void printContinentPopulation(WorldDatabase db) {
+        db.reports.getPopulationReport().printContinentPopulation("Asia");
+    }
+
+    @Benchmark
+    public void printRegionPopulation(WorldDatabase db) {
+        db.reports.getPopulationReport().printRegionPopulation("Central Africa");
+    }
+
+    @Benchmark
+    public void printCountryPopulation(WorldDatabase db) {
+        db.reports.getPopulationReport().printCountryPopulation("Argentina");
+    }
+
+    @Benchmark
+    public void printDistrictPopulation(WorldDatabase db) {
+        db.reports.getPopulationReport().printDistrictPopulation("Benguela");
+    }
+
+    @Benchmark
+    public void printCityPopulation(WorldDatabase db) {
+        db.reports.getPopulationReport().printCityPopulation("Tokyo");
+    }
+
+    // *** Language Reports ***
+
+    @Benchmark
+    public void printMajorLanguages(WorldDatabase db) {
+        db.reports.getLanguageReport().printMajorLanguageReport();
+    }
+}
@@ -0,0 +1,76 @@
+package com.napier.proj.bench;
+
+import com.napier.proj.config.DatabaseConfig;
+import com.napier.proj.dao.Backend;
+import com.napier.proj.dao.CapitalCityQueries;
+import com.napier.proj.dao.CityQueries;
+import com.napier.proj.dao.CountryQueries;
+import com.napier.proj.dao.DaoFactory;
+import com.napier.proj.dao.LanguageQueries;
+import com.napier.proj.dao.PopulationQueries;
+import com.napier.proj.report.ReportSuite;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+
+/**
+ * Benchmark state holding an open connection to the world database, the query
+ * objects of the selected backend and one {@link ReportSuite} over them.
+ * <p>
+ * The database location defaults to the container used by the integration tests
+ * ({@code localhost:33060}) and can be changed with {@code -Dbench.location=host:port}.
+ * Reports print to a stream that discards its output, so the print benchmarks
+ * measure formatting and not the terminal.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+@State(Scope.Benchmark)
+public class WorldDatabase {
+
+    /** Backend the query objects are created for. */
+    @Param({"jdbc", "cached", "snapshot"})
+    public String backend;
+
+    Connection conn;
+    CountryQueries countries;
+    CityQueries cities;
+    CapitalCityQueries capitals;
+    PopulationQueries populations;
+    LanguageQueries languages;
+    ReportSuite reports;
+
+    /**
+     * Opens the database and builds the query objects and reports once per trial.
+     */
+    @Setup(Level.Trial)
+    public void open() {
+        DatabaseConfig.openConnection(System.getProperty("bench.location", "localhost:33060"), 0);
+        conn = DatabaseConfig.getConnection();
+        if (conn == null) {
+            throw new IllegalStateException("Could not connect to the world database");
+        }
+        DaoFactory daos = new DaoFactory(Backend.parse(backend));
+        countries = daos.countryQueries(conn);
+        cities = daos.cityQueries(conn);
+        capitals = daos.capitalCityQueries(conn);
+        populations = daos.populationQueries(conn);
+        languages = daos.languageQueries(conn);
+        reports = new ReportSuite(daos, conn, new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Returns the connection to the pool and shuts the pool down.
+     */
+    @TearDown(Level.Trial)
+    public void close() {
+        DatabaseConfig.closeConnection();
+    }
+}
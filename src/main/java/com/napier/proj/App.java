@@ -1,16 +1,78 @@
 package com.napier.proj;
 
 import com.napier.proj.config.DatabaseConfig;
-import com.napier.proj.dao.*;
+import com.napier.proj.config.SchemaMigrator;
+import com.napier.proj.dao.Backend;
+import com.napier.proj.dao.CityScanBatch;
+import com.napier.proj.dao.DaoFactory;
+import com.napier.proj.dao.IndexAdvisor;
+import com.napier.proj.dao.QueryMetrics;
+import com.napier.proj.dao.ResultCache;
+import com.napier.proj.events.ReportEvent;
+import com.napier.proj.export.ReportExport;
 import com.napier.proj.report.*;
+import com.napier.proj.server.ReportServer;
+import com.napier.proj.snapshot.SnapshotRefresher;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  *  The App class establishes a database connection, initializes all DAO
  *  (Data Access Object) and report classes, and triggers the execution of
  *  every required report for countries, cities, capital cities, populations,
  *  and languages.
+ *  <p>
+ *  Usage: {@code App [location delay] [--backend=jdbc|cached|snapshot]
+ *  [--cache-size=N] [--cache-ttl=SECONDS]
+ *  [--concurrent] [--pool-size=N] [--statement-cache=N] [--format=text|csv|jsonl|markdown]
+ *  [--output=FILE] [--export=DIR] [--serve=PORT] [--refresh=SECONDS] [--migrate] [--check-indexes]}.
+ *  {@code --migrate} applies pending schema migrations (the report indexes) before
+ *  anything else runs, and {@code --check-indexes} explains the report queries and
+ *  exits with status 1 if any of them scans or sorts where an index should be used
+ *  (see {@link IndexAdvisor}). The database is tried at once;
+ *  {@code delay} is the longest wait in milliseconds between connection attempts
+ *  while it is not ready yet. With {@code --concurrent} every report runs
+ *  as its own task on a virtual thread with its own pooled connection and output
+ *  buffer; the buffers are still printed in the usual report order. The backend
+ *  selects where report data comes from: MySQL on every call (the default), MySQL
+ *  behind a result cache, or an in-memory snapshot loaded once at startup. A
+ *  sequential JDBC run answers the top-N city and the capital city reports from
+ *  one scan, while the five all-cities reports still stream their own queries
+ *  (see {@link CityScanBatch}).
+ *  {@code --cache-size} and {@code --cache-ttl} bound the cached backend: the most
+ *  results it keeps (least recently used are evicted first) and how many seconds
+ *  a result is served before it is queried again (0 never expires).
+ *  {@code --statement-cache} sets how many prepared statements each pooled
+ *  connection keeps open (0 disables the cache). {@code --format} selects how the
+ *  report tables are written and {@code --output} writes them to a file instead of
+ *  standard output; progress messages always go to standard output.
+ *  {@code --export} also writes the full country, city, capital city, population
+ *  and language results to that directory in the binary columnar export format.
+ *  {@code --serve=PORT} runs no reports and instead starts a long-running HTTP
+ *  service on that port that answers each report as JSON (see {@link ReportServer}).
+ *  With {@code --refresh} the service checks every that many seconds whether the
+ *  {@code world} tables changed, reloads only the changed tables into the snapshot
+ *  and drops the result cache (see {@link SnapshotRefresher}).
+ *  After the reports, the time, rows, bytes and errors of every query are printed
+ *  (see {@link QueryMetrics}). Run with {@code -XX:StartFlightRecording} to record
+ *  a Flight Recorder event for every report, query and connection lease.
+ *  </p>
  * @author Lin Myat Thu
  * @author Phone Myat Thu
  * @author Min Wanna Hlan
@@ -19,82 +81,423 @@ import java.sql.Connection;
  */
 public class App {
     public static void main(String[] args) {
+        List<String> positional = positionalArgs(args);
+        String poolSize = option(args, "--pool-size");
+        if (poolSize != null) {
+            DatabaseConfig.setPoolSize(Integer.parseInt(poolSize));
+        }
+        String statementCache = option(args, "--statement-cache");
+        if (statementCache != null) {
+            DatabaseConfig.setStatementCacheSize(Integer.parseInt(statementCache));
+        }
 
+        String format = option(args, "--format");
+        ReportFormat reportFormat = format == null ? ReportFormat.TEXT : ReportFormat.parse(format);
+        String output = option(args, "--output");
+        PrintStream out = System.out;
+        if (output != null) {
+            try {
+                out = new PrintStream(new BufferedOutputStream(new FileOutputStream(output)), false,
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.out.println("Failed to open output file " + output + ": " + e.getMessage());
+                return;
+            }
+        }
 
-        if(args.length < 1){
+        if(positional.isEmpty()){
             DatabaseConfig.openConnection("localhost:33060", 30000);
         }
         else{
-            DatabaseConfig.openConnection(args[0], Integer.parseInt(args[1]));
+            DatabaseConfig.openConnection(positional.get(0), Integer.parseInt(positional.get(1)));
         }
-        Connection conn = DatabaseConfig.getConnection();
 
+        if (hasFlag(args, "--migrate")) {
+            try {
+                int applied = new SchemaMigrator(DatabaseConfig.getConnection()).migrate();
+                System.out.println("Schema is up to date, " + applied + " migration(s) applied");
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+                System.out.println("Failed to migrate schema");
+            }
+        }
+        if (hasFlag(args, "--check-indexes")) {
+            List<String> findings = new IndexAdvisor(DatabaseConfig.getConnection()).check();
+            for (String finding : findings) {
+                System.out.println("Index check: " + finding);
+            }
+            System.out.println(findings.isEmpty() ? "Every report query uses its indexes"
+                    : findings.size() + " report queries do not use their indexes");
+            DatabaseConfig.closeConnection();
+            if (!findings.isEmpty()) {
+                System.exit(1);
+            }
+            return;
+        }
 
-        // method call for dao object
-        CountryDAO countryDAO = new CountryDAO(conn);
-        CityDAO cityDAO = new CityDAO(conn);
-        CapitalCityDAO capitalCityDAO = new CapitalCityDAO(conn);
-        PopulationDAO populationDAO = new PopulationDAO(conn);
-        LanguageDAO languageDAO = new LanguageDAO(conn);
+        String backend = option(args, "--backend");
+        String cacheSize = option(args, "--cache-size");
+        String cacheTtl = option(args, "--cache-ttl");
+        ResultCache cache = new ResultCache(
+                cacheSize == null ? ResultCache.DEFAULT_MAX_ENTRIES : Integer.parseInt(cacheSize),
+                cacheTtl == null ? ResultCache.DEFAULT_TTL : Duration.ofSeconds(Long.parseLong(cacheTtl)));
+        DaoFactory daos = new DaoFactory(backend == null ? Backend.JDBC : Backend.parse(backend), cache);
 
-        CountryReport countryReport = new CountryReport(countryDAO);
-        CityReport cityReport = new CityReport(cityDAO);
-        CapitalCityReport  capitalCityReport = new CapitalCityReport(capitalCityDAO);
-        PopulationReport populationReport = new PopulationReport(populationDAO);
-        LanguageReport languageReport = new LanguageReport(languageDAO);
+        String serve = option(args, "--serve");
+        if (serve != null) {
+            String refresh = option(args, "--refresh");
+            serve(daos, Integer.parseInt(serve), refresh == null ? 0 : Integer.parseInt(refresh));
+            return;
+        }
 
+        long start = System.nanoTime();
+        List<Report> reports = reports();
+        if (hasFlag(args, "--concurrent")) {
+            runConcurrently(daos, traced(reports), reportFormat, out);
+        }
+        else {
+            Connection conn = DatabaseConfig.getConnection();
+            ReportSink sink = reportFormat.open(out);
+            ReportSuite suite;
+            if (daos.getBackend() == Backend.JDBC) {
+                CityScanBatch cityScan = planCityScan(conn);
+                suite = new ReportSuite(daos.countryQueries(conn), cityScan, cityScan,
+                        daos.populationQueries(conn), daos.languageQueries(conn), sink);
+                // The scan is traced on its own, since its time is not part of any one report
+                traced("CityScanBatch.execute", cityScan.size() + " queries", s -> cityScan.execute()).accept(suite);
+            }
+            else {
+                suite = new ReportSuite(daos, conn, sink);
+            }
+            for (Report report : reports) {
+                report.traced().accept(suite);
+            }
+        }
+        out.flush();
+        if (out != System.out) {
+            out.close();
+        }
 
-        // *** Country Reports ***
-        countryReport.printAllCountriesByPopulation();
-        countryReport.printAllCountriesInContinentByPopulation("Europe");
-        countryReport.printAllCountriesInRegionByPopulation("Southern and Central Asia");
-        countryReport.getTopNPopulatedCountriesIntheworld(10);
-        countryReport.getTopNPopulatedCountriesInContinent("North America",10);
-        countryReport.getTopNPopulatedCountriesInRegion("Middle East",10);
+        String export = option(args, "--export");
+        if (export != null) {
+            try {
+                ReportExport.exportAll(daos, DatabaseConfig.getConnection(), Path.of(export));
+                System.out.println("Exported report results to " + export);
+            } catch (IOException e) {
+                System.out.println("Failed to export report results: " + e.getMessage());
+            }
+        }
+        System.out.printf("%nReports completed in %d ms using the %s backend%n",
+                (System.nanoTime() - start) / 1_000_000, daos.getBackend());
+        if (daos.getBackend() == Backend.CACHED) {
+            System.out.println("Result cache: " + cache.getSummary());
+        }
+        new QueryMetricsReport(QueryMetrics.global(), new TableWriter(System.out)).printQueryMetrics();
+
+        DatabaseConfig.closeConnection();
 
+    }
 
+    /**
+     * Starts the HTTP report service and keeps it running until the JVM is shut
+     * down, when it stops the server and closes the connection pool.
+     *
+     * @param daos           creates the query objects for each request
+     * @param port           the port to listen on
+     * @param refreshSeconds how often to check the tables for changes, or 0 never to
+     */
+    static void serve(DaoFactory daos, int port, int refreshSeconds) {
+        ReportServer server = new ReportServer(daos, DatabaseConfig::borrowConnection);
+        try {
+            server.start(port);
+        } catch (IOException e) {
+            System.out.println("Failed to start report server on port " + port + ": " + e.getMessage());
+            DatabaseConfig.closeConnection();
+            return;
+        }
+        SnapshotRefresher refresher = new SnapshotRefresher(daos, DatabaseConfig::borrowConnection);
+        if (refreshSeconds > 0) {
+            refresher.start(Duration.ofSeconds(refreshSeconds));
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            refresher.close();
+            server.stop(5);
+            DatabaseConfig.closeConnection();
+        }));
+        System.out.println("Serving reports on http://localhost:" + server.getPort()
+                + "/ using the " + daos.getBackend() + " backend");
+    }
 
-        // *** City Reports ***
-        cityReport.printAllCitiesInWorldByPopulation();
-        cityReport.printAllCitiesInContinentByPopulation("Asia");
-        cityReport.printAllCitiesInRegionByPopulation("Central Africa");
-        cityReport.printAllCitiesInCountryByPopulation("Argentina");
-        cityReport.printAllCitiesInDistrictByPopulation("Benguela");
-        // *** Top N Populated City Reports ***
-        cityReport.printTopNPopulatedCitiesInWorld(10);
-        cityReport.printTopNPopulatedCitiesInContinent("Asia", 10);
-        cityReport.printTopNPopulatedCitiesInRegion("Eastern Europe", 10);
-        cityReport.printTopNPopulatedCitiesInCountry("Brazil", 10);
-        cityReport.printTopNPopulatedCitiesInDistrict("California", 10);
+    /**
+     * Returns every report the application prints, in print order.
+     *
+     * @return one entry per report, untraced; see {@link Report#traced()}
+     */
+    static List<Report> reports() {
+        List<Report> reports = new ArrayList<>();
 
+        // *** Country Reports ***
+        reports.add(new Report("CountryReport.printAllCountriesByPopulation", "",
+                s -> s.getCountryReport().printAllCountriesByPopulation()));
+        reports.add(new Report("CountryReport.printAllCountriesInContinentByPopulation", "Europe",
+                s -> s.getCountryReport().printAllCountriesInContinentByPopulation("Europe")));
+        reports.add(new Report("CountryReport.printAllCountriesInRegionByPopulation", "Southern and Central Asia",
+                s -> s.getCountryReport().printAllCountriesInRegionByPopulation("Southern and Central Asia")));
+        reports.add(new Report("CountryReport.getTopNPopulatedCountriesIntheworld", "10",
+                s -> s.getCountryReport().getTopNPopulatedCountriesIntheworld(10)));
+        reports.add(new Report("CountryReport.getTopNPopulatedCountriesInContinent", "North America, 10",
+                s -> s.getCountryReport().getTopNPopulatedCountriesInContinent("North America",10)));
+        reports.add(new Report("CountryReport.getTopNPopulatedCountriesInRegion", "Middle East, 10",
+                s -> s.getCountryReport().getTopNPopulatedCountriesInRegion("Middle East",10)));
 
+        // *** City Reports ***
+        reports.add(new Report("CityReport.printAllCitiesInWorldByPopulation", "",
+                s -> s.getCityReport().printAllCitiesInWorldByPopulation()));
+        reports.add(new Report("CityReport.printAllCitiesInContinentByPopulation", "Asia",
+                s -> s.getCityReport().printAllCitiesInContinentByPopulation("Asia")));
+        reports.add(new Report("CityReport.printAllCitiesInRegionByPopulation", "Central Africa",
+                s -> s.getCityReport().printAllCitiesInRegionByPopulation("Central Africa")));
+        reports.add(new Report("CityReport.printAllCitiesInCountryByPopulation", "Argentina",
+                s -> s.getCityReport().printAllCitiesInCountryByPopulation("Argentina")));
+        reports.add(new Report("CityReport.printAllCitiesInDistrictByPopulation", "Benguela",
+                s -> s.getCityReport().printAllCitiesInDistrictByPopulation("Benguela")));
+        // *** Top N Populated City Reports ***
+        reports.add(new Report("CityReport.printTopNPopulatedCitiesInWorld", "10",
+                s -> s.getCityReport().printTopNPopulatedCitiesInWorld(10)));
+        reports.add(new Report("CityReport.printTopNPopulatedCitiesInContinent", "Asia, 10",
+                s -> s.getCityReport().printTopNPopulatedCitiesInContinent("Asia", 10)));
+        reports.add(new Report("CityReport.printTopNPopulatedCitiesInRegion", "Eastern Europe, 10",
+                s -> s.getCityReport().printTopNPopulatedCitiesInRegion("Eastern Europe", 10)));
+        reports.add(new Report("CityReport.printTopNPopulatedCitiesInCountry", "Brazil, 10",
+                s -> s.getCityReport().printTopNPopulatedCitiesInCountry("Brazil", 10)));
+        reports.add(new Report("CityReport.printTopNPopulatedCitiesInDistrict", "California, 10",
+                s -> s.getCityReport().printTopNPopulatedCitiesInDistrict("California", 10)));
 
         // *** Capital Cities Reports **
-        capitalCityReport.printAllCapitalCities();
-        capitalCityReport.printAllCapitalCitiesInContinent("Asia");
-        capitalCityReport.printAllCapitalCitiesInRegion("Caribbean");
-        capitalCityReport.printTopNPopulatedCapitalCities(10);
-        capitalCityReport.printTopNPopulatedCapitalCitiesInContinent("Asia", 10);
-        capitalCityReport.printTopNPopulatedCapitalCitiesInRegion("Central Africa", 10);
+        reports.add(new Report("CapitalCityReport.printAllCapitalCities", "",
+                s -> s.getCapitalCityReport().printAllCapitalCities()));
+        reports.add(new Report("CapitalCityReport.printAllCapitalCitiesInContinent", "Asia",
+                s -> s.getCapitalCityReport().printAllCapitalCitiesInContinent("Asia")));
+        reports.add(new Report("CapitalCityReport.printAllCapitalCitiesInRegion", "Caribbean",
+                s -> s.getCapitalCityReport().printAllCapitalCitiesInRegion("Caribbean")));
+        reports.add(new Report("CapitalCityReport.printTopNPopulatedCapitalCities", "10",
+                s -> s.getCapitalCityReport().printTopNPopulatedCapitalCities(10)));
+        reports.add(new Report("CapitalCityReport.printTopNPopulatedCapitalCitiesInContinent", "Asia, 10",
+                s -> s.getCapitalCityReport().printTopNPopulatedCapitalCitiesInContinent("Asia", 10)));
+        reports.add(new Report("CapitalCityReport.printTopNPopulatedCapitalCitiesInRegion", "Central Africa, 10",
+                s -> s.getCapitalCityReport().printTopNPopulatedCapitalCitiesInRegion("Central Africa", 10)));
 
         // *** Population Reports ***
-        populationReport.printEachContinentPopulationWithUrbanAndNonUrban();
-        populationReport.printEachRegionPopulationWithUrbanAndNonUrban();
-        populationReport.printEachCountryPopulationWithUrbanAndNonUrban();
-        populationReport.printWorldPopulation();
-        populationReport.printContinentPopulation("Asia");
-        populationReport.printRegionPopulation("Central Africa");
-        populationReport.printCountryPopulation("Argentina");
-        populationReport.printDistrictPopulation("Benguela");
-        populationReport.printCityPopulation("Tokyo");
+        reports.add(new Report("PopulationReport.printEachContinentPopulationWithUrbanAndNonUrban", "",
+                s -> s.getPopulationReport().printEachContinentPopulationWithUrbanAndNonUrban()));
+        reports.add(new Report("PopulationReport.printEachRegionPopulationWithUrbanAndNonUrban", "",
+                s -> s.getPopulationReport().printEachRegionPopulationWithUrbanAndNonUrban()));
+        reports.add(new Report("PopulationReport.printEachCountryPopulationWithUrbanAndNonUrban", "",
+                s -> s.getPopulationReport().printEachCountryPopulationWithUrbanAndNonUrban()));
+        reports.add(new Report("PopulationReport.printWorldPopulation", "",
+                s -> s.getPopulationReport().printWorldPopulation()));
+        reports.add(new Report("PopulationReport.printContinentPopulation", "Asia",
+                s -> s.getPopulationReport().printContinentPopulation("Asia")));
+        reports.add(new Report("PopulationReport.printRegionPopulation", "Central Africa",
+                s -> s.getPopulationReport().printRegionPopulation("Central Africa")));
+        reports.add(new Report("PopulationReport.printCountryPopulation", "Argentina",
+                s -> s.getPopulationReport().printCountryPopulation("Argentina")));
+        reports.add(new Report("PopulationReport.printDistrictPopulation", "Benguela",
+                s -> s.getPopulationReport().printDistrictPopulation("Benguela")));
+        reports.add(new Report("PopulationReport.printCityPopulation", "Tokyo",
+                s -> s.getPopulationReport().printCityPopulation("Tokyo")));
 
         // *** Language Reports ***
-        languageReport.printMajorLanguageReport();
+        reports.add(new Report("LanguageReport.printMajorLanguageReport", "",
+                s -> s.getLanguageReport().printMajorLanguageReport()));
+
+        return reports;
+    }
+
+    /**
+     * Wraps a report so that, while Flight Recorder is recording, each run emits a
+     * {@link ReportEvent} holding the report's queries and the writing of its rows.
+     *
+     * @param report     the report class and method, e.g. {@code CityReport.printTopNPopulatedCitiesInWorld}
+     * @param parameters the arguments the report is run with
+     * @param run        runs the report
+     * @return the wrapped report
+     */
+    static Consumer<ReportSuite> traced(String report, String parameters, Consumer<ReportSuite> run) {
+        return suite -> {
+            ReportEvent event = new ReportEvent();
+            event.begin();
+            try {
+                run.accept(suite);
+            } finally {
+                if (event.shouldCommit()) {
+                    event.setReport(report);
+                    event.setParameters(parameters);
+                    event.commit();
+                }
+            }
+        };
+    }
 
+    /**
+     * Wraps every report with {@link #traced(String, String, Consumer)}.
+     *
+     * @param reports the reports, in print order
+     * @return the traced reports, in the same order
+     */
+    static List<Consumer<ReportSuite>> traced(List<Report> reports) {
+        List<Consumer<ReportSuite>> traced = new ArrayList<>(reports.size());
+        for (Report report : reports) {
+            traced.add(report.traced());
+        }
+        return traced;
+    }
 
+    /**
+     * One report the application prints, with the name and arguments it is traced under.
+     */
+    static final class Report {
+        private final String name;
+        private final String parameters;
+        private final Consumer<ReportSuite> run;
 
+        Report(String name, String parameters, Consumer<ReportSuite> run) {
+            this.name = name;
+            this.parameters = parameters;
+            this.run = run;
+        }
 
-        DatabaseConfig.closeConnection();
+        /**
+         * Returns the report wrapped so that each run emits a {@link ReportEvent}.
+         *
+         * @return the traced report
+         */
+        Consumer<ReportSuite> traced() {
+            return App.traced(name, parameters, run);
+        }
+    }
+
+    /**
+     * Declares the top-N city and the capital city queries of {@link #reports()}
+     * for one scan of {@code city JOIN country}. The scopes and limits here must
+     * match the report arguments; a report whose query is not declared still
+     * works, but runs its own query. The all-cities reports stream their own
+     * queries and are not part of the scan.
+     *
+     * @param conn the connection the scan runs on
+     * @return the batch, to be executed before the reports are run over it
+     */
+    static CityScanBatch planCityScan(Connection conn) {
+        return new CityScanBatch(conn)
+                .requestCities(CityScanBatch.Scope.WORLD, null, 10)
+                .requestCities(CityScanBatch.Scope.CONTINENT, "Asia", 10)
+                .requestCities(CityScanBatch.Scope.REGION, "Eastern Europe", 10)
+                .requestCities(CityScanBatch.Scope.COUNTRY, "Brazil", 10)
+                .requestCities(CityScanBatch.Scope.DISTRICT, "California", 10)
+                .requestCapitals(CityScanBatch.Scope.WORLD, null, CityScanBatch.ALL)
+                .requestCapitals(CityScanBatch.Scope.CONTINENT, "Asia", CityScanBatch.ALL)
+                .requestCapitals(CityScanBatch.Scope.REGION, "Caribbean", CityScanBatch.ALL)
+                .requestCapitals(CityScanBatch.Scope.WORLD, null, 10)
+                .requestCapitals(CityScanBatch.Scope.CONTINENT, "Asia", 10)
+                .requestCapitals(CityScanBatch.Scope.REGION, "Central Africa", 10);
+    }
+
+    /**
+     * Runs every report as its own task on a virtual thread. Each task leases its
+     * own connection from the pool and writes into its own buffer; the buffers are
+     * copied to the output in report order as soon as each one is ready.
+     *
+     * @param daos    creates the query objects for each task
+     * @param reports the reports to run, in print order
+     * @param format  the format each task writes its report in
+     * @param out     the stream the reports are written to
+     */
+    static void runConcurrently(DaoFactory daos, List<Consumer<ReportSuite>> reports,
+                                ReportFormat format, PrintStream out) {
+        List<Future<byte[]>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Consumer<ReportSuite> report : reports) {
+                results.add(executor.submit(() -> runIsolated(daos, report, format, out)));
+            }
+
+            boolean written = false;
+            for (Future<byte[]> result : results) {
+                try {
+                    byte[] bytes = result.get();
+                    if (bytes.length == 0) {
+                        continue;
+                    }
+                    // Each task's sink starts fresh, so add the gap it would have left between tables
+                    if (written) {
+                        out.print(format.separator());
+                    }
+                    out.writeBytes(bytes);
+                    written = true;
+                } catch (ExecutionException e) {
+                    System.out.println("Report failed: " + e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    System.out.println("Thread interrupted");
+                    return;
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs a single report on a leased connection and returns its written output.
+     */
+    private static byte[] runIsolated(DaoFactory daos, Consumer<ReportSuite> report,
+                                      ReportFormat format, PrintStream target) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, false, target.charset());
+
+        try (Connection conn = DatabaseConfig.borrowConnection()) {
+            report.accept(new ReportSuite(daos, conn, format.open(out)));
+        } catch (SQLException e) {
+            System.out.println("Failed to get a database connection: " + e.getMessage());
+        }
 
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Returns the arguments that are not {@code --} options.
+     */
+    private static List<String> positionalArgs(String[] args) {
+        List<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                positional.add(arg);
+            }
+        }
+        return positional;
+    }
+
+    /**
+     * Returns whether the given flag was passed.
+     */
+    private static boolean hasFlag(String[] args, String flag) {
+        for (String arg : args) {
+            if (arg.equals(flag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value of a {@code --name=value} option, or {@code null} if absent.
+     */
+    private static String option(String[] args, String name) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return null;
     }
 }
@@ -0,0 +1,57 @@
+package com.napier.proj.config;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with jitter for retrying the database connection.
+ * <p>
+ * The first wait is {@code initialMillis}, and each following wait doubles up to
+ * {@code maxMillis}. Every wait is drawn at random from the upper half of its
+ * step ("equal jitter"), so several clients started together do not retry in
+ * lockstep, and a retry never comes sooner than half the planned step.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class Backoff {
+    private final long initialMillis;
+    private final long maxMillis;
+    private final Random random;
+    private long step;
+
+    /**
+     * Creates a backoff policy.
+     *
+     * @param initialMillis the first wait
+     * @param maxMillis     the longest wait
+     * @param random        the source of jitter
+     */
+    public Backoff(long initialMillis, long maxMillis, Random random) {
+        if (initialMillis < 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("Backoff waits must not be negative");
+        }
+        this.initialMillis = Math.min(initialMillis, maxMillis);
+        this.maxMillis = maxMillis;
+        this.random = random;
+        this.step = this.initialMillis;
+    }
+
+    /**
+     * Returns how long to wait before the next attempt and doubles the next step.
+     *
+     * @return the wait in milliseconds, between half the current step and the step
+     */
+    public long nextDelayMillis() {
+        long current = step;
+        step = current >= maxMillis / 2 ? maxMillis : current * 2;
+        long half = current / 2;
+        return half + (long) (random.nextDouble() * (current - half + 1));
+    }
+
+    /**
+     * Starts again from the first wait.
+     */
+    public void reset() {
+        step = initialMillis;
+    }
+}
@@ -0,0 +1,743 @@
+package com.napier.proj.config;
+
+import com.napier.proj.events.ConnectEvent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of physical database connections.
+ * <p>
+ * Callers lease a connection with {@link #borrow()} and hand it back by calling
+ * {@link Connection#close()} on the leased object; the physical connection stays
+ * open and is reused by the next borrower. The pool never holds more than
+ * {@code maxSize} physical connections, validates idle connections before handing
+ * them out, closes connections that have been idle for too long and warns about
+ * leases that are held longer than the leak threshold.
+ * </p>
+ * <p>
+ * A leak warning names the thread that leased the connection. Where it was
+ * leased from is only recorded after {@link #setLeakTraces(boolean)}, as that
+ * captures a stack trace on every lease.
+ * </p>
+ * <p>
+ * Each physical connection keeps a {@link StatementCache}, so a leased
+ * connection's {@code prepareStatement(sql)} reuses a statement prepared by an
+ * earlier lease of the same connection.
+ * </p>
+ * <p>
+ * Pool size, wait times, hit/miss counters and statement cache hit rates are
+ * exposed through getters so the pool can be tuned under load.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Creates new physical connections for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        /**
+         * Opens a new physical connection.
+         *
+         * @return a new open connection
+         * @throws SQLException if the connection cannot be opened
+         */
+        Connection create() throws SQLException;
+    }
+
+    /** Idle connections used within this window are handed out without a validation round trip. */
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /** Timeout in seconds passed to {@link Connection#isValid(int)} when validating on borrow. */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /** Prepared statements kept open per physical connection unless configured otherwise. */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+    /** Whether each lease records its caller for leak warnings. */
+    private volatile boolean leakTraces;
+    private final StatementCache.Stats statementStats = new StatementCache.Stats();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    /** Idle connections, most recently returned first so warm connections are reused. */
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    /** Connections currently leased to callers. */
+    private final Map<PooledConnection, Boolean> leased = new IdentityHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private int total;
+    private boolean closed;
+
+    private long hitCount;
+    private long missCount;
+    private long timeoutCount;
+    private long evictionCount;
+    private long leakCount;
+    private long borrowCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * Creates a pool with the default statement cache size and starts its housekeeping thread.
+     *
+     * @param factory             opens new physical connections
+     * @param maxSize             maximum number of physical connections
+     * @param maxWaitMillis       how long {@link #borrow()} waits for a free connection
+     * @param idleTimeoutMillis   idle connections older than this are closed
+     * @param leakThresholdMillis leases held longer than this are reported as possible leaks,
+     *                            0 to disable leak detection
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis) {
+        this(factory, maxSize, maxWaitMillis, idleTimeoutMillis, leakThresholdMillis,
+                DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a pool and starts its housekeeping thread.
+     *
+     * @param factory             opens new physical connections
+     * @param maxSize             maximum number of physical connections
+     * @param maxWaitMillis       how long {@link #borrow()} waits for a free connection
+     * @param idleTimeoutMillis   idle connections older than this are closed
+     * @param leakThresholdMillis leases held longer than this are reported as possible leaks,
+     *                            0 to disable leak detection
+     * @param statementCacheSize  prepared statements kept open per connection, 0 to disable
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkMillis = leakThresholdMillis > 0
+                ? Math.min(idleTimeoutMillis, leakThresholdMillis) : idleTimeoutMillis;
+        long period = Math.max(1000, checkMillis / 2);
+        housekeeper.scheduleAtFixedRate(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Leases a connection from the pool, opening a new one if the pool is below
+     * its maximum size, or waiting up to the configured wait time otherwise.
+     * <p>
+     * Closing the returned connection returns it to the pool. While Flight
+     * Recorder is recording, every lease emits a {@link ConnectEvent}.
+     * </p>
+     *
+     * @return a leased connection
+     * @throws SQLException if no connection becomes available in time, the pool is
+     *                      closed, or a new connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        ConnectEvent event = new ConnectEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            Connection lease = acquire(event);
+            failed = false;
+            return lease;
+        } finally {
+            if (event.shouldCommit()) {
+                event.setFailed(failed);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Waits for an idle connection or a free slot, then leases it.
+     */
+    private Connection acquire(ConnectEvent event) throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+
+        while (true) {
+            PooledConnection entry;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    entry = idle.pollFirst();
+                    if (entry != null) {
+                        break;
+                    }
+                    if (total < maxSize) {
+                        total++; // reserve the slot, the connection is opened outside the lock
+                        create = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount++;
+                        throw new SQLException("Timed out after " + maxWaitMillis
+                                + " ms waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    available.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                event.setOpened(true);
+                try {
+                    entry = new PooledConnection(factory.create(), statementCacheSize, statementStats);
+                } catch (SQLException | RuntimeException e) {
+                    lock.lock();
+                    try {
+                        total--;
+                        available.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                    throw e;
+                }
+                return lease(entry, start, false);
+            }
+
+            if (isUsable(entry)) {
+                return lease(entry, start, true);
+            }
+            discard(entry);
+        }
+    }
+
+    /**
+     * Enables or disables recording where each connection is leased from, so a
+     * leak warning also names the caller that has not returned it. Has no effect
+     * while leak detection is disabled.
+     *
+     * @param enabled {@code true} to capture the caller on every lease
+     */
+    public void setLeakTraces(boolean enabled) {
+        leakTraces = enabled;
+    }
+
+    /**
+     * Returns the maximum number of physical connections.
+     *
+     * @return the maximum pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of physical connections currently open.
+     *
+     * @return open connections, idle and leased
+     */
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of idle connections waiting to be leased.
+     *
+     * @return idle connections
+     */
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of connections currently leased to callers.
+     *
+     * @return leased connections
+     */
+    public int getActiveConnections() {
+        lock.lock();
+        try {
+            return leased.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many borrows were served by an existing idle connection.
+     *
+     * @return pool hits
+     */
+    public long getHitCount() {
+        lock.lock();
+        try {
+            return hitCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many borrows had to open a new physical connection.
+     *
+     * @return pool misses
+     */
+    public long getMissCount() {
+        lock.lock();
+        try {
+            return missCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many borrows gave up after waiting the maximum wait time.
+     *
+     * @return borrow timeouts
+     */
+    public long getTimeoutCount() {
+        lock.lock();
+        try {
+            return timeoutCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many idle or broken connections have been closed by the pool.
+     *
+     * @return evicted connections
+     */
+    public long getEvictionCount() {
+        lock.lock();
+        try {
+            return evictionCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many leases were reported as possible leaks.
+     *
+     * @return reported leaks
+     */
+    public long getLeakCount() {
+        lock.lock();
+        try {
+            return leakCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the average time a successful borrow spent waiting, in milliseconds.
+     *
+     * @return average wait time
+     */
+    public double getAverageWaitMillis() {
+        lock.lock();
+        try {
+            return borrowCount == 0 ? 0 : totalWaitNanos / (double) borrowCount / 1_000_000;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the longest time a successful borrow spent waiting, in milliseconds.
+     *
+     * @return maximum wait time
+     */
+    public double getMaxWaitMillis() {
+        lock.lock();
+        try {
+            return maxWaitNanos / 1_000_000.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many prepared statements were reused from a connection's statement cache.
+     *
+     * @return statement cache hits
+     */
+    public long getStatementCacheHitCount() {
+        return statementStats.getHitCount();
+    }
+
+    /**
+     * Returns how many prepared statements had to be prepared on the server.
+     *
+     * @return statement cache misses
+     */
+    public long getStatementCacheMissCount() {
+        return statementStats.getMissCount();
+    }
+
+    /**
+     * Returns how many cached statements were closed to stay within the cache size.
+     *
+     * @return evicted statements
+     */
+    public long getStatementCacheEvictionCount() {
+        return statementStats.getEvictionCount();
+    }
+
+    /**
+     * Returns the share of prepared statements served from the statement caches.
+     *
+     * @return hit rate as a percentage between 0 and 100
+     */
+    public double getStatementCacheHitRate() {
+        return statementStats.getHitRate();
+    }
+
+    /**
+     * Returns a one-line summary of the pool statistics.
+     *
+     * @return pool size, usage and wait statistics
+     */
+    public String getSummary() {
+        lock.lock();
+        try {
+            double avgWait = borrowCount == 0 ? 0 : totalWaitNanos / (double) borrowCount / 1_000_000;
+            return String.format("size=%d/%d active=%d idle=%d hits=%d misses=%d timeouts=%d "
+                            + "evictions=%d leaks=%d avgWait=%.2fms maxWait=%.2fms "
+                            + "stmtHits=%d stmtMisses=%d stmtEvictions=%d stmtHitRate=%.1f%%",
+                    total, maxSize, leased.size(), idle.size(), hitCount, missCount, timeoutCount,
+                    evictionCount, leakCount, avgWait, maxWaitNanos / 1_000_000.0,
+                    statementStats.getHitCount(), statementStats.getMissCount(),
+                    statementStats.getEvictionCount(), statementStats.getHitRate());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the pool. Connections still leased
+     * are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection entry : toClose) {
+            closeQuietly(entry);
+        }
+    }
+
+    /**
+     * Registers a lease for the given entry and wraps it in a proxy for the caller.
+     */
+    private Connection lease(PooledConnection entry, long start, boolean hit) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (hit) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            long waited = now - start;
+            borrowCount++;
+            totalWaitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+
+            entry.borrowedAt = now;
+            entry.leakReported = false;
+            entry.borrowThread = Thread.currentThread().getName();
+            entry.borrowTrace = leakThresholdMillis > 0 && leakTraces ? new Throwable() : null;
+            leased.put(entry, Boolean.TRUE);
+        } finally {
+            lock.unlock();
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new Lease(entry));
+    }
+
+    /**
+     * Takes a connection back from a caller and makes it available again.
+     */
+    private void release(PooledConnection entry) {
+        boolean reusable = resetState(entry.physical);
+
+        lock.lock();
+        try {
+            leased.remove(entry);
+            entry.borrowTrace = null;
+            if (reusable && !closed) {
+                entry.lastUsed = System.nanoTime();
+                idle.addFirst(entry);
+                available.signal();
+                return;
+            }
+            total--;
+            if (!closed) {
+                evictionCount++;
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(entry);
+    }
+
+    /**
+     * Closes a connection that failed validation and frees its slot.
+     */
+    private void discard(PooledConnection entry) {
+        lock.lock();
+        try {
+            total--;
+            evictionCount++;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(entry);
+    }
+
+    /**
+     * Validates an idle connection before it is handed out.
+     */
+    private boolean isUsable(PooledConnection entry) {
+        try {
+            if (entry.physical.isClosed()) {
+                return false;
+            }
+            if (System.nanoTime() - entry.lastUsed < VALIDATION_BYPASS_NANOS) {
+                return true;
+            }
+            return entry.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rolls back unfinished work and restores auto-commit so the next borrower
+     * gets a clean connection.
+     */
+    private boolean resetState(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Periodic task: closes connections idle for longer than the idle timeout and
+     * reports leases held longer than the leak threshold.
+     */
+    private void houseKeep() {
+        List<PooledConnection> expired = new ArrayList<>();
+        List<PooledConnection> leaks = new ArrayList<>();
+        long now = System.nanoTime();
+
+        lock.lock();
+        try {
+            long idleLimit = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+            Iterator<PooledConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                PooledConnection entry = it.next();
+                if (now - entry.lastUsed > idleLimit) {
+                    it.remove();
+                    total--;
+                    evictionCount++;
+                    expired.add(entry);
+                }
+            }
+
+            long leakLimit = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+            for (PooledConnection entry : leased.keySet()) {
+                if (leakThresholdMillis > 0 && !entry.leakReported && now - entry.borrowedAt > leakLimit) {
+                    entry.leakReported = true;
+                    leakCount++;
+                    leaks.add(entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledConnection entry : expired) {
+            closeQuietly(entry);
+        }
+        for (PooledConnection entry : leaks) {
+            System.out.println("Possible connection leak: connection leased by " + entry.borrowThread
+                    + " held for more than " + leakThresholdMillis + " ms");
+            StackTraceElement caller = caller(entry.borrowTrace);
+            if (caller != null) {
+                System.out.println("Connection leased at " + caller);
+            }
+        }
+    }
+
+    /**
+     * Returns the first frame of a lease trace outside the pool, or {@code null}
+     * if the lease was not traced.
+     */
+    private static StackTraceElement caller(Throwable trace) {
+        if (trace == null) {
+            return null;
+        }
+        for (StackTraceElement frame : trace.getStackTrace()) {
+            if (!frame.getClassName().startsWith(ConnectionPool.class.getName())) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private static void closeQuietly(PooledConnection entry) {
+        if (entry.statements != null) {
+            entry.statements.close();
+        }
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A physical connection together with its pool bookkeeping.
+     */
+    private static final class PooledConnection {
+        private final Connection physical;
+        /** Statements prepared on this connection, or {@code null} if caching is disabled. */
+        private final StatementCache statements;
+        private long lastUsed = System.nanoTime();
+        private long borrowedAt;
+        private boolean leakReported;
+        /** Thread that holds the lease. */
+        private String borrowThread;
+        /** Where the lease was taken, or {@code null} unless leak traces are enabled. */
+        private Throwable borrowTrace;
+
+        private PooledConnection(Connection physical, int statementCacheSize, StatementCache.Stats stats) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, stats)
+                    : null;
+        }
+    }
+
+    /**
+     * The connection handed to a caller for one lease. Closing it returns the
+     * physical connection to the pool; any other use after that fails.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection entry;
+        private boolean returned;
+
+        private Lease(PooledConnection entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + (returned ? ", returned]" : "]");
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (entry.statements != null && args != null && args.length == 1
+                    && method.getName().equals("prepareStatement")) {
+                return entry.statements.prepare((String) args[0], (Connection) proxy);
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.napier.proj.config;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Random;
 
 /**
  * Handles the configuration and management of the database connection.
@@ -12,6 +16,12 @@ import java.sql.SQLException;
  * temporary connection failures, making it suitable for containerized environments
  * like Docker where the database may take time to start.
  * </p>
+ * <p>
+ * Connections are served from a bounded {@link ConnectionPool}. {@link #getConnection()}
+ * keeps returning the primary connection leased when the database was opened, while
+ * {@link #borrowConnection()} leases additional connections so several DAOs can
+ * query the database at once.
+ * </p>
  *
  * @author
  *     Phone Myat Thu
@@ -19,6 +29,26 @@ import java.sql.SQLException;
 public class DatabaseConfig {
     /** The active database connection instance. */
     private static Connection conn;
+
+    /** The pool every connection is leased from. */
+    private static ConnectionPool pool;
+
+    /** Maximum number of physical connections held by the pool. */
+    private static int poolSize = 8;
+    /** How long a borrower waits for a free connection before giving up. */
+    private static long poolMaxWaitMillis = 30000;
+    /** Idle connections older than this are closed by the pool. */
+    private static long poolIdleTimeoutMillis = 600000;
+    /** Leases held longer than this are reported as possible leaks. */
+    private static long poolLeakThresholdMillis = 60000;
+    /** Prepared statements kept open per pooled connection, 0 to disable the cache. */
+    private static int statementCacheSize = ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE;
+    /** First wait after a failed connection attempt; later waits grow exponentially. */
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    /** How long the readiness probe waits for a TCP connection. */
+    private static final int PROBE_TIMEOUT_MILLIS = 1000;
+    /** Whether to probe the server with a plain TCP connect before each JDBC attempt. */
+    private static boolean readinessProbe = true;
     
     private static String ip = "db";
     private static String port = "3306";
@@ -29,40 +59,106 @@ public class DatabaseConfig {
     /**
      * Opens a connection to the MySQL database.
      * <p>
-     * The method attempts to connect multiple times (up to 10 retries),
-     * waiting 5 seconds between each attempt. This is useful in cases
-     * where the database container or server is not immediately ready.
+     * The first attempt is made straight away. While the database is not ready,
+     * the method backs off exponentially with jitter, starting at
+     * {@value #INITIAL_BACKOFF_MILLIS} ms and never waiting longer than
+     * {@code delay} between attempts. It gives up once it has made at least 10
+     * attempts and spent {@code 10 * delay} ms trying, the same budget the fixed
+     * wait used to allow. Before each JDBC attempt a TCP readiness probe checks
+     * that the server accepts connections at all, so a database that is still
+     * starting costs a cheap socket connect instead of a driver handshake.
      * </p>
+     *
+     * @param location the database {@code host:port}
+     * @param delay    the longest wait between two attempts, in milliseconds
      */
     public static void openConnection(String location, int delay) {
-        int retries = 10; // maximum number of retries
+        int retries = 10; // minimum number of attempts
+        long start = System.nanoTime();
+        long budgetNanos = retries * (long) delay * 1_000_000;
+        Backoff backoff = new Backoff(INITIAL_BACKOFF_MILLIS, delay, new Random());
 
-        // Attempt to connect multiple times
-        for (int i = 0; i < retries; i++) {
+        // Attempt to connect until connected or out of attempts and time
+        for (int i = 0; ; i++) {
             System.out.println("Connecting to database...");
             try {
                 // Only attempt connection if no active connection exists
-                if(conn == null || conn.isClosed()){
-                    // Wait 5 seconds before retrying (gives time for DB to initialize)
-                    Thread.sleep(delay);
-
-                    // Establish a connection to the database using JDBC
-                    conn = DriverManager.getConnection("jdbc:mysql://" + location + "/" + dbname +
-                            "?useSSL=false&allowPublicKeyRetrieval=true", username, password);
-                    System.out.println("Connected to database successfully");
-                    break; // stop retrying once connected
+                if (conn != null && !conn.isClosed()) {
+                    break;
+                }
+                if (readinessProbe && !isReachable(location, PROBE_TIMEOUT_MILLIS)) {
+                    throw new SQLException("Database at " + location + " is not accepting connections yet");
                 }
+
+                // Create the pool once, then lease the primary connection from it
+                if (pool == null) {
+                    // Server-side prepared statements, kept open by the pool's per-connection
+                    // statement cache alone so its hit rate covers every reuse
+                    String url = "jdbc:mysql://" + location + "/" + dbname +
+                            "?useSSL=false&allowPublicKeyRetrieval=true" +
+                            "&useServerPrepStmts=true";
+                    pool = new ConnectionPool(() -> DriverManager.getConnection(url, username, password),
+                            poolSize, poolMaxWaitMillis, poolIdleTimeoutMillis, poolLeakThresholdMillis,
+                            statementCacheSize);
+                }
+                conn = pool.borrow();
+                System.out.println("Connected to database successfully in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+                break; // stop retrying once connected
             } catch (SQLException e) {
                 // Handle SQL exceptions (e.g., database not ready or incorrect credentials)
                 System.out.println("Failed to connect to database " + Integer.toString(i));
                 System.out.println(e.getMessage());
+            }
 
-            } catch (InterruptedException e){
+            if (i + 1 >= retries && System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+            try {
+                // Back off before retrying (gives time for DB to initialize)
+                Thread.sleep(backoff.nextDelayMillis());
+            } catch (InterruptedException e) {
                 System.out.println("Thread interrupted");
+                Thread.currentThread().interrupt();
+                break;
             }
         }
     }
 
+    /**
+     * Checks whether a server accepts TCP connections at the given location.
+     *
+     * @param location      the {@code host:port}, where the port defaults to 3306
+     * @param timeoutMillis how long to wait for the connection
+     * @return {@code true} if a connection could be opened
+     */
+    public static boolean isReachable(String location, int timeoutMillis) {
+        int colon = location.lastIndexOf(':');
+        String host = colon < 0 ? location : location.substring(0, colon);
+        int portNumber;
+        try {
+            portNumber = colon < 0 ? 3306 : Integer.parseInt(location.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            // Let the driver report the malformed location
+            return true;
+        }
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, portNumber), timeoutMillis);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Enables or disables the TCP readiness probe made before each connection attempt.
+     *
+     * @param enabled {@code false} to go straight to the JDBC driver
+     */
+    public static void setReadinessProbe(boolean enabled) {
+        readinessProbe = enabled;
+    }
+
     /**
      * Returns the active database connection instance.
      *
@@ -72,20 +168,79 @@ public class DatabaseConfig {
         return conn;
     }
 
+    /**
+     * Leases an additional connection from the pool.
+     * <p>
+     * The caller must close the returned connection, which hands it back to the
+     * pool rather than closing the physical connection.
+     * </p>
+     *
+     * @return a leased {@link Connection}
+     * @throws SQLException if the database has not been opened or no connection is available in time
+     */
+    public static Connection borrowConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Database connection has not been opened");
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Returns the connection pool backing this configuration.
+     *
+     * @return the {@link ConnectionPool}, or {@code null} if not connected
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections. Takes effect the next time
+     * the database is opened.
+     *
+     * @param size the maximum pool size, at least 1
+     */
+    public static void setPoolSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        poolSize = size;
+    }
+
+    /**
+     * Sets how many prepared statements each pooled connection keeps open. Takes
+     * effect the next time the database is opened.
+     *
+     * @param size the statement cache size per connection, 0 to disable caching
+     */
+    public static void setStatementCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative");
+        }
+        statementCacheSize = size;
+    }
+
     /**
      * Closes the active database connection if it exists.
      * <p>
      * Ensures that resources are released properly to prevent memory leaks
-     * or connection pool exhaustion.
+     * or connection pool exhaustion. The pool statistics are printed before
+     * the pool is shut down.
      * </p>
      */
     public static void closeConnection() {
         if(conn != null){
             try {
-                conn.close();// close the connection safely
+                conn.close();// return the primary connection to the pool
             } catch (SQLException e) {
                 System.out.println("Error closing connection to database");
             }
+            conn = null;
+        }
+        if (pool != null) {
+            System.out.println("Connection pool: " + pool.getSummary());
+            pool.close();
+            pool = null;
         }
     }
 
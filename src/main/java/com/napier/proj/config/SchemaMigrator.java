@@ -0,0 +1,184 @@
+package com.napier.proj.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the versioned schema migrations in {@code db/migration} to the
+ * {@code world} database.
+ * <p>
+ * Each migration is a SQL script on the classpath named
+ * {@code V<version>__<description>.sql}, listed in {@link #MIGRATIONS}. Applied
+ * versions are recorded in a {@code schema_version} table, so every migration
+ * runs once per database, in version order. MySQL commits DDL as it runs, so a
+ * migration that fails part way is not rolled back. Its version is not recorded,
+ * and on the next run its statements are applied again, skipping indexes that
+ * already exist.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class SchemaMigrator {
+    /** The migration scripts under {@code db/migration}, in version order. */
+    static final String[] MIGRATIONS = {
+            "V1__report_indexes.sql"
+    };
+
+    /** MySQL error code for an index name that already exists. */
+    private static final int DUPLICATE_KEY_NAME = 1061;
+
+    private static final String CREATE_VERSION_TABLE_SQL =
+            "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INT NOT NULL PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+            "execution_ms INT NOT NULL)";
+
+    private static final String CURRENT_VERSION_SQL =
+            "SELECT COALESCE(MAX(version), 0) AS version FROM schema_version";
+
+    private static final String RECORD_VERSION_SQL =
+            "INSERT INTO schema_version (version, description, execution_ms) VALUES (?, ?, ?)";
+
+    private final Connection con;
+
+    /**
+     * Creates a migrator for the given database connection.
+     *
+     * @param con the connection the migrations are applied through
+     */
+    public SchemaMigrator(Connection con) {
+        this.con = con;
+    }
+
+    /**
+     * Applies every migration newer than the database's current version.
+     *
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails; earlier migrations stay applied
+     */
+    public int migrate() throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute(CREATE_VERSION_TABLE_SQL);
+        }
+        int current = currentVersion();
+        int applied = 0;
+        for (String script : MIGRATIONS) {
+            int version = version(script);
+            if (version <= current) {
+                continue;
+            }
+            long start = System.nanoTime();
+            for (String sql : statements(load(script))) {
+                try (Statement stmt = con.createStatement()) {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != DUPLICATE_KEY_NAME) {
+                        throw new SQLException("Migration " + script + " failed: " + e.getMessage(), e);
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = con.prepareStatement(RECORD_VERSION_SQL)) {
+                pstmt.setInt(1, version);
+                pstmt.setString(2, description(script));
+                pstmt.setInt(3, (int) ((System.nanoTime() - start) / 1_000_000));
+                pstmt.executeUpdate();
+            }
+            System.out.println("Applied schema migration " + script);
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Returns the newest migration version applied to the database.
+     *
+     * @return the schema version, or 0 if no migration has been applied
+     * @throws SQLException if the version table cannot be read
+     */
+    public int currentVersion() throws SQLException {
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(CURRENT_VERSION_SQL)) {
+            return rs.next() ? rs.getInt("version") : 0;
+        }
+    }
+
+    /**
+     * Returns the version of a migration script, from its {@code V<version>__} prefix.
+     *
+     * @param script the script file name
+     * @return the version number
+     */
+    static int version(String script) {
+        int separator = script.indexOf("__");
+        if (!script.startsWith("V") || separator < 2) {
+            throw new IllegalArgumentException("Migration " + script + " is not named V<version>__<description>.sql");
+        }
+        return Integer.parseInt(script.substring(1, separator));
+    }
+
+    /**
+     * Returns the description of a migration script, from the rest of its name.
+     */
+    private static String description(String script) {
+        String name = script.substring(script.indexOf("__") + 2);
+        if (name.endsWith(".sql")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return name.replace('_', ' ');
+    }
+
+    /**
+     * Reads a migration script from the classpath.
+     */
+    private static String load(String script) throws SQLException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream("/db/migration/" + script)) {
+            if (in == null) {
+                throw new SQLException("Migration " + script + " is missing from the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Migration " + script + " could not be read: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits a script into statements, dropping {@code --} comment lines. A
+     * statement ends with a semicolon at the end of a line.
+     *
+     * @param script the script text
+     * @return the statements, without their semicolons
+     */
+    static List<String> statements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        for (String line : script.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (statement.length() > 0) {
+                statement.append(' ');
+            }
+            if (trimmed.endsWith(";")) {
+                statement.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(statement.toString().trim());
+                statement.setLength(0);
+            } else {
+                statement.append(trimmed);
+            }
+        }
+        if (statement.length() > 0) {
+            statements.add(statement.toString().trim());
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,275 @@
+package com.napier.proj.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the prepared statements of one physical connection open between uses,
+ * keyed by their SQL.
+ * <p>
+ * {@link #prepare(String, Connection)} hands out a statement whose {@code close()}
+ * clears its parameters, puts back the default fetch size, row limits and query
+ * timeout if the caller changed them, and keeps it for the next call with the
+ * same SQL, so a DAO query that runs many times is prepared on the server once
+ * per connection.
+ * The cache holds at most {@code maxStatements} statements and closes the least
+ * recently used one when it is full. If a statement is still in use when the
+ * same SQL is prepared again, the second caller gets a plain uncached statement.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class StatementCache {
+
+    /**
+     * Hit, miss and eviction counters, shared by every cache of one pool.
+     */
+    public static final class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        /**
+         * Returns how many prepares reused a cached statement.
+         *
+         * @return cache hits
+         */
+        public long getHitCount() {
+            return hits.sum();
+        }
+
+        /**
+         * Returns how many prepares had to create a new statement.
+         *
+         * @return cache misses
+         */
+        public long getMissCount() {
+            return misses.sum();
+        }
+
+        /**
+         * Returns how many cached statements were closed to make room.
+         *
+         * @return evicted statements
+         */
+        public long getEvictionCount() {
+            return evictions.sum();
+        }
+
+        /**
+         * Returns the share of prepares served from the cache, as a percentage.
+         *
+         * @return hit rate between 0 and 100
+         */
+        public double getHitRate() {
+            long hit = hits.sum();
+            long total = hit + misses.sum();
+            return total == 0 ? 0 : hit * 100.0 / total;
+        }
+    }
+
+    /** Statement settings a caller may change, which are reset before the next caller. */
+    private static final Set<String> SETTINGS = Set.of("setFetchSize", "setFetchDirection", "setMaxRows",
+            "setLargeMaxRows", "setMaxFieldSize", "setQueryTimeout");
+
+    private final Connection physical;
+    private final int maxStatements;
+    private final Stats stats;
+    /** Cached statements in access order, least recently used first. */
+    private final LinkedHashMap<String, Entry> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates an empty cache for one physical connection.
+     *
+     * @param physical      the connection statements are prepared on
+     * @param maxStatements the most statements kept open at once
+     * @param stats         the counters this cache records into
+     */
+    public StatementCache(Connection physical, int maxStatements, Stats stats) {
+        this.physical = physical;
+        this.maxStatements = maxStatements;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one if it
+     * is free. Closing the returned statement gives it back to the cache.
+     *
+     * @param sql   the SQL to prepare
+     * @param owner the connection reported by {@link PreparedStatement#getConnection()}
+     * @return a prepared statement for {@code sql}
+     * @throws SQLException if a new statement cannot be prepared
+     */
+    public synchronized PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        Entry entry = statements.get(sql);
+        if (entry != null) {
+            if (entry.inUse) {
+                stats.misses.increment();
+                return physical.prepareStatement(sql);
+            }
+            stats.hits.increment();
+        } else {
+            stats.misses.increment();
+            entry = new Entry(physical.prepareStatement(sql));
+            statements.put(sql, entry);
+            evictOverflow();
+        }
+        entry.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new Handle(entry, owner));
+    }
+
+    /**
+     * Returns the number of statements currently cached.
+     *
+     * @return cached statements
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes every cached statement. Called when the physical connection is closed.
+     */
+    public synchronized void close() {
+        for (Entry entry : statements.values()) {
+            entry.evicted = true;
+            if (!entry.inUse) {
+                closeQuietly(entry.statement);
+            }
+        }
+        statements.clear();
+    }
+
+    /**
+     * Closes least recently used statements that are not in use until the cache fits.
+     */
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = statements.entrySet().iterator();
+        while (statements.size() > maxStatements && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.inUse) {
+                continue;
+            }
+            it.remove();
+            entry.evicted = true;
+            stats.evictions.increment();
+            closeQuietly(entry.statement);
+        }
+    }
+
+    /**
+     * Takes a statement back from a caller.
+     */
+    private synchronized void release(Entry entry) {
+        entry.inUse = false;
+        try {
+            entry.statement.clearParameters();
+            if (entry.changed) {
+                resetSettings(entry.statement);
+                entry.changed = false;
+            }
+        } catch (SQLException e) {
+            entry.evicted = true;
+            statements.values().remove(entry);
+        }
+        if (entry.evicted) {
+            closeQuietly(entry.statement);
+        }
+    }
+
+    /**
+     * Puts the settings in {@link #SETTINGS} back to their JDBC defaults.
+     */
+    private static void resetSettings(PreparedStatement statement) throws SQLException {
+        statement.setFetchSize(0);
+        statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+        statement.setMaxRows(0);
+        statement.setMaxFieldSize(0);
+        statement.setQueryTimeout(0);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A cached statement and whether a caller currently holds it.
+     */
+    private static final class Entry {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+        /** Whether the current caller changed one of the {@link #SETTINGS}. */
+        private boolean changed;
+
+        private Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * The statement handed to a caller. Closing it returns the statement to the
+     * cache; any other use after that fails.
+     */
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private boolean returned;
+
+        private Handle(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.statement + (returned ? ", returned]" : "]");
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Statement has already been returned to the cache");
+            }
+            if (SETTINGS.contains(method.getName())) {
+                entry.changed = true;
+            }
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
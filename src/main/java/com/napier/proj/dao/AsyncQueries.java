@@ -0,0 +1,174 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.config.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Asynchronous facade over the DAO query interfaces.
+ * <p>
+ * Every query runs as its own task on a virtual thread, leases its own
+ * connection for the duration of the query and completes a
+ * {@link CompletableFuture} with the result, so callers can start many scoped
+ * queries at once and combine the results without blocking a thread per query:
+ * </p>
+ * <pre>
+ * CompletableFuture&lt;Map&lt;String, List&lt;City&gt;&gt;&gt; top = async.fanOut(continents,
+ *         (cities, continent) -&gt; cities.getTopNPopulatedCitiesInContinent(continent, 10));
+ * </pre>
+ * <p>
+ * At most {@code maxConcurrency} queries hold a connection at a time, which should
+ * not exceed the pool size; the rest wait on a virtual thread without tying up
+ * a platform thread. Queries are created by the given {@link DaoFactory}, so the
+ * cached and snapshot backends are used as usual. As with the blocking DAOs, a
+ * query that fails returns an empty list; a future only completes exceptionally,
+ * with a {@link CompletionException}, if no connection could be leased or the
+ * query itself threw.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class AsyncQueries implements AutoCloseable {
+    private final DaoFactory daos;
+    private final ConnectionPool.ConnectionFactory connections;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates a facade that runs its queries over the given connections.
+     *
+     * @param daos           creates the query objects for each task
+     * @param connections    leases a connection for each task; it is closed when the task ends
+     * @param maxConcurrency the most queries that hold a connection at the same time
+     */
+    public AsyncQueries(DaoFactory daos, ConnectionPool.ConnectionFactory connections, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.daos = daos;
+        this.connections = connections;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Runs a country query asynchronously.
+     *
+     * @param query the query to run, e.g. {@code q -> q.getAllCountriesInRegionByPopulation("Caribbean")}
+     * @param <T>   the result type
+     * @return the future result
+     */
+    public <T> CompletableFuture<T> countries(Function<? super CountryQueries, ? extends T> query) {
+        return submit(daos::countryQueries, query);
+    }
+
+    /**
+     * Runs a city query asynchronously.
+     *
+     * @param query the query to run
+     * @param <T>   the result type
+     * @return the future result
+     */
+    public <T> CompletableFuture<T> cities(Function<? super CityQueries, ? extends T> query) {
+        return submit(daos::cityQueries, query);
+    }
+
+    /**
+     * Runs a capital city query asynchronously.
+     *
+     * @param query the query to run
+     * @param <T>   the result type
+     * @return the future result
+     */
+    public <T> CompletableFuture<T> capitalCities(Function<? super CapitalCityQueries, ? extends T> query) {
+        return submit(daos::capitalCityQueries, query);
+    }
+
+    /**
+     * Runs a population query asynchronously.
+     *
+     * @param query the query to run, e.g. {@code q -> q.getCountryPopulation("Argentina")}
+     * @param <T>   the result type
+     * @return the future result
+     */
+    public <T> CompletableFuture<T> population(Function<? super PopulationQueries, ? extends T> query) {
+        return submit(daos::populationQueries, query);
+    }
+
+    /**
+     * Runs a language query asynchronously.
+     *
+     * @param query the query to run
+     * @param <T>   the result type
+     * @return the future result
+     */
+    public <T> CompletableFuture<T> languages(Function<? super LanguageQueries, ? extends T> query) {
+        return submit(daos::languageQueries, query);
+    }
+
+    /**
+     * Runs one city query per key at the same time and collects the results by key.
+     *
+     * @param keys  the scopes to query, e.g. the continent names
+     * @param query runs the query for one key
+     * @param <K>   the key type
+     * @param <T>   the result type
+     * @return the results in the order of {@code keys}, once every query has finished
+     */
+    public <K, T> CompletableFuture<Map<K, T>> fanOut(Collection<K> keys,
+                                                       BiFunction<? super CityQueries, ? super K, ? extends T> query) {
+        List<K> order = new ArrayList<>(keys);
+        List<CompletableFuture<T>> futures = new ArrayList<>(order.size());
+        for (K key : order) {
+            futures.add(cities(q -> query.apply(q, key)));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<K, T> results = new LinkedHashMap<>();
+            for (int i = 0; i < order.size(); i++) {
+                results.put(order.get(i), futures.get(i).join());
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Stops accepting queries and waits for the running ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Runs a query on a leased connection once a permit is free.
+     */
+    private <Q, T> CompletableFuture<T> submit(Function<Connection, Q> queries, Function<? super Q, ? extends T> query) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try (Connection conn = connections.create()) {
+                return query.apply(queries.apply(conn));
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+}
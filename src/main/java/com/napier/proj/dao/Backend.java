@@ -0,0 +1,28 @@
+package com.napier.proj.dao;
+
+import java.util.Locale;
+
+/**
+ * The data backends the reports can run against.
+ *
+ * @author Phone Myat Thu
+ */
+public enum Backend {
+    /** Every report query is sent to MySQL through the JDBC DAOs. */
+    JDBC,
+    /** JDBC DAOs behind a result cache, so repeated identical queries are answered from memory. */
+    CACHED,
+    /** An in-memory snapshot of the world tables, loaded once and queried without SQL. */
+    SNAPSHOT;
+
+    /**
+     * Parses a backend name, ignoring case.
+     *
+     * @param name the backend name, e.g. {@code "snapshot"}
+     * @return the matching backend
+     * @throws IllegalArgumentException if the name is not a known backend
+     */
+    public static Backend parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,93 @@
+package com.napier.proj.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caching decorator for the DAO query interfaces.
+ * <p>
+ * Results are keyed by method name and arguments and shared by every decorator
+ * that uses the same {@link ResultCache}, so identical queries issued through
+ * different connections are answered once until the result expires or is
+ * evicted. Empty results are not cached, because the JDBC DAOs also return an
+ * empty list or map when a query fails. Methods that return anything else, such
+ * as the {@code stream} methods, go straight to the DAO.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class CachingQueries implements InvocationHandler {
+    private final Object target;
+    private final ResultCache cache;
+
+    private CachingQueries(Object target, ResultCache cache) {
+        this.target = target;
+        this.cache = cache;
+    }
+
+    /**
+     * Wraps a DAO so its results are cached in the given store.
+     *
+     * @param type   the query interface to expose
+     * @param target the DAO to delegate cache misses to
+     * @param cache  the shared result store
+     * @param <T>    the query interface type
+     * @return a caching view of {@code target}
+     */
+    public static <T> T wrap(Class<T> type, T target, ResultCache cache) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new CachingQueries(target, cache)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Class<?> returnType = method.getReturnType();
+        if (method.getDeclaringClass() == Object.class || returnType != List.class && returnType != Map.class) {
+            // Only list and grouped results are cached; streamed rows go to the caller's sink
+            return invokeTarget(method, args);
+        }
+
+        List<Object> key = new ArrayList<>(1 + (args == null ? 0 : args.length));
+        key.add(method.getName());
+        if (args != null) {
+            for (Object arg : args) {
+                // Copy list arguments so a caller changing its list cannot change the key
+                key.add(arg instanceof List<?> values ? new ArrayList<>(values) : arg);
+            }
+        }
+
+        List<?> cached = cache.get(key);
+        if (cached != null) {
+            // Grouped results are stored as the single element of a list
+            return returnType == Map.class ? cached.get(0) : cached;
+        }
+        long generation = cache.generation();
+        Object result = invokeTarget(method, args);
+        if (result instanceof List<?> list && !list.isEmpty()) {
+            List<?> stored = Collections.unmodifiableList(new ArrayList<>(list));
+            cache.put(key, stored, generation);
+            return stored;
+        }
+        if (result instanceof Map<?, ?> groups && !groups.isEmpty()) {
+            Map<?, ?> stored = Collections.unmodifiableMap(new LinkedHashMap<>(groups));
+            cache.put(key, List.of(stored), generation);
+            return stored;
+        }
+        return result;
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
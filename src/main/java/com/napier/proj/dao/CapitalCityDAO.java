@@ -1,11 +1,8 @@
 package com.napier.proj.dao;
 
 import com.napier.proj.model.CapitalCity;
-import com.napier.proj.model.Population;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,10 +15,34 @@ import java.util.List;
  *
  * @author Phone Myat Thu
  */
-public class CapitalCityDAO {
+public class CapitalCityDAO implements CapitalCityQueries {
 
-    /** Database connection object used for executing SQL queries */
-    private Connection con;
+    /** Runs the SQL queries over the database connection */
+    private QueryExecutor query;
+
+    /** Selects each capital city with its country name; a scope filter and ordering are appended. */
+    private static final String CAPITAL_SELECT =
+            "SELECT city.Name AS CapitalCity, country.Name AS Country, city.Population " +
+            "FROM city " +
+            "JOIN country ON city.ID = country.Capital ";
+
+    static final String ALL_CAPITALS_SQL =
+            CAPITAL_SELECT + "ORDER BY city.Population DESC";
+
+    static final String ALL_CAPITALS_IN_CONTINENT_SQL =
+            CAPITAL_SELECT + "WHERE country.Continent = ? ORDER BY city.Population DESC";
+
+    static final String ALL_CAPITALS_IN_REGION_SQL =
+            CAPITAL_SELECT + "WHERE country.Region = ? ORDER BY city.Population DESC";
+
+    static final String TOP_CAPITALS_SQL =
+            CAPITAL_SELECT + "ORDER BY city.Population DESC LIMIT ?";
+
+    static final String TOP_CAPITALS_IN_CONTINENT_SQL =
+            CAPITAL_SELECT + "WHERE country.Continent = ? ORDER BY city.Population DESC LIMIT ?";
+
+    static final String TOP_CAPITALS_IN_REGION_SQL =
+            CAPITAL_SELECT + "WHERE country.Region = ? ORDER BY city.Population DESC LIMIT ?";
 
     /**
      * Constructs a CapitalCityDAO instance with the given database connection.
@@ -29,7 +50,7 @@ public class CapitalCityDAO {
      * @param con The active database connection.
      */
     public CapitalCityDAO(Connection con) {
-        this.con = con;
+        this.query = new QueryExecutor(con);
     }
 
     /**
@@ -38,34 +59,15 @@ public class CapitalCityDAO {
      * @return A list of capital cities sorted by population.
      */
     public List<CapitalCity> getAllCapitalCities() {
-        List<CapitalCity> capitalCities = new ArrayList<>();
-
-        String sql = "SELECT city.Name AS CapitalCity, country.Name AS Country, city.Population " +
-                "FROM city " +
-                "JOIN country ON city.ID = country.Capital " +
-                "ORDER BY city.Population DESC ";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                CapitalCity capitalCity = new CapitalCity();
-                capitalCity.setName(rs.getString("CapitalCity"));
-                capitalCity.setCountry(rs.getString("Country"));
-                capitalCity.setPopulation(rs.getLong("Population"));
-                capitalCities.add(capitalCity);
-            }
-        }
-        catch (Exception e) {
+        try {
+            return query.query(ALL_CAPITALS_SQL, RowMappers.CAPITAL_CITY);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get capital cities");
+            return new ArrayList<>();
         }
-
-        return capitalCities;
     }
 
-
     /**
      * Retrieves all capital cities in a specific continent ordered by population from largest to smallest.
      *
@@ -73,37 +75,15 @@ public class CapitalCityDAO {
      * @return A list of capital cities within the specified continent.
      */
     public List<CapitalCity> getAllCapitalCitiesInContinent(String continent) {
-        List<CapitalCity> capitalCities = new ArrayList<>();
-
-        String sql = "SELECT city.Name AS CapitalCity, country.Name AS Country, city.Population " +
-                "FROM city " +
-                "JOIN country ON city.ID = country.Capital " +
-                "WHERE country.Continent = ? " +
-                "ORDER BY city.Population DESC ";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-
-            pstmt.setString(1, continent);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                CapitalCity capitalCity = new CapitalCity();
-                capitalCity.setName(rs.getString("CapitalCity"));
-                capitalCity.setCountry(rs.getString("Country"));
-                capitalCity.setPopulation(rs.getLong("Population"));
-                capitalCities.add(capitalCity);
-            }
-        }
-        catch (Exception e) {
+        try {
+            return query.query(ALL_CAPITALS_IN_CONTINENT_SQL, RowMappers.CAPITAL_CITY, continent);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get capital cities by a continent");
+            return new ArrayList<>();
         }
-
-        return capitalCities;
     }
 
-
     /**
      * Retrieves all capital cities in a specific region ordered by population from largest to smallest.
      *
@@ -111,34 +91,13 @@ public class CapitalCityDAO {
      * @return A list of capital cities within the specified region.
      */
     public List<CapitalCity> getAllCapitalCitiesInRegion(String region) {
-        List<CapitalCity> capitalCities = new ArrayList<>();
-
-        String sql = "SELECT city.Name AS CapitalCity, country.Name AS Country, city.Population " +
-                "FROM city " +
-                "JOIN country ON city.ID = country.Capital " +
-                "WHERE country.Region = ? " +
-                "ORDER BY city.Population DESC ";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-
-            pstmt.setString(1, region);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                CapitalCity capitalCity = new CapitalCity();
-                capitalCity.setName(rs.getString("CapitalCity"));
-                capitalCity.setCountry(rs.getString("Country"));
-                capitalCity.setPopulation(rs.getLong("Population"));
-                capitalCities.add(capitalCity);
-            }
-        }
-        catch (Exception e) {
+        try {
+            return query.query(ALL_CAPITALS_IN_REGION_SQL, RowMappers.CAPITAL_CITY, region);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get capital cities by a region");
+            return new ArrayList<>();
         }
-
-        return capitalCities;
     }
 
     /**
@@ -148,74 +107,30 @@ public class CapitalCityDAO {
      * @return A list of the top N populated capital cities.
      */
     public List<CapitalCity> getTopNPopulatedCapitalCities(int n) {
-        List<CapitalCity> capitalCities = new ArrayList<>();
-
-        String sql = "SELECT city.Name AS CapitalCity, country.Name AS Country, city.Population " +
-                "FROM city " +
-                "JOIN country ON city.ID = country.Capital " +
-                "ORDER BY city.Population DESC " +
-                "LIMIT ?";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-
-            pstmt.setInt(1, n);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                CapitalCity capitalCity = new CapitalCity();
-                capitalCity.setName(rs.getString("CapitalCity"));
-                capitalCity.setCountry(rs.getString("Country"));
-                capitalCity.setPopulation(rs.getLong("Population"));
-                capitalCities.add(capitalCity);
-            }
-        }
-        catch (Exception e) {
+        try {
+            return query.query(TOP_CAPITALS_SQL, RowMappers.CAPITAL_CITY, n);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated capital cities");
+            return new ArrayList<>();
         }
-
-        return capitalCities;
     }
 
     /**
-            * Retrieves the top N most populated capital cities in a specific continent.
-            *
-            * @param continent The continent name (e.g., "Africa", "Asia").
-            * @param n The number of capital cities to return.
-            * @return A list of the top N populated capital cities within the specified continent.
+     * Retrieves the top N most populated capital cities in a specific continent.
+     *
+     * @param continent The continent name (e.g., "Africa", "Asia").
+     * @param n The number of capital cities to return.
+     * @return A list of the top N populated capital cities within the specified continent.
      */
     public List<CapitalCity> getTopNPopulatedCapitalCitiesByContinent(String continent, int n) {
-        List<CapitalCity> capitalCities = new ArrayList<>();
-
-        String sql = "SELECT city.Name AS CapitalCity, country.Name AS Country, city.Population " +
-                "FROM city " +
-                "JOIN country ON city.ID = country.Capital " +
-                "WHERE country.Continent = ? " +
-                "ORDER BY city.Population DESC " +
-                "LIMIT ?";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-
-            pstmt.setString(1, continent);
-            pstmt.setInt(2, n);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                CapitalCity capitalCity = new CapitalCity();
-                capitalCity.setName(rs.getString("CapitalCity"));
-                capitalCity.setCountry(rs.getString("Country"));
-                capitalCity.setPopulation(rs.getLong("Population"));
-                capitalCities.add(capitalCity);
-            }
-        }
-        catch (Exception e) {
+        try {
+            return query.query(TOP_CAPITALS_IN_CONTINENT_SQL, RowMappers.CAPITAL_CITY, continent, n);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated capital cities in continent " + continent);
+            return new ArrayList<>();
         }
-
-        return capitalCities;
     }
 
     /**
@@ -226,37 +141,12 @@ public class CapitalCityDAO {
      * @return A list of the top N populated capital cities within the specified region.
      */
     public List<CapitalCity> getTopNPopulatedCapitalCitiesByRegion(String region, int n) {
-        List<CapitalCity> capitalCities = new ArrayList<>();
-
-        String sql = "SELECT city.Name AS CapitalCity, country.Name AS Country, city.Population " +
-                "FROM city " +
-                "JOIN country ON city.ID = country.Capital " +
-                "WHERE country.Region = ? " +
-                "ORDER BY city.Population DESC " +
-                "LIMIT ?";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-
-            pstmt.setString(1, region);
-            pstmt.setInt(2, n);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                CapitalCity capitalCity = new CapitalCity();
-                capitalCity.setName(rs.getString("CapitalCity"));
-                capitalCity.setCountry(rs.getString("Country"));
-                capitalCity.setPopulation(rs.getLong("Population"));
-                capitalCities.add(capitalCity);
-            }
-        }
-        catch (Exception e) {
+        try {
+            return query.query(TOP_CAPITALS_IN_REGION_SQL, RowMappers.CAPITAL_CITY, region, n);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated capital cities in region " + region);
+            return new ArrayList<>();
         }
-
-        return capitalCities;
     }
-
-
 }
@@ -0,0 +1,66 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.model.CapitalCity;
+
+import java.util.List;
+
+/**
+ * Report queries over capital cities.
+ * <p>
+ * Implemented by {@link CapitalCityDAO} over JDBC and by the in-memory snapshot, so
+ * report classes can run against either backend.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public interface CapitalCityQueries {
+
+    /**
+     * Retrieves all capital cities in the world ordered by population from largest to smallest.
+     *
+     * @return A list of capital cities sorted by population.
+     */
+    List<CapitalCity> getAllCapitalCities();
+
+    /**
+     * Retrieves all capital cities in a specific continent ordered by population from largest to smallest.
+     *
+     * @param continent The continent name (e.g., "Asia", "Europe").
+     * @return A list of capital cities within the specified continent.
+     */
+    List<CapitalCity> getAllCapitalCitiesInContinent(String continent);
+
+    /**
+     * Retrieves all capital cities in a specific region ordered by population from largest to smallest.
+     *
+     * @param region The region name (e.g., "Caribbean").
+     * @return A list of capital cities within the specified region.
+     */
+    List<CapitalCity> getAllCapitalCitiesInRegion(String region);
+
+    /**
+     * Retrieves the top N populated capital cities in the world.
+     *
+     * @param n The number of capital cities to retrieve.
+     * @return A list of the top N capital cities.
+     */
+    List<CapitalCity> getTopNPopulatedCapitalCities(int n);
+
+    /**
+     * Retrieves the top N populated capital cities in a specific continent.
+     *
+     * @param continent The continent name.
+     * @param n The number of capital cities to retrieve.
+     * @return A list of the top N capital cities in the continent.
+     */
+    List<CapitalCity> getTopNPopulatedCapitalCitiesByContinent(String continent, int n);
+
+    /**
+     * Retrieves the top N populated capital cities in a specific region.
+     *
+     * @param region The region name.
+     * @param n The number of capital cities to retrieve.
+     * @return A list of the top N capital cities in the region.
+     */
+    List<CapitalCity> getTopNPopulatedCapitalCitiesByRegion(String region, int n);
+}
@@ -3,11 +3,11 @@ package com.napier.proj.dao;
 import com.napier.proj.model.City;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * This is Data Access Object (DAO) class for managing database operations related to the City entity.
@@ -19,9 +19,64 @@ import java.util.List;
  * @author Min Wanna Hlan
  * @author Ingyin Thwe
  */
-public class CityDAO {
-    /** Database connection object used for executing SQL queries */
-    private Connection con;
+public class CityDAO implements CityQueries {
+    /** Runs the SQL queries over the database connection */
+    private QueryExecutor query;
+
+    /** Selects each city with its country name; a scope filter and ordering are appended. */
+    private static final String CITY_SELECT =
+            "SELECT ci.Name AS CityName, c.Name AS Country, ci.District, ci.Population " +
+            "FROM city ci " +
+            "JOIN country c ON ci.CountryCode = c.Code ";
+
+    static final String ALL_CITIES_IN_WORLD_SQL =
+            CITY_SELECT + "ORDER BY ci.Population DESC;";
+
+    static final String TOP_CITIES_IN_WORLD_SQL =
+            CITY_SELECT + "ORDER BY ci.Population DESC LIMIT ?;";
+
+    static final String ALL_CITIES_IN_CONTINENT_SQL =
+            CITY_SELECT + "WHERE c.Continent = ? " + "ORDER BY ci.Population DESC;";
+
+    static final String TOP_CITIES_IN_CONTINENT_SQL =
+            CITY_SELECT + "WHERE c.Continent = ? " + "ORDER BY ci.Population DESC LIMIT ?;";
+
+    static final String ALL_CITIES_IN_REGION_SQL =
+            CITY_SELECT + "WHERE c.Region = ? " + "ORDER BY ci.Population DESC;";
+
+    static final String TOP_CITIES_IN_REGION_SQL =
+            CITY_SELECT + "WHERE c.Region = ? " + "ORDER BY ci.Population DESC LIMIT ?;";
+
+    static final String ALL_CITIES_IN_COUNTRY_SQL =
+            CITY_SELECT + "WHERE c.Name = ? " + "ORDER BY ci.Population DESC;";
+
+    static final String TOP_CITIES_IN_COUNTRY_SQL =
+            CITY_SELECT + "WHERE c.Name = ? " + "ORDER BY ci.Population DESC LIMIT ?;";
+
+    static final String ALL_CITIES_IN_DISTRICT_SQL =
+            CITY_SELECT + "WHERE ci.District = ? " + "ORDER BY ci.Population DESC;";
+
+    static final String TOP_CITIES_IN_DISTRICT_SQL =
+            CITY_SELECT + "WHERE ci.District = ? " + "ORDER BY ci.Population DESC LIMIT ?;";
+
+    /** Ranks each city within its group by population, ties by ID; the group column is appended. */
+    private static final String RANKED_CITY_SELECT =
+            "SELECT CityName, Country, District, Population, GroupName FROM (" +
+            "SELECT ci.Name AS CityName, c.Name AS Country, ci.District, ci.Population, ";
+
+    private static final String RANKED_CITY_FROM =
+            " ORDER BY ci.Population DESC, ci.ID) AS rn " +
+            "FROM city ci " +
+            "JOIN country c ON ci.CountryCode = c.Code" +
+            ") ranked WHERE rn <= ? ORDER BY GroupName, rn;";
+
+    static final String TOP_CITIES_PER_CONTINENT_SQL =
+            RANKED_CITY_SELECT + "c.Continent AS GroupName, ROW_NUMBER() OVER (PARTITION BY c.Continent"
+            + RANKED_CITY_FROM;
+
+    static final String TOP_CITIES_PER_REGION_SQL =
+            RANKED_CITY_SELECT + "c.Region AS GroupName, ROW_NUMBER() OVER (PARTITION BY c.Region"
+            + RANKED_CITY_FROM;
 
     /**
      * Constructs a CityDAO with the given database connection.
@@ -29,7 +84,7 @@ public class CityDAO {
      * @param con The database connection to be used for queries.
      */
     public CityDAO(Connection con) {
-        this.con = con;
+        this.query = new QueryExecutor(con);
     }
 
     /**
@@ -38,33 +93,31 @@ public class CityDAO {
      * @return A list of City objects representing all cities in the world.
      */
     public List<City> getAllinWorldCitiesByPopulation() {
-        List<City> cities = new ArrayList<>();
-
-        // SQL query to fetch city, country, district, and population details, ordered by population (desc)
-        String sql = "SELECT ci.Name AS CityName, c.Name AS Country, ci.District, ci.Population " +
-                "FROM city ci " +
-                "JOIN country c ON ci.CountryCode = c.Code " +
-                "ORDER BY ci.Population DESC;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            ResultSet rs = pstmt.executeQuery();
-
-            // Loop through the result set and populate the city list
-            while (rs.next()) {
-                City city = new City();
-                city.setName(rs.getString("CityName"));
-                city.setCountry(rs.getString("Country"));
-                city.setDistrict(rs.getString("District"));
-                city.setPopulation(rs.getLong("Population"));
-                cities.add(city);
-            }
-
+        try {
+            return query.query(ALL_CITIES_IN_WORLD_SQL, RowMappers.CITY);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get cities");
+            return new ArrayList<>();
         }
+    }
 
-        return cities;
+    /**
+     * Streams all cities in the world, sorted by population in descending order,
+     * passing each row to the sink while the result set is being read.
+     *
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    @Override
+    public int streamAllCitiesInWorldByPopulation(Consumer<? super City> sink) {
+        try {
+            return query.stream(ALL_CITIES_IN_WORLD_SQL, RowMappers.CITY, sink);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get cities");
+            return 0;
+        }
     }
 
     /**
@@ -74,37 +127,33 @@ public class CityDAO {
      * @return A list of City objects representing cities in the given continent.
      */
     public List<City> getAllCitiesInContinentByPopulation(String continent) {
-        List<City> cities = new ArrayList<>();
-
-        // SQL query to fetch all cities within a given continent
-        String sql = "SELECT ci.Name AS CityName, c.Name AS Country, ci.District, ci.Population " +
-                "FROM city ci " +
-                "JOIN country c ON ci.CountryCode = c.Code " +
-                "WHERE c.Continent = ? " +
-                "ORDER BY ci.Population DESC;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, continent);  // set continent parameter
-            ResultSet rs = pstmt.executeQuery();
-
-            // Populate list with query results
-            while (rs.next()) {
-                City city = new City();
-                city.setName(rs.getString("CityName"));
-                city.setCountry(rs.getString("Country"));
-                city.setDistrict(rs.getString("District"));
-                city.setPopulation(rs.getLong("Population"));
-                cities.add(city);
-            }
-
+        try {
+            return query.query(ALL_CITIES_IN_CONTINENT_SQL, RowMappers.CITY, continent);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get cities in continent");
+            return new ArrayList<>();
         }
-
-        return cities;
     }
 
+    /**
+     * Streams all cities in a specific continent, sorted by population in descending order,
+     * passing each row to the sink while the result set is being read.
+     *
+     * @param continent The name of the continent to filter cities by.
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    @Override
+    public int streamAllCitiesInContinentByPopulation(String continent, Consumer<? super City> sink) {
+        try {
+            return query.stream(ALL_CITIES_IN_CONTINENT_SQL, RowMappers.CITY, sink, continent);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get cities in continent");
+            return 0;
+        }
+    }
 
     /**
      * Retrieves all cities in a specific region, sorted by population in descending order.
@@ -113,37 +162,33 @@ public class CityDAO {
      * @return A list of City objects representing cities in the given region.
      */
     public List<City> getAllCitiesInRegionByPopulation(String region) {
-        List<City> cities = new ArrayList<>();
-
-        // SQL query to fetch all cities within a given region
-        String sql = "SELECT ci.Name AS CityName, c.Name AS Country, ci.District, ci.Population " +
-                "FROM city ci " +
-                "JOIN country c ON ci.CountryCode = c.Code " +
-                "WHERE c.Region = ? " +
-                "ORDER BY ci.Population DESC;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, region);  // set region parameter
-            ResultSet rs = pstmt.executeQuery();
-
-            // Populate list with query results
-            while (rs.next()) {
-                City city = new City();
-                city.setName(rs.getString("CityName"));
-                city.setCountry(rs.getString("Country"));
-                city.setDistrict(rs.getString("District"));
-                city.setPopulation(rs.getLong("Population"));
-                cities.add(city);
-            }
-
+        try {
+            return query.query(ALL_CITIES_IN_REGION_SQL, RowMappers.CITY, region);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get cities in region");
+            return new ArrayList<>();
         }
-
-        return cities;
     }
 
+    /**
+     * Streams all cities in a specific region, sorted by population in descending order,
+     * passing each row to the sink while the result set is being read.
+     *
+     * @param region The name of the region to filter cities by.
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    @Override
+    public int streamAllCitiesInRegionByPopulation(String region, Consumer<? super City> sink) {
+        try {
+            return query.stream(ALL_CITIES_IN_REGION_SQL, RowMappers.CITY, sink, region);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get cities in region");
+            return 0;
+        }
+    }
 
     /**
      * Retrieves all cities in a specific country, sorted by population in descending order.
@@ -152,37 +197,33 @@ public class CityDAO {
      * @return A list of City objects representing cities in the given country.
      */
     public List<City> getAllCitiesInCountryByPopulation(String country) {
-        List<City> cities = new ArrayList<>();
-
-        // SQL query to fetch all cities within a given country
-        String sql = "SELECT ci.Name AS CityName, c.Name AS Country, ci.District, ci.Population " +
-                "FROM city ci " +
-                "JOIN country c ON ci.CountryCode = c.Code " +
-                "WHERE c.Name = ? " +
-                "ORDER BY ci.Population DESC;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, country);  // set country parameter
-            ResultSet rs = pstmt.executeQuery();
-
-            // Populate list with query results
-            while (rs.next()) {
-                City city = new City();
-                city.setName(rs.getString("CityName"));
-                city.setCountry(rs.getString("Country"));
-                city.setDistrict(rs.getString("District"));
-                city.setPopulation(rs.getLong("Population"));
-                cities.add(city);
-            }
-
+        try {
+            return query.query(ALL_CITIES_IN_COUNTRY_SQL, RowMappers.CITY, country);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get cities in country");
+            return new ArrayList<>();
         }
-
-        return cities;
     }
 
+    /**
+     * Streams all cities in a specific country, sorted by population in descending order,
+     * passing each row to the sink while the result set is being read.
+     *
+     * @param country The name of the country to filter cities by.
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    @Override
+    public int streamAllCitiesInCountryByPopulation(String country, Consumer<? super City> sink) {
+        try {
+            return query.stream(ALL_CITIES_IN_COUNTRY_SQL, RowMappers.CITY, sink, country);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get cities in country");
+            return 0;
+        }
+    }
 
     /**
      * Retrieves all cities in a specific district, sorted by population in descending order.
@@ -191,35 +232,32 @@ public class CityDAO {
      * @return A list of City objects representing cities in the given district.
      */
     public List<City> getAllCitiesInDistrictByPopulation(String district) {
-        List<City> cities = new ArrayList<>();
-
-        // SQL query to fetch all cities within a given district
-        String sql = "SELECT ci.Name AS CityName, c.Name AS Country, ci.District, ci.Population " +
-                "FROM city ci " +
-                "JOIN country c ON ci.CountryCode = c.Code " +
-                "WHERE ci.District = ? " +
-                "ORDER BY ci.Population DESC;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, district);  // set district parameter
-            ResultSet rs = pstmt.executeQuery();
-
-            // Populate list with query results
-            while (rs.next()) {
-                City city = new City();
-                city.setName(rs.getString("CityName"));
-                city.setCountry(rs.getString("Country"));
-                city.setDistrict(rs.getString("District"));
-                city.setPopulation(rs.getLong("Population"));
-                cities.add(city);
-            }
-
+        try {
+            return query.query(ALL_CITIES_IN_DISTRICT_SQL, RowMappers.CITY, district);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get cities in district");
+            return new ArrayList<>();
         }
+    }
 
-        return cities;
+    /**
+     * Streams all cities in a specific district, sorted by population in descending order,
+     * passing each row to the sink while the result set is being read.
+     *
+     * @param district The name of the district to filter cities by.
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    @Override
+    public int streamAllCitiesInDistrictByPopulation(String district, Consumer<? super City> sink) {
+        try {
+            return query.stream(ALL_CITIES_IN_DISTRICT_SQL, RowMappers.CITY, sink, district);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get cities in district");
+            return 0;
+        }
     }
 
     /**
@@ -229,36 +267,13 @@ public class CityDAO {
      * @return A list of City objects representing the top N populated cities worldwide.
      */
     public List<City> getTopNPopulatedCitiesInWorld(int n) {
-        List<City> cities = new ArrayList<>();
-
-        System.out.println("\nThe top N populated cities in the world where N is provided by the user.\n");
-
-        String sql =
-                "SELECT city.Name AS City, country.Name AS Country, city.District, city.Population " +
-                        "FROM city " +
-                        "JOIN country ON city.CountryCode = country.Code " +
-                        "ORDER BY city.Population DESC " +
-                        "LIMIT ?;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setInt(1, n);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    City city = new City();
-                    city.setName(rs.getString("City"));
-                    city.setCountry(rs.getString("Country"));
-                    city.setDistrict(rs.getString("District"));
-                    city.setPopulation(rs.getLong("Population"));
-                    cities.add(city);
-                }
-            }
+        try {
+            return query.query(TOP_CITIES_IN_WORLD_SQL, RowMappers.CITY, n);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated cities in the world.");
+            return new ArrayList<>();
         }
-
-        return cities;
     }
 
     /**
@@ -269,38 +284,13 @@ public class CityDAO {
      * @return A list of City objects representing the top N populated cities in the continent.
      */
     public List<City> getTopNPopulatedCitiesInContinent(String continent, int n) {
-        List<City> cities = new ArrayList<>();
-
-        System.out.println("\nThe top N populated cities in a continent where N is provided by the user.\n");
-
-        String sql =
-                "SELECT city.Name AS City, country.Name AS Country, city.District, city.Population " +
-                        "FROM city " +
-                        "JOIN country ON city.CountryCode = country.Code " +
-                        "WHERE country.Continent = ? " +
-                        "ORDER BY city.Population DESC " +
-                        "LIMIT ?;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, continent);
-            pstmt.setInt(2, n);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    City city = new City();
-                    city.setName(rs.getString("City"));
-                    city.setCountry(rs.getString("Country"));
-                    city.setDistrict(rs.getString("District"));
-                    city.setPopulation(rs.getLong("Population"));
-                    cities.add(city);
-                }
-            }
+        try {
+            return query.query(TOP_CITIES_IN_CONTINENT_SQL, RowMappers.CITY, continent, n);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated cities in continent: " + continent);
+            return new ArrayList<>();
         }
-
-        return cities;
     }
 
     /**
@@ -311,36 +301,13 @@ public class CityDAO {
      * @return A list of City objects representing the top N populated cities in the region.
      */
     public List<City> getTopNPopulatedCitiesInRegion(String region, int n) {
-        List<City> cities = new ArrayList<>();
-
-        System.out.println("\nThe top N populated cities in a region where N is provided by the user.\n");
-
-        String sql =
-                "SELECT city.Name AS City, country.Name AS Country, city.District, city.Population " +
-                        "FROM city " +
-                        "JOIN country ON city.CountryCode = country.Code " +
-                        "WHERE country.Region = ? " +
-                        "ORDER BY city.Population DESC " +
-                        "LIMIT ?;";
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, region);
-            pstmt.setInt(2, n);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    City city = new City();
-                    city.setName(rs.getString("City"));
-                    city.setCountry(rs.getString("Country"));
-                    city.setDistrict(rs.getString("District"));
-                    city.setPopulation(rs.getLong("Population"));
-                    cities.add(city);
-                }
-            }
+        try {
+            return query.query(TOP_CITIES_IN_REGION_SQL, RowMappers.CITY, region, n);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated cities in region: " + region);
+            return new ArrayList<>();
         }
-
-        return cities;
     }
 
     /**
@@ -351,38 +318,13 @@ public class CityDAO {
      * @return A list of City objects representing the top N populated cities in the country.
      */
     public List<City> getTopNPopulatedCitiesInCountry(String country, int n) {
-        List<City> cities = new ArrayList<>();
-
-        System.out.println("\nThe top N populated cities in a country where N is provided by the user.\n");
-
-        String sql =
-                "SELECT city.Name AS City, country.Name AS Country, city.District, city.Population " +
-                        "FROM city " +
-                        "JOIN country ON city.CountryCode = country.Code " +
-                        "WHERE country.Name = ? " +
-                        "ORDER BY city.Population DESC " +
-                        "LIMIT ?;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, country);
-            pstmt.setInt(2, n);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    City city = new City();
-                    city.setName(rs.getString("City"));
-                    city.setCountry(rs.getString("Country"));
-                    city.setDistrict(rs.getString("District"));
-                    city.setPopulation(rs.getLong("Population"));
-                    cities.add(city);
-                }
-            }
+        try {
+            return query.query(TOP_CITIES_IN_COUNTRY_SQL, RowMappers.CITY, country, n);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated cities in country: " + country);
+            return new ArrayList<>();
         }
-
-        return cities;
     }
 
     /**
@@ -393,39 +335,46 @@ public class CityDAO {
      * @return A list of City objects representing the top N populated cities in the district.
      */
     public List<City> getTopNPopulatedCitiesInDistrict(String district, int n) {
-        List<City> cities = new ArrayList<>();
-
-        System.out.println("\nThe top N populated cities in a district where N is provided by the user.\n");
-
-        String sql =
-                "SELECT city.Name AS City, country.Name AS Country, city.District, city.Population " +
-                        "FROM city " +
-                        "JOIN country ON city.CountryCode = country.Code " +
-                        "WHERE city.District = ? " +
-                        "ORDER BY city.Population DESC " +
-                        "LIMIT ?;";
-
-        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, district);
-            pstmt.setInt(2, n);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    City city = new City();
-                    city.setName(rs.getString("City"));
-                    city.setCountry(rs.getString("Country"));
-                    city.setDistrict(rs.getString("District"));
-                    city.setPopulation(rs.getLong("Population"));
-                    cities.add(city);
-                }
-            }
+        try {
+            return query.query(TOP_CITIES_IN_DISTRICT_SQL, RowMappers.CITY, district, n);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated cities in district: " + district);
+            return new ArrayList<>();
         }
-
-        return cities;
     }
-}
 
+    /**
+     * Retrieves the top N most populated cities of every continent with one
+     * {@code ROW_NUMBER()} window query instead of one query per continent.
+     *
+     * @param n The number of cities to retrieve per continent.
+     * @return The top N cities of each continent that has cities, keyed by continent in continent order.
+     */
+    public Map<String, List<City>> getTopNPopulatedCitiesPerContinent(int n) {
+        try {
+            return query.queryGroups(TOP_CITIES_PER_CONTINENT_SQL, RowMappers.CITY, "GroupName", n);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get top " + n + " populated cities per continent");
+            return new LinkedHashMap<>();
+        }
+    }
 
+    /**
+     * Retrieves the top N most populated cities of every region with one
+     * {@code ROW_NUMBER()} window query instead of one query per region.
+     *
+     * @param n The number of cities to retrieve per region.
+     * @return The top N cities of each region that has cities, keyed by region in name order.
+     */
+    public Map<String, List<City>> getTopNPopulatedCitiesPerRegion(int n) {
+        try {
+            return query.queryGroups(TOP_CITIES_PER_REGION_SQL, RowMappers.CITY, "GroupName", n);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get top " + n + " populated cities per region");
+            return new LinkedHashMap<>();
+        }
+    }
+}
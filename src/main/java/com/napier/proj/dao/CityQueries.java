@@ -0,0 +1,196 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.model.City;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Report queries over cities.
+ * <p>
+ * Implemented by {@link CityDAO} over JDBC and by the in-memory snapshot, so
+ * report classes can run against either backend.
+ * </p>
+ * <p>
+ * The {@code stream...} variants of the "all cities" queries hand each city to
+ * a sink as soon as it is read instead of collecting every row into a list, so
+ * memory use stays flat however large the city table grows. Their default
+ * implementations fall back to the list queries; backends that can read rows
+ * incrementally override them.
+ * </p>
+ *
+ * @author Min Wanna Hlan
+ * @author Ingyin Thwe
+ */
+public interface CityQueries {
+
+    /**
+     * Retrieves all cities in the world, sorted by population in descending order.
+     *
+     * @return A list of City objects representing all cities in the world.
+     */
+    List<City> getAllinWorldCitiesByPopulation();
+
+    /**
+     * Retrieves all cities in a specific continent, sorted by population in descending order.
+     *
+     * @param continent The name of the continent to filter cities by.
+     * @return A list of City objects representing cities in the given continent.
+     */
+    List<City> getAllCitiesInContinentByPopulation(String continent);
+
+    /**
+     * Retrieves all cities in a specific region, sorted by population in descending order.
+     *
+     * @param region The name of the region to filter cities by.
+     * @return A list of City objects representing cities in the given region.
+     */
+    List<City> getAllCitiesInRegionByPopulation(String region);
+
+    /**
+     * Retrieves all cities in a specific country, sorted by population in descending order.
+     *
+     * @param country The name of the country to filter cities by.
+     * @return A list of City objects representing cities in the given country.
+     */
+    List<City> getAllCitiesInCountryByPopulation(String country);
+
+    /**
+     * Retrieves all cities in a specific district, sorted by population in descending order.
+     *
+     * @param district The name of the district to filter cities by.
+     * @return A list of City objects representing cities in the given district.
+     */
+    List<City> getAllCitiesInDistrictByPopulation(String district);
+
+    /**
+     * Retrieves the top N most populated cities in the world.
+     *
+     * @param n The number of cities to retrieve, based on highest population.
+     * @return A list of City objects representing the top N populated cities worldwide.
+     */
+    List<City> getTopNPopulatedCitiesInWorld(int n);
+
+    /**
+     * Retrieves the top N most populated cities within a given continent.
+     *
+     * @param continent The name of the continent to filter by.
+     * @param n The number of cities to retrieve, based on highest population.
+     * @return A list of City objects representing the top N populated cities in the continent.
+     */
+    List<City> getTopNPopulatedCitiesInContinent(String continent, int n);
+
+    /**
+     * Retrieves the top N most populated cities within a specific region.
+     *
+     * @param region The region name to filter by.
+     * @param n The number of cities to retrieve, based on highest population.
+     * @return A list of City objects representing the top N populated cities in the region.
+     */
+    List<City> getTopNPopulatedCitiesInRegion(String region, int n);
+
+    /**
+     * Retrieves the top N most populated cities within a specific country.
+     *
+     * @param country The name of the country to filter by.
+     * @param n The number of cities to retrieve, based on highest population.
+     * @return A list of City objects representing the top N populated cities in the country.
+     */
+    List<City> getTopNPopulatedCitiesInCountry(String country, int n);
+
+    /**
+     * Retrieves the top N most populated cities within a specific district.
+     *
+     * @param district The district name to filter by.
+     * @param n The number of cities to retrieve, based on highest population.
+     * @return A list of City objects representing the top N populated cities in the district.
+     */
+    List<City> getTopNPopulatedCitiesInDistrict(String district, int n);
+
+    /**
+     * Retrieves the top N most populated cities of every continent in one query.
+     *
+     * @param n The number of cities to retrieve per continent.
+     * @return The top N cities of each continent that has cities, keyed by continent in continent order.
+     */
+    Map<String, List<City>> getTopNPopulatedCitiesPerContinent(int n);
+
+    /**
+     * Retrieves the top N most populated cities of every region in one query.
+     *
+     * @param n The number of cities to retrieve per region.
+     * @return The top N cities of each region that has cities, keyed by region in name order.
+     */
+    Map<String, List<City>> getTopNPopulatedCitiesPerRegion(int n);
+
+    /**
+     * Streams all cities in the world, sorted by population in descending order.
+     *
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    default int streamAllCitiesInWorldByPopulation(Consumer<? super City> sink) {
+        return forEach(getAllinWorldCitiesByPopulation(), sink);
+    }
+
+    /**
+     * Streams all cities in a specific continent, sorted by population in descending order.
+     *
+     * @param continent The name of the continent to filter cities by.
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    default int streamAllCitiesInContinentByPopulation(String continent, Consumer<? super City> sink) {
+        return forEach(getAllCitiesInContinentByPopulation(continent), sink);
+    }
+
+    /**
+     * Streams all cities in a specific region, sorted by population in descending order.
+     *
+     * @param region The name of the region to filter cities by.
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    default int streamAllCitiesInRegionByPopulation(String region, Consumer<? super City> sink) {
+        return forEach(getAllCitiesInRegionByPopulation(region), sink);
+    }
+
+    /**
+     * Streams all cities in a specific country, sorted by population in descending order.
+     *
+     * @param country The name of the country to filter cities by.
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    default int streamAllCitiesInCountryByPopulation(String country, Consumer<? super City> sink) {
+        return forEach(getAllCitiesInCountryByPopulation(country), sink);
+    }
+
+    /**
+     * Streams all cities in a specific district, sorted by population in descending order.
+     *
+     * @param district The name of the district to filter cities by.
+     * @param sink receives each city in order.
+     * @return The number of cities passed to the sink.
+     */
+    default int streamAllCitiesInDistrictByPopulation(String district, Consumer<? super City> sink) {
+        return forEach(getAllCitiesInDistrictByPopulation(district), sink);
+    }
+
+    /**
+     * Passes the non-null cities of a list to the sink, treating a {@code null} list as empty.
+     */
+    private static int forEach(List<City> cities, Consumer<? super City> sink) {
+        int count = 0;
+        if (cities != null) {
+            for (City city : cities) {
+                if (city != null) {
+                    sink.accept(city);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,526 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.model.CapitalCity;
+import com.napier.proj.model.City;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Answers a batch of city and capital city queries from one scan of
+ * {@code city JOIN country}.
+ * <p>
+ * Every city and capital city query is the same join sorted by city population,
+ * differing only in its filter and limit. The caller first declares the queries
+ * it will make with {@link #requestCities(Scope, String, int)} and
+ * {@link #requestCapitals(Scope, String, int)}, each of which registers a
+ * collector for its filter and limit. {@link #execute()} then reads the join once,
+ * in population order, and hands each row to every collector it matches until
+ * that collector's limit is reached. After that, each requested query is answered
+ * from its collector. A query that was not requested, one made before the scan,
+ * or any query after a failed scan goes to {@link CityDAO} or
+ * {@link CapitalCityDAO} as usual. Names are compared without regard to case,
+ * as the {@code world} database's collation compares them.
+ * </p>
+ * <p>
+ * The streaming "all cities" queries and the per-continent and per-region top N
+ * queries are not part of the scan and always go to {@link CityDAO}: a collector
+ * would hold every city of its scope in memory before the report printed any of
+ * them, and the grouped queries have their own window query.
+ * </p>
+ *
+ * @author Min Wanna Hlan
+ * @author Phone Myat Thu
+ */
+public class CityScanBatch implements CityQueries, CapitalCityQueries {
+
+    /** The column a requested query filters on. */
+    public enum Scope {
+        WORLD, CONTINENT, REGION, COUNTRY, DISTRICT
+    }
+
+    /** The limit of a query that returns every matching city. */
+    public static final int ALL = Integer.MAX_VALUE;
+
+    /** Every city with the columns any city or capital city query filters on, most populated first. */
+    private static final String SCAN_SQL =
+            "SELECT ci.Name AS CityName, c.Name AS Country, ci.District, ci.Population, " +
+            "c.Continent, c.Region, ci.ID = c.Capital AS IsCapital " +
+            "FROM city ci " +
+            "JOIN country c ON ci.CountryCode = c.Code " +
+            "ORDER BY ci.Population DESC;";
+
+    private static final RowMapper<Row> ROW = RowMapper.of((rs, col) -> new Row(
+            rs.getString(col[0]), rs.getString(col[1]), rs.getString(col[2]), rs.getLong(col[3]),
+            rs.getString(col[4]), rs.getString(col[5]), rs.getBoolean(col[6])),
+            "CityName", "Country", "District", "Population", "Continent", "Region", "IsCapital");
+
+    /** Runs the scan over the database connection */
+    private QueryExecutor query;
+    private CityDAO cities;
+    private CapitalCityDAO capitals;
+    /** One collector per distinct query, keyed by capital flag, scope, value and limit. */
+    private final Map<List<Object>, Collector> collectors = new LinkedHashMap<>();
+    private boolean executed;
+    private boolean failed;
+
+    /**
+     * Creates an empty batch. Queries are added with {@link #requestCities(Scope, String, int)}
+     * and {@link #requestCapitals(Scope, String, int)} until {@link #execute()} is called.
+     *
+     * @param con The database connection the scan, and any query outside the batch, runs on.
+     */
+    public CityScanBatch(Connection con) {
+        this.query = new QueryExecutor(con);
+        this.cities = new CityDAO(con);
+        this.capitals = new CapitalCityDAO(con);
+    }
+
+    /**
+     * Adds a city query to the scan.
+     *
+     * @param scope the column the query filters on
+     * @param value the continent, region, country or district name, {@code null} for {@link Scope#WORLD}
+     * @param limit the number of cities, or {@link #ALL}
+     * @return this batch
+     */
+    public CityScanBatch requestCities(Scope scope, String value, int limit) {
+        return request(false, scope, value, limit);
+    }
+
+    /**
+     * Adds a capital city query to the scan. Capital cities are only filtered by
+     * {@link Scope#WORLD}, {@link Scope#CONTINENT} or {@link Scope#REGION}.
+     *
+     * @param scope the column the query filters on
+     * @param value the continent or region name, {@code null} for {@link Scope#WORLD}
+     * @param limit the number of capital cities, or {@link #ALL}
+     * @return this batch
+     */
+    public CityScanBatch requestCapitals(Scope scope, String value, int limit) {
+        return request(true, scope, value, limit);
+    }
+
+    /**
+     * Runs the scan and fills every requested query. Does nothing if the batch has
+     * already run.
+     *
+     * @return The number of rows read, or 0 if the scan failed.
+     */
+    public int execute() {
+        if (executed) {
+            return 0;
+        }
+        executed = true;
+        if (collectors.isEmpty()) {
+            return 0;
+        }
+        Collector[] all = collectors.values().toArray(new Collector[0]);
+        try {
+            return query.stream(SCAN_SQL, ROW, row -> {
+                for (Collector collector : all) {
+                    collector.offer(row);
+                }
+            });
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to scan cities");
+            failed = true;
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the number of distinct queries requested in this batch.
+     *
+     * @return requested queries
+     */
+    public int size() {
+        return collectors.size();
+    }
+
+    /**
+     * Returns all cities in the world, most populated first.
+     *
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getAllinWorldCitiesByPopulation() {
+        Collector collector = collector(false, Scope.WORLD, null, ALL);
+        return collector == null ? cities.getAllinWorldCitiesByPopulation() : collector.cities();
+    }
+
+    /**
+     * Returns all cities in a continent, most populated first.
+     *
+     * @param continent the continent name
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getAllCitiesInContinentByPopulation(String continent) {
+        Collector collector = collector(false, Scope.CONTINENT, continent, ALL);
+        return collector == null ? cities.getAllCitiesInContinentByPopulation(continent) : collector.cities();
+    }
+
+    /**
+     * Returns all cities in a region, most populated first.
+     *
+     * @param region the region name
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getAllCitiesInRegionByPopulation(String region) {
+        Collector collector = collector(false, Scope.REGION, region, ALL);
+        return collector == null ? cities.getAllCitiesInRegionByPopulation(region) : collector.cities();
+    }
+
+    /**
+     * Returns all cities in a country, most populated first.
+     *
+     * @param country the country name
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getAllCitiesInCountryByPopulation(String country) {
+        Collector collector = collector(false, Scope.COUNTRY, country, ALL);
+        return collector == null ? cities.getAllCitiesInCountryByPopulation(country) : collector.cities();
+    }
+
+    /**
+     * Returns all cities in a district, most populated first.
+     *
+     * @param district the district name
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getAllCitiesInDistrictByPopulation(String district) {
+        Collector collector = collector(false, Scope.DISTRICT, district, ALL);
+        return collector == null ? cities.getAllCitiesInDistrictByPopulation(district) : collector.cities();
+    }
+
+    /**
+     * Streams all cities in the world from {@link CityDAO}.
+     *
+     * @param sink receives each city, most populated first
+     * @return the number of cities streamed
+     */
+    public int streamAllCitiesInWorldByPopulation(Consumer<? super City> sink) {
+        return cities.streamAllCitiesInWorldByPopulation(sink);
+    }
+
+    /**
+     * Streams all cities in a continent from {@link CityDAO}.
+     *
+     * @param continent the continent name
+     * @param sink      receives each city, most populated first
+     * @return the number of cities streamed
+     */
+    public int streamAllCitiesInContinentByPopulation(String continent, Consumer<? super City> sink) {
+        return cities.streamAllCitiesInContinentByPopulation(continent, sink);
+    }
+
+    /**
+     * Streams all cities in a region from {@link CityDAO}.
+     *
+     * @param region the region name
+     * @param sink   receives each city, most populated first
+     * @return the number of cities streamed
+     */
+    public int streamAllCitiesInRegionByPopulation(String region, Consumer<? super City> sink) {
+        return cities.streamAllCitiesInRegionByPopulation(region, sink);
+    }
+
+    /**
+     * Streams all cities in a country from {@link CityDAO}.
+     *
+     * @param country the country name
+     * @param sink    receives each city, most populated first
+     * @return the number of cities streamed
+     */
+    public int streamAllCitiesInCountryByPopulation(String country, Consumer<? super City> sink) {
+        return cities.streamAllCitiesInCountryByPopulation(country, sink);
+    }
+
+    /**
+     * Streams all cities in a district from {@link CityDAO}.
+     *
+     * @param district the district name
+     * @param sink     receives each city, most populated first
+     * @return the number of cities streamed
+     */
+    public int streamAllCitiesInDistrictByPopulation(String district, Consumer<? super City> sink) {
+        return cities.streamAllCitiesInDistrictByPopulation(district, sink);
+    }
+
+    /**
+     * Returns the {@code n} most populated cities in the world, most populated first.
+     *
+     * @param n the number of cities
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getTopNPopulatedCitiesInWorld(int n) {
+        Collector collector = collector(false, Scope.WORLD, null, n);
+        return collector == null ? cities.getTopNPopulatedCitiesInWorld(n) : collector.cities();
+    }
+
+    /**
+     * Returns the {@code n} most populated cities in a continent, most populated first.
+     *
+     * @param continent the continent name
+     * @param n         the number of cities
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getTopNPopulatedCitiesInContinent(String continent, int n) {
+        Collector collector = collector(false, Scope.CONTINENT, continent, n);
+        return collector == null ? cities.getTopNPopulatedCitiesInContinent(continent, n) : collector.cities();
+    }
+
+    /**
+     * Returns the {@code n} most populated cities in a region, most populated first.
+     *
+     * @param region the region name
+     * @param n      the number of cities
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getTopNPopulatedCitiesInRegion(String region, int n) {
+        Collector collector = collector(false, Scope.REGION, region, n);
+        return collector == null ? cities.getTopNPopulatedCitiesInRegion(region, n) : collector.cities();
+    }
+
+    /**
+     * Returns the {@code n} most populated cities in a country, most populated first.
+     *
+     * @param country the country name
+     * @param n       the number of cities
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getTopNPopulatedCitiesInCountry(String country, int n) {
+        Collector collector = collector(false, Scope.COUNTRY, country, n);
+        return collector == null ? cities.getTopNPopulatedCitiesInCountry(country, n) : collector.cities();
+    }
+
+    /**
+     * Returns the {@code n} most populated cities in a district, most populated first.
+     *
+     * @param district the district name
+     * @param n        the number of cities
+     * @return the cities, from the scan if the query was requested
+     */
+    public List<City> getTopNPopulatedCitiesInDistrict(String district, int n) {
+        Collector collector = collector(false, Scope.DISTRICT, district, n);
+        return collector == null ? cities.getTopNPopulatedCitiesInDistrict(district, n) : collector.cities();
+    }
+
+    /**
+     * Returns the {@code n} most populated cities of every continent. These are
+     * not part of the scan and go to {@link CityDAO}'s single window query.
+     *
+     * @param n the number of cities per continent
+     * @return the cities of each continent
+     */
+    public Map<String, List<City>> getTopNPopulatedCitiesPerContinent(int n) {
+        return cities.getTopNPopulatedCitiesPerContinent(n);
+    }
+
+    /**
+     * Returns the {@code n} most populated cities of every region. These are not
+     * part of the scan and go to {@link CityDAO}'s single window query.
+     *
+     * @param n the number of cities per region
+     * @return the cities of each region
+     */
+    public Map<String, List<City>> getTopNPopulatedCitiesPerRegion(int n) {
+        return cities.getTopNPopulatedCitiesPerRegion(n);
+    }
+
+    /**
+     * Returns all capital cities, most populated first.
+     *
+     * @return the capital cities, from the scan if the query was requested
+     */
+    public List<CapitalCity> getAllCapitalCities() {
+        Collector collector = collector(true, Scope.WORLD, null, ALL);
+        return collector == null ? capitals.getAllCapitalCities() : collector.capitals();
+    }
+
+    /**
+     * Returns all capital cities in a continent, most populated first.
+     *
+     * @param continent the continent name
+     * @return the capital cities, from the scan if the query was requested
+     */
+    public List<CapitalCity> getAllCapitalCitiesInContinent(String continent) {
+        Collector collector = collector(true, Scope.CONTINENT, continent, ALL);
+        return collector == null ? capitals.getAllCapitalCitiesInContinent(continent) : collector.capitals();
+    }
+
+    /**
+     * Returns all capital cities in a region, most populated first.
+     *
+     * @param region the region name
+     * @return the capital cities, from the scan if the query was requested
+     */
+    public List<CapitalCity> getAllCapitalCitiesInRegion(String region) {
+        Collector collector = collector(true, Scope.REGION, region, ALL);
+        return collector == null ? capitals.getAllCapitalCitiesInRegion(region) : collector.capitals();
+    }
+
+    /**
+     * Returns the {@code n} most populated capital cities, most populated first.
+     *
+     * @param n the number of capital cities
+     * @return the capital cities, from the scan if the query was requested
+     */
+    public List<CapitalCity> getTopNPopulatedCapitalCities(int n) {
+        Collector collector = collector(true, Scope.WORLD, null, n);
+        return collector == null ? capitals.getTopNPopulatedCapitalCities(n) : collector.capitals();
+    }
+
+    /**
+     * Returns the {@code n} most populated capital cities in a continent, most populated first.
+     *
+     * @param continent the continent name
+     * @param n         the number of capital cities
+     * @return the capital cities, from the scan if the query was requested
+     */
+    public List<CapitalCity> getTopNPopulatedCapitalCitiesByContinent(String continent, int n) {
+        Collector collector = collector(true, Scope.CONTINENT, continent, n);
+        return collector == null ? capitals.getTopNPopulatedCapitalCitiesByContinent(continent, n) : collector.capitals();
+    }
+
+    /**
+     * Returns the {@code n} most populated capital cities in a region, most populated first.
+     *
+     * @param region the region name
+     * @param n      the number of capital cities
+     * @return the capital cities, from the scan if the query was requested
+     */
+    public List<CapitalCity> getTopNPopulatedCapitalCitiesByRegion(String region, int n) {
+        Collector collector = collector(true, Scope.REGION, region, n);
+        return collector == null ? capitals.getTopNPopulatedCapitalCitiesByRegion(region, n) : collector.capitals();
+    }
+
+    /**
+     * Registers a collector for a query, once per distinct filter and limit.
+     */
+    private CityScanBatch request(boolean capital, Scope scope, String value, int limit) {
+        if (executed) {
+            throw new IllegalStateException("The city scan has already run");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        collectors.computeIfAbsent(key(capital, scope, value, limit), k -> new Collector(capital, scope, value, limit));
+        return this;
+    }
+
+    /**
+     * Finds the filled collector of a requested query. Returns {@code null} when
+     * the query has to go to the DAO.
+     */
+    private Collector collector(boolean capital, Scope scope, String value, int limit) {
+        if (!executed || failed) {
+            return null;
+        }
+        return collectors.get(key(capital, scope, value, limit));
+    }
+
+    private static List<Object> key(boolean capital, Scope scope, String value, int limit) {
+        return Arrays.asList(capital, scope, value == null ? null : value.toLowerCase(Locale.ROOT), limit);
+    }
+
+    /**
+     * One row of the scan.
+     */
+    private static final class Row {
+        private final String name;
+        private final String country;
+        private final String district;
+        private final long population;
+        private final String continent;
+        private final String region;
+        private final boolean capital;
+
+        private Row(String name, String country, String district, long population,
+                    String continent, String region, boolean capital) {
+            this.name = name;
+            this.country = country;
+            this.district = district;
+            this.population = population;
+            this.continent = continent;
+            this.region = region;
+            this.capital = capital;
+        }
+    }
+
+    /**
+     * Keeps the rows of one query, in scan order, up to its limit.
+     */
+    private static final class Collector {
+        private final boolean capital;
+        private final Scope scope;
+        private final String value;
+        private final int limit;
+        private final List<Row> rows = new ArrayList<>();
+
+        private Collector(boolean capital, Scope scope, String value, int limit) {
+            this.capital = capital;
+            this.scope = scope;
+            this.value = value;
+            this.limit = limit;
+        }
+
+        private void offer(Row row) {
+            if (rows.size() >= limit || (capital && !row.capital)) {
+                return;
+            }
+            String field;
+            switch (scope) {
+                case CONTINENT:
+                    field = row.continent;
+                    break;
+                case REGION:
+                    field = row.region;
+                    break;
+                case COUNTRY:
+                    field = row.country;
+                    break;
+                case DISTRICT:
+                    field = row.district;
+                    break;
+                default:
+                    rows.add(row);
+                    return;
+            }
+            if (field != null && field.equalsIgnoreCase(value)) {
+                rows.add(row);
+            }
+        }
+
+        private List<City> cities() {
+            List<City> result = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                City city = new City();
+                city.setName(row.name);
+                city.setCountry(row.country);
+                city.setDistrict(row.district);
+                city.setPopulation(row.population);
+                result.add(city);
+            }
+            return result;
+        }
+
+        private List<CapitalCity> capitals() {
+            List<CapitalCity> result = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                CapitalCity capital = new CapitalCity();
+                capital.setName(row.name);
+                capital.setCountry(row.country);
+                capital.setPopulation(row.population);
+                result.add(capital);
+            }
+            return result;
+        }
+    }
+}
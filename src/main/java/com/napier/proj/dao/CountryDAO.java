@@ -2,9 +2,11 @@ package com.napier.proj.dao;
 
 import com.napier.proj.model.Country;
 
-import java.sql.*;
+import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This is Data Access Object (DAO) class for managing all database operations related to the Country entity.
@@ -16,9 +18,51 @@ import java.util.List;
  * @author So Pyay Tun
  * @author Phone Myat Thu
  */
-public class CountryDAO {
-    /** Database connection object used for executing SQL queries */
-    private Connection con;
+public class CountryDAO implements CountryQueries {
+    /** Runs the SQL queries over the database connection */
+    private QueryExecutor query;
+
+    /** Selects each country with its capital city name; a scope filter and ordering are appended. */
+    private static final String COUNTRY_SELECT =
+            "SELECT c.Code, c.Name, c.Continent, c.Region, c.Population, ci.Name AS Capital " +
+            "FROM country c " +
+            "LEFT JOIN city ci ON c.Capital = ci.ID ";
+
+    static final String ALL_COUNTRIES_SQL =
+            COUNTRY_SELECT + "ORDER BY c.Population DESC;";
+
+    static final String ALL_COUNTRIES_IN_CONTINENT_SQL =
+            COUNTRY_SELECT + "WHERE c.Continent = ? ORDER BY c.Population DESC;";
+
+    static final String ALL_COUNTRIES_IN_REGION_SQL =
+            COUNTRY_SELECT + "WHERE c.Region = ? ORDER BY c.Population DESC;";
+
+    static final String TOP_COUNTRIES_SQL =
+            COUNTRY_SELECT + "ORDER BY c.Population DESC LIMIT ?;";
+
+    static final String TOP_COUNTRIES_IN_CONTINENT_SQL =
+            COUNTRY_SELECT + "WHERE c.Continent = ? ORDER BY c.Population DESC LIMIT ?;";
+
+    static final String TOP_COUNTRIES_IN_REGION_SQL =
+            COUNTRY_SELECT + "WHERE c.Region = ? ORDER BY c.Population DESC LIMIT ?;";
+
+    /** Ranks each country within its group by population, ties by code; the group column is appended. */
+    private static final String RANKED_COUNTRY_SELECT =
+            "SELECT Code, Name, Continent, Region, Population, Capital FROM (" +
+            "SELECT c.Code, c.Name, c.Continent, c.Region, c.Population, ci.Name AS Capital, " +
+            "ROW_NUMBER() OVER (PARTITION BY ";
+
+    private static final String RANKED_COUNTRY_FROM =
+            " ORDER BY c.Population DESC, c.Code) AS rn " +
+            "FROM country c " +
+            "LEFT JOIN city ci ON c.Capital = ci.ID" +
+            ") ranked WHERE rn <= ? ";
+
+    static final String TOP_COUNTRIES_PER_CONTINENT_SQL =
+            RANKED_COUNTRY_SELECT + "c.Continent" + RANKED_COUNTRY_FROM + "ORDER BY Continent, rn;";
+
+    static final String TOP_COUNTRIES_PER_REGION_SQL =
+            RANKED_COUNTRY_SELECT + "c.Region" + RANKED_COUNTRY_FROM + "ORDER BY Region, rn;";
 
     /**
      * Constructs a CountryDAO instance with the given database connection.
@@ -26,7 +70,7 @@ public class CountryDAO {
      * @param con The active database connection.
      */
     public CountryDAO(Connection con) {
-        this.con = con;
+        this.query = new QueryExecutor(con);
     }
 
     /**
@@ -35,37 +79,13 @@ public class CountryDAO {
      * @return A list of Country objects representing all countries in the world.
      */
     public List<Country> getAllCountriesByPopulation() {
-        List<Country> countries = new ArrayList<>();
-
-        System.out.println("\nAll the countries in the world organised by largest population to smallest.\n");
-
-        // SQL query to retrieve all countries in the world by descending order
-        String sql =
-                "SELECT c.Code, c.Name, c.Continent, c.Region, c.Population, ci.Name AS Capital " +
-                        "FROM country c " +
-                        "LEFT JOIN city ci ON c.Capital = ci.ID " +
-                        "ORDER BY c.Population DESC;";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-            try(ResultSet rs = pstmt.executeQuery()){
-                while(rs.next()){
-                    Country country = new Country();
-                    country.setCode(rs.getString("Code"));
-                    country.setName(rs.getString("Name"));
-                    country.setContinent(rs.getString("Continent"));
-                    country.setRegion(rs.getString("Region"));
-                    country.setPopulation(rs.getLong("Population"));
-                    country.setCapital(rs.getString("Capital"));
-                    countries.add(country);
-                }
-            }
-        }
-        catch(Exception e){
+        try {
+            return query.query(ALL_COUNTRIES_SQL, RowMappers.COUNTRY);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get countries");
+            return new ArrayList<>();
         }
-
-        return  countries;
     }
 
     /**
@@ -75,42 +95,15 @@ public class CountryDAO {
      * @return A list of Country objects for the specified continent.
      */
     public List<Country> getAllCountriesInContinentByPopulation(String continent) {
-        List<Country> countries = new ArrayList<>();
-
-        System.out.println("\nAll the countries in a continent organised by largest population to smallest.\n");
-
-        // SQL query with parameter for continent
-        String sql =
-                    "SELECT c.Code, c.Name, c.Continent, c.Region, c.Population, ci.Name AS Capital " +
-                            "FROM country c " +
-                            "LEFT JOIN city ci ON c.Capital = ci.ID " +
-                            "WHERE c.Continent = ?"+
-                            "ORDER BY c.Population DESC;";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-            pstmt.setString(1,continent); // Set the continent paramater
-
-            try(ResultSet rs = pstmt.executeQuery()){
-                while (rs.next()) {
-                    Country country = new Country();
-                    country.setCode(rs.getString("Code"));
-                    country.setName(rs.getString("Name"));
-                    country.setContinent(rs.getString("Continent"));
-                    country.setRegion(rs.getString("Region"));
-                    country.setPopulation(rs.getLong("Population"));
-                    country.setCapital(rs.getString("Capital"));
-                    countries.add(country);
-                }
-            }
-        }
-        catch (Exception e){
+        try {
+            return query.query(ALL_COUNTRIES_IN_CONTINENT_SQL, RowMappers.COUNTRY, continent);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get countries by population for continent: " + continent);
+            return new ArrayList<>();
         }
-        return countries;
     }
 
-
     /**
      * Retrieves all countries in a specific region, sorted by population (descending order).
      *
@@ -118,85 +111,29 @@ public class CountryDAO {
      * @return A list of Country objects for the specified region.
      */
     public List<Country> getAllCountriesInRegionByPopulation(String region) {
-        List<Country> countries = new ArrayList<>();
-
-        System.out.println("\nAll the countries in a region organised by largest population to smallest.\n");
-
-        // SQL query to get countries in a region
-        String sql =
-                "SELECT c.Code, c.Name, c.Continent, c.Region, c.Population, ci.Name AS Capital " +
-                        "FROM country c " +
-                        "LEFT JOIN city ci ON c.Capital = ci.ID " +
-                        "WHERE c.Region = ? " +
-                        "ORDER BY c.Population DESC;";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)){
-            pstmt.setString(1,region); // Set the region paramater
-
-            try(ResultSet rs = pstmt.executeQuery()){
-                while (rs.next()) {
-                    Country country = new Country();
-                    country.setCode(rs.getString("Code"));
-                    country.setName(rs.getString("Name"));
-                    country.setContinent(rs.getString("Continent"));
-                    country.setRegion(rs.getString("Region"));
-                    country.setPopulation(rs.getLong("Population"));
-                    country.setCapital(rs.getString("Capital"));
-                    countries.add(country);
-                }
-            }
-        }
-        catch (Exception e) {
+        try {
+            return query.query(ALL_COUNTRIES_IN_REGION_SQL, RowMappers.COUNTRY, region);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get countries by population for region: " + region);
+            return new ArrayList<>();
         }
-
-        return countries;
     }
 
-
     /**
      * Retrieves the top N populated countries in the world.
      *
      * @param n The number of top countries to retrieve.
      * @return A list of the top N Country objects.
      */
-    public List<Country> getTopNPopulatedCountriesIntheworld(int n)  {
-        List<Country> countries = new ArrayList<>();
-
-        System.out.println("\nThe top N populated countries in the world where N is provided by the user.\n");
-
-        // SQL query with LIMIT for top N countries
-        String sql =
-                "SELECT c.Code, c.Name, c.Continent, c.Region, c.Population, ci.Name AS Capital " +
-                        "FROM country c " +
-                        "LEFT JOIN city ci ON c.Capital = ci.ID " +
-                        "ORDER BY c.Population DESC " +
-                        "LIMIT ?;";
-
-            try(PreparedStatement pstmt = con.prepareStatement(sql)) {
-                pstmt.setInt(1, n); // Set limit value
-
-                try(ResultSet rs = pstmt.executeQuery()){
-                    while (rs.next()) {
-                        Country country = new Country();
-                        country.setCode(rs.getString("Code"));
-                        country.setName(rs.getString("Name"));
-                        country.setContinent(rs.getString("Continent"));
-                        country.setRegion(rs.getString("Region"));
-                        country.setPopulation(rs.getLong("Population"));
-                        country.setCapital(rs.getString("Capital"));
-                        countries.add(country);
-                    }
-                }
-            }
-
-         catch (Exception e) {
+    public List<Country> getTopNPopulatedCountriesIntheworld(int n) {
+        try {
+            return query.query(TOP_COUNTRIES_SQL, RowMappers.COUNTRY, n);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated countries");
+            return new ArrayList<>();
         }
-
-        return countries;
     }
 
     /**
@@ -207,45 +144,15 @@ public class CountryDAO {
      * @return A list of the top N Country objects in the specified continent.
      */
     public List<Country> getTopNPopulatedCountriesInContinent(String continent, int n) {
-        List<Country> countries = new ArrayList<>();
-
-        System.out.println("\nThe top N populated countries in a continent where N is provided by the user.\n");
-
-        // SQL query with continent filter and limit
-        String sql =
-                "SELECT c.Code, c.Name, c.Continent, c.Region, c.Population, ci.Name AS Capital " +
-                        "FROM country c " +
-                        "LEFT JOIN city ci ON c.Capital = ci.ID " +
-                        "WHERE c.Continent = ? " +
-                        "ORDER BY c.Population DESC " +
-                        "LIMIT ?;";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, continent); // Set continent paramater
-            pstmt.setInt(2, n); // Set limit
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Country country = new Country();
-                    country.setCode(rs.getString("Code"));
-                    country.setName(rs.getString("Name"));
-                    country.setContinent(rs.getString("Continent"));
-                    country.setRegion(rs.getString("Region"));
-                    country.setPopulation(rs.getLong("Population"));
-                    country.setCapital(rs.getString("Capital"));
-                    countries.add(country);
-                }
-            }
-        }
-         catch (Exception e) {
+        try {
+            return query.query(TOP_COUNTRIES_IN_CONTINENT_SQL, RowMappers.COUNTRY, continent, n);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated countries in continent: " + continent);
+            return new ArrayList<>();
         }
-
-        return countries;
     }
 
-
     /**
      * Retrieves the top N populated countries in a specific region.
      *
@@ -254,43 +161,46 @@ public class CountryDAO {
      * @return A list of the top N Country objects in the specified region.
      */
     public List<Country> getTopNPopulatedCountriesInRegion(String region, int n) {
-        List<Country> countries = new ArrayList<>();
-
-
-        System.out.println("\nThe top N populated countries in a region where N is provided by the user.\n");
-
-        // SQL query with region filter and limit
-        String sql =
-                "SELECT c.Code, c.Name, c.Continent, c.Region, c.Population, ci.Name AS Capital " +
-                        "FROM country c " +
-                        "LEFT JOIN city ci ON c.Capital = ci.ID " +
-                        "WHERE c.Region = ? " +
-                        "ORDER BY c.Population DESC " +
-                        "LIMIT ?;";
-
-        try(PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, region); // Set region paramater
-            pstmt.setInt(2, n); // Set limit
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Country country = new Country();
-                    country.setCode(rs.getString("Code"));
-                    country.setName(rs.getString("Name"));
-                    country.setContinent(rs.getString("Continent"));
-                    country.setRegion(rs.getString("Region"));
-                    country.setPopulation(rs.getLong("Population"));
-                    country.setCapital(rs.getString("Capital"));
-                    countries.add(country);
-                }
-            }
-        }
-        catch (Exception e) {
+        try {
+            return query.query(TOP_COUNTRIES_IN_REGION_SQL, RowMappers.COUNTRY, region, n);
+        } catch (Exception e) {
             System.out.println(e.getMessage());
             System.out.println("Failed to get top " + n + " populated countries in region: " + region);
+            return new ArrayList<>();
         }
+    }
 
-        return countries;
+    /**
+     * Retrieves the top N populated countries of every continent with one
+     * {@code ROW_NUMBER()} window query instead of one query per continent.
+     *
+     * @param n The number of countries to retrieve per continent.
+     * @return The top N countries of each continent, keyed by continent in continent order.
+     */
+    public Map<String, List<Country>> getTopNPopulatedCountriesPerContinent(int n) {
+        try {
+            return query.queryGroups(TOP_COUNTRIES_PER_CONTINENT_SQL, RowMappers.COUNTRY, "Continent", n);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get top " + n + " populated countries per continent");
+            return new LinkedHashMap<>();
+        }
     }
 
+    /**
+     * Retrieves the top N populated countries of every region with one
+     * {@code ROW_NUMBER()} window query instead of one query per region.
+     *
+     * @param n The number of countries to retrieve per region.
+     * @return The top N countries of each region, keyed by region in name order.
+     */
+    public Map<String, List<Country>> getTopNPopulatedCountriesPerRegion(int n) {
+        try {
+            return query.queryGroups(TOP_COUNTRIES_PER_REGION_SQL, RowMappers.COUNTRY, "Region", n);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.out.println("Failed to get top " + n + " populated countries per region");
+            return new LinkedHashMap<>();
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.model.Country;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report queries over countries.
+ * <p>
+ * Implemented by {@link CountryDAO} over JDBC and by the in-memory snapshot, so
+ * report classes can run against either backend.
+ * </p>
+ *
+ * @author So Pyay Tun
+ * @author Phone Myat Thu
+ */
+public interface CountryQueries {
+
+    /**
+     * Retrieves all countries in the world, sorted by population (descending order).
+     *
+     * @return A list of Country objects representing all countries in the world.
+     */
+    List<Country> getAllCountriesByPopulation();
+
+    /**
+     * Retrieves all countries in a specific continent, sorted by population (descending order).
+     *
+     * @param continent The name of the continent to filter by.
+     * @return A list of Country objects for the specified continent.
+     */
+    List<Country> getAllCountriesInContinentByPopulation(String continent);
+
+    /**
+     * Retrieves all countries in a specific region, sorted by population (descending order).
+     *
+     * @param region The name of the region to filter by.
+     * @return A list of Country objects for the specified region.
+     */
+    List<Country> getAllCountriesInRegionByPopulation(String region);
+
+    /**
+     * Retrieves the top N populated countries in the world.
+     *
+     * @param n The number of top countries to retrieve.
+     * @return A list of the top N Country objects.
+     */
+    List<Country> getTopNPopulatedCountriesIntheworld(int n);
+
+    /**
+     * Retrieves the top N populated countries in a specific continent.
+     *
+     * @param continent The continent to filter by.
+     * @param n The number of top countries to retrieve.
+     * @return A list of the top N Country objects in the continent.
+     */
+    List<Country> getTopNPopulatedCountriesInContinent(String continent, int n);
+
+    /**
+     * Retrieves the top N populated countries in a specific region.
+     *
+     * @param region The region to filter by.
+     * @param n The number of top countries to retrieve.
+     * @return A list of the top N Country objects in the region.
+     */
+    List<Country> getTopNPopulatedCountriesInRegion(String region, int n);
+
+    /**
+     * Retrieves the top N populated countries of every continent in one query.
+     *
+     * @param n The number of top countries to retrieve per continent.
+     * @return The top N countries of each continent, keyed by continent in continent order.
+     */
+    Map<String, List<Country>> getTopNPopulatedCountriesPerContinent(int n);
+
+    /**
+     * Retrieves the top N populated countries of every region in one query.
+     *
+     * @param n The number of top countries to retrieve per region.
+     * @return The top N countries of each region, keyed by region in name order.
+     */
+    Map<String, List<Country>> getTopNPopulatedCountriesPerRegion(int n);
+}
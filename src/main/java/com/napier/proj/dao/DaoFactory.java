@@ -0,0 +1,199 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.snapshot.WorldSnapshot;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates the query objects for the selected {@link Backend}.
+ * <p>
+ * Report classes depend only on the query interfaces, so the same reports can
+ * run over plain JDBC, over JDBC behind a shared result cache, or over an
+ * in-memory snapshot. The cache and the snapshot are shared by every set of
+ * queries created by one factory.
+ * </p>
+ * <p>
+ * The snapshot is held in an {@link AtomicReference}. Readers take whichever
+ * snapshot is current without locking, and a refresh swaps in a new one with
+ * {@link #replaceSnapshot(WorldSnapshot)}. Queries already running finish on the
+ * snapshot they started with.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class DaoFactory {
+    private final Backend backend;
+    private final ResultCache cache;
+    private final AtomicReference<WorldSnapshot> snapshot = new AtomicReference<>();
+    private volatile boolean snapshotFailed;
+
+    /**
+     * Creates a factory for the given backend.
+     *
+     * @param backend the backend to create query objects for
+     */
+    public DaoFactory(Backend backend) {
+        this(backend, new ResultCache());
+    }
+
+    /**
+     * Creates a factory for the given backend that caches results in the given
+     * store when the backend is {@link Backend#CACHED}.
+     *
+     * @param backend the backend to create query objects for
+     * @param cache   the result store shared by every set of cached queries
+     */
+    public DaoFactory(Backend backend, ResultCache cache) {
+        this.backend = backend;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the backend this factory creates query objects for.
+     *
+     * @return the backend
+     */
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Returns the result store used by the cached backend, for its counters.
+     *
+     * @return the result cache
+     */
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Drops every cached result, so the next queries read the {@code world}
+     * database again. Call this after the data has been reloaded.
+     */
+    public void invalidateCache() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the snapshot the snapshot backend currently answers from.
+     *
+     * @return the current snapshot, or {@code null} if it has not been loaded yet
+     */
+    public WorldSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Swaps in a newer snapshot. Query objects created afterwards answer from it;
+     * readers never wait for the swap.
+     *
+     * @param replacement the snapshot to answer from
+     */
+    public void replaceSnapshot(WorldSnapshot replacement) {
+        snapshot.set(replacement);
+    }
+
+    /**
+     * Creates the country queries for the given connection.
+     *
+     * @param conn the connection to query through
+     * @return country queries for the selected backend
+     */
+    public CountryQueries countryQueries(Connection conn) {
+        WorldSnapshot snapshot = snapshot(conn);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        CountryDAO dao = new CountryDAO(conn);
+        return backend == Backend.CACHED ? CachingQueries.wrap(CountryQueries.class, dao, cache) : dao;
+    }
+
+    /**
+     * Creates the city queries for the given connection.
+     *
+     * @param conn the connection to query through
+     * @return city queries for the selected backend
+     */
+    public CityQueries cityQueries(Connection conn) {
+        WorldSnapshot snapshot = snapshot(conn);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        CityDAO dao = new CityDAO(conn);
+        return backend == Backend.CACHED ? CachingQueries.wrap(CityQueries.class, dao, cache) : dao;
+    }
+
+    /**
+     * Creates the capital city queries for the given connection.
+     *
+     * @param conn the connection to query through
+     * @return capital city queries for the selected backend
+     */
+    public CapitalCityQueries capitalCityQueries(Connection conn) {
+        WorldSnapshot snapshot = snapshot(conn);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        CapitalCityDAO dao = new CapitalCityDAO(conn);
+        return backend == Backend.CACHED ? CachingQueries.wrap(CapitalCityQueries.class, dao, cache) : dao;
+    }
+
+    /**
+     * Creates the population queries for the given connection.
+     *
+     * @param conn the connection to query through
+     * @return population queries for the selected backend
+     */
+    public PopulationQueries populationQueries(Connection conn) {
+        WorldSnapshot snapshot = snapshot(conn);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        PopulationDAO dao = new PopulationDAO(conn);
+        return backend == Backend.CACHED ? CachingQueries.wrap(PopulationQueries.class, dao, cache) : dao;
+    }
+
+    /**
+     * Creates the language queries for the given connection.
+     *
+     * @param conn the connection to query through
+     * @return language queries for the selected backend
+     */
+    public LanguageQueries languageQueries(Connection conn) {
+        WorldSnapshot snapshot = snapshot(conn);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        LanguageDAO dao = new LanguageDAO(conn);
+        return backend == Backend.CACHED ? CachingQueries.wrap(LanguageQueries.class, dao, cache) : dao;
+    }
+
+    /**
+     * Returns the shared snapshot for the snapshot backend, loading it through the
+     * given connection on first use. Returns {@code null} for other backends, or if
+     * the snapshot could not be loaded, in which case the JDBC DAOs are used instead.
+     * Only the first load takes the lock.
+     */
+    private WorldSnapshot snapshot(Connection conn) {
+        if (backend != Backend.SNAPSHOT || snapshotFailed) {
+            return null;
+        }
+        WorldSnapshot current = snapshot.get();
+        return current != null ? current : loadSnapshot(conn);
+    }
+
+    private synchronized WorldSnapshot loadSnapshot(Connection conn) {
+        if (snapshot.get() == null && !snapshotFailed) {
+            try {
+                snapshot.compareAndSet(null, WorldSnapshot.load(conn));
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+                System.out.println("Failed to load world snapshot, falling back to JDBC");
+                snapshotFailed = true;
+            }
+        }
+        return snapshot.get();
+    }
+}
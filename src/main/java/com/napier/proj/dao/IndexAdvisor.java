@@ -0,0 +1,141 @@
+package com.napier.proj.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks with {@code EXPLAIN} that the report queries use the indexes created by
+ * the schema migrations.
+ * <p>
+ * Every filtered city, capital city, country and population query is explained
+ * with a typical argument. A finding is reported when the plan reads a whole table
+ * ({@code type = ALL}) to answer a filtered query. Where one index serves both the
+ * filter and the ordering, a finding is also reported when the plan sorts the
+ * rows ({@code Using filesort}). Queries that need every row of a table, such as
+ * the world-wide "all" reports, and the aggregates ordered by a computed total are
+ * not checked: no index can spare them the scan or the sort.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class IndexAdvisor {
+
+    /**
+     * One report query and what its plan must avoid.
+     */
+    private static final class Check {
+        private final String name;
+        private final String sql;
+        private final Object[] params;
+        private final boolean noFullScan;
+        private final boolean noFilesort;
+
+        private Check(String name, String sql, boolean noFullScan, boolean noFilesort, Object... params) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+            this.noFullScan = noFullScan;
+            this.noFilesort = noFilesort;
+        }
+    }
+
+    private static final List<Check> CHECKS = List.of(
+            new Check("countries in continent", CountryDAO.ALL_COUNTRIES_IN_CONTINENT_SQL, true, true, "Europe"),
+            new Check("countries in region", CountryDAO.ALL_COUNTRIES_IN_REGION_SQL, true, true, "Caribbean"),
+            new Check("top countries", CountryDAO.TOP_COUNTRIES_SQL, true, true, 10),
+            new Check("top countries in continent", CountryDAO.TOP_COUNTRIES_IN_CONTINENT_SQL, true, true, "Europe", 10),
+            new Check("top countries in region", CountryDAO.TOP_COUNTRIES_IN_REGION_SQL, true, true, "Caribbean", 10),
+
+            new Check("top cities", CityDAO.TOP_CITIES_IN_WORLD_SQL, true, true, 10),
+            new Check("cities in continent", CityDAO.ALL_CITIES_IN_CONTINENT_SQL, true, false, "Asia"),
+            new Check("top cities in continent", CityDAO.TOP_CITIES_IN_CONTINENT_SQL, true, false, "Asia", 10),
+            new Check("cities in region", CityDAO.ALL_CITIES_IN_REGION_SQL, true, false, "Central Africa"),
+            new Check("top cities in region", CityDAO.TOP_CITIES_IN_REGION_SQL, true, false, "Central Africa", 10),
+            new Check("cities in country", CityDAO.ALL_CITIES_IN_COUNTRY_SQL, true, false, "Argentina"),
+            new Check("top cities in country", CityDAO.TOP_CITIES_IN_COUNTRY_SQL, true, false, "Argentina", 10),
+            new Check("cities in district", CityDAO.ALL_CITIES_IN_DISTRICT_SQL, true, true, "Benguela"),
+            new Check("top cities in district", CityDAO.TOP_CITIES_IN_DISTRICT_SQL, true, true, "Benguela", 10),
+
+            new Check("capitals in continent", CapitalCityDAO.ALL_CAPITALS_IN_CONTINENT_SQL, true, false, "Asia"),
+            new Check("capitals in region", CapitalCityDAO.ALL_CAPITALS_IN_REGION_SQL, true, false, "Caribbean"),
+            new Check("top capitals in continent", CapitalCityDAO.TOP_CAPITALS_IN_CONTINENT_SQL, true, false, "Asia", 10),
+            new Check("top capitals in region", CapitalCityDAO.TOP_CAPITALS_IN_REGION_SQL, true, false, "Caribbean", 10),
+
+            new Check("continent population", PopulationDAO.CONTINENT_TOTAL_SQL, true, false, "Asia"),
+            new Check("region population", PopulationDAO.REGION_TOTAL_SQL, true, false, "Central Africa"),
+            new Check("country population", PopulationDAO.COUNTRY_TOTAL_SQL, true, false, "Argentina"),
+            new Check("district population", PopulationDAO.DISTRICT_TOTAL_SQL, true, false, "Benguela"),
+            new Check("city population", PopulationDAO.CITY_TOTAL_SQL, true, false, "Tokyo"));
+
+    private final Connection con;
+
+    /**
+     * Creates an advisor for the given database connection.
+     *
+     * @param con the connection the queries are explained on
+     */
+    public IndexAdvisor(Connection con) {
+        this.con = con;
+    }
+
+    /**
+     * Explains every checked report query and returns the problems found.
+     *
+     * @return one line per problem, empty if every plan uses its indexes
+     */
+    public List<String> check() {
+        List<String> findings = new ArrayList<>();
+        for (Check check : CHECKS) {
+            try {
+                for (String[] row : explain(check.sql, check.params)) {
+                    String table = row[0];
+                    String type = row[1];
+                    String extra = row[2] == null ? "" : row[2];
+                    if (check.noFullScan && "ALL".equals(type)) {
+                        findings.add(check.name + ": full scan of " + table);
+                    }
+                    if (check.noFilesort && extra.contains("Using filesort")) {
+                        findings.add(check.name + ": filesort on " + table);
+                    }
+                }
+            } catch (SQLException e) {
+                findings.add(check.name + ": could not be explained (" + e.getMessage() + ")");
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Runs {@code EXPLAIN} for a query and returns the table, access type and
+     * extra information of each row of the plan.
+     *
+     * @param sql    the query
+     * @param params the values for the query's {@code ?} placeholders
+     * @return one {@code {table, type, Extra}} triple per plan row
+     * @throws SQLException if the query cannot be explained
+     */
+    public List<String[]> explain(String sql, Object... params) throws SQLException {
+        String query = sql.trim();
+        if (query.endsWith(";")) {
+            query = query.substring(0, query.length() - 1);
+        }
+        List<String[]> plan = new ArrayList<>();
+        // Bypasses the pool's statement cache, which is kept for the report queries
+        try (PreparedStatement pstmt = con.prepareStatement("EXPLAIN " + query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(new String[]{rs.getString("table"), rs.getString("type"), rs.getString("Extra")});
+                }
+            }
+        }
+        return plan;
+    }
+}
@@ -3,10 +3,11 @@ package com.napier.proj.dao;
 import com.napier.proj.model.Language;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object (DAO) class for retrieving language report data
@@ -14,9 +15,39 @@ import java.util.List;
  *
  * @author Lin Myat Thu
  */
-public class LanguageDAO {
-    /** Database connection object used for executing SQL queries */
-    private Connection con;
+public class LanguageDAO implements LanguageQueries {
+    /** Runs the SQL queries over the database connection */
+    private QueryExecutor query;
+
+    // Speakers of the listed languages and their % of the population of each group.
+    // The group totals are computed once in a derived table rather than per row.
+    private static final String SPEAKERS =
+            "SUM(c.Population * cl.Percentage / 100)";
+
+    private static final String LANGUAGES_SELECT =
+            "SELECT cl.Language AS language, " +
+                    "       " + SPEAKERS + " AS speakers, " +
+                    "       (" + SPEAKERS + " / w.total * 100) AS world_percentage " +
+                    "FROM countrylanguage cl " +
+                    "JOIN country c ON cl.CountryCode = c.Code " +
+                    "CROSS JOIN (SELECT SUM(Population) AS total FROM country) w " +
+                    "WHERE cl.Language IN (%s)%s " +
+                    "GROUP BY cl.Language, w.total " +
+                    "ORDER BY speakers DESC, language;";
+
+    private static final String GROUPED_LANGUAGES_SELECT =
+            "SELECT c.%1$s AS GroupName, cl.Language AS language, " +
+                    "       " + SPEAKERS + " AS speakers, " +
+                    "       (" + SPEAKERS + " / g.total * 100) AS world_percentage " +
+                    "FROM countrylanguage cl " +
+                    "JOIN country c ON cl.CountryCode = c.Code " +
+                    "JOIN (SELECT %1$s, SUM(Population) AS total FROM country GROUP BY %1$s) g " +
+                    "  ON g.%1$s = c.%1$s " +
+                    "WHERE cl.Language IN (%2$s)%3$s " +
+                    "GROUP BY c.%1$s, cl.Language, g.total " +
+                    "ORDER BY GroupName, speakers DESC, language;";
+
+    private static final String OFFICIAL_ONLY = " AND cl.IsOfficial = 'T'";
 
     /**
      * Constructs a LanguageDAO instance with the given database connection.
@@ -24,41 +55,79 @@ public class LanguageDAO {
      * @param con The active database connection.
      */
     public LanguageDAO(Connection con) {
-        this.con = con;
+        this.query = new QueryExecutor(con);
     }
-    public List<Language> getMajorLanguageReport() {
-        List<Language> languages = new ArrayList<>();
-        try {
-            // SQL query to find speakers of 5 major languages and calculate % of world population
-            String sql =
-                    "SELECT cl.Language AS language, " +
-                            "       SUM(c.Population * cl.Percentage / 100) AS speakers, " +
-                            "       (SUM(c.Population * cl.Percentage / 100) / " +
-                            "        (SELECT SUM(Population) FROM country) * 100) AS world_percentage " +
-                            "FROM countrylanguage cl " +
-                            "JOIN country c ON cl.CountryCode = c.Code " +
-                            "WHERE cl.Language IN ('Chinese', 'English', 'Hindi', 'Spanish', 'Arabic') " +
-                            "GROUP BY cl.Language " +
-                            "ORDER BY speakers DESC;";
-
-            PreparedStatement pstmt = con.prepareStatement(sql);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Language lang = new Language();
-                lang.setLanguage(rs.getString("language"));
-                lang.setSpeakers(rs.getLong("speakers"));
-                lang.setWorldPercentage(rs.getDouble("world_percentage"));
-
-                languages.add(lang);
-            }
 
+    /**
+     * Retrieves the number of speakers and the percentage of the world population
+     * for any set of languages, most spoken first.
+     *
+     * @param languages    The language names.
+     * @param officialOnly Whether to count only the countries where a language is official.
+     * @return A list of Language objects, one per language with speakers.
+     */
+    public List<Language> getLanguageReport(List<String> languages, boolean officialOnly) {
+        if (languages.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return query.query(String.format(LANGUAGES_SELECT, placeholders(languages.size()),
+                    officialOnly ? OFFICIAL_ONLY : ""), RowMappers.LANGUAGE, languages.toArray());
         } catch (Exception e) {
             System.out.println("Error fetching language data: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Retrieves the speakers of a set of languages in every continent with one
+     * grouped query.
+     *
+     * @param languages    The language names.
+     * @param officialOnly Whether to count only the countries where a language is official.
+     * @return The languages of each continent with speakers, most spoken first.
+     */
+    public Map<String, List<Language>> getLanguageReportPerContinent(List<String> languages, boolean officialOnly) {
+        if (languages.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return query.queryGroups(groupedSql("Continent", languages.size(), officialOnly),
+                    RowMappers.LANGUAGE, "GroupName", languages.toArray());
+        } catch (Exception e) {
+            System.out.println("Error fetching language data per continent: " + e.getMessage());
+            return new LinkedHashMap<>();
         }
+    }
 
-        return languages;
+    /**
+     * Retrieves the speakers of a set of languages in every region with one
+     * grouped query.
+     *
+     * @param languages    The language names.
+     * @param officialOnly Whether to count only the countries where a language is official.
+     * @return The languages of each region with speakers, most spoken first.
+     */
+    public Map<String, List<Language>> getLanguageReportPerRegion(List<String> languages, boolean officialOnly) {
+        if (languages.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return query.queryGroups(groupedSql("Region", languages.size(), officialOnly),
+                    RowMappers.LANGUAGE, "GroupName", languages.toArray());
+        } catch (Exception e) {
+            System.out.println("Error fetching language data per region: " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
     }
 
+    /** The grouped query for a country column and a number of languages. */
+    private static String groupedSql(String column, int count, boolean officialOnly) {
+        return String.format(GROUPED_LANGUAGES_SELECT, column, placeholders(count), officialOnly ? OFFICIAL_ONLY : "");
+    }
 
+    /** One {@code ?} per value of an {@code IN} list. */
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
 }
@@ -0,0 +1,61 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.model.Language;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report queries over spoken languages.
+ * <p>
+ * Implemented by {@link LanguageDAO} over JDBC and by the in-memory snapshot, so
+ * report classes can run against either backend.
+ * </p>
+ *
+ * @author Lin Myat Thu
+ */
+public interface LanguageQueries {
+
+    /** The languages covered by the major language report. */
+    List<String> MAJOR_LANGUAGES = List.of("Chinese", "English", "Hindi", "Spanish", "Arabic");
+
+    /**
+     * Retrieves the number of speakers and the percentage of the world population
+     * for Chinese, English, Hindi, Spanish and Arabic, most spoken first.
+     *
+     * @return A list of Language objects, one per language.
+     */
+    default List<Language> getMajorLanguageReport() {
+        return getLanguageReport(MAJOR_LANGUAGES, false);
+    }
+
+    /**
+     * Retrieves the number of speakers and the percentage of the world population
+     * for any set of languages, most spoken first.
+     *
+     * @param languages    The language names.
+     * @param officialOnly Whether to count only the countries where a language is official.
+     * @return A list of Language objects, one per language with speakers.
+     */
+    List<Language> getLanguageReport(List<String> languages, boolean officialOnly);
+
+    /**
+     * Retrieves the speakers of a set of languages in every continent. The
+     * percentage of each entry is of the continent's population.
+     *
+     * @param languages    The language names.
+     * @param officialOnly Whether to count only the countries where a language is official.
+     * @return The languages of each continent with speakers, most spoken first.
+     */
+    Map<String, List<Language>> getLanguageReportPerContinent(List<String> languages, boolean officialOnly);
+
+    /**
+     * Retrieves the speakers of a set of languages in every region. The
+     * percentage of each entry is of the region's population.
+     *
+     * @param languages    The language names.
+     * @param officialOnly Whether to count only the countries where a language is official.
+     * @return The languages of each region with speakers, most spoken first.
+     */
+    Map<String, List<Language>> getLanguageReportPerRegion(List<String> languages, boolean officialOnly);
+}
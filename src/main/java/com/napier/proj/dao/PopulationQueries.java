@@ -0,0 +1,86 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.model.Population;
+
+import java.util.List;
+
+/**
+ * Report queries over population totals.
+ * <p>
+ * Implemented by {@link PopulationDAO} over JDBC and by the in-memory snapshot, so
+ * report classes can run against either backend.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ * @author Lin Myat Thu
+ */
+public interface PopulationQueries {
+
+    /**
+     * Retrieves the total population, city population, and non-city population for each continent.
+     *
+     * @return A list of Population objects containing data for each continent.
+     */
+    List<Population> getEachContinentPopulationWithUrbanAndNonUrban();
+
+    /**
+     * Retrieves the total population, city population, and non-city population for each region.
+     *
+     * @return A list of Population objects containing data for each region.
+     */
+    List<Population> getEachRegionPopulationWithUrbanAndNonUrban();
+
+    /**
+     * Retrieves the total population, city population, and non-city population for each country.
+     *
+     * @return A list of Population objects containing data for each country.
+     */
+    List<Population> getEachCountryPopulationWithUrbanAndNonUrban();
+
+    /**
+     * Retrieves the total population of the world.
+     *
+     * @return A list containing one {@link Population} object representing world population.
+     */
+    List<Population> getWorldPopulation();
+
+    /**
+     * Retrieves the total population of a specific continent.
+     *
+     * @param continentName The name of the continent.
+     * @return A list containing one {@link Population} object representing continent population.
+     */
+    List<Population> getContinentPopulation(String continentName);
+
+    /**
+     * Retrieves the total population of a specific region.
+     *
+     * @param regionName The name of the region.
+     * @return A list containing one {@link Population} object representing region population.
+     */
+    List<Population> getRegionPopulation(String regionName);
+
+    /**
+     * Retrieves the total population of a specific country.
+     *
+     * @param countryName The name of the country.
+     * @return A list containing one {@link Population} object representing country population.
+     */
+    List<Population> getCountryPopulation(String countryName);
+
+    /**
+     * Retrieves the total population of a specific district.
+     *
+     * @param districtName The name of the district.
+     * @return A list containing one {@link Population} object representing district population.
+     */
+    List<Population> getDistrictPopulation(String districtName);
+
+    /**
+     * Retrieves the total population of a specific city.
+     *
+     * @param cityName The name of the city.
+     * @return A list containing one {@link Population} object representing city population.
+     */
+    List<Population> getCityPopulation(String cityName);
+}
@@ -0,0 +1,327 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.events.QueryEvent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Runs parameterised queries for the DAOs and maps their rows with a {@link RowMapper}.
+ * <p>
+ * Column labels are resolved to indexes once per result set, and every row is
+ * then read by index. Failures are thrown to the calling DAO, which decides what
+ * message to print and what to return.
+ * </p>
+ * <p>
+ * Every query is timed and counted in a {@link QueryMetrics}, named after the DAO
+ * method that called the executor, so failures are counted even though the DAOs
+ * only print them. While Flight Recorder is recording, each query also emits a
+ * {@link QueryEvent} with its time split into prepare, execute, fetch and map.
+ * </p>
+ * <p>
+ * Failures are also counted per thread, so a caller that runs a whole report on
+ * one thread can tell a failed query from one that found no rows by comparing
+ * {@link #failuresOnCurrentThread()} before and after.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class QueryExecutor {
+    /** Database connection object used for executing SQL queries */
+    private final Connection con;
+
+    /** Records the timing and row counts of every query */
+    private final QueryMetrics metrics;
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    /** Queries that have failed on each thread so far */
+    private static final ThreadLocal<int[]> FAILURES = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Creates an executor over the given connection that records into
+     * {@link QueryMetrics#global()}.
+     *
+     * @param con The database connection to be used for queries.
+     */
+    public QueryExecutor(Connection con) {
+        this(con, QueryMetrics.global());
+    }
+
+    /**
+     * Creates an executor over the given connection that records into the given metrics.
+     *
+     * @param con     The database connection to be used for queries.
+     * @param metrics receives the timing and row counts of every query.
+     */
+    public QueryExecutor(Connection con, QueryMetrics metrics) {
+        this.con = con;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns how many queries have failed on the calling thread so far.
+     *
+     * @return failed queries run by this thread
+     */
+    public static int failuresOnCurrentThread() {
+        return FAILURES.get()[0];
+    }
+
+    /**
+     * Runs a query and collects every mapped row into a list.
+     *
+     * @param sql    the query to run
+     * @param mapper maps each row
+     * @param params the values for the query's {@code ?} placeholders, in order
+     * @param <T>    the type each row is mapped to
+     * @return the mapped rows, in result set order
+     * @throws SQLException if the query fails or a row cannot be mapped
+     */
+    public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        Call call = new Call();
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            bind(pstmt, params);
+            call.prepared();
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                call.executed();
+                int[] index = resolve(rs, mapper);
+                call.width = width(rs, index);
+                while (rs.next()) {
+                    rows.add(call.map(mapper, rs, index));
+                }
+            }
+            call.failed = false;
+        } finally {
+            call.finish(rows.size(), params);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Runs a query whose rows are ordered by group and collects them per group.
+     * <p>
+     * The group of each row is read from {@code groupColumn}, which may be one of
+     * the mapper's own columns. Groups keep the order in which the query returns
+     * them, and rows keep their order within each group.
+     * </p>
+     *
+     * @param sql         the query to run
+     * @param mapper      maps each row
+     * @param groupColumn the label of the column holding each row's group
+     * @param params      the values for the query's {@code ?} placeholders, in order
+     * @param <T>         the type each row is mapped to
+     * @return the mapped rows of each group, in result set order
+     * @throws SQLException if the query fails or a row cannot be mapped
+     */
+    public <T> Map<String, List<T>> queryGroups(String sql, RowMapper<T> mapper, String groupColumn,
+                                                Object... params) throws SQLException {
+        String[] columns = Arrays.copyOf(mapper.columns(), mapper.columns().length + 1);
+        columns[columns.length - 1] = groupColumn;
+        // The mapper reads the leading indexes and ignores the extra group index at the end
+        RowMapper<Map.Entry<String, T>> grouped = RowMapper.of(
+                (rs, index) -> new AbstractMap.SimpleImmutableEntry<>(rs.getString(index[index.length - 1]),
+                        mapper.mapRow(rs, index)),
+                columns);
+
+        Map<String, List<T>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, T> row : query(sql, grouped, params)) {
+            groups.computeIfAbsent(row.getKey(), key -> new ArrayList<>()).add(row.getValue());
+        }
+        return groups;
+    }
+
+    /**
+     * Runs a query and passes each mapped row to the sink while the result set is read.
+     * <p>
+     * The statement is forward-only and read-only with a fetch size of
+     * {@link Integer#MIN_VALUE}, which makes MySQL Connector/J stream rows one at a
+     * time instead of buffering the whole result in memory.
+     * </p>
+     *
+     * @param sql    the query to run
+     * @param mapper maps each row
+     * @param sink   receives each mapped row in order
+     * @param params the values for the query's {@code ?} placeholders, in order
+     * @param <T>    the type each row is mapped to
+     * @return the number of rows passed to the sink
+     * @throws SQLException if the query fails or a row cannot be mapped
+     */
+    public <T> int stream(String sql, RowMapper<T> mapper, Consumer<? super T> sink, Object... params)
+            throws SQLException {
+        int count = 0;
+        Call call = new Call();
+
+        try (PreparedStatement pstmt = con.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            bind(pstmt, params);
+            call.prepared();
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                call.executed();
+                int[] index = resolve(rs, mapper);
+                call.width = width(rs, index);
+                while (rs.next()) {
+                    call.accept(sink, call.map(mapper, rs, index));
+                    count++;
+                }
+            }
+            call.failed = false;
+        } finally {
+            call.finish(count, params);
+        }
+
+        return count;
+    }
+
+    /**
+     * The timing of one query, recorded into the metrics and, while Flight
+     * Recorder is recording, into a {@link QueryEvent}. Rows are only timed
+     * one by one while the event is enabled.
+     */
+    private final class Call {
+        private final QueryEvent event = new QueryEvent();
+        private final boolean timed;
+        private final long start;
+        private long prepared;
+        private long executed;
+        private long mapNanos;
+        private long sinkNanos;
+        private long width;
+        private boolean failed = true;
+
+        private Call() {
+            event.begin();
+            timed = event.isEnabled();
+            start = System.nanoTime();
+            prepared = start;
+            executed = start;
+        }
+
+        private void prepared() {
+            prepared = System.nanoTime();
+            executed = prepared;
+        }
+
+        private void executed() {
+            executed = System.nanoTime();
+        }
+
+        private <T> T map(RowMapper<T> mapper, ResultSet rs, int[] index) throws SQLException {
+            if (!timed) {
+                return mapper.mapRow(rs, index);
+            }
+            long mapStart = System.nanoTime();
+            T row = mapper.mapRow(rs, index);
+            mapNanos += System.nanoTime() - mapStart;
+            return row;
+        }
+
+        private <T> void accept(Consumer<? super T> sink, T row) {
+            if (!timed) {
+                sink.accept(row);
+                return;
+            }
+            long sinkStart = System.nanoTime();
+            sink.accept(row);
+            sinkNanos += System.nanoTime() - sinkStart;
+        }
+
+        private void finish(long rows, Object[] params) {
+            long end = System.nanoTime();
+            String name = caller();
+            metrics.record(name, end - start, rows, rows * width, failed);
+            if (failed) {
+                FAILURES.get()[0]++;
+            }
+            if (event.shouldCommit()) {
+                event.setQuery(name);
+                event.setParameters(Arrays.toString(params));
+                event.setRows(rows);
+                event.setFailed(failed);
+                event.setPrepareTime(prepared - start);
+                event.setExecuteTime(executed - prepared);
+                event.setFetchTime(Math.max(0, end - executed - mapNanos - sinkNanos));
+                event.setMapTime(mapNanos);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Sets the placeholder values of a statement. Integers are bound with
+     * {@code setInt} and strings with {@code setString}, as the DAOs always did.
+     */
+    private static void bind(PreparedStatement pstmt, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param instanceof Integer value) {
+                pstmt.setInt(i + 1, value);
+            } else if (param == null || param instanceof String) {
+                pstmt.setString(i + 1, (String) param);
+            } else {
+                pstmt.setObject(i + 1, param);
+            }
+        }
+    }
+
+    /**
+     * Returns the declared display width of the given columns, the most a row of
+     * them can take, or 0 if the result set has no metadata.
+     */
+    private static long width(ResultSet rs, int[] index) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        if (meta == null) {
+            return 0;
+        }
+        long width = 0;
+        for (int column : index) {
+            width += Math.max(0, meta.getColumnDisplaySize(column));
+        }
+        return width;
+    }
+
+    /**
+     * Returns the name of the DAO method that called the executor, as
+     * {@code ClassName.methodName}.
+     */
+    private static String caller() {
+        Optional<String> caller = WALKER.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().equals(QueryExecutor.class.getName())
+                        && !frame.getClassName().startsWith(QueryExecutor.class.getName() + "$"))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName();
+                    return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                }));
+        return caller.orElse("unknown");
+    }
+
+    /**
+     * Resolves the mapper's column labels to indexes in the given result set.
+     */
+    private static int[] resolve(ResultSet rs, RowMapper<?> mapper) throws SQLException {
+        String[] columns = mapper.columns();
+        int[] index = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            index[i] = rs.findColumn(columns[i]);
+        }
+        return index;
+    }
+}
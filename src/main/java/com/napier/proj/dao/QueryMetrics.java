@@ -0,0 +1,232 @@
+package com.napier.proj.dao;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-query timing and row counts for every query run by a {@link QueryExecutor}.
+ * <p>
+ * Each query is named after the DAO method that ran it, for example
+ * {@code CityDAO.getAllCitiesInContinentByPopulation}, and records its number of
+ * calls and failures, the rows and bytes it read and a latency histogram. Bytes
+ * are estimated from the declared display width of the columns the row mapper
+ * reads, so they are an upper bound that ranks queries by the data they move
+ * without reading any column twice. The histogram has one bucket per power of
+ * two microseconds, so the percentiles are estimates, reported as the upper
+ * bound of their bucket and never above the slowest call.
+ * </p>
+ * <p>
+ * Recording is lock-free and safe from any number of threads. {@link #snapshot()}
+ * returns a copy of the counters that callers can poll, for example the report
+ * service's {@code /metrics} route. All executors record into {@link #global()}
+ * unless they are given their own instance.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class QueryMetrics {
+    /** Latency buckets: bucket {@code i} holds calls of under {@code 2^i} microseconds. */
+    private static final int BUCKETS = 40;
+
+    private static final QueryMetrics GLOBAL = new QueryMetrics();
+
+    private final Map<String, Counters> queries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the metrics every {@link QueryExecutor} records into by default.
+     *
+     * @return the process-wide query metrics
+     */
+    public static QueryMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records one call of a query.
+     *
+     * @param name   the query name
+     * @param nanos  how long the call took, from preparing the statement to reading the last row
+     * @param rows   the rows read
+     * @param bytes  the bytes read
+     * @param failed whether the call ended with an exception
+     */
+    public void record(String name, long nanos, long rows, long bytes, boolean failed) {
+        Counters counters = queries.computeIfAbsent(name, key -> new Counters());
+        long micros = Math.max(0, nanos / 1000);
+        counters.calls.increment();
+        if (failed) {
+            counters.errors.increment();
+        }
+        counters.rows.add(rows);
+        counters.bytes.add(bytes);
+        counters.totalMicros.add(micros);
+        counters.maxMicros.accumulate(micros);
+        counters.histogram.incrementAndGet(bucket(micros));
+    }
+
+    /**
+     * Returns the counters of every query recorded so far, the query with the most
+     * total time first.
+     *
+     * @return one entry per query name
+     */
+    public List<QueryStats> snapshot() {
+        List<QueryStats> stats = new ArrayList<>(queries.size());
+        for (Map.Entry<String, Counters> entry : queries.entrySet()) {
+            stats.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        stats.sort(Comparator.comparingLong(QueryStats::getTotalMicros).reversed()
+                .thenComparing(QueryStats::getName));
+        return stats;
+    }
+
+    /**
+     * Returns the counters of one query.
+     *
+     * @param name the query name
+     * @return its counters, or {@code null} if it has not been run
+     */
+    public QueryStats get(String name) {
+        Counters counters = queries.get(name);
+        return counters == null ? null : counters.snapshot(name);
+    }
+
+    /**
+     * Forgets every recorded call.
+     */
+    public void reset() {
+        queries.clear();
+    }
+
+    /**
+     * Returns the histogram bucket of a latency.
+     */
+    static int bucket(long micros) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * The live counters of one query.
+     */
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private QueryStats snapshot(String name) {
+            long[] buckets = new long[BUCKETS];
+            long counted = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = histogram.get(i);
+                counted += buckets[i];
+            }
+            long max = maxMicros.get();
+            return new QueryStats(name, calls.sum(), errors.sum(), rows.sum(), bytes.sum(), totalMicros.sum(),
+                    max, percentile(buckets, counted, 0.50, max), percentile(buckets, counted, 0.95, max),
+                    percentile(buckets, counted, 0.99, max));
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given fraction of calls.
+         */
+        private static long percentile(long[] buckets, long counted, double fraction, long max) {
+            if (counted == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * counted);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(max, (1L << i) - 1);
+                }
+            }
+            return max;
+        }
+    }
+
+    /**
+     * The counters of one query at the time of a {@link #snapshot()}. Times are in
+     * microseconds.
+     */
+    public static final class QueryStats {
+        private final String name;
+        private final long calls;
+        private final long errors;
+        private final long rows;
+        private final long bytes;
+        private final long totalMicros;
+        private final long maxMicros;
+        private final long p50Micros;
+        private final long p95Micros;
+        private final long p99Micros;
+
+        QueryStats(String name, long calls, long errors, long rows, long bytes, long totalMicros,
+                   long maxMicros, long p50Micros, long p95Micros, long p99Micros) {
+            this.name = name;
+            this.calls = calls;
+            this.errors = errors;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+
+        public long getMeanMicros() {
+            return calls == 0 ? 0 : totalMicros / calls;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP95Micros() {
+            return p95Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.napier.proj.dao;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded store for query results, shared by the {@link CachingQueries} decorators
+ * of one {@link DaoFactory}.
+ * <p>
+ * Results are keyed by method name and arguments. An entry expires once it is
+ * older than the time to live, and when the cache is full the least recently used
+ * entry is evicted to make room. {@link #invalidateAll()} drops every entry, for
+ * when the {@code world} data has been reloaded, and starts a new generation: a
+ * result read before the reload is not stored even if the query finishes after
+ * it. Hit, miss, expiry and eviction
+ * counts are kept for the run summary.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class ResultCache {
+    /** Entries kept by {@link #ResultCache()}. */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    /** Time to live used by {@link #ResultCache()}. */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    /** Cached results in access order, least recently used first. */
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Incremented by every {@link #invalidateAll()}; guarded by {@code entries}. */
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache with the default size and time to live.
+     */
+    public ResultCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+    }
+
+    /**
+     * Creates a cache with the given bounds.
+     *
+     * @param maxEntries the most results kept at once
+     * @param ttl        how long a result is served before it is queried again;
+     *                   zero keeps results until they are evicted
+     */
+    public ResultCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    /**
+     * Creates a cache that reads the time from the given clock.
+     *
+     * @param maxEntries the most results kept at once
+     * @param ttl        how long a result is served; zero keeps results until they are evicted
+     * @param clock      the current time in nanoseconds
+     */
+    public ResultCache(int maxEntries, Duration ttl, LongSupplier clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("Cache time to live must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached result for a key, or {@code null} if there is none or it
+     * has expired.
+     *
+     * @param key the method name followed by the arguments
+     * @return the cached result, or {@code null}
+     */
+    public List<?> get(List<Object> key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && ttlNanos > 0 && clock.getAsLong() - entry.storedAt >= ttlNanos) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.result;
+        }
+    }
+
+    /**
+     * Returns the current generation. Read it before querying the database and pass
+     * it to {@link #put(List, List, long)} with the result.
+     *
+     * @return the number of times the cache has been invalidated
+     */
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Stores a result, evicting the least recently used results if the cache is full.
+     * A result read before the last {@link #invalidateAll()} is dropped instead.
+     *
+     * @param key        the method name followed by the arguments
+     * @param result     the result to store
+     * @param generation the {@link #generation()} read before the result was queried
+     */
+    public void put(List<Object> key, List<?> result, long generation) {
+        synchronized (entries) {
+            if (generation != this.generation) {
+                return;
+            }
+            entries.put(key, new Entry(result, clock.getAsLong()));
+            Iterator<Map.Entry<List<Object>, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Drops every cached result, so the next call of each query reads the database
+     * again. Results of queries still running are not stored when they finish.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of results currently cached, including expired ones not yet dropped.
+     *
+     * @return cached results
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns how many calls were answered from the cache.
+     *
+     * @return cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns how many calls had to query the database, including expired results.
+     *
+     * @return cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns how many results were dropped because they outlived the time to live.
+     *
+     * @return expired results
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * Returns how many results were evicted to make room.
+     *
+     * @return evicted results
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the share of calls answered from the cache, as a percentage.
+     *
+     * @return hit rate between 0 and 100
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : hit * 100.0 / total;
+    }
+
+    /**
+     * Returns a one-line summary of the cache state and counters.
+     *
+     * @return the summary
+     */
+    public String getSummary() {
+        return String.format("size=%d/%d hits=%d misses=%d expirations=%d evictions=%d hitRate=%.1f%%",
+                size(), maxEntries, getHitCount(), getMissCount(), getExpirationCount(),
+                getEvictionCount(), getHitRate());
+    }
+
+    /**
+     * A cached result and when it was stored.
+     */
+    private static final class Entry {
+        private final List<?> result;
+        private final long storedAt;
+
+        private Entry(List<?> result, long storedAt) {
+            this.result = result;
+            this.storedAt = storedAt;
+        }
+    }
+}
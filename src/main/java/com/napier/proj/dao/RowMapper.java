@@ -0,0 +1,76 @@
+package com.napier.proj.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to one object.
+ * <p>
+ * A mapper names the column labels it reads. {@link QueryExecutor} resolves
+ * those labels to column indexes once per result set and passes the indexes
+ * in, so each row is read by position instead of looking every label up again.
+ * </p>
+ *
+ * @param <T> the type each row is mapped to
+ * @author Phone Myat Thu
+ */
+public interface RowMapper<T> {
+
+    /**
+     * Returns the column labels this mapper reads. The indexes passed to
+     * {@link #mapRow(ResultSet, int[])} are in the same order.
+     *
+     * @return the column labels read by this mapper
+     */
+    String[] columns();
+
+    /**
+     * Maps the current row.
+     *
+     * @param rs    the result set, positioned on the row to map
+     * @param index the column index of each label returned by {@link #columns()}
+     * @return the mapped object
+     * @throws SQLException if a column cannot be read
+     */
+    T mapRow(ResultSet rs, int[] index) throws SQLException;
+
+    /**
+     * Creates a mapper from a row reader and the column labels it reads.
+     *
+     * @param reader  reads one row using the resolved column indexes
+     * @param columns the column labels, in the order {@code reader} expects them
+     * @param <T>     the type each row is mapped to
+     * @return a mapper over the given columns
+     */
+    static <T> RowMapper<T> of(Reader<T> reader, String... columns) {
+        return new RowMapper<T>() {
+            @Override
+            public String[] columns() {
+                return columns;
+            }
+
+            @Override
+            public T mapRow(ResultSet rs, int[] index) throws SQLException {
+                return reader.read(rs, index);
+            }
+        };
+    }
+
+    /**
+     * Reads one row using column indexes resolved in advance.
+     *
+     * @param <T> the type each row is mapped to
+     */
+    @FunctionalInterface
+    interface Reader<T> {
+        /**
+         * Reads the current row.
+         *
+         * @param rs    the result set, positioned on the row to read
+         * @param index the resolved column indexes
+         * @return the mapped object
+         * @throws SQLException if a column cannot be read
+         */
+        T read(ResultSet rs, int[] index) throws SQLException;
+    }
+}
@@ -0,0 +1,96 @@
+package com.napier.proj.dao;
+
+import com.napier.proj.model.CapitalCity;
+import com.napier.proj.model.City;
+import com.napier.proj.model.Country;
+import com.napier.proj.model.Language;
+import com.napier.proj.model.Population;
+
+/**
+ * The row mappers shared by the DAOs, one per report row shape.
+ * <p>
+ * The column labels here are the aliases used in the DAO SQL, so every query
+ * that returns a given model selects the same labels.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class RowMappers {
+
+    /** Maps {@code CityName, Country, District, Population} to a {@link City}. */
+    public static final RowMapper<City> CITY = RowMapper.of((rs, col) -> {
+        City city = new City();
+        city.setName(rs.getString(col[0]));
+        city.setCountry(rs.getString(col[1]));
+        city.setDistrict(rs.getString(col[2]));
+        city.setPopulation(rs.getLong(col[3]));
+        return city;
+    }, "CityName", "Country", "District", "Population");
+
+    /** Maps {@code Code, Name, Continent, Region, Population, Capital} to a {@link Country}. */
+    public static final RowMapper<Country> COUNTRY = RowMapper.of((rs, col) -> {
+        Country country = new Country();
+        country.setCode(rs.getString(col[0]));
+        country.setName(rs.getString(col[1]));
+        country.setContinent(rs.getString(col[2]));
+        country.setRegion(rs.getString(col[3]));
+        country.setPopulation(rs.getLong(col[4]));
+        country.setCapital(rs.getString(col[5]));
+        return country;
+    }, "Code", "Name", "Continent", "Region", "Population", "Capital");
+
+    /** Maps {@code CapitalCity, Country, Population} to a {@link CapitalCity}. */
+    public static final RowMapper<CapitalCity> CAPITAL_CITY = RowMapper.of((rs, col) -> {
+        CapitalCity capitalCity = new CapitalCity();
+        capitalCity.setName(rs.getString(col[0]));
+        capitalCity.setCountry(rs.getString(col[1]));
+        capitalCity.setPopulation(rs.getLong(col[2]));
+        return capitalCity;
+    }, "CapitalCity", "Country", "Population");
+
+    /** Maps {@code language, speakers, world_percentage} to a {@link Language}. */
+    public static final RowMapper<Language> LANGUAGE = RowMapper.of((rs, col) -> {
+        Language lang = new Language();
+        lang.setLanguage(rs.getString(col[0]));
+        lang.setSpeakers(rs.getLong(col[1]));
+        lang.setWorldPercentage(rs.getDouble(col[2]));
+        return lang;
+    }, "language", "speakers", "world_percentage");
+
+    private RowMappers() {
+    }
+
+    /**
+     * Maps a city/non-city population split, naming each row from the given column.
+     *
+     * @param nameColumn the label of the column holding the continent, region or country name
+     * @return a mapper for {@code nameColumn, total_population, city_population, non_city_population}
+     */
+    public static RowMapper<Population> populationSplit(String nameColumn) {
+        return RowMapper.of((rs, col) -> {
+            Population population = new Population();
+            population.setName(rs.getString(col[0]));
+            population.setTotalPopulation(rs.getLong(col[1]));
+            population.setCityPopulation(rs.getLong(col[2]));
+            population.setNonCityPopulation(rs.getLong(col[3]));
+            population.setCityPercentage();
+            population.setNonCityPercentage();
+            return population;
+        }, nameColumn, "total_population", "city_population", "non_city_population");
+    }
+
+    /**
+     * Maps a single {@code TotalPopulation} column to a {@link Population} with a fixed name.
+     *
+     * @param name the name to give each row, e.g. the area that was queried
+     * @return a mapper for {@code TotalPopulation}
+     */
+    public static RowMapper<Population> totalPopulation(String name) {
+        return RowMapper.of((rs, col) -> {
+            Population population = new Population();
+            population.setName(name);
+            population.setTotalPopulation(rs.getLong(col[0]));
+            return population;
+        }, "TotalPopulation");
+    }
+}
@@ -0,0 +1,485 @@
+package com.napier.proj.dataset;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a scaled copy of the {@code world} database for load and scale testing.
+ * <p>
+ * The generator reads the shipped {@code db/world.sql} dump and writes a dump of
+ * the same shape, with the schema and session settings copied line for line and
+ * the data of each table replaced by a scaled version of the original:
+ * </p>
+ * <ul>
+ *   <li>every city is copied {@code scale} times;</li>
+ *   <li>every country is copied up to {@code scale} times, limited by the 17,576
+ *   three-letter codes the {@code Code} column can hold (at most 73 copies of the
+ *   239 countries). Each copy keeps its continent, region and other columns, takes
+ *   the next free code, and has the city copies of its original spread across it
+ *   round robin, so every city still belongs to a copy of its own country;</li>
+ *   <li>each country copy's capital is the copy of the original capital placed in
+ *   it, and each copy speaks the original's languages at the same percentages.</li>
+ * </ul>
+ * <p>
+ * The first copy of every row is the original row unchanged, so scale 1 reproduces
+ * the source data. Later copies get a numbered name and a population drawn from a
+ * log-normal spread around the original. Country populations are multiplied by the
+ * number of city copies per country copy, so the urban share stays about the same.
+ * They are capped at the largest {@code int}. The output is reproducible for a
+ * given seed. It uses multi-row {@code INSERT} statements committed every
+ * {@value #ROWS_PER_COMMIT} rows, so the {@code db} container loads even the 1000x
+ * dataset (about four million cities) in reasonable time.
+ * </p>
+ * <pre>
+ * java -cp target/devops.jar com.napier.proj.dataset.WorldGenerator [--scale=N] [--seed=N]
+ *     [--source=db/world.sql] [--output=db/world-Nx.sql]
+ * </pre>
+ *
+ * @author Phone Myat Thu
+ */
+public final class WorldGenerator {
+    /** Rows written by one {@code INSERT} statement. */
+    static final int ROWS_PER_INSERT = 1000;
+    /** Rows written between two commits. */
+    static final int ROWS_PER_COMMIT = 50000;
+    /** Spread of the log-normal factor applied to copied populations. */
+    private static final double POPULATION_SIGMA = 0.25;
+
+    private static final int CITY_NAME_LENGTH = 35;
+    private static final int DISTRICT_LENGTH = 20;
+    private static final int COUNTRY_NAME_LENGTH = 52;
+
+    /**
+     * The number of rows written to each table.
+     */
+    public static final class Counts {
+        private final int countries;
+        private final long cities;
+        private final long languages;
+
+        private Counts(int countries, long cities, long languages) {
+            this.countries = countries;
+            this.cities = cities;
+            this.languages = languages;
+        }
+
+        /**
+         * Returns the number of countries written.
+         *
+         * @return country rows
+         */
+        public int getCountries() {
+            return countries;
+        }
+
+        /**
+         * Returns the number of cities written.
+         *
+         * @return city rows
+         */
+        public long getCities() {
+            return cities;
+        }
+
+        /**
+         * Returns the number of country languages written.
+         *
+         * @return countrylanguage rows
+         */
+        public long getLanguages() {
+            return languages;
+        }
+
+        @Override
+        public String toString() {
+            return countries + " countries, " + cities + " cities, " + languages + " country languages";
+        }
+    }
+
+    private WorldGenerator() {
+    }
+
+    /**
+     * Generates a scaled dump file.
+     *
+     * @param args {@code --scale=N} (default 10), {@code --seed=N} (default 1),
+     *             {@code --source=FILE} (default {@code db/world.sql}) and
+     *             {@code --output=FILE} (default {@code db/world-<scale>x.sql})
+     */
+    public static void main(String[] args) {
+        int scale = 10;
+        long seed = 1;
+        Path source = Path.of("db", "world.sql");
+        Path output = null;
+        for (String arg : args) {
+            if (arg.startsWith("--scale=")) {
+                scale = Integer.parseInt(arg.substring("--scale=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--source=")) {
+                source = Path.of(arg.substring("--source=".length()));
+            } else if (arg.startsWith("--output=")) {
+                output = Path.of(arg.substring("--output=".length()));
+            } else {
+                System.out.println("Unknown option " + arg);
+                return;
+            }
+        }
+        if (output == null) {
+            output = Path.of("db", "world-" + scale + "x.sql");
+        }
+
+        long start = System.nanoTime();
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8), 1 << 16)) {
+            Counts counts = generate(Files.readAllLines(source, StandardCharsets.UTF_8), out, scale, seed);
+            System.out.printf("Wrote %s to %s in %d ms%n", counts, output, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            System.out.println("Failed to generate world dataset: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a scaled copy of a {@code world} dump.
+     *
+     * @param source the lines of the source dump
+     * @param out    where the scaled dump is written
+     * @param scale  how many copies of every city to write, at least 1
+     * @param seed   the seed of the population spread
+     * @return the number of rows written to each table
+     * @throws IOException if the output cannot be written
+     */
+    public static Counts generate(List<String> source, Appendable out, int scale, long seed) throws IOException {
+        if (scale < 1) {
+            throw new IllegalArgumentException("Scale must be at least 1");
+        }
+        Map<String, List<String[]>> tables = new HashMap<>();
+        for (String line : source) {
+            String table = insertTable(line);
+            if (table != null) {
+                tables.computeIfAbsent(table, t -> new ArrayList<>()).add(parseValues(line));
+            }
+        }
+        List<String[]> countries = tables.getOrDefault("country", List.of());
+        List<String[]> cities = tables.getOrDefault("city", List.of());
+        List<String[]> languages = tables.getOrDefault("countrylanguage", List.of());
+
+        Plan plan = new Plan(countries, cities, scale);
+        Random random = new Random(seed);
+        Set<String> written = new HashSet<>();
+        long[] rows = new long[3];
+        for (String line : source) {
+            String table = insertTable(line);
+            if (table == null) {
+                out.append(line).append('\n');
+            } else if (written.add(table)) {
+                switch (table) {
+                    case "city":
+                        rows[1] = writeCities(out, plan, random);
+                        break;
+                    case "country":
+                        rows[0] = writeCountries(out, plan, random);
+                        break;
+                    case "countrylanguage":
+                        rows[2] = writeLanguages(out, plan, languages);
+                        break;
+                    default:
+                        // Tables this generator does not know about are copied as they are
+                        written.remove(table);
+                        out.append(line).append('\n');
+                        break;
+                }
+            }
+        }
+        return new Counts((int) rows[0], rows[1], rows[2]);
+    }
+
+    /**
+     * Where every copy goes: the code of each country copy and the ID of each city copy.
+     */
+    private static final class Plan {
+        private final List<String[]> countries;
+        private final List<String[]> cities;
+        private final int scale;
+        /** Copies of every country, 1 to {@code scale}. */
+        private final int countryCopies;
+        /** Per country row, the code of each of its copies. */
+        private final String[][] codes;
+        /** Per country code, its row. */
+        private final Map<String, Integer> countryRow = new HashMap<>();
+        /** Per city ID, its row. */
+        private final Map<Long, Integer> cityRow = new HashMap<>();
+
+        private Plan(List<String[]> countries, List<String[]> cities, int scale) {
+            this.countries = countries;
+            this.cities = cities;
+            this.scale = scale;
+
+            Set<String> used = new HashSet<>();
+            for (int row = 0; row < countries.size(); row++) {
+                String code = unquote(countries.get(row)[0]);
+                countryRow.put(code, row);
+                used.add(code);
+            }
+            int free = 26 * 26 * 26 - used.size();
+            this.countryCopies = countries.isEmpty() ? 1 : Math.min(scale, 1 + free / countries.size());
+
+            this.codes = new String[countries.size()][countryCopies];
+            char[] next = {'A', 'A', 'A'};
+            for (int row = 0; row < countries.size(); row++) {
+                codes[row][0] = unquote(countries.get(row)[0]);
+            }
+            for (int copy = 1; copy < countryCopies; copy++) {
+                for (int row = 0; row < countries.size(); row++) {
+                    String code;
+                    do {
+                        code = new String(next);
+                        increment(next);
+                    } while (used.contains(code));
+                    used.add(code);
+                    codes[row][copy] = code;
+                }
+            }
+            for (int row = 0; row < cities.size(); row++) {
+                cityRow.put(Long.parseLong(cities.get(row)[0]), row);
+            }
+        }
+
+        /** Returns the ID of a copy of a city. */
+        private long cityId(int row, int copy) {
+            return (long) copy * cities.size() + row + 1;
+        }
+
+        /** Returns the number of city copies each country copy holds per original city. */
+        private double density() {
+            return scale / (double) countryCopies;
+        }
+
+        private static void increment(char[] code) {
+            for (int i = code.length - 1; i >= 0; i--) {
+                if (code[i] < 'Z') {
+                    code[i]++;
+                    return;
+                }
+                code[i] = 'A';
+            }
+        }
+    }
+
+    private static long writeCities(Appendable out, Plan plan, Random random) throws IOException {
+        Batch batch = new Batch(out, "city");
+        for (int copy = 0; copy < plan.scale; copy++) {
+            int countryCopy = copy % plan.countryCopies;
+            for (int row = 0; row < plan.cities.size(); row++) {
+                String[] city = plan.cities.get(row);
+                Integer country = plan.countryRow.get(unquote(city[2]));
+                String code = country == null ? unquote(city[2]) : plan.codes[country][countryCopy];
+                String district = unquote(city[3]);
+                if (countryCopy > 0) {
+                    district = numbered(district, countryCopy, DISTRICT_LENGTH);
+                }
+                batch.row(plan.cityId(row, copy) + ","
+                        + quote(copy == 0 ? unquote(city[1]) : numbered(unquote(city[1]), copy, CITY_NAME_LENGTH)) + ","
+                        + quote(code) + "," + quote(district) + ","
+                        + (copy == 0 ? city[4] : spread(Long.parseLong(city[4]), random)));
+            }
+        }
+        return batch.finish();
+    }
+
+    private static long writeCountries(Appendable out, Plan plan, Random random) throws IOException {
+        Batch batch = new Batch(out, "country");
+        for (int copy = 0; copy < plan.countryCopies; copy++) {
+            for (int row = 0; row < plan.countries.size(); row++) {
+                String[] country = plan.countries.get(row).clone();
+                country[0] = quote(plan.codes[row][copy]);
+                if (copy > 0) {
+                    country[1] = quote(numbered(unquote(country[1]), copy, COUNTRY_NAME_LENGTH));
+                }
+                long population = Long.parseLong(country[6]);
+                if (copy > 0) {
+                    population = spread(population, random);
+                }
+                if (plan.countryCopies < plan.scale) {
+                    population = Math.min(Integer.MAX_VALUE, Math.round(population * plan.density()));
+                }
+                country[6] = Long.toString(population);
+                if (!"NULL".equals(country[13])) {
+                    Integer capital = plan.cityRow.get(Long.parseLong(country[13]));
+                    if (capital != null) {
+                        country[13] = Long.toString(plan.cityId(capital, copy));
+                    }
+                }
+                batch.row(String.join(",", country));
+            }
+        }
+        return batch.finish();
+    }
+
+    private static long writeLanguages(Appendable out, Plan plan, List<String[]> languages) throws IOException {
+        Batch batch = new Batch(out, "countrylanguage");
+        for (int copy = 0; copy < plan.countryCopies; copy++) {
+            for (String[] language : languages) {
+                Integer country = plan.countryRow.get(unquote(language[0]));
+                if (country == null) {
+                    continue;
+                }
+                String[] row = language.clone();
+                row[0] = quote(plan.codes[country][copy]);
+                batch.row(String.join(",", row));
+            }
+        }
+        return batch.finish();
+    }
+
+    /**
+     * Returns a population drawn from a log-normal spread around the original,
+     * within the range of an {@code int} column.
+     */
+    private static long spread(long population, Random random) {
+        double factor = Math.exp(random.nextGaussian() * POPULATION_SIGMA);
+        return Math.max(0, Math.min(Integer.MAX_VALUE, Math.round(population * factor)));
+    }
+
+    /**
+     * Appends a copy number to a name, shortening the name to fit its column.
+     */
+    private static String numbered(String name, int copy, int length) {
+        String suffix = " " + copy;
+        int keep = Math.max(0, Math.min(name.length(), length - suffix.length()));
+        return name.substring(0, keep) + suffix;
+    }
+
+    /**
+     * Writes rows as multi-row {@code INSERT} statements.
+     */
+    private static final class Batch {
+        private final Appendable out;
+        private final String table;
+        private long rows;
+
+        private Batch(Appendable out, String table) {
+            this.out = out;
+            this.table = table;
+        }
+
+        private void row(String values) throws IOException {
+            if (rows % ROWS_PER_INSERT == 0) {
+                if (rows > 0) {
+                    out.append(";\n");
+                    if (rows % ROWS_PER_COMMIT == 0) {
+                        out.append("commit;\n");
+                    }
+                }
+                out.append("INSERT INTO `").append(table).append("` VALUES ");
+            } else {
+                out.append(',');
+            }
+            out.append('(').append(values).append(')');
+            rows++;
+        }
+
+        private long finish() throws IOException {
+            if (rows > 0) {
+                out.append(";\n");
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Returns the table an {@code INSERT INTO `table` VALUES} line writes to, or
+     * {@code null} for any other line.
+     */
+    static String insertTable(String line) {
+        if (!line.startsWith("INSERT INTO `")) {
+            return null;
+        }
+        int end = line.indexOf('`', 13);
+        return end < 0 ? null : line.substring(13, end);
+    }
+
+    /**
+     * Splits the values of a single-row {@code INSERT} line into their SQL literals,
+     * keeping strings quoted as they appear in the dump.
+     */
+    static String[] parseValues(String line) {
+        int start = line.indexOf("VALUES (");
+        if (start < 0) {
+            throw new IllegalArgumentException("Not an INSERT line: " + line);
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = start + 8; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                value.append(c);
+                if (c == '\\' && i + 1 < line.length()) {
+                    value.append(line.charAt(++i));
+                } else if (c == '\'') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '\'') {
+                        value.append(line.charAt(++i));
+                    } else {
+                        quoted = false;
+                    }
+                }
+            } else if (c == '\'') {
+                quoted = true;
+                value.append(c);
+            } else if (c == ',' || c == ')') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+                if (c == ')') {
+                    break;
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        return values.toArray(new String[0]);
+    }
+
+    /**
+     * Decodes a quoted SQL string literal.
+     */
+    static String unquote(String literal) {
+        if (literal.length() < 2 || literal.charAt(0) != '\'') {
+            return literal;
+        }
+        StringBuilder text = new StringBuilder(literal.length());
+        for (int i = 1; i < literal.length() - 1; i++) {
+            char c = literal.charAt(i);
+            if ((c == '\\' || c == '\'') && i + 1 < literal.length() - 1) {
+                c = literal.charAt(++i);
+            }
+            text.append(c);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Encodes a string as a SQL string literal, escaping as {@code mysqldump} does.
+     */
+    static String quote(String text) {
+        StringBuilder literal = new StringBuilder(text.length() + 2).append('\'');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '\\') {
+                literal.append('\\');
+            }
+            literal.append(c);
+        }
+        return literal.append('\'').toString();
+    }
+}
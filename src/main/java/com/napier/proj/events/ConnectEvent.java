@@ -0,0 +1,36 @@
+package com.napier.proj.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for leasing a connection from the pool, including any
+ * wait for a free connection and opening a new one.
+ *
+ * @author Phone Myat Thu
+ */
+@Name("com.napier.proj.Connect")
+@Label("Connection Lease")
+@Category({"World Reports", "Database"})
+@Description("Leasing a pooled connection, opening a new one if needed")
+@StackTrace(false)
+public class ConnectEvent extends Event {
+    @Label("Opened")
+    @Description("Whether a new database connection was opened")
+    private boolean opened;
+
+    @Label("Failed")
+    private boolean failed;
+
+    public void setOpened(boolean opened) {
+        this.opened = opened;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
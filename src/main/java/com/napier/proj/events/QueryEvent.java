@@ -0,0 +1,88 @@
+package com.napier.proj.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one query run by a DAO.
+ * <p>
+ * The event lasts from preparing the statement to reading the last row, and
+ * splits that time into its phases: preparing and binding the statement,
+ * executing it, fetching the rows and mapping them into model objects. Time
+ * spent by a streaming caller on each row is not part of any phase.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+@Name("com.napier.proj.Query")
+@Label("Report Query")
+@Category({"World Reports", "Database"})
+@Description("A DAO query, split into prepare, execute, fetch and map time")
+@StackTrace(false)
+public class QueryEvent extends Event {
+    @Label("Query")
+    @Description("The DAO method that ran the query")
+    private String query;
+
+    @Label("Parameters")
+    private String parameters;
+
+    @Label("Rows")
+    private long rows;
+
+    @Label("Failed")
+    private boolean failed;
+
+    @Label("Prepare Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long prepareTime;
+
+    @Label("Execute Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long executeTime;
+
+    @Label("Fetch Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long fetchTime;
+
+    @Label("Map Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long mapTime;
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public void setParameters(String parameters) {
+        this.parameters = parameters;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    public void setPrepareTime(long prepareTime) {
+        this.prepareTime = prepareTime;
+    }
+
+    public void setExecuteTime(long executeTime) {
+        this.executeTime = executeTime;
+    }
+
+    public void setFetchTime(long fetchTime) {
+        this.fetchTime = fetchTime;
+    }
+
+    public void setMapTime(long mapTime) {
+        this.mapTime = mapTime;
+    }
+}
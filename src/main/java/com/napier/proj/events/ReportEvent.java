@@ -0,0 +1,36 @@
+package com.napier.proj.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one report, from its first query to its last
+ * written row. The report's {@link QueryEvent}s are nested inside it on the same
+ * thread; the rest of its time went to formatting and writing the rows.
+ *
+ * @author Phone Myat Thu
+ */
+@Name("com.napier.proj.Report")
+@Label("Report")
+@Category({"World Reports", "Report"})
+@Description("Querying, formatting and writing one report")
+@StackTrace(false)
+public class ReportEvent extends Event {
+    @Label("Report")
+    private String report;
+
+    @Label("Parameters")
+    private String parameters;
+
+    public void setReport(String report) {
+        this.report = report;
+    }
+
+    public void setParameters(String parameters) {
+        this.parameters = parameters;
+    }
+}
@@ -0,0 +1,359 @@
+package com.napier.proj.export;
+
+import com.napier.proj.model.CapitalCity;
+import com.napier.proj.model.City;
+import com.napier.proj.model.Country;
+import com.napier.proj.model.Language;
+import com.napier.proj.model.Population;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a file written by {@link ColumnarWriter}.
+ * <p>
+ * The file is memory-mapped, and opening it only walks the column headers and
+ * decodes the string dictionaries. Individual values are then read straight from
+ * the mapping with {@link #getString(int, int)}, {@link #getLong(int, int)} and
+ * {@link #getDouble(int, int)}, so a consumer that needs one column never touches
+ * the others. The {@code read*} methods turn the whole file back into model objects.
+ * </p>
+ * <p>
+ * A reader is immutable once opened and can be shared between threads.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class ColumnarReader {
+    private final ByteBuffer data;
+    private final RecordType type;
+    private final int rows;
+    private final String[] names;
+    private final byte[] encodings;
+    /** Per column: the decoded dictionary, or {@code null} for number columns. */
+    private final String[][] dictionaries;
+    /** Per column: where the packed values or doubles start. */
+    private final int[] valueOffsets;
+    /** Per packed column: the base value and the bit width. */
+    private final long[] bases;
+    private final int[] bits;
+
+    private ColumnarReader(ByteBuffer data) throws IOException {
+        this.data = data;
+        try {
+            if (data.getInt() != ColumnarWriter.MAGIC) {
+                throw new IOException("Not a columnar export file");
+            }
+            short version = data.getShort();
+            if (version != ColumnarWriter.VERSION) {
+                throw new IOException("Unsupported export format version " + version);
+            }
+            int ordinal = data.get();
+            if (ordinal < 0 || ordinal >= RecordType.values().length) {
+                throw new IOException("Unknown record type " + ordinal);
+            }
+            this.type = RecordType.values()[ordinal];
+            this.rows = data.getInt();
+            int columns = data.get();
+
+            names = new String[columns];
+            encodings = new byte[columns];
+            dictionaries = new String[columns][];
+            valueOffsets = new int[columns];
+            bases = new long[columns];
+            bits = new int[columns];
+            for (int c = 0; c < columns; c++) {
+                byte[] name = new byte[data.getShort()];
+                data.get(name);
+                names[c] = new String(name, StandardCharsets.UTF_8);
+                encodings[c] = data.get();
+                int length = data.getInt();
+                int end = data.position() + length;
+                readColumn(c);
+                data.position(end);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated export file", e);
+        }
+    }
+
+    /**
+     * Maps and opens an export file. The mapping stays valid after this returns.
+     *
+     * @param file the file to read
+     * @return a reader over the file
+     * @throws IOException if the file cannot be read or is not an export file
+     */
+    public static ColumnarReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ColumnarReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads an export held in memory, such as one received over the network.
+     *
+     * @param data the file contents; its position is not changed
+     * @return a reader over the data
+     * @throws IOException if the data is not an export file
+     */
+    public static ColumnarReader wrap(ByteBuffer data) throws IOException {
+        return new ColumnarReader(data.duplicate());
+    }
+
+    /**
+     * Returns the kind of records in the file.
+     *
+     * @return the record type
+     */
+    public RecordType getRecordType() {
+        return type;
+    }
+
+    /**
+     * Returns the number of rows in the file.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Returns the column names, in file order.
+     *
+     * @return the column names
+     */
+    public List<String> getColumnNames() {
+        return List.of(names);
+    }
+
+    /**
+     * Returns the index of a column.
+     *
+     * @param name the column name
+     * @return the column index
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public int findColumn(String name) {
+        for (int c = 0; c < names.length; c++) {
+            if (names[c].equals(name)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("No column " + name + " in " + type + " export");
+    }
+
+    /**
+     * Returns a value of a string column.
+     *
+     * @param column the column index
+     * @param row    the row index
+     * @return the value, may be {@code null}
+     */
+    public String getString(int column, int row) {
+        check(column, ColumnarWriter.DICTIONARY_STRING, row);
+        int code = (int) packed(column, row);
+        return code == 0 ? null : dictionaries[column][code - 1];
+    }
+
+    /**
+     * Returns a value of a whole number column.
+     *
+     * @param column the column index
+     * @param row    the row index
+     * @return the value
+     */
+    public long getLong(int column, int row) {
+        check(column, ColumnarWriter.PACKED_LONG, row);
+        return packed(column, row);
+    }
+
+    /**
+     * Returns a value of a floating-point column.
+     *
+     * @param column the column index
+     * @param row    the row index
+     * @return the value
+     */
+    public double getDouble(int column, int row) {
+        check(column, ColumnarWriter.DOUBLE, row);
+        return data.getDouble(valueOffsets[column] + 8 * row);
+    }
+
+    /**
+     * Reads the whole file as cities.
+     *
+     * @return the cities, in file order
+     */
+    public List<City> readCities() {
+        expect(RecordType.CITY);
+        List<City> cities = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            City city = new City();
+            city.setName(getString(0, row));
+            city.setCountry(getString(1, row));
+            city.setDistrict(getString(2, row));
+            city.setPopulation(getLong(3, row));
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    /**
+     * Reads the whole file as countries.
+     *
+     * @return the countries, in file order
+     */
+    public List<Country> readCountries() {
+        expect(RecordType.COUNTRY);
+        List<Country> countries = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            Country country = new Country();
+            country.setCode(getString(0, row));
+            country.setName(getString(1, row));
+            country.setContinent(getString(2, row));
+            country.setRegion(getString(3, row));
+            country.setPopulation(getLong(4, row));
+            country.setCapital(getString(5, row));
+            countries.add(country);
+        }
+        return countries;
+    }
+
+    /**
+     * Reads the whole file as capital cities.
+     *
+     * @return the capital cities, in file order
+     */
+    public List<CapitalCity> readCapitalCities() {
+        expect(RecordType.CAPITAL_CITY);
+        List<CapitalCity> capitals = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            CapitalCity capital = new CapitalCity();
+            capital.setName(getString(0, row));
+            capital.setCountry(getString(1, row));
+            capital.setPopulation(getLong(2, row));
+            capitals.add(capital);
+        }
+        return capitals;
+    }
+
+    /**
+     * Reads the whole file as population figures, with the percentages recomputed.
+     *
+     * @return the population figures, in file order
+     */
+    public List<Population> readPopulations() {
+        expect(RecordType.POPULATION);
+        List<Population> populations = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            Population population = new Population();
+            population.setName(getString(0, row));
+            population.setTotalPopulation(getLong(1, row));
+            population.setCityPopulation(getLong(2, row));
+            population.setNonCityPopulation(getLong(3, row));
+            population.setCityPercentage();
+            population.setNonCityPercentage();
+            populations.add(population);
+        }
+        return populations;
+    }
+
+    /**
+     * Reads the whole file as language figures.
+     *
+     * @return the language figures, in file order
+     */
+    public List<Language> readLanguages() {
+        expect(RecordType.LANGUAGE);
+        List<Language> languages = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            Language language = new Language();
+            language.setLanguage(getString(0, row));
+            language.setSpeakers(getLong(1, row));
+            language.setWorldPercentage(getDouble(2, row));
+            languages.add(language);
+        }
+        return languages;
+    }
+
+    /**
+     * Reads the header of a column payload at the current position.
+     */
+    private void readColumn(int c) throws IOException {
+        switch (encodings[c]) {
+            case ColumnarWriter.DICTIONARY_STRING:
+                String[] dictionary = new String[data.getInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    byte[] entry = new byte[data.getInt()];
+                    data.get(entry);
+                    dictionary[i] = new String(entry, StandardCharsets.UTF_8);
+                }
+                dictionaries[c] = dictionary;
+                readPacked(c);
+                break;
+            case ColumnarWriter.PACKED_LONG:
+                readPacked(c);
+                break;
+            case ColumnarWriter.DOUBLE:
+                valueOffsets[c] = data.position();
+                break;
+            default:
+                throw new IOException("Unknown column encoding " + encodings[c]);
+        }
+    }
+
+    private void readPacked(int c) throws IOException {
+        bases[c] = data.getLong();
+        bits[c] = data.get();
+        if (bits[c] < 0 || bits[c] > 64) {
+            throw new IOException("Invalid bit width " + bits[c]);
+        }
+        valueOffsets[c] = data.position();
+    }
+
+    /**
+     * Unpacks the value of a row from a packed column.
+     */
+    private long packed(int column, int row) {
+        int width = bits[column];
+        if (width == 0) {
+            return bases[column];
+        }
+        long bit = (long) row * width;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        int offset = valueOffsets[column] + 8 * word;
+        long value = data.getLong(offset) >>> shift;
+        if (shift + width > 64) {
+            value |= data.getLong(offset + 8) << (64 - shift);
+        }
+        if (width < 64) {
+            value &= (1L << width) - 1;
+        }
+        return bases[column] + value;
+    }
+
+    private void check(int column, byte encoding, int row) {
+        if (encodings[column] != encoding) {
+            throw new IllegalArgumentException("Column " + names[column] + " does not hold that type");
+        }
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+        }
+    }
+
+    private void expect(RecordType expected) {
+        if (type != expected) {
+            throw new IllegalStateException("File holds " + type + " records, not " + expected);
+        }
+    }
+}
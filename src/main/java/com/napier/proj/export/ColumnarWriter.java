@@ -0,0 +1,375 @@
+package com.napier.proj.export;
+
+import com.napier.proj.model.CapitalCity;
+import com.napier.proj.model.City;
+import com.napier.proj.model.Country;
+import com.napier.proj.model.Language;
+import com.napier.proj.model.Population;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes report results to the binary columnar export format read by
+ * {@link ColumnarReader}.
+ * <p>
+ * A file holds one {@link RecordType} and stores each field as its own column, so
+ * a reader can map the file and decode only the columns it needs. All numbers are
+ * big-endian.
+ * </p>
+ * <pre>
+ * int    magic, "WEXP"
+ * short  format version
+ * byte   record type ordinal
+ * int    row count
+ * byte   column count
+ * then for every column, in {@link RecordType#getColumns()} order:
+ *   short  name length, then the name in UTF-8
+ *   byte   encoding
+ *   int    payload length in bytes
+ *   ...    payload
+ * </pre>
+ * <p>
+ * Payloads by encoding:
+ * </p>
+ * <ul>
+ *   <li>packed long: a {@code long} base, a {@code byte} bit width and the values
+ *   minus the base packed at that width into {@code long} words, low bits first;</li>
+ *   <li>dictionary string: an {@code int} entry count, each distinct string as an
+ *   {@code int} length and UTF-8 bytes, then the code of every row as a packed long
+ *   column, where 0 is {@code null} and entry {@code i} has code {@code i + 1};</li>
+ *   <li>double: one 8-byte value per row.</li>
+ * </ul>
+ * <p>
+ * Null elements in the lists are skipped, as the reports skip them.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class ColumnarWriter {
+    static final int MAGIC = 0x57455850;
+    static final short VERSION = 1;
+
+    static final byte PACKED_LONG = 1;
+    static final byte DICTIONARY_STRING = 2;
+    static final byte DOUBLE = 3;
+
+    private ColumnarWriter() {
+    }
+
+    /**
+     * Writes a list of cities.
+     *
+     * @param cities the cities, in the order they should be read back
+     * @param file   the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCities(List<City> cities, Path file) throws IOException {
+        List<City> rows = nonNull(cities);
+        String[] name = new String[rows.size()];
+        String[] country = new String[rows.size()];
+        String[] district = new String[rows.size()];
+        long[] population = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            City city = rows.get(i);
+            name[i] = city.getName();
+            country[i] = city.getCountry();
+            district[i] = city.getDistrict();
+            population[i] = city.getPopulation();
+        }
+        write(file, RecordType.CITY, rows.size(),
+                new StringColumn(name), new StringColumn(country), new StringColumn(district),
+                new LongColumn(population));
+    }
+
+    /**
+     * Writes a list of countries.
+     *
+     * @param countries the countries, in the order they should be read back
+     * @param file      the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCountries(List<Country> countries, Path file) throws IOException {
+        List<Country> rows = nonNull(countries);
+        String[] code = new String[rows.size()];
+        String[] name = new String[rows.size()];
+        String[] continent = new String[rows.size()];
+        String[] region = new String[rows.size()];
+        long[] population = new long[rows.size()];
+        String[] capital = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Country country = rows.get(i);
+            code[i] = country.getCode();
+            name[i] = country.getName();
+            continent[i] = country.getContinent();
+            region[i] = country.getRegion();
+            population[i] = country.getPopulation();
+            capital[i] = country.getCapital();
+        }
+        write(file, RecordType.COUNTRY, rows.size(),
+                new StringColumn(code), new StringColumn(name), new StringColumn(continent),
+                new StringColumn(region), new LongColumn(population), new StringColumn(capital));
+    }
+
+    /**
+     * Writes a list of capital cities.
+     *
+     * @param capitals the capital cities, in the order they should be read back
+     * @param file     the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCapitalCities(List<CapitalCity> capitals, Path file) throws IOException {
+        List<CapitalCity> rows = nonNull(capitals);
+        String[] name = new String[rows.size()];
+        String[] country = new String[rows.size()];
+        long[] population = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            CapitalCity capital = rows.get(i);
+            name[i] = capital.getName();
+            country[i] = capital.getCountry();
+            population[i] = capital.getPopulation();
+        }
+        write(file, RecordType.CAPITAL_CITY, rows.size(),
+                new StringColumn(name), new StringColumn(country), new LongColumn(population));
+    }
+
+    /**
+     * Writes a list of population figures.
+     *
+     * @param populations the population figures, in the order they should be read back
+     * @param file        the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public static void writePopulations(List<Population> populations, Path file) throws IOException {
+        List<Population> rows = nonNull(populations);
+        String[] name = new String[rows.size()];
+        long[] total = new long[rows.size()];
+        long[] city = new long[rows.size()];
+        long[] nonCity = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Population population = rows.get(i);
+            name[i] = population.getName();
+            total[i] = population.getTotalPopulation();
+            city[i] = population.getCityPopulation();
+            nonCity[i] = population.getNonCityPopulation();
+        }
+        write(file, RecordType.POPULATION, rows.size(),
+                new StringColumn(name), new LongColumn(total), new LongColumn(city), new LongColumn(nonCity));
+    }
+
+    /**
+     * Writes a list of language figures.
+     *
+     * @param languages the language figures, in the order they should be read back
+     * @param file      the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeLanguages(List<Language> languages, Path file) throws IOException {
+        List<Language> rows = nonNull(languages);
+        String[] language = new String[rows.size()];
+        long[] speakers = new long[rows.size()];
+        double[] percentage = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Language row = rows.get(i);
+            language[i] = row.getLanguage();
+            speakers[i] = row.getSpeakers();
+            percentage[i] = row.getWorldPercentage();
+        }
+        write(file, RecordType.LANGUAGE, rows.size(),
+                new StringColumn(language), new LongColumn(speakers), new DoubleColumn(percentage));
+    }
+
+    private static void write(Path file, RecordType type, int rows, Column... columns) throws IOException {
+        List<String> names = type.getColumns();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 65536))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(type.ordinal());
+            out.writeInt(rows);
+            out.writeByte(columns.length);
+            for (int c = 0; c < columns.length; c++) {
+                byte[] name = names.get(c).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeByte(columns[c].encoding());
+                out.writeInt(columns[c].payloadLength());
+                columns[c].writePayload(out);
+            }
+        }
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        List<T> rows = new ArrayList<>(list == null ? 0 : list.size());
+        if (list != null) {
+            for (T row : list) {
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns how many bits are needed to store every value from 0 to {@code max}.
+     */
+    static int bitWidth(long max) {
+        return 64 - Long.numberOfLeadingZeros(max);
+    }
+
+    /**
+     * Returns how many 64-bit words hold {@code rows} values of {@code bits} bits.
+     */
+    static int wordCount(int rows, int bits) {
+        return (int) (((long) rows * bits + 63) / 64);
+    }
+
+    /**
+     * One column of a file, ready to be written.
+     */
+    private abstract static class Column {
+        abstract byte encoding();
+
+        abstract int payloadLength();
+
+        abstract void writePayload(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Whole numbers stored as offsets from the smallest value, at the fewest bits that fit them all.
+     */
+    private static final class LongColumn extends Column {
+        private final long[] values;
+        private final long base;
+        private final int bits;
+
+        private LongColumn(long[] values) {
+            this.values = values;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (long value : values) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            this.base = values.length == 0 ? 0 : min;
+            this.bits = values.length == 0 ? 0 : bitWidth(max - min);
+        }
+
+        @Override
+        byte encoding() {
+            return PACKED_LONG;
+        }
+
+        @Override
+        int payloadLength() {
+            return 8 + 1 + 8 * wordCount(values.length, bits);
+        }
+
+        @Override
+        void writePayload(DataOutputStream out) throws IOException {
+            out.writeLong(base);
+            out.writeByte(bits);
+            long word = 0;
+            int used = 0;
+            for (long value : values) {
+                long packed = value - base;
+                word |= packed << used;
+                used += bits;
+                if (used >= 64) {
+                    out.writeLong(word);
+                    used -= 64;
+                    // Bits of this value that did not fit into the word just written
+                    word = used == 0 ? 0 : packed >>> (bits - used);
+                }
+            }
+            if (used > 0) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Strings stored once each in a dictionary, with a packed code per row.
+     */
+    private static final class StringColumn extends Column {
+        private final List<byte[]> entries = new ArrayList<>();
+        private final LongColumn codes;
+        private int entryBytes;
+
+        private StringColumn(String[] values) {
+            Map<String, Integer> ids = new HashMap<>();
+            long[] code = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    continue;
+                }
+                Integer id = ids.get(values[i]);
+                if (id == null) {
+                    byte[] bytes = values[i].getBytes(StandardCharsets.UTF_8);
+                    entries.add(bytes);
+                    entryBytes += 4 + bytes.length;
+                    id = entries.size();
+                    ids.put(values[i], id);
+                }
+                code[i] = id;
+            }
+            this.codes = new LongColumn(code);
+        }
+
+        @Override
+        byte encoding() {
+            return DICTIONARY_STRING;
+        }
+
+        @Override
+        int payloadLength() {
+            return 4 + entryBytes + codes.payloadLength();
+        }
+
+        @Override
+        void writePayload(DataOutputStream out) throws IOException {
+            out.writeInt(entries.size());
+            for (byte[] entry : entries) {
+                out.writeInt(entry.length);
+                out.write(entry);
+            }
+            codes.writePayload(out);
+        }
+    }
+
+    /**
+     * Floating-point values stored as they are.
+     */
+    private static final class DoubleColumn extends Column {
+        private final double[] values;
+
+        private DoubleColumn(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        byte encoding() {
+            return DOUBLE;
+        }
+
+        @Override
+        int payloadLength() {
+            return 8 * values.length;
+        }
+
+        @Override
+        void writePayload(DataOutputStream out) throws IOException {
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.napier.proj.export;
+
+import java.util.List;
+
+/**
+ * The kinds of report result an export file can hold, with the columns each one
+ * is stored as.
+ *
+ * @author Phone Myat Thu
+ */
+public enum RecordType {
+    /** {@link com.napier.proj.model.City} rows. */
+    CITY(List.of("Name", "Country", "District", "Population")),
+    /** {@link com.napier.proj.model.Country} rows. */
+    COUNTRY(List.of("Code", "Name", "Continent", "Region", "Population", "Capital")),
+    /** {@link com.napier.proj.model.CapitalCity} rows. */
+    CAPITAL_CITY(List.of("Name", "Country", "Population")),
+    /**
+     * {@link com.napier.proj.model.Population} rows. The percentages are derived
+     * from the counts, so they are not stored.
+     */
+    POPULATION(List.of("Name", "TotalPopulation", "CityPopulation", "NonCityPopulation")),
+    /** {@link com.napier.proj.model.Language} rows. */
+    LANGUAGE(List.of("Language", "Speakers", "WorldPercentage"));
+
+    private final List<String> columns;
+
+    RecordType(List<String> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Returns the names of the columns a file of this type holds, in file order.
+     *
+     * @return the column names
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+}
@@ -0,0 +1,53 @@
+package com.napier.proj.export;
+
+import com.napier.proj.dao.DaoFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+
+/**
+ * Exports the full result of the main reports as columnar files, one per record
+ * type, for downstream tools that would otherwise parse the text reports.
+ *
+ * @author Phone Myat Thu
+ */
+public final class ReportExport {
+    /** File written for every country, most populated first. */
+    public static final String COUNTRIES_FILE = "countries.wexp";
+    /** File written for every city, most populated first. */
+    public static final String CITIES_FILE = "cities.wexp";
+    /** File written for every capital city, most populated first. */
+    public static final String CAPITAL_CITIES_FILE = "capital-cities.wexp";
+    /** File written for the city and non-city population of every country. */
+    public static final String POPULATIONS_FILE = "country-populations.wexp";
+    /** File written for the major languages. */
+    public static final String LANGUAGES_FILE = "languages.wexp";
+
+    private ReportExport() {
+    }
+
+    /**
+     * Queries every report result through the given factory and writes it to the
+     * directory, creating the directory if needed.
+     *
+     * @param daos the factory the query objects are created from
+     * @param conn the connection the query objects use
+     * @param dir  the directory the files are written to
+     * @throws IOException if a file cannot be written
+     */
+    public static void exportAll(DaoFactory daos, Connection conn, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        ColumnarWriter.writeCountries(daos.countryQueries(conn).getAllCountriesByPopulation(),
+                dir.resolve(COUNTRIES_FILE));
+        ColumnarWriter.writeCities(daos.cityQueries(conn).getAllinWorldCitiesByPopulation(),
+                dir.resolve(CITIES_FILE));
+        ColumnarWriter.writeCapitalCities(daos.capitalCityQueries(conn).getAllCapitalCities(),
+                dir.resolve(CAPITAL_CITIES_FILE));
+        ColumnarWriter.writePopulations(daos.populationQueries(conn).getEachCountryPopulationWithUrbanAndNonUrban(),
+                dir.resolve(POPULATIONS_FILE));
+        ColumnarWriter.writeLanguages(daos.languageQueries(conn).getMajorLanguageReport(),
+                dir.resolve(LANGUAGES_FILE));
+    }
+}
@@ -0,0 +1,66 @@
+package com.napier.proj.report;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Output buffering shared by the report sinks.
+ * <p>
+ * Rendered text collects in one reusable character buffer, which is written to
+ * the output whenever it passes {@link #BLOCK_SIZE} characters at the end of a
+ * line, and on {@link #flush()}. The output is locked once per block instead of
+ * once per row.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+abstract class BufferedSink implements ReportSink {
+    /** Buffered characters written out once this many have accumulated. */
+    static final int BLOCK_SIZE = 8192;
+    static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Appendable out;
+    /** Text rendered since the last flush. */
+    final StringBuilder buffer = new StringBuilder(BLOCK_SIZE + 256);
+
+    BufferedSink(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.length() == 0) {
+            return;
+        }
+        try {
+            out.append(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Ends a line and writes the buffer out if a block is full.
+     */
+    final void newline() {
+        buffer.append(LINE_SEPARATOR);
+        if (buffer.length() >= BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Appends a number rounded half-up to the given number of decimals.
+     */
+    final void appendRounded(double value, int decimals) {
+        if (Double.isFinite(value)) {
+            buffer.append(BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP).toPlainString());
+        } else {
+            buffer.append(Double.isNaN(value) ? "NaN" : value > 0 ? "Infinity" : "-Infinity");
+        }
+    }
+}
@@ -1,32 +1,60 @@
 package com.napier.proj.report;
 
-import com.napier.proj.dao.CapitalCityDAO;
-import com.napier.proj.dao.CountryDAO;
+import com.napier.proj.dao.CapitalCityQueries;
 import com.napier.proj.model.CapitalCity;
 
+import java.io.PrintStream;
 import java.util.List;
 
 /**
  * The {@code CapitalCityReport} class is responsible for generating and printing
  * formatted reports of capital cities based on their population.
  *
- * <p>It uses the {@link CapitalCityDAO} to retrieve capital cities data from the database
+ * <p>It uses the {@link CapitalCityQueries} to retrieve capital cities data from the database
  * and outputs the results in a table format to the console.</p>
  *
  * @author Phone Myat Thu
  */
 public class CapitalCityReport {
 
+    /** Column widths of the capital city table. */
+    private static final int[] CAPITAL_CITY_COLUMNS = {25, 25, 20};
+
     /** Data Access Object for retrieving capital cities data. */
-    private CapitalCityDAO capitalCityDAO;
+    private CapitalCityQueries capitalCityDAO;
+
+    /** Receives the report tables, in the selected output format. */
+    private ReportSink sink;
+
+    /**
+     * Constructs a {@code CapitalCityReport} object with a given {@link CapitalCityQueries}.
+     *
+     * @param capitalCityDAO the data access object used to fetch country data.
+     */
+    public CapitalCityReport(CapitalCityQueries capitalCityDAO) {
+        this(capitalCityDAO, System.out);
+    }
+
+    /**
+     * Constructs a {@code CapitalCityReport} that prints to the given stream instead of
+     * standard output, so a report can be rendered into its own buffer.
+     *
+     * @param capitalCityDAO the data access object used to fetch country data.
+     * @param out the stream the report is printed to.
+     */
+    public CapitalCityReport(CapitalCityQueries capitalCityDAO, PrintStream out) {
+        this(capitalCityDAO, new TableWriter(out));
+    }
 
     /**
-     * Constructs a {@code CapitalCityReport} object with a given {@link CapitalCityDAO}.
+     * Constructs a {@code CapitalCityReport} that writes to the given sink.
      *
      * @param capitalCityDAO the data access object used to fetch country data.
+     * @param sink the sink the report is written to.
      */
-    public CapitalCityReport(CapitalCityDAO capitalCityDAO) {
+    public CapitalCityReport(CapitalCityQueries capitalCityDAO, ReportSink sink) {
         this.capitalCityDAO = capitalCityDAO;
+        this.sink = sink;
     }
 
     /**
@@ -36,22 +64,23 @@ public class CapitalCityReport {
         // Retrieve all capital cities sorted by population from the DAO
         List<CapitalCity> capitalCities = this.capitalCityDAO.getAllCapitalCities();
 
-        System.out.println("\nAll the capital cities in the world organised by largest population to smallest.\n");
+        sink.title("\nAll the capital cities in the world organised by largest population to smallest.\n");
 
         if(capitalCities == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(capitalCities.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-25s %-25s %-20s\n",
-                "CapitalCity", "Country", "Population");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(CAPITAL_CITY_COLUMNS).header("CapitalCity", "Country", "Population");
+        sink.rule("----------------------------------------------------------");
 
         // Print each capital cities's details
         boolean printed = false;
@@ -62,16 +91,16 @@ public class CapitalCityReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-25s %-20s\n",
-                    capitalCity.getName(),
-                    capitalCity.getCountry(),
-                    capitalCity.getPopulation()
-            );
+            sink.cell(capitalCity.getName())
+                    .cell(capitalCity.getCountry())
+                    .cell(capitalCity.getPopulation())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid capital city record");
+            sink.message("No valid capital city record");
         }
+        sink.flush();
     }
 
     /**
@@ -83,23 +112,24 @@ public class CapitalCityReport {
         // Retrieve all capital cities in a continent sorted by population from the DAO
         List<CapitalCity> capitalCities = this.capitalCityDAO.getAllCapitalCitiesInContinent(continent);
 
-        System.out.println("\nAll the capital cities in a continent organised by largest population to smallest.\n");
+        sink.title("\nAll the capital cities in a continent organised by largest population to smallest.\n");
 
         if(capitalCities == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(capitalCities.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
 
         // Print table header
-        System.out.printf("%-25s %-25s %-20s\n",
-                "CapitalCity", "Country", "Population");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(CAPITAL_CITY_COLUMNS).header("CapitalCity", "Country", "Population");
+        sink.rule("----------------------------------------------------------");
 
         boolean printed = false;
         // Print each capital cities's details
@@ -110,16 +140,16 @@ public class CapitalCityReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-25s %-20s\n",
-                    capitalCity.getName(),
-                    capitalCity.getCountry(),
-                    capitalCity.getPopulation()
-            );
+            sink.cell(capitalCity.getName())
+                    .cell(capitalCity.getCountry())
+                    .cell(capitalCity.getPopulation())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid capital city record");
+            sink.message("No valid capital city record");
         }
+        sink.flush();
     }
 
     /**
@@ -131,22 +161,23 @@ public class CapitalCityReport {
         // Retrieve all capital cities in a region sorted by population from the DAO
         List<CapitalCity> capitalCities = this.capitalCityDAO.getAllCapitalCitiesInRegion(region);
 
-        System.out.println("\nAll the capital cities in a region organised by largest population to smallest.\n");
+        sink.title("\nAll the capital cities in a region organised by largest population to smallest.\n");
 
         if(capitalCities == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(capitalCities.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-25s %-25s %-20s\n",
-                "CapitalCity", "Country", "Population");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(CAPITAL_CITY_COLUMNS).header("CapitalCity", "Country", "Population");
+        sink.rule("----------------------------------------------------------");
 
         boolean printed = false;
         // Print each capital cities's details
@@ -157,16 +188,16 @@ public class CapitalCityReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-25s %-20s\n",
-                    capitalCity.getName(),
-                    capitalCity.getCountry(),
-                    capitalCity.getPopulation()
-            );
+            sink.cell(capitalCity.getName())
+                    .cell(capitalCity.getCountry())
+                    .cell(capitalCity.getPopulation())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid capital city record");
+            sink.message("No valid capital city record");
         }
+        sink.flush();
     }
 
     /**
@@ -178,22 +209,23 @@ public class CapitalCityReport {
         // Retrieve top N capital cities globally
         List<CapitalCity> capitalCities = this.capitalCityDAO.getTopNPopulatedCapitalCities(n);
 
-        System.out.println("\nThe top N populated capital cities in the world where N is provided by the user.\n");
+        sink.title("\nThe top N populated capital cities in the world where N is provided by the user.\n");
 
         if(capitalCities == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(capitalCities.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-25s %-25s %-20s\n",
-                "CapitalCity", "Country", "Population");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(CAPITAL_CITY_COLUMNS).header("CapitalCity", "Country", "Population");
+        sink.rule("----------------------------------------------------------");
 
         boolean printed = false;
         // Print each capital cities's details
@@ -204,16 +236,16 @@ public class CapitalCityReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-25s %-20s\n",
-                    capitalCity.getName(),
-                    capitalCity.getCountry(),
-                    capitalCity.getPopulation()
-            );
+            sink.cell(capitalCity.getName())
+                    .cell(capitalCity.getCountry())
+                    .cell(capitalCity.getPopulation())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid capital city record");
+            sink.message("No valid capital city record");
         }
+        sink.flush();
     }
 
     /**
@@ -226,22 +258,23 @@ public class CapitalCityReport {
         // Retrieve top N capital cities in the specified continent
         List<CapitalCity> capitalCities = this.capitalCityDAO.getTopNPopulatedCapitalCitiesByContinent(continent, n);
 
-        System.out.println("\nThe top N populated capital cities in a continent where N is provided by the user.\n");
+        sink.title("\nThe top N populated capital cities in a continent where N is provided by the user.\n");
 
         if(capitalCities == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(capitalCities.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-25s %-25s %-20s\n",
-                "CapitalCity", "Country", "Population");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(CAPITAL_CITY_COLUMNS).header("CapitalCity", "Country", "Population");
+        sink.rule("----------------------------------------------------------");
 
         boolean printed = false;
         // Print each capital cities's details
@@ -252,16 +285,16 @@ public class CapitalCityReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-25s %-20s\n",
-                    capitalCity.getName(),
-                    capitalCity.getCountry(),
-                    capitalCity.getPopulation()
-            );
+            sink.cell(capitalCity.getName())
+                    .cell(capitalCity.getCountry())
+                    .cell(capitalCity.getPopulation())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid capital city record");
+            sink.message("No valid capital city record");
         }
+        sink.flush();
     }
 
     /**
@@ -274,22 +307,23 @@ public class CapitalCityReport {
         // Retrieve top N capital cities in the specified region
         List<CapitalCity> capitalCities = this.capitalCityDAO.getTopNPopulatedCapitalCitiesByRegion(region, n);
 
-        System.out.println("\nThe top N populated capital cities in a region where N is provided by the user.\n");
+        sink.title("\nThe top N populated capital cities in a region where N is provided by the user.\n");
 
         if(capitalCities == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(capitalCities.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-25s %-25s %-20s\n",
-                "CapitalCity", "Country", "Population");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(CAPITAL_CITY_COLUMNS).header("CapitalCity", "Country", "Population");
+        sink.rule("----------------------------------------------------------");
 
         boolean printed = false;
         // Print each capital cities's details
@@ -300,15 +334,15 @@ public class CapitalCityReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-25s %-20s\n",
-                    capitalCity.getName(),
-                    capitalCity.getCountry(),
-                    capitalCity.getPopulation()
-            );
+            sink.cell(capitalCity.getName())
+                    .cell(capitalCity.getCountry())
+                    .cell(capitalCity.getPopulation())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid capital city record");
+            sink.message("No valid capital city record");
         }
+        sink.flush();
     }
 }
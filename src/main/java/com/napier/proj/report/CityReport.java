@@ -1,30 +1,60 @@
 package com.napier.proj.report;
 
-import com.napier.proj.dao.CityDAO;
+import com.napier.proj.dao.CityQueries;
 import com.napier.proj.model.City;
 
+import java.io.PrintStream;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The {@code CityReport} class is responsible for generating and printing
  * formatted reports of cities based on population. It retrieves data through
- * {@link CityDAO} and outputs readable tables in the console.
+ * {@link CityQueries} and outputs readable tables in the console.
  *
  * @author Min Wanna Hlan
  * @author Ingyin Thwe
  */
 public class CityReport {
 
+    /** Column widths of the city table. */
+    private static final int[] CITY_COLUMNS = {25, 25, 25, 15};
+
     /** The DAO object used to access city-related database operations. */
-    private CityDAO cityDAO;
+    private CityQueries cityDAO;
+
+    /** Receives the report tables, in the selected output format. */
+    private ReportSink sink;
+
+    /**
+     * Constructs a {@code CityReport} with a given {@link CityQueries}.
+     *
+     * @param cityDAO The data access object for city queries.
+     */
+    public CityReport(CityQueries cityDAO) {
+        this(cityDAO, System.out);
+    }
+
+    /**
+     * Constructs a {@code CityReport} that prints to the given stream instead of
+     * standard output, so a report can be rendered into its own buffer.
+     *
+     * @param cityDAO The data access object for city queries.
+     * @param out the stream the report is printed to.
+     */
+    public CityReport(CityQueries cityDAO, PrintStream out) {
+        this(cityDAO, new TableWriter(out));
+    }
 
     /**
-     * Constructs a {@code CityReport} with a given {@link CityDAO}.
+     * Constructs a {@code CityReport} that writes to the given sink.
      *
      * @param cityDAO The data access object for city queries.
+     * @param sink the sink the report is written to.
      */
-    public CityReport(CityDAO cityDAO) {
+    public CityReport(CityQueries cityDAO, ReportSink sink) {
         this.cityDAO = cityDAO;
+        this.sink = sink;
     }
 
     /**
@@ -32,33 +62,19 @@ public class CityReport {
      * The data is formatted into a readable table format.
      */
     public void printAllCitiesInWorldByPopulation() {
-        // Retrieve all cities sorted by population from the DAO
-        List<City> cities = this.cityDAO.getAllinWorldCitiesByPopulation();
-
-        System.out.println("\nAll the cities in the world organized by largest population to smallest.\n");
+        sink.title("\nAll the cities in the world organized by largest population to smallest.\n");
 
         // Print table header
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
-
-        // ADD THIS CHECK — REQUIRED
-        if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
-            return;
-        }
-
-        // Print each city's details
-        for (City city : cities) {
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
-            if (city == null) continue; // avoid null element crash
+        // Rows are printed as they are read, so the full city list is never held in memory
+        int rows = this.cityDAO.streamAllCitiesInWorldByPopulation(this::printCity);
 
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+        if (rows == 0) {
+            sink.message("No data available.");
         }
+        sink.flush();
     }
 
     /**
@@ -67,33 +83,19 @@ public class CityReport {
      * @param continent The name of the continent.
      */
     public void printAllCitiesInContinentByPopulation(String continent) {
-        // Retrieve cities for the specified continent
-        List<City> cities = this.cityDAO.getAllCitiesInContinentByPopulation(continent);
-
-        System.out.println("\nAll the cities in a continent organized by largest population to smallest.\n");
+        sink.title("\nAll the cities in a continent organized by largest population to smallest.\n");
 
         // Print table header
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
-
-        // ADD THIS CHECK — REQUIRED
-        if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
-            return;
-        }
-
-        // Print each city's details
-        for (City city : cities) {
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
-            if (city == null) continue; // avoid null element crash
+        // Rows are printed as they are read, so the full city list is never held in memory
+        int rows = this.cityDAO.streamAllCitiesInContinentByPopulation(continent, this::printCity);
 
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+        if (rows == 0) {
+            sink.message("No data available.");
         }
+        sink.flush();
     }
 
     /**
@@ -102,33 +104,19 @@ public class CityReport {
      * @param region The name of the region.
      */
     public void printAllCitiesInRegionByPopulation(String region) {
-        // Retrieve cities for the specified region
-        List<City> cities = this.cityDAO.getAllCitiesInRegionByPopulation(region);
-
-        System.out.println("\nAll the cities in a region organized by largest population to smallest.\n");
+        sink.title("\nAll the cities in a region organized by largest population to smallest.\n");
 
         // Print table header
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
-        // ADD THIS CHECK — REQUIRED
-        if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
-            return;
-        }
+        // Rows are printed as they are read, so the full city list is never held in memory
+        int rows = this.cityDAO.streamAllCitiesInRegionByPopulation(region, this::printCity);
 
-        // Print each city's details
-        for (City city : cities) {
-
-            if (city == null) continue; // avoid null element crash
-
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+        if (rows == 0) {
+            sink.message("No data available.");
         }
+        sink.flush();
     }
 
     /**
@@ -137,33 +125,19 @@ public class CityReport {
      * @param country The name of the country.
      */
     public void printAllCitiesInCountryByPopulation(String country) {
-        // Retrieve cities for the specified country
-        List<City> cities = this.cityDAO.getAllCitiesInCountryByPopulation(country);
-
-        System.out.println("\nAll the cities in a country organized by largest population to smallest.\n");
+        sink.title("\nAll the cities in a country organized by largest population to smallest.\n");
 
         // Print table header
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
-        // ADD THIS CHECK — REQUIRED
-        if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
-            return;
-        }
-
-        // Print each city's details
-        for (City city : cities) {
+        // Rows are printed as they are read, so the full city list is never held in memory
+        int rows = this.cityDAO.streamAllCitiesInCountryByPopulation(country, this::printCity);
 
-            if (city == null) continue; // avoid null element crash
-
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+        if (rows == 0) {
+            sink.message("No data available.");
         }
+        sink.flush();
     }
 
     /**
@@ -172,33 +146,32 @@ public class CityReport {
      * @param district The name of the district.
      */
     public void printAllCitiesInDistrictByPopulation(String district) {
-        // Retrieve cities for the specified district
-        List<City> cities = this.cityDAO.getAllCitiesInDistrictByPopulation(district);
-
-        System.out.println("\nAll the cities in a district organized by largest population to smallest.\n");
+        sink.title("\nAll the cities in a district organized by largest population to smallest.\n");
 
         // Print table header
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
-
-        // ADD THIS CHECK — REQUIRED
-        if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
-            return;
-        }
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
-        // Print each city's details
-        for (City city : cities) {
+        // Rows are printed as they are read, so the full city list is never held in memory
+        int rows = this.cityDAO.streamAllCitiesInDistrictByPopulation(district, this::printCity);
 
-            if (city == null) continue; // avoid null element crash
-
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+        if (rows == 0) {
+            sink.message("No data available.");
         }
+        sink.flush();
+    }
+
+    /**
+     * Prints one row of a streamed city table.
+     *
+     * @param city The city to print.
+     */
+    private void printCity(City city) {
+        sink.cell(city.getName())
+                .cell(city.getCountry())
+                .cell(city.getDistrict())
+                .cell(city.getPopulation())
+                .endRow();
     }
 
     /**
@@ -209,25 +182,26 @@ public class CityReport {
     public void printTopNPopulatedCitiesInWorld(int n) {
         List<City> cities = this.cityDAO.getTopNPopulatedCitiesInWorld(n);
 
-        System.out.println("\nThe top " + n + " populated cities in the world where N is provided by the user.\n");
+        sink.title("\nThe top " + n + " populated cities in the world where N is provided by the user.\n");
 
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
         if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
+            sink.message("No data available.");
+            sink.flush();
             return;
         }
 
         for (City city : cities) {
             if (city == null) continue;
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+            sink.cell(city.getName())
+                    .cell(city.getCountry())
+                    .cell(city.getDistrict())
+                    .cell(city.getPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
 
     /**
@@ -239,25 +213,26 @@ public class CityReport {
     public void printTopNPopulatedCitiesInContinent(String continent, int n) {
         List<City> cities = this.cityDAO.getTopNPopulatedCitiesInContinent(continent, n);
 
-        System.out.println("\nThe top " + n + " populated cities in continent: " + continent + ".\n");
+        sink.title("\nThe top " + n + " populated cities in continent: " + continent + ".\n");
 
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
         if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
+            sink.message("No data available.");
+            sink.flush();
             return;
         }
 
         for (City city : cities) {
             if (city == null) continue;
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+            sink.cell(city.getName())
+                    .cell(city.getCountry())
+                    .cell(city.getDistrict())
+                    .cell(city.getPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
 
     /**
@@ -269,25 +244,26 @@ public class CityReport {
     public void printTopNPopulatedCitiesInRegion(String region, int n) {
         List<City> cities = this.cityDAO.getTopNPopulatedCitiesInRegion(region, n);
 
-        System.out.println("\nThe top " + n + " populated cities in region: " + region + ".\n");
+        sink.title("\nThe top " + n + " populated cities in region: " + region + ".\n");
 
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
         if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
+            sink.message("No data available.");
+            sink.flush();
             return;
         }
 
         for (City city : cities) {
             if (city == null) continue;
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+            sink.cell(city.getName())
+                    .cell(city.getCountry())
+                    .cell(city.getDistrict())
+                    .cell(city.getPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
 
     /**
@@ -299,25 +275,26 @@ public class CityReport {
     public void printTopNPopulatedCitiesInCountry(String country, int n) {
         List<City> cities = this.cityDAO.getTopNPopulatedCitiesInCountry(country, n);
 
-        System.out.println("\nThe top " + n + " populated cities in country: " + country + ".\n");
+        sink.title("\nThe top " + n + " populated cities in country: " + country + ".\n");
 
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
         if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
+            sink.message("No data available.");
+            sink.flush();
             return;
         }
 
         for (City city : cities) {
             if (city == null) continue;
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+            sink.cell(city.getName())
+                    .cell(city.getCountry())
+                    .cell(city.getDistrict())
+                    .cell(city.getPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
 
     /**
@@ -329,30 +306,74 @@ public class CityReport {
     public void printTopNPopulatedCitiesInDistrict(String district, int n) {
         List<City> cities = this.cityDAO.getTopNPopulatedCitiesInDistrict(district, n);
 
-        System.out.println("\nThe top " + n + " populated cities in district: " + district + ".\n");
+        sink.title("\nThe top " + n + " populated cities in district: " + district + ".\n");
 
-        System.out.printf("%-25s %-25s %-25s %-15s%n",
-                "City", "Country", "District", "Population");
-        System.out.println("---------------------------------------------------------------------------------------------");
+        sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+        sink.rule("---------------------------------------------------------------------------------------------");
 
         if (cities == null || cities.isEmpty()) {
-            System.out.println("No data available.");
+            sink.message("No data available.");
+            sink.flush();
             return;
         }
 
         for (City city : cities) {
             if (city == null) continue;
-            System.out.printf("%-25s %-25s %-25s %-15d%n",
-                    city.getName(),
-                    city.getCountry(),
-                    city.getDistrict(),
-                    city.getPopulation());
+            sink.cell(city.getName())
+                    .cell(city.getCountry())
+                    .cell(city.getDistrict())
+                    .cell(city.getPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
-}
 
+    /**
+     * Prints the top N most populated cities of every continent, one table per
+     * continent, from a single query.
+     *
+     * @param n The number of cities to display per continent.
+     */
+    public void printTopNPopulatedCitiesPerContinent(int n) {
+        printCityGroups(this.cityDAO.getTopNPopulatedCitiesPerContinent(n), "continent", n);
+    }
 
+    /**
+     * Prints the top N most populated cities of every region, one table per
+     * region, from a single query.
+     *
+     * @param n The number of cities to display per region.
+     */
+    public void printTopNPopulatedCitiesPerRegion(int n) {
+        printCityGroups(this.cityDAO.getTopNPopulatedCitiesPerRegion(n), "region", n);
+    }
 
+    /**
+     * Prints one top N table per group, titled as the single-scope reports are.
+     *
+     * @param groups The cities of each group, in print order.
+     * @param scope  The kind of group, e.g. {@code "continent"}.
+     * @param n      The number of cities per group.
+     */
+    private void printCityGroups(Map<String, List<City>> groups, String scope, int n) {
+        if (groups == null || groups.isEmpty()) {
+            sink.title("\nThe top " + n + " populated cities in every " + scope + ".\n");
+            sink.message("No data available.");
+            sink.flush();
+            return;
+        }
 
+        for (Map.Entry<String, List<City>> group : groups.entrySet()) {
+            sink.title("\nThe top " + n + " populated cities in " + scope + ": " + group.getKey() + ".\n");
 
+            sink.columns(CITY_COLUMNS).header("City", "Country", "District", "Population");
+            sink.rule("---------------------------------------------------------------------------------------------");
 
+            for (City city : group.getValue()) {
+                if (city == null) continue;
+                printCity(city);
+            }
+        }
+        sink.flush();
+    }
+}
@@ -1,32 +1,62 @@
 package com.napier.proj.report;
 
-import com.napier.proj.dao.CountryDAO;
+import com.napier.proj.dao.CountryQueries;
 import com.napier.proj.model.Country;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The {@code CountryReport} class is responsible for generating and printing
  * formatted reports of countries based on their population.
  *
- * <p>It uses the {@link CountryDAO} to retrieve country data from the database
+ * <p>It uses the {@link CountryQueries} to retrieve country data from the database
  * and outputs the results in a table format to the console.</p>
  *
  * @author So Pyay Tun
  */
 public class CountryReport {
 
+    /** Column widths of the country table. */
+    private static final int[] COUNTRY_COLUMNS = {7, 25, 15, 25, 20, 20};
+
     /** The Data Access Object (DAO) used to query country data. */
-    private CountryDAO countryDAO;
+    private CountryQueries countryDAO;
+
+    /** Receives the report tables, in the selected output format. */
+    private ReportSink sink;
 
     /**
-     * Constructs a {@code CountryReport} object with a given {@link CountryDAO}.
+     * Constructs a {@code CountryReport} object with a given {@link CountryQueries}.
      *
      * @param countryDAO the data access object used to fetch country data.
      */
-    public CountryReport(CountryDAO countryDAO) {
+    public CountryReport(CountryQueries countryDAO) {
+        this(countryDAO, System.out);
+    }
+
+    /**
+     * Constructs a {@code CountryReport} that prints to the given stream instead of
+     * standard output, so a report can be rendered into its own buffer.
+     *
+     * @param countryDAO the data access object used to fetch country data.
+     * @param out the stream the report is printed to.
+     */
+    public CountryReport(CountryQueries countryDAO, PrintStream out) {
+        this(countryDAO, new TableWriter(out));
+    }
+
+    /**
+     * Constructs a {@code CountryReport} that writes to the given sink.
+     *
+     * @param countryDAO the data access object used to fetch country data.
+     * @param sink the sink the report is written to.
+     */
+    public CountryReport(CountryQueries countryDAO, ReportSink sink) {
         this.countryDAO = countryDAO;
+        this.sink = sink;
     }
 
     /**
@@ -36,22 +66,24 @@ public class CountryReport {
         // Retrieve list of all countries sorted by population
         List<Country> countries = this.countryDAO.getAllCountriesByPopulation();
 
-        System.out.println("\nAll the countries in the world organized by largest population to smallest.\n");
+        sink.title("\nAll the countries in the world organized by largest population to smallest.\n");
 
         if (countries == null) {
-            System.out.println("No country list returned.");
+            sink.message("No country list returned.");
+            sink.flush();
             return;
         }
 
         if (countries.isEmpty()) {
-            System.out.println("No countries found.");
+            sink.message("No countries found.");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n", "Code", "Name", "Continent", "Region", "Population",  "Capital");
+        sink.columns(COUNTRY_COLUMNS).header("Code", "Name", "Continent", "Region", "Population", "Capital");
 
-        System.out.println("--------------------------------------------------------------------------------------------");
+        sink.rule("--------------------------------------------------------------------------------------------");
 
         boolean printed = false;
         // Print each country's details
@@ -62,18 +94,19 @@ public class CountryReport {
             }
             printed = true;
 
-            System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n",
-                    country.getCode(),
-                    country.getName(),
-                    country.getContinent(),
-                    country.getRegion(),
-                    country.getPopulation(),
-                    country.getCapital());
+            sink.cell(country.getCode())
+                    .cell(country.getName())
+                    .cell(country.getContinent())
+                    .cell(country.getRegion())
+                    .cell(country.getPopulation())
+                    .cell(country.getCapital())
+                    .endRow();
         }
 
         if(!printed){
-            System.out.println("No valid country records.");
+            sink.message("No valid country records.");
         }
+        sink.flush();
     }
 
     /**
@@ -85,22 +118,24 @@ public class CountryReport {
         // Retrieve all countries in the specified continent
         List<Country> countries = this.countryDAO.getAllCountriesInContinentByPopulation(continent);
 
-        System.out.println("\nAll the countries in a continent organized by largest population to smallest.\n");
+        sink.title("\nAll the countries in a continent organized by largest population to smallest.\n");
 
         if (countries == null) {
-            System.out.println("No country list returned.");
+            sink.message("No country list returned.");
+            sink.flush();
             return;
         }
 
         if (countries.isEmpty()) {
-            System.out.println("No countries found.");
+            sink.message("No countries found.");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n", "Code", "Name", "Continent", "Region", "Population",  "Capital");
+        sink.columns(COUNTRY_COLUMNS).header("Code", "Name", "Continent", "Region", "Population", "Capital");
 
-        System.out.println("--------------------------------------------------------------------------------------------");
+        sink.rule("--------------------------------------------------------------------------------------------");
 
         boolean printed = false;
         // Print each country's details
@@ -111,17 +146,18 @@ public class CountryReport {
             }
             printed = true;
 
-            System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n",
-                    country.getCode(),
-                    country.getName(),
-                    country.getContinent(),
-                    country.getRegion(),
-                    country.getPopulation(),
-                    country.getCapital());
+            sink.cell(country.getCode())
+                    .cell(country.getName())
+                    .cell(country.getContinent())
+                    .cell(country.getRegion())
+                    .cell(country.getPopulation())
+                    .cell(country.getCapital())
+                    .endRow();
         }
         if(!printed){
-            System.out.println("No valid country records.");
+            sink.message("No valid country records.");
         }
+        sink.flush();
     }
 
     /**
@@ -133,21 +169,23 @@ public class CountryReport {
         // Retrieve all countries in the specified region
         List<Country> countries = this.countryDAO.getAllCountriesInRegionByPopulation(region);
 
-        System.out.println("\nAll the countries in a region organized by largest population to smallest.\n");
+        sink.title("\nAll the countries in a region organized by largest population to smallest.\n");
 
         if (countries == null) {
-            System.out.println("No country list returned.");
+            sink.message("No country list returned.");
+            sink.flush();
             return;
         }
 
         if (countries.isEmpty()) {
-            System.out.println("No countries found.");
+            sink.message("No countries found.");
+            sink.flush();
             return;
         }
         // Print table header
-        System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n", "Code", "Name", "Continent", "Region", "Population",  "Capital");
+        sink.columns(COUNTRY_COLUMNS).header("Code", "Name", "Continent", "Region", "Population", "Capital");
 
-        System.out.println("--------------------------------------------------------------------------------------------");
+        sink.rule("--------------------------------------------------------------------------------------------");
 
         boolean printed = false;
         // Print each country's details
@@ -158,17 +196,18 @@ public class CountryReport {
             }
             printed = true;
 
-            System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n",
-                    country.getCode(),
-                    country.getName(),
-                    country.getContinent(),
-                    country.getRegion(),
-                    country.getPopulation(),
-                    country.getCapital());
+            sink.cell(country.getCode())
+                    .cell(country.getName())
+                    .cell(country.getContinent())
+                    .cell(country.getRegion())
+                    .cell(country.getPopulation())
+                    .cell(country.getCapital())
+                    .endRow();
         }
         if(!printed){
-            System.out.println("No valid country records.");
+            sink.message("No valid country records.");
         }
+        sink.flush();
     }
 
     /**
@@ -180,21 +219,23 @@ public class CountryReport {
         // Retrieve top N countries globally
         List<Country> countries = this.countryDAO.getTopNPopulatedCountriesIntheworld(n);
 
-        System.out.println("\nThe top N populated countries in the world where N is provided by the user.");
+        sink.title("\nThe top N populated countries in the world where N is provided by the user.");
 
         if (countries == null) {
-            System.out.println("No country list returned.");
+            sink.message("No country list returned.");
+            sink.flush();
             return;
         }
 
         if (countries.isEmpty()) {
-            System.out.println("No countries found.");
+            sink.message("No countries found.");
+            sink.flush();
             return;
         }
         // Print table header
-        System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n", "Code", "Name", "Continent", "Region", "Population",  "Capital");
+        sink.columns(COUNTRY_COLUMNS).header("Code", "Name", "Continent", "Region", "Population", "Capital");
 
-        System.out.println("--------------------------------------------------------------------------------------------");
+        sink.rule("--------------------------------------------------------------------------------------------");
 
         boolean printed = false;
         // Print each country's details
@@ -205,17 +246,18 @@ public class CountryReport {
             }
             printed = true;
 
-            System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n",
-                    country.getCode(),
-                    country.getName(),
-                    country.getContinent(),
-                    country.getRegion(),
-                    country.getPopulation(),
-                    country.getCapital());
+            sink.cell(country.getCode())
+                    .cell(country.getName())
+                    .cell(country.getContinent())
+                    .cell(country.getRegion())
+                    .cell(country.getPopulation())
+                    .cell(country.getCapital())
+                    .endRow();
         }
         if(!printed){
-            System.out.println("No valid country records.");
+            sink.message("No valid country records.");
         }
+        sink.flush();
     }
     /**
      * Prints the top N most populated countries within a given continent.
@@ -227,21 +269,23 @@ public class CountryReport {
         // Retrieve top N countries in the specified continent
         List<Country> countries = this.countryDAO.getTopNPopulatedCountriesInContinent(continent ,n);
 
-        System.out.println("\nThe top N populated countries in a continent where N is provided by the user.");
+        sink.title("\nThe top N populated countries in a continent where N is provided by the user.");
 
         if (countries == null) {
-            System.out.println("No country list returned.");
+            sink.message("No country list returned.");
+            sink.flush();
             return;
         }
 
         if (countries.isEmpty()) {
-            System.out.println("No countries found.");
+            sink.message("No countries found.");
+            sink.flush();
             return;
         }
         // Print table header
-        System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n", "Code", "Name", "Continent", "Region", "Population",  "Capital");
+        sink.columns(COUNTRY_COLUMNS).header("Code", "Name", "Continent", "Region", "Population", "Capital");
 
-        System.out.println("--------------------------------------------------------------------------------------------");
+        sink.rule("--------------------------------------------------------------------------------------------");
 
         boolean printed = false;
         // Print each country's details
@@ -252,17 +296,18 @@ public class CountryReport {
             }
             printed = true;
 
-            System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n",
-                    country.getCode(),
-                    country.getName(),
-                    country.getContinent(),
-                    country.getRegion(),
-                    country.getPopulation(),
-                    country.getCapital());
+            sink.cell(country.getCode())
+                    .cell(country.getName())
+                    .cell(country.getContinent())
+                    .cell(country.getRegion())
+                    .cell(country.getPopulation())
+                    .cell(country.getCapital())
+                    .endRow();
         }
         if(!printed){
-            System.out.println("No valid country records.");
+            sink.message("No valid country records.");
         }
+        sink.flush();
     }
 
     /**
@@ -275,21 +320,23 @@ public class CountryReport {
         // Retrieve top N countries in the specified region
         List<Country> countries = this.countryDAO.getTopNPopulatedCountriesInRegion(region ,n);
 
-        System.out.println("\nThe top N populated countries in a region where N is provided by the user.");
+        sink.title("\nThe top N populated countries in a region where N is provided by the user.");
 
         if (countries == null) {
-            System.out.println("No country list returned.");
+            sink.message("No country list returned.");
+            sink.flush();
             return;
         }
 
         if (countries.isEmpty()) {
-            System.out.println("No countries found.");
+            sink.message("No countries found.");
+            sink.flush();
             return;
         }
         // Print table header
-        System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n", "Code", "Name", "Continent", "Region", "Population",  "Capital");
+        sink.columns(COUNTRY_COLUMNS).header("Code", "Name", "Continent", "Region", "Population", "Capital");
 
-        System.out.println("--------------------------------------------------------------------------------------------");
+        sink.rule("--------------------------------------------------------------------------------------------");
 
         boolean printed = false;
         // Print each country's details
@@ -300,17 +347,75 @@ public class CountryReport {
             }
             printed = true;
 
-            System.out.printf("%-7s %-25s %-15s %-25s %-20s %-20s%n",
-                    country.getCode(),
-                    country.getName(),
-                    country.getContinent(),
-                    country.getRegion(),
-                    country.getPopulation(),
-                    country.getCapital());
+            sink.cell(country.getCode())
+                    .cell(country.getName())
+                    .cell(country.getContinent())
+                    .cell(country.getRegion())
+                    .cell(country.getPopulation())
+                    .cell(country.getCapital())
+                    .endRow();
         }
         if(!printed){
-            System.out.println("No valid country records.");
+            sink.message("No valid country records.");
         }
+        sink.flush();
+    }
+
+
+    /**
+     * Prints the top N most populated countries of every continent, one table per
+     * continent, from a single query.
+     *
+     * @param n the number of top countries to display per continent.
+     */
+    public void printTopNPopulatedCountriesPerContinent(int n) {
+        printCountryGroups(this.countryDAO.getTopNPopulatedCountriesPerContinent(n), "continent", n);
     }
 
+    /**
+     * Prints the top N most populated countries of every region, one table per
+     * region, from a single query.
+     *
+     * @param n the number of top countries to display per region.
+     */
+    public void printTopNPopulatedCountriesPerRegion(int n) {
+        printCountryGroups(this.countryDAO.getTopNPopulatedCountriesPerRegion(n), "region", n);
+    }
+
+    /**
+     * Prints one top N table per group.
+     *
+     * @param groups the countries of each group, in print order.
+     * @param scope  the kind of group, e.g. {@code "continent"}.
+     * @param n      the number of countries per group.
+     */
+    private void printCountryGroups(Map<String, List<Country>> groups, String scope, int n) {
+        if (groups == null || groups.isEmpty()) {
+            sink.title("\nThe top " + n + " populated countries in every " + scope + ".");
+            sink.message("No countries found.");
+            sink.flush();
+            return;
+        }
+
+        for (Map.Entry<String, List<Country>> group : groups.entrySet()) {
+            sink.title("\nThe top " + n + " populated countries in " + scope + ": " + group.getKey() + ".");
+
+            sink.columns(COUNTRY_COLUMNS).header("Code", "Name", "Continent", "Region", "Population", "Capital");
+            sink.rule("--------------------------------------------------------------------------------------------");
+
+            for (Country country : group.getValue()) {
+                if (country == null) {
+                    continue;
+                }
+                sink.cell(country.getCode())
+                        .cell(country.getName())
+                        .cell(country.getContinent())
+                        .cell(country.getRegion())
+                        .cell(country.getPopulation())
+                        .cell(country.getCapital())
+                        .endRow();
+            }
+        }
+        sink.flush();
+    }
 }
@@ -0,0 +1,125 @@
+package com.napier.proj.report;
+
+/**
+ * Writes report tables as CSV (RFC 4180).
+ * <p>
+ * Each table becomes a header record followed by one record per row; tables are
+ * separated by a blank line. Titles, rules and messages are left out. Fields that
+ * contain a comma, a quote or a line break are quoted, and percentages are
+ * written as plain numbers without the {@code %} sign.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class CsvWriter extends BufferedSink {
+    /** Whether a table has been written, so the next one is separated from it. */
+    private boolean started;
+    /** Whether the current record already has a field. */
+    private boolean inRecord;
+
+    /**
+     * Creates a CSV writer over the given output.
+     *
+     * @param out the output the records are written to
+     */
+    public CsvWriter(Appendable out) {
+        super(out);
+    }
+
+    @Override
+    public CsvWriter title(String text) {
+        return this;
+    }
+
+    @Override
+    public CsvWriter columns(int... widths) {
+        return this;
+    }
+
+    @Override
+    public CsvWriter header(String... names) {
+        if (started) {
+            newline();
+        }
+        started = true;
+        for (String name : names) {
+            cell(name);
+        }
+        return endRow();
+    }
+
+    @Override
+    public CsvWriter rule(String text) {
+        return this;
+    }
+
+    @Override
+    public CsvWriter message(String text) {
+        return this;
+    }
+
+    @Override
+    public CsvWriter cell(String value) {
+        separate();
+        if (value != null) {
+            appendField(value);
+        }
+        return this;
+    }
+
+    @Override
+    public CsvWriter cell(long value) {
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    @Override
+    public CsvWriter percent(double value) {
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    @Override
+    public CsvWriter percent(double value, int decimals) {
+        separate();
+        appendRounded(value, decimals);
+        return this;
+    }
+
+    @Override
+    public CsvWriter endRow() {
+        inRecord = false;
+        newline();
+        return this;
+    }
+
+    private void separate() {
+        if (inRecord) {
+            buffer.append(',');
+        }
+        inRecord = true;
+    }
+
+    private void appendField(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            buffer.append(value);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+}
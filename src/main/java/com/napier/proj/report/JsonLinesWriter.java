@@ -0,0 +1,222 @@
+package com.napier.proj.report;
+
+/**
+ * Writes report rows as JSON Lines: one JSON object per row and per line.
+ * <p>
+ * Each object holds the title of its report under {@code "report"} and one member
+ * per column, keyed by the header names. Text cells are JSON strings (or
+ * {@code null}), and whole numbers and percentages are JSON numbers. Rules and
+ * messages are left out.
+ * </p>
+ * <p>
+ * {@link #array(Appendable)} writes the same objects as one JSON array instead,
+ * still one object per line, for callers that need a single JSON document.
+ * {@link #endArray()} closes the array.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class JsonLinesWriter extends BufferedSink {
+    /** The current report title, already escaped as a JSON string. */
+    private String report = "\"\"";
+    private String[] keys = new String[0];
+    /** Index of the next cell in the current row. */
+    private int column;
+    /** Whether the objects are written as the elements of one JSON array. */
+    private final boolean array;
+    private int rows;
+
+    /**
+     * Creates a JSON Lines writer over the given output.
+     *
+     * @param out the output the objects are written to
+     */
+    public JsonLinesWriter(Appendable out) {
+        this(out, false);
+    }
+
+    private JsonLinesWriter(Appendable out, boolean array) {
+        super(out);
+        this.array = array;
+    }
+
+    /**
+     * Creates a writer that writes the row objects as one JSON array.
+     *
+     * @param out the output the array is written to
+     * @return a new writer; call {@link #endArray()} after the last report
+     */
+    public static JsonLinesWriter array(Appendable out) {
+        return new JsonLinesWriter(out, true);
+    }
+
+    /**
+     * Closes the JSON array and writes everything buffered. Only meaningful for a
+     * writer created with {@link #array(Appendable)}.
+     */
+    public void endArray() {
+        if (array) {
+            buffer.append(rows == 0 ? "[]" : "]");
+            newline();
+        }
+        flush();
+    }
+
+    @Override
+    public JsonLinesWriter title(String text) {
+        int start = buffer.length();
+        appendString(text == null ? null : text.strip());
+        report = buffer.substring(start);
+        buffer.setLength(start);
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter columns(int... widths) {
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter header(String... names) {
+        keys = new String[names.length];
+        int start = buffer.length();
+        for (int i = 0; i < names.length; i++) {
+            appendString(names[i]);
+            keys[i] = buffer.substring(start);
+            buffer.setLength(start);
+        }
+        column = 0;
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter rule(String text) {
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter message(String text) {
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter cell(String value) {
+        member();
+        appendString(value);
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter cell(long value) {
+        member();
+        buffer.append(value);
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter percent(double value) {
+        member();
+        appendNumber(value);
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter percent(double value, int decimals) {
+        member();
+        if (Double.isFinite(value)) {
+            appendRounded(value, decimals);
+        } else {
+            buffer.append("null");
+        }
+        return this;
+    }
+
+    @Override
+    public JsonLinesWriter endRow() {
+        if (column == 0) {
+            startObject();
+        }
+        buffer.append('}');
+        column = 0;
+        rows++;
+        if (!array) {
+            newline();
+        }
+        return this;
+    }
+
+    /**
+     * Starts the object on the first cell of a row, then writes the next member's key.
+     */
+    private void member() {
+        if (column == 0) {
+            startObject();
+        }
+        buffer.append(',');
+        if (column < keys.length) {
+            buffer.append(keys[column]);
+        } else {
+            buffer.append("\"column").append(column + 1).append('"');
+        }
+        buffer.append(':');
+        column++;
+    }
+
+    private void startObject() {
+        if (array) {
+            if (rows == 0) {
+                buffer.append('[');
+            } else {
+                buffer.append(',');
+                newline();
+            }
+        }
+        buffer.append("{\"report\":").append(report);
+    }
+
+    private void appendNumber(double value) {
+        if (Double.isFinite(value)) {
+            buffer.append(value);
+        } else {
+            buffer.append("null");
+        }
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            buffer.append("null");
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buffer.append("\\u00")
+                                .append(Character.forDigit(c >> 4, 16))
+                                .append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        buffer.append(c);
+                    }
+                    break;
+            }
+        }
+        buffer.append('"');
+    }
+}
@@ -1,10 +1,12 @@
 package com.napier.proj.report;
 
 
-import com.napier.proj.dao.LanguageDAO;
+import com.napier.proj.dao.LanguageQueries;
 import com.napier.proj.model.Language;
 
+import java.io.PrintStream;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Report class responsible for generating and displaying language statistics.
@@ -12,16 +14,47 @@ import java.util.List;
  * @author Lin Myat Thu
  */
 public class LanguageReport {
+
+    /** Column widths of the language table header. */
+    private static final int[] HEADER_COLUMNS = {15, 20, 20};
+    /** Column widths of the language rows; the percentage column is not padded. */
+    private static final int[] ROW_COLUMNS = {15, 20, 0};
+
     /** Data Access Object for retrieving language data. */
-    private LanguageDAO languageDAO;
+    private LanguageQueries languageDAO;
+
+    /** Receives the report tables, in the selected output format. */
+    private ReportSink sink;
+
+    /**
+     * Constructs a {@code LanguageReport} object with a given {@link LanguageQueries}.
+     *
+     * @param languageDAO the data access object used to fetch language data.
+     */
+    public LanguageReport(LanguageQueries languageDAO) {
+        this(languageDAO, System.out);
+    }
+
+    /**
+     * Constructs a {@code LanguageReport} that prints to the given stream instead of
+     * standard output, so a report can be rendered into its own buffer.
+     *
+     * @param languageDAO the data access object used to fetch language data.
+     * @param out the stream the report is printed to.
+     */
+    public LanguageReport(LanguageQueries languageDAO, PrintStream out) {
+        this(languageDAO, new TableWriter(out));
+    }
 
     /**
-     * Constructs a {@code LanguageReport} object with a given {@link LanguageDAO}.
+     * Constructs a {@code LanguageReport} that writes to the given sink.
      *
      * @param languageDAO the data access object used to fetch language data.
+     * @param sink the sink the report is written to.
      */
-    public LanguageReport(LanguageDAO languageDAO) {
+    public LanguageReport(LanguageQueries languageDAO, ReportSink sink) {
         this.languageDAO = languageDAO;
+        this.sink = sink;
     }
     /**
      * Prints the number of speakers and world population percentage
@@ -32,26 +65,102 @@ public class LanguageReport {
         // Retrieve list of major languages with speaker count and world percentage.
         List<Language> languages = this.languageDAO.getMajorLanguageReport();
 
-        System.out.println("\nThe population of people who speak the following languages (from greatest to smallest),");
-        System.out.println("including the percentage of the world population: Chinese, English, Hindi, Spanish, Arabic.\n");
+        sink.title("\nThe population of people who speak the following languages (from greatest to smallest),\n"
+                + "including the percentage of the world population: Chinese, English, Hindi, Spanish, Arabic.\n");
+        printLanguageTable(languages, "% of World Population");
+    }
+
+    /**
+     * Prints the number of speakers and world population percentage for any
+     * languages, from greatest number of speakers to smallest.
+     *
+     * @param names        the languages to report.
+     * @param officialOnly whether to count only the countries where a language is official.
+     */
+    public void printLanguageReport(List<String> names, boolean officialOnly) {
+        List<Language> languages = this.languageDAO.getLanguageReport(names, officialOnly);
+
+        sink.title("\nThe population of people who speak the following languages (from greatest to smallest),\n"
+                + "including the percentage of the world population: " + String.join(", ", names)
+                + (officialOnly ? " (official languages only)" : "") + ".\n");
+        printLanguageTable(languages, "% of World Population");
+    }
+
+    /**
+     * Prints the speakers of the given languages in every continent, one table per
+     * continent, from a single query.
+     *
+     * @param names        the languages to report.
+     * @param officialOnly whether to count only the countries where a language is official.
+     */
+    public void printLanguageReportPerContinent(List<String> names, boolean officialOnly) {
+        printLanguageGroups(this.languageDAO.getLanguageReportPerContinent(names, officialOnly), "continent",
+                names, officialOnly);
+    }
+
+    /**
+     * Prints the speakers of the given languages in every region, one table per
+     * region, from a single query.
+     *
+     * @param names        the languages to report.
+     * @param officialOnly whether to count only the countries where a language is official.
+     */
+    public void printLanguageReportPerRegion(List<String> names, boolean officialOnly) {
+        printLanguageGroups(this.languageDAO.getLanguageReportPerRegion(names, officialOnly), "region",
+                names, officialOnly);
+    }
+
+    /**
+     * Prints one language table per group.
+     *
+     * @param groups       the languages of each group, in print order.
+     * @param scope        the kind of group, e.g. {@code "continent"}.
+     * @param names        the languages that were asked for.
+     * @param officialOnly whether only official languages were counted.
+     */
+    private void printLanguageGroups(Map<String, List<Language>> groups, String scope, List<String> names,
+                                     boolean officialOnly) {
+        String languages = String.join(", ", names) + (officialOnly ? " (official languages only)" : "");
+        if (groups == null || groups.isEmpty()) {
+            sink.title("\nThe speakers of " + languages + " in every " + scope + ".");
+            sink.message("No language data available.");
+            sink.flush();
+            return;
+        }
 
+        for (Map.Entry<String, List<Language>> group : groups.entrySet()) {
+            sink.title("\nThe speakers of " + languages + " in " + scope + ": " + group.getKey() + ".");
+            printLanguageTable(group.getValue(), "% of " + Character.toUpperCase(scope.charAt(0))
+                    + scope.substring(1) + " Population");
+        }
+    }
+
+    /**
+     * Prints the language table.
+     *
+     * @param languages     the languages, most spoken first.
+     * @param percentHeader the heading of the percentage column.
+     */
+    private void printLanguageTable(List<Language> languages, String percentHeader) {
         // Print table header
-        System.out.printf("%-15s %-20s %-20s%n",
-                "Language", "Total Speakers", "% of World Population");
-        System.out.println("-----------------------------------------------------------");
+        sink.columns(HEADER_COLUMNS).header("Language", "Total Speakers", percentHeader);
+        sink.rule("-----------------------------------------------------------");
         if (languages == null || languages.isEmpty()) {
-            System.out.println("No language data available.");
+            sink.message("No language data available.");
+            sink.flush();
             return;
         }
 
         // Print each language's details
+        sink.columns(ROW_COLUMNS);
         for (Language language : languages) {
             if (language == null) continue;
-            System.out.printf("%-15s %-20d %.2f%%%n",
-                    language.getLanguage(),
-                    language.getSpeakers(),
-                    language.getWorldPercentage());
+            sink.cell(language.getLanguage())
+                    .cell(language.getSpeakers())
+                    .percent(language.getWorldPercentage(), 2)
+                    .endRow();
         }
+        sink.flush();
     }
 
 }
@@ -0,0 +1,138 @@
+package com.napier.proj.report;
+
+/**
+ * Writes reports as Markdown: a heading per report and a pipe table per table.
+ * <p>
+ * Titles become level-two headings and messages become paragraphs. Pipes in cell
+ * text are escaped and line breaks become spaces, so every row stays on one line.
+ * Rules are left out because the header separator takes their place.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class MarkdownWriter extends BufferedSink {
+    /** Whether anything has been written, so blocks are separated by a blank line. */
+    private boolean started;
+    /** Whether the current row already has a cell. */
+    private boolean inRow;
+
+    /**
+     * Creates a Markdown writer over the given output.
+     *
+     * @param out the output the Markdown is written to
+     */
+    public MarkdownWriter(Appendable out) {
+        super(out);
+    }
+
+    @Override
+    public MarkdownWriter title(String text) {
+        block();
+        buffer.append("## ");
+        appendText(text == null ? "" : text.strip());
+        newline();
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter columns(int... widths) {
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter header(String... names) {
+        block();
+        for (String name : names) {
+            cell(name);
+        }
+        endRow();
+        for (int i = 0; i < names.length; i++) {
+            buffer.append("|---");
+        }
+        buffer.append('|');
+        newline();
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter rule(String text) {
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter message(String text) {
+        block();
+        appendText(text);
+        newline();
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter cell(String value) {
+        startCell();
+        appendText(value);
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter cell(long value) {
+        startCell();
+        buffer.append(value);
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter percent(double value) {
+        startCell();
+        buffer.append(value).append('%');
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter percent(double value, int decimals) {
+        startCell();
+        appendRounded(value, decimals);
+        buffer.append('%');
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter endRow() {
+        buffer.append(inRow ? " |" : "|");
+        inRow = false;
+        newline();
+        return this;
+    }
+
+    /**
+     * Starts a new block, with a blank line between it and the one before.
+     */
+    private void block() {
+        if (started) {
+            newline();
+        }
+        started = true;
+    }
+
+    private void startCell() {
+        buffer.append(inRow ? " | " : "| ");
+        inRow = true;
+    }
+
+    private void appendText(String value) {
+        if (value == null) {
+            buffer.append("null");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '|') {
+                buffer.append("\\|");
+            } else if (c == '\n' || c == '\r') {
+                buffer.append(' ');
+            } else {
+                buffer.append(c);
+            }
+        }
+    }
+}
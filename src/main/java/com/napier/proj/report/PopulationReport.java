@@ -1,16 +1,15 @@
 package com.napier.proj.report;
 
-import com.napier.proj.dao.CapitalCityDAO;
-import com.napier.proj.dao.PopulationDAO;
-import com.napier.proj.model.CapitalCity;
+import com.napier.proj.dao.PopulationQueries;
 import com.napier.proj.model.Population;
 
+import java.io.PrintStream;
 import java.util.List;
 
 /**
  * Handles the display of population reports for continents, regions, and countries.
  * <p>
- * This class retrieves population data from {@link PopulationDAO} and
+ * This class retrieves population data from {@link PopulationQueries} and
  * prints it in a formatted table showing total, city, and non-city populations,
  * along with their respective percentages.
  * </p>
@@ -19,16 +18,47 @@ import java.util.List;
  * @author Lin Myat Thu
  */
 public class PopulationReport {
+
+    /** Column widths of the city and non-city population table. */
+    private static final int[] SPLIT_COLUMNS = {25, 20, 20, 20, 15, 15};
+    /** Column widths of the total population table. */
+    private static final int[] TOTAL_COLUMNS = {20, 20};
+
     /** Data Access Object for retrieving population data. */
-    private PopulationDAO populationDAO;
+    private PopulationQueries populationDAO;
+
+    /** Receives the report tables, in the selected output format. */
+    private ReportSink sink;
+
+    /**
+     * Constructs a {@code PopulationReport} object with a given {@link PopulationQueries}.
+     *
+     * @param populationDAO the data access object used to fetch country data.
+     */
+    public PopulationReport(PopulationQueries populationDAO) {
+        this(populationDAO, System.out);
+    }
+
+    /**
+     * Constructs a {@code PopulationReport} that prints to the given stream instead of
+     * standard output, so a report can be rendered into its own buffer.
+     *
+     * @param populationDAO the data access object used to fetch country data.
+     * @param out the stream the report is printed to.
+     */
+    public PopulationReport(PopulationQueries populationDAO, PrintStream out) {
+        this(populationDAO, new TableWriter(out));
+    }
 
     /**
-     * Constructs a {@code PopulationReport} object with a given {@link PopulationDAO}.
+     * Constructs a {@code PopulationReport} that writes to the given sink.
      *
      * @param populationDAO the data access object used to fetch country data.
+     * @param sink the sink the report is written to.
      */
-    public PopulationReport(PopulationDAO populationDAO) {
+    public PopulationReport(PopulationQueries populationDAO, ReportSink sink) {
         this.populationDAO = populationDAO;
+        this.sink = sink;
     }
 
     /**
@@ -39,22 +69,23 @@ public class PopulationReport {
         // Retrieve all population of people, people living in cities, and people not living in cities in each continent.
         List<Population> populations = this.populationDAO.getEachContinentPopulationWithUrbanAndNonUrban();
 
-        System.out.println("\nThe population of people, people living in cities, and people not living in cities in each continent.\n");
+        sink.title("\nThe population of people, people living in cities, and people not living in cities in each continent.\n");
 
         if(populations == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(populations.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-25s %-20s %-20s %-20s %-15s %-15s\n",
-                "Continent", "TotalPopulation", "CityPopulation", "NonCityPopulation", "CityPercentage", "NonCityPercentage");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(SPLIT_COLUMNS).header("Continent", "TotalPopulation", "CityPopulation", "NonCityPopulation", "CityPercentage", "NonCityPercentage");
+        sink.rule("----------------------------------------------------------");
 
         boolean printed = false;
         // Print each population's details
@@ -65,19 +96,19 @@ public class PopulationReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-20s %-20s %-20s %-15s %-15s\n",
-                    population.getName(),
-                    population.getTotalPopulation(),
-                    population.getCityPopulation(),
-                    population.getNonCityPopulation(),
-                    population.getCityPercentage() + "%",
-                    population.getNonCityPercentage() + "%"
-            );
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .cell(population.getCityPopulation())
+                    .cell(population.getNonCityPopulation())
+                    .percent(population.getCityPercentage())
+                    .percent(population.getNonCityPercentage())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid population record");
+            sink.message("No valid population record");
         }
+        sink.flush();
     }
 
     /**
@@ -88,22 +119,23 @@ public class PopulationReport {
         // Retrieve all population of people, people living in cities, and people not living in cities in each region.
         List<Population> populations = this.populationDAO.getEachRegionPopulationWithUrbanAndNonUrban();
 
-        System.out.println("\nThe population of people, people living in cities, and people not living in cities in each region.\n");
+        sink.title("\nThe population of people, people living in cities, and people not living in cities in each region.\n");
 
         if(populations == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(populations.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-25s %-20s %-20s %-20s %-15s %-15s\n",
-                "Region", "TotalPopulation", "CityPopulation", "NonCityPopulation", "CityPercentage", "NonCityPercentage");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(SPLIT_COLUMNS).header("Region", "TotalPopulation", "CityPopulation", "NonCityPopulation", "CityPercentage", "NonCityPercentage");
+        sink.rule("----------------------------------------------------------");
 
         boolean printed = false;
         // Print each population's details
@@ -114,19 +146,19 @@ public class PopulationReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-20s %-20s %-20s %-15s %-15s\n",
-                    population.getName(),
-                    population.getTotalPopulation(),
-                    population.getCityPopulation(),
-                    population.getNonCityPopulation(),
-                    population.getCityPercentage() + "%",
-                    population.getNonCityPercentage() + "%"
-            );
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .cell(population.getCityPopulation())
+                    .cell(population.getNonCityPopulation())
+                    .percent(population.getCityPercentage())
+                    .percent(population.getNonCityPercentage())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid population record");
+            sink.message("No valid population record");
         }
+        sink.flush();
     }
 
     /**
@@ -137,22 +169,23 @@ public class PopulationReport {
         // Retrieve all population of people, people living in cities, and people not living in cities in each country.
         List<Population> populations = this.populationDAO.getEachCountryPopulationWithUrbanAndNonUrban();
 
-        System.out.println("\nThe population of people, people living in cities, and people not living in cities in each country.\n");
+        sink.title("\nThe population of people, people living in cities, and people not living in cities in each country.\n");
 
         if(populations == null) {
-            System.out.println("No capital city list returned.");
+            sink.message("No capital city list returned.");
+            sink.flush();
             return;
         }
 
         if(populations.isEmpty()) {
-            System.out.println("No capital city found");
+            sink.message("No capital city found");
+            sink.flush();
             return;
         }
 
         // Print table header
-        System.out.printf("%-25s %-20s %-20s %-20s %-15s %-15s\n",
-                "Country", "TotalPopulation", "CityPopulation", "NonCityPopulation", "CityPercentage", "NonCityPercentage");
-        System.out.println("----------------------------------------------------------");
+        sink.columns(SPLIT_COLUMNS).header("Country", "TotalPopulation", "CityPopulation", "NonCityPopulation", "CityPercentage", "NonCityPercentage");
+        sink.rule("----------------------------------------------------------");
 
         boolean printed = false;
         // Print each population's details
@@ -163,19 +196,19 @@ public class PopulationReport {
             }
             printed = true;
 
-            System.out.printf("%-25s %-20s %-20s %-20s %-15s %-15s\n",
-                    population.getName(),
-                    population.getTotalPopulation(),
-                    population.getCityPopulation(),
-                    population.getNonCityPopulation(),
-                    population.getCityPercentage() + "%",
-                    population.getNonCityPercentage() + "%"
-            );
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .cell(population.getCityPopulation())
+                    .cell(population.getNonCityPopulation())
+                    .percent(population.getCityPercentage())
+                    .percent(population.getNonCityPercentage())
+                    .endRow();
         }
 
         if(!printed) {
-            System.out.println("No valid population record");
+            sink.message("No valid population record");
         }
+        sink.flush();
     }
 
     /**
@@ -184,20 +217,22 @@ public class PopulationReport {
     public void printWorldPopulation() {
         List<Population> populations = populationDAO.getWorldPopulation();
 
-        System.out.println("\nThe total population of the world.\n");
-        System.out.printf("%-20s %-20s\n", "Name", "TotalPopulation");
-        System.out.println("----------------------------------");
+        sink.title("\nThe total population of the world.\n");
+        sink.columns(TOTAL_COLUMNS).header("Name", "TotalPopulation");
+        sink.rule("----------------------------------");
         if (populations == null || populations.isEmpty()) {
-            System.out.println("No population data available.");
+            sink.message("No population data available.");
+            sink.flush();
             return;
         }
 
         for (Population population : populations) {
             if (population == null) continue;
-            System.out.printf("%-20s %-20d\n",
-                    population.getName(),
-                    population.getTotalPopulation());
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
     /**
      * Print the total population of a continent.
@@ -205,20 +240,22 @@ public class PopulationReport {
     public void printContinentPopulation(String continent) {
         List<Population> populations = populationDAO.getContinentPopulation(continent);
 
-        System.out.println("\nThe total population of the continent: " + continent + "\n");
-        System.out.printf("%-20s %-20s\n", "Name", "TotalPopulation");
-        System.out.println("----------------------------------");
+        sink.title("\nThe total population of the continent: " + continent + "\n");
+        sink.columns(TOTAL_COLUMNS).header("Name", "TotalPopulation");
+        sink.rule("----------------------------------");
         if (populations == null || populations.isEmpty()) {
-            System.out.println("No population data available.");
+            sink.message("No population data available.");
+            sink.flush();
             return;
         }
 
         for (Population population : populations) {
             if (population == null) continue;
-            System.out.printf("%-20s %-20d\n",
-                    population.getName(),
-                    population.getTotalPopulation());
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
 
     /**
@@ -226,20 +263,22 @@ public class PopulationReport {
      */
     public void printRegionPopulation(String region) {
         List<Population> populations = populationDAO.getRegionPopulation(region);
-        System.out.println("\nThe total population of the region: " + region + "\n");
-        System.out.printf("%-20s %-20s\n", "Name", "TotalPopulation");
-        System.out.println("----------------------------------");
+        sink.title("\nThe total population of the region: " + region + "\n");
+        sink.columns(TOTAL_COLUMNS).header("Name", "TotalPopulation");
+        sink.rule("----------------------------------");
         if (populations == null || populations.isEmpty()) {
-            System.out.println("No population data available.");
+            sink.message("No population data available.");
+            sink.flush();
             return;
         }
 
         for (Population population : populations) {
             if (population == null) continue;
-            System.out.printf("%-20s %-20d\n",
-                    population.getName(),
-                    population.getTotalPopulation());
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
     /**
      * Print the total population of a country.
@@ -247,21 +286,23 @@ public class PopulationReport {
     public void printCountryPopulation(String country) {
         List<Population> populations = populationDAO.getCountryPopulation(country);
 
-        System.out.println("\nThe total population of the country: " + country + "\n");
-        System.out.printf("%-20s %-20s\n", "Name", "TotalPopulation");
-        System.out.println("----------------------------------");
+        sink.title("\nThe total population of the country: " + country + "\n");
+        sink.columns(TOTAL_COLUMNS).header("Name", "TotalPopulation");
+        sink.rule("----------------------------------");
 
         if (populations == null || populations.isEmpty()) {
-            System.out.println("No population data available.");
+            sink.message("No population data available.");
+            sink.flush();
             return;
         }
 
         for (Population population : populations) {
             if (population == null) continue;
-            System.out.printf("%-20s %-20d\n",
-                    population.getName(),
-                    population.getTotalPopulation());
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
     /**
      * Print the total population of a district.
@@ -269,20 +310,22 @@ public class PopulationReport {
     public void printDistrictPopulation(String district) {
         List<Population> populations = populationDAO.getDistrictPopulation(district);
 
-        System.out.println("\nThe total population of the district: " + district + "\n");
-        System.out.printf("%-20s %-20s\n", "Name", "TotalPopulation");
-        System.out.println("----------------------------------");
+        sink.title("\nThe total population of the district: " + district + "\n");
+        sink.columns(TOTAL_COLUMNS).header("Name", "TotalPopulation");
+        sink.rule("----------------------------------");
         if (populations == null || populations.isEmpty()) {
-            System.out.println("No population data available.");
+            sink.message("No population data available.");
+            sink.flush();
             return;
         }
 
         for (Population population : populations) {
             if (population == null) continue;
-            System.out.printf("%-20s %-20d\n",
-                    population.getName(),
-                    population.getTotalPopulation());
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
     /**
      * Print the total population of a city.
@@ -290,20 +333,22 @@ public class PopulationReport {
     public void printCityPopulation(String city) {
         List<Population> populations = populationDAO.getCityPopulation(city);
 
-        System.out.println("\nThe total population of the city: " + city + "\n");
-        System.out.printf("%-20s %-20s\n", "Name", "TotalPopulation");
-        System.out.println("----------------------------------");
+        sink.title("\nThe total population of the city: " + city + "\n");
+        sink.columns(TOTAL_COLUMNS).header("Name", "TotalPopulation");
+        sink.rule("----------------------------------");
         if (populations == null || populations.isEmpty()) {
-            System.out.println("No population data available.");
+            sink.message("No population data available.");
+            sink.flush();
             return;
         }
 
         for (Population population : populations) {
             if (population == null) continue;
-            System.out.printf("%-20s %-20d\n",
-                    population.getName(),
-                    population.getTotalPopulation());
+            sink.cell(population.getName())
+                    .cell(population.getTotalPopulation())
+                    .endRow();
         }
+        sink.flush();
     }
 
 
@@ -0,0 +1,67 @@
+package com.napier.proj.report;
+
+import com.napier.proj.dao.QueryMetrics;
+
+import java.util.List;
+
+/**
+ * Report class that writes the per-query timings recorded in a {@link QueryMetrics}.
+ *
+ * @author Phone Myat Thu
+ */
+public class QueryMetricsReport {
+
+    /** Column widths of the query metrics table. */
+    private static final int[] COLUMNS = {55, 8, 8, 10, 12, 12, 10, 10, 10, 10, 10};
+
+    /** The metrics the report is written from. */
+    private QueryMetrics metrics;
+
+    /** Receives the report table, in the selected output format. */
+    private ReportSink sink;
+
+    /**
+     * Constructs a {@code QueryMetricsReport} that writes the given metrics to the given sink.
+     *
+     * @param metrics the recorded query metrics.
+     * @param sink the sink the report is written to.
+     */
+    public QueryMetricsReport(QueryMetrics metrics, ReportSink sink) {
+        this.metrics = metrics;
+        this.sink = sink;
+    }
+
+    /**
+     * Prints one row per query, the query with the most total time first. Times are
+     * in microseconds.
+     */
+    public void printQueryMetrics() {
+        List<QueryMetrics.QueryStats> queries = metrics.snapshot();
+
+        sink.title("\nQuery metrics (times in microseconds, slowest total first)\n");
+        sink.columns(COLUMNS).header("Query", "Calls", "Errors", "Rows", "Bytes",
+                "Total", "Mean", "p50", "p95", "p99", "Max");
+        sink.rule("-".repeat(155));
+        if (queries.isEmpty()) {
+            sink.message("No queries were run.");
+            sink.flush();
+            return;
+        }
+
+        for (QueryMetrics.QueryStats query : queries) {
+            sink.cell(query.getName())
+                    .cell(query.getCalls())
+                    .cell(query.getErrors())
+                    .cell(query.getRows())
+                    .cell(query.getBytes())
+                    .cell(query.getTotalMicros())
+                    .cell(query.getMeanMicros())
+                    .cell(query.getP50Micros())
+                    .cell(query.getP95Micros())
+                    .cell(query.getP99Micros())
+                    .cell(query.getMaxMicros())
+                    .endRow();
+        }
+        sink.flush();
+    }
+}
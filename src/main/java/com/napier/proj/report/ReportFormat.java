@@ -0,0 +1,59 @@
+package com.napier.proj.report;
+
+import java.util.Locale;
+
+/**
+ * The output formats the reports can be written in.
+ *
+ * @author Phone Myat Thu
+ */
+public enum ReportFormat {
+    /** Fixed-width text tables, as printed to the console. */
+    TEXT,
+    /** One CSV table per report. */
+    CSV,
+    /** One JSON object per row. */
+    JSONL,
+    /** A Markdown heading and table per report. */
+    MARKDOWN;
+
+    /**
+     * Parses a format name, ignoring case.
+     *
+     * @param name the format name, e.g. {@code "csv"}
+     * @return the matching format
+     * @throws IllegalArgumentException if the name is not a known format
+     */
+    public static ReportFormat parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Creates a sink that writes this format to the given output.
+     *
+     * @param out the output, such as a {@link java.io.PrintStream} or a {@link java.io.Writer}
+     * @return a new sink
+     */
+    public ReportSink open(Appendable out) {
+        switch (this) {
+            case CSV:
+                return new CsvWriter(out);
+            case JSONL:
+                return new JsonLinesWriter(out);
+            case MARKDOWN:
+                return new MarkdownWriter(out);
+            default:
+                return new TableWriter(out);
+        }
+    }
+
+    /**
+     * Returns the text written between the outputs of reports that were rendered
+     * by separate sinks, such as the tasks of a concurrent run.
+     *
+     * @return a blank line for formats that separate tables, otherwise an empty string
+     */
+    public String separator() {
+        return this == CSV || this == MARKDOWN ? System.lineSeparator() : "";
+    }
+}
@@ -0,0 +1,111 @@
+package com.napier.proj.report;
+
+/**
+ * Destination of the tables printed by the report classes.
+ * <p>
+ * A report describes its output as a title, a header, rows of cells and the odd
+ * message, and each sink renders that in its own format: fixed-width text for the
+ * console ({@link TableWriter}), or CSV, JSON Lines or Markdown for other tools
+ * ({@link CsvWriter}, {@link JsonLinesWriter}, {@link MarkdownWriter}). Rows are
+ * rendered as they arrive and written out in blocks, so a sink never holds a whole
+ * report. Text-only decoration such as column widths and rules is ignored by the
+ * formats that have no use for it.
+ * </p>
+ * <p>
+ * A sink is not thread-safe; a concurrent run gives each task its own.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public interface ReportSink {
+
+    /**
+     * Starts a new report with the given title. Leading and trailing line breaks
+     * are kept by the text format only.
+     *
+     * @param text the report title
+     * @return this sink
+     */
+    ReportSink title(String text);
+
+    /**
+     * Sets the column widths used by the text format for the following rows.
+     *
+     * @param widths the minimum width of each column; 0 leaves a column unpadded
+     * @return this sink
+     */
+    ReportSink columns(int... widths);
+
+    /**
+     * Writes the column names of the table that follows.
+     *
+     * @param names the column names
+     * @return this sink
+     */
+    ReportSink header(String... names);
+
+    /**
+     * Writes a horizontal rule under the header. Only the text format prints it.
+     *
+     * @param text the rule as printed in the text format
+     * @return this sink
+     */
+    ReportSink rule(String text);
+
+    /**
+     * Writes a message about the data, such as {@code "No data available."}. Data
+     * formats (CSV and JSON Lines) leave messages out.
+     *
+     * @param text the message
+     * @return this sink
+     */
+    ReportSink message(String text);
+
+    /**
+     * Appends a text cell to the current row.
+     *
+     * @param value the cell text, may be {@code null}
+     * @return this sink
+     */
+    ReportSink cell(String value);
+
+    /**
+     * Appends a whole number cell to the current row.
+     *
+     * @param value the cell value
+     * @return this sink
+     */
+    ReportSink cell(long value);
+
+    /**
+     * Appends a percentage cell to the current row, printed like
+     * {@link Double#toString(double)}.
+     *
+     * @param value the percentage
+     * @return this sink
+     */
+    ReportSink percent(double value);
+
+    /**
+     * Appends a percentage cell to the current row, rounded half-up to the given
+     * number of decimals.
+     *
+     * @param value    the percentage
+     * @param decimals the number of digits after the decimal point
+     * @return this sink
+     */
+    ReportSink percent(double value, int decimals);
+
+    /**
+     * Ends the current row.
+     *
+     * @return this sink
+     */
+    ReportSink endRow();
+
+    /**
+     * Writes everything buffered so far to the output. Report methods call this
+     * once they have printed their table.
+     */
+    void flush();
+}
@@ -0,0 +1,122 @@
+package com.napier.proj.report;
+
+import com.napier.proj.dao.*;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+
+/**
+ * Groups one instance of every report class, all reading through the same
+ * database connection and writing to the same stream or {@link ReportSink}.
+ * <p>
+ * A suite is cheap to build, so a concurrent run creates one per task with its
+ * own leased connection and output buffer.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class ReportSuite {
+    private CountryReport countryReport;
+    private CityReport cityReport;
+    private CapitalCityReport capitalCityReport;
+    private PopulationReport populationReport;
+    private LanguageReport languageReport;
+
+    /**
+     * Builds the JDBC DAOs and reports for the given connection and output stream.
+     *
+     * @param conn the connection every DAO in this suite queries through
+     * @param out  the stream every report in this suite prints to
+     */
+    public ReportSuite(Connection conn, PrintStream out) {
+        this(new DaoFactory(Backend.JDBC), conn, out);
+    }
+
+    /**
+     * Builds the reports over the query objects of the given factory's backend.
+     *
+     * @param daos creates the query objects for the selected backend
+     * @param conn the connection the query objects use
+     * @param out  the stream every report in this suite prints to
+     */
+    public ReportSuite(DaoFactory daos, Connection conn, PrintStream out) {
+        this(daos, conn, new TableWriter(out));
+    }
+
+    /**
+     * Builds the reports over the query objects of the given factory's backend,
+     * all writing to one sink.
+     *
+     * @param daos creates the query objects for the selected backend
+     * @param conn the connection the query objects use
+     * @param sink the sink every report in this suite writes to
+     */
+    public ReportSuite(DaoFactory daos, Connection conn, ReportSink sink) {
+        this(daos.countryQueries(conn), daos.cityQueries(conn), daos.capitalCityQueries(conn),
+                daos.populationQueries(conn), daos.languageQueries(conn), sink);
+    }
+
+    /**
+     * Builds the reports over the given query objects, all writing to one sink.
+     *
+     * @param countries   the country queries
+     * @param cities      the city queries
+     * @param capitals    the capital city queries
+     * @param populations the population queries
+     * @param languages   the language queries
+     * @param sink        the sink every report in this suite writes to
+     */
+    public ReportSuite(CountryQueries countries, CityQueries cities, CapitalCityQueries capitals,
+                       PopulationQueries populations, LanguageQueries languages, ReportSink sink) {
+        this.countryReport = new CountryReport(countries, sink);
+        this.cityReport = new CityReport(cities, sink);
+        this.capitalCityReport = new CapitalCityReport(capitals, sink);
+        this.populationReport = new PopulationReport(populations, sink);
+        this.languageReport = new LanguageReport(languages, sink);
+    }
+
+    /**
+     * Returns the country report.
+     *
+     * @return the country report
+     */
+    public CountryReport getCountryReport() {
+        return countryReport;
+    }
+
+    /**
+     * Returns the city report.
+     *
+     * @return the city report
+     */
+    public CityReport getCityReport() {
+        return cityReport;
+    }
+
+    /**
+     * Returns the capital city report.
+     *
+     * @return the capital city report
+     */
+    public CapitalCityReport getCapitalCityReport() {
+        return capitalCityReport;
+    }
+
+    /**
+     * Returns the population report.
+     *
+     * @return the population report
+     */
+    public PopulationReport getPopulationReport() {
+        return populationReport;
+    }
+
+    /**
+     * Returns the language report.
+     *
+     * @return the language report
+     */
+    public LanguageReport getLanguageReport() {
+        return languageReport;
+    }
+}
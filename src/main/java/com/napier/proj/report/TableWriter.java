@@ -0,0 +1,151 @@
+package com.napier.proj.report;
+
+/**
+ * Renders the fixed-width text tables printed by the report classes.
+ * <p>
+ * Cells are padded into one reusable character buffer, and the buffer is written
+ * to the output in large blocks. A row costs no format-string parsing, numbers are
+ * appended as digits without boxing, and the output stream is locked once per
+ * block instead of once per row. The layout is the same as the {@code printf}
+ * patterns the reports used before: every cell is left-aligned and padded to its
+ * column width (as {@code %-25s} does, never truncated), and cells are separated by
+ * one space.
+ * </p>
+ * <p>
+ * Nothing reaches the output until {@link #flush()} is called or the buffer fills
+ * up, so every report method flushes once it has printed its table.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class TableWriter extends BufferedSink {
+    private int[] widths = new int[0];
+    /** Index of the next cell in the current row. */
+    private int column;
+
+    /**
+     * Creates a table writer over the given output, such as a {@link java.io.PrintStream}
+     * or a {@link java.io.Writer}.
+     *
+     * @param out the output the rendered text is written to
+     */
+    public TableWriter(Appendable out) {
+        super(out);
+    }
+
+    @Override
+    public TableWriter title(String text) {
+        return line(text);
+    }
+
+    @Override
+    public TableWriter columns(int... widths) {
+        this.widths = widths;
+        this.column = 0;
+        return this;
+    }
+
+    @Override
+    public TableWriter header(String... names) {
+        for (String name : names) {
+            cell(name);
+        }
+        return endRow();
+    }
+
+    @Override
+    public TableWriter rule(String text) {
+        return line(text);
+    }
+
+    @Override
+    public TableWriter message(String text) {
+        return line(text);
+    }
+
+    /**
+     * Appends a text cell, padded to its column width. {@code null} is printed as
+     * {@code "null"}, like {@code %s}.
+     *
+     * @param value the cell text
+     * @return this writer
+     */
+    @Override
+    public TableWriter cell(String value) {
+        int start = startCell();
+        buffer.append(value);
+        return endCell(start);
+    }
+
+    /**
+     * Appends a whole number cell, padded to its column width.
+     *
+     * @param value the cell value
+     * @return this writer
+     */
+    @Override
+    public TableWriter cell(long value) {
+        int start = startCell();
+        buffer.append(value);
+        return endCell(start);
+    }
+
+    /**
+     * Appends a percentage cell in the form {@code "12.5%"}, padded to its column
+     * width.
+     *
+     * @param value the percentage
+     * @return this writer
+     */
+    @Override
+    public TableWriter percent(double value) {
+        int start = startCell();
+        buffer.append(value).append('%');
+        return endCell(start);
+    }
+
+    /**
+     * Appends a percentage cell in the form {@code "12.50%"}, padded to its column
+     * width.
+     *
+     * @param value    the percentage
+     * @param decimals the number of digits after the decimal point
+     * @return this writer
+     */
+    @Override
+    public TableWriter percent(double value, int decimals) {
+        int start = startCell();
+        appendRounded(value, decimals);
+        buffer.append('%');
+        return endCell(start);
+    }
+
+    @Override
+    public TableWriter endRow() {
+        column = 0;
+        newline();
+        return this;
+    }
+
+    private TableWriter line(String text) {
+        buffer.append(text);
+        newline();
+        return this;
+    }
+
+    private int startCell() {
+        if (column > 0) {
+            buffer.append(' ');
+        }
+        return buffer.length();
+    }
+
+    private TableWriter endCell(int start) {
+        int width = column < widths.length ? widths[column] : 0;
+        for (int pad = width - (buffer.length() - start); pad > 0; pad--) {
+            buffer.append(' ');
+        }
+        column++;
+        return this;
+    }
+}
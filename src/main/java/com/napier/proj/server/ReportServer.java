@@ -0,0 +1,414 @@
+package com.napier.proj.server;
+
+import com.napier.proj.config.ConnectionPool;
+import com.napier.proj.dao.DaoFactory;
+import com.napier.proj.dao.LanguageQueries;
+import com.napier.proj.dao.QueryExecutor;
+import com.napier.proj.dao.QueryMetrics;
+import com.napier.proj.events.ReportEvent;
+import com.napier.proj.report.JsonLinesWriter;
+import com.napier.proj.report.QueryMetricsReport;
+import com.napier.proj.report.ReportSuite;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long-running HTTP service that serves every report as JSON.
+ * <p>
+ * Each request runs on its own virtual thread, leases a connection for the
+ * duration of the request and writes the report's rows as a JSON array of
+ * objects, as {@link JsonLinesWriter#array(Appendable)} renders them. The JVM,
+ * the connection pool and the selected backend (including a loaded snapshot or a
+ * warm result cache) are set up once and reused by every request.
+ * </p>
+ * <p>
+ * The DAOs print a failed query and carry on with no rows, so the server counts
+ * the queries that failed while a report ran and answers {@code 503} instead of
+ * an empty array when any did.
+ * </p>
+ * <p>
+ * Only {@code GET} is supported. The scope of a report is chosen with one query
+ * parameter, and top-N reports take {@code n}:
+ * </p>
+ * <pre>
+ * /countries[/top?n=N]       [continent=X | region=X], or top N per=continent|region
+ * /cities[/top?n=N]          [continent=X | region=X | country=X | district=X], or top N per=continent|region
+ * /capitals[/top?n=N]        [continent=X | region=X]
+ * /population                [continent=X | region=X | country=X | district=X | city=X], world if none
+ * /population/split?by=continent|region|country
+ * /languages                 [names=A,B,...] [official=true] [per=continent|region], major languages if none
+ * /health
+ * /metrics                   the per-query timings recorded so far
+ * </pre>
+ *
+ * @author Phone Myat Thu
+ */
+public class ReportServer {
+
+    /**
+     * Runs one report for a request.
+     */
+    @FunctionalInterface
+    private interface Route {
+        void run(ReportSuite suite, Map<String, String> params);
+    }
+
+    private final DaoFactory daos;
+    private final ConnectionPool.ConnectionFactory connections;
+    private final Map<String, Route> routes = new HashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a server for the given backend. Nothing is bound until {@link #start(int)}.
+     *
+     * @param daos        creates the query objects for each request
+     * @param connections leases a connection for each request; it is closed when the request ends
+     */
+    public ReportServer(DaoFactory daos, ConnectionPool.ConnectionFactory connections) {
+        this.daos = daos;
+        this.connections = connections;
+
+        routes.put("/countries", (s, p) -> {
+            if (p.containsKey("continent")) {
+                s.getCountryReport().printAllCountriesInContinentByPopulation(p.get("continent"));
+            } else if (p.containsKey("region")) {
+                s.getCountryReport().printAllCountriesInRegionByPopulation(p.get("region"));
+            } else {
+                s.getCountryReport().printAllCountriesByPopulation();
+            }
+        });
+        routes.put("/countries/top", (s, p) -> {
+            int n = count(p);
+            if (p.containsKey("per")) {
+                switch (p.get("per")) {
+                    case "continent":
+                        s.getCountryReport().printTopNPopulatedCountriesPerContinent(n);
+                        break;
+                    case "region":
+                        s.getCountryReport().printTopNPopulatedCountriesPerRegion(n);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Parameter per must be continent or region");
+                }
+            } else if (p.containsKey("continent")) {
+                s.getCountryReport().getTopNPopulatedCountriesInContinent(p.get("continent"), n);
+            } else if (p.containsKey("region")) {
+                s.getCountryReport().getTopNPopulatedCountriesInRegion(p.get("region"), n);
+            } else {
+                s.getCountryReport().getTopNPopulatedCountriesIntheworld(n);
+            }
+        });
+        routes.put("/cities", (s, p) -> {
+            if (p.containsKey("continent")) {
+                s.getCityReport().printAllCitiesInContinentByPopulation(p.get("continent"));
+            } else if (p.containsKey("region")) {
+                s.getCityReport().printAllCitiesInRegionByPopulation(p.get("region"));
+            } else if (p.containsKey("country")) {
+                s.getCityReport().printAllCitiesInCountryByPopulation(p.get("country"));
+            } else if (p.containsKey("district")) {
+                s.getCityReport().printAllCitiesInDistrictByPopulation(p.get("district"));
+            } else {
+                s.getCityReport().printAllCitiesInWorldByPopulation();
+            }
+        });
+        routes.put("/cities/top", (s, p) -> {
+            int n = count(p);
+            if (p.containsKey("per")) {
+                switch (p.get("per")) {
+                    case "continent":
+                        s.getCityReport().printTopNPopulatedCitiesPerContinent(n);
+                        break;
+                    case "region":
+                        s.getCityReport().printTopNPopulatedCitiesPerRegion(n);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Parameter per must be continent or region");
+                }
+            } else if (p.containsKey("continent")) {
+                s.getCityReport().printTopNPopulatedCitiesInContinent(p.get("continent"), n);
+            } else if (p.containsKey("region")) {
+                s.getCityReport().printTopNPopulatedCitiesInRegion(p.get("region"), n);
+            } else if (p.containsKey("country")) {
+                s.getCityReport().printTopNPopulatedCitiesInCountry(p.get("country"), n);
+            } else if (p.containsKey("district")) {
+                s.getCityReport().printTopNPopulatedCitiesInDistrict(p.get("district"), n);
+            } else {
+                s.getCityReport().printTopNPopulatedCitiesInWorld(n);
+            }
+        });
+        routes.put("/capitals", (s, p) -> {
+            if (p.containsKey("continent")) {
+                s.getCapitalCityReport().printAllCapitalCitiesInContinent(p.get("continent"));
+            } else if (p.containsKey("region")) {
+                s.getCapitalCityReport().printAllCapitalCitiesInRegion(p.get("region"));
+            } else {
+                s.getCapitalCityReport().printAllCapitalCities();
+            }
+        });
+        routes.put("/capitals/top", (s, p) -> {
+            int n = count(p);
+            if (p.containsKey("continent")) {
+                s.getCapitalCityReport().printTopNPopulatedCapitalCitiesInContinent(p.get("continent"), n);
+            } else if (p.containsKey("region")) {
+                s.getCapitalCityReport().printTopNPopulatedCapitalCitiesInRegion(p.get("region"), n);
+            } else {
+                s.getCapitalCityReport().printTopNPopulatedCapitalCities(n);
+            }
+        });
+        routes.put("/population", (s, p) -> {
+            if (p.containsKey("continent")) {
+                s.getPopulationReport().printContinentPopulation(p.get("continent"));
+            } else if (p.containsKey("region")) {
+                s.getPopulationReport().printRegionPopulation(p.get("region"));
+            } else if (p.containsKey("country")) {
+                s.getPopulationReport().printCountryPopulation(p.get("country"));
+            } else if (p.containsKey("district")) {
+                s.getPopulationReport().printDistrictPopulation(p.get("district"));
+            } else if (p.containsKey("city")) {
+                s.getPopulationReport().printCityPopulation(p.get("city"));
+            } else {
+                s.getPopulationReport().printWorldPopulation();
+            }
+        });
+        routes.put("/population/split", (s, p) -> {
+            String by = p.getOrDefault("by", "");
+            switch (by) {
+                case "continent":
+                    s.getPopulationReport().printEachContinentPopulationWithUrbanAndNonUrban();
+                    break;
+                case "region":
+                    s.getPopulationReport().printEachRegionPopulationWithUrbanAndNonUrban();
+                    break;
+                case "country":
+                    s.getPopulationReport().printEachCountryPopulationWithUrbanAndNonUrban();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Parameter by must be continent, region or country");
+            }
+        });
+        routes.put("/languages", (s, p) -> {
+            if (!p.containsKey("names") && !p.containsKey("official") && !p.containsKey("per")) {
+                s.getLanguageReport().printMajorLanguageReport();
+                return;
+            }
+            List<String> names = p.containsKey("names")
+                    ? List.of(p.get("names").split("\\s*,\\s*")) : LanguageQueries.MAJOR_LANGUAGES;
+            boolean officialOnly = Boolean.parseBoolean(p.get("official"));
+            switch (p.getOrDefault("per", "world")) {
+                case "world":
+                    s.getLanguageReport().printLanguageReport(names, officialOnly);
+                    break;
+                case "continent":
+                    s.getLanguageReport().printLanguageReportPerContinent(names, officialOnly);
+                    break;
+                case "region":
+                    s.getLanguageReport().printLanguageReportPerRegion(names, officialOnly);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Parameter per must be world, continent or region");
+            }
+        });
+    }
+
+    /**
+     * Binds the server and starts accepting requests, each on its own virtual thread.
+     *
+     * @param port the port to listen on, or 0 to pick a free one
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return the bound port
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Server not started");
+        }
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits for running requests to finish and releases the port.
+     *
+     * @param delaySeconds the longest time to wait for running requests
+     */
+    public synchronized void stop(int delaySeconds) {
+        if (server == null) {
+            return;
+        }
+        server.stop(delaySeconds);
+        executor.close();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * Serves one request.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                serve(exchange);
+            } catch (RuntimeException e) {
+                System.out.println("Failed to serve " + exchange.getRequestURI() + ": " + e);
+                // Answer unless the report had already started its response
+                if (exchange.getResponseCode() == -1) {
+                    send(exchange, 500, error("Failed to run report " + exchange.getRequestURI().getPath()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers one request with its report, or with an error status.
+     */
+    private void serve(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            send(exchange, 405, error("Only GET is supported"));
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.equals("/health")) {
+            send(exchange, 200, "{\"status\":\"ok\",\"backend\":\"" + daos.getBackend() + "\"}\n");
+            return;
+        }
+        if (path.equals("/metrics")) {
+            StringBuilder body = new StringBuilder();
+            JsonLinesWriter sink = JsonLinesWriter.array(body);
+            new QueryMetricsReport(QueryMetrics.global(), sink).printQueryMetrics();
+            sink.endArray();
+            send(exchange, 200, body.toString());
+            return;
+        }
+        Route route = routes.get(path);
+        if (route == null) {
+            send(exchange, 404, error("Unknown report " + path));
+            return;
+        }
+
+        Map<String, String> params;
+        try {
+            params = parseQuery(exchange.getRequestURI().getRawQuery());
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+            return;
+        }
+
+        StringBuilder body = new StringBuilder();
+        ReportEvent event = new ReportEvent();
+        event.begin();
+        int failures = QueryExecutor.failuresOnCurrentThread();
+        try (Connection conn = connections.create()) {
+            JsonLinesWriter sink = JsonLinesWriter.array(body);
+            route.run(new ReportSuite(daos, conn, sink), params);
+            sink.endArray();
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+            return;
+        } catch (SQLException e) {
+            send(exchange, 503, error("No database connection available: " + e.getMessage()));
+            return;
+        }
+        if (QueryExecutor.failuresOnCurrentThread() != failures) {
+            send(exchange, 503, error("A database query failed while running report " + path));
+            return;
+        }
+        if (event.shouldCommit()) {
+            event.setReport(path);
+            event.setParameters(params.toString());
+            event.commit();
+        }
+        send(exchange, 200, body.toString());
+    }
+
+    /**
+     * Returns the required, non-negative {@code n} parameter of a top-N report.
+     */
+    private static int count(Map<String, String> params) {
+        String n = params.get("n");
+        if (n == null) {
+            throw new IllegalArgumentException("Parameter n is required");
+        }
+        try {
+            int count = Integer.parseInt(n);
+            if (count < 0) {
+                throw new IllegalArgumentException("Parameter n must not be negative");
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter n must be a whole number");
+        }
+    }
+
+    /**
+     * Decodes a raw query string into its parameters; the first value of a repeated name wins.
+     */
+    static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.putIfAbsent(name, value);
+        }
+        return params;
+    }
+
+    private static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\');
+            }
+            json.append(c < 0x20 ? ' ' : c);
+        }
+        return json.append("\"}\n").toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.napier.proj.snapshot;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Columnar copy of the {@code city} table.
+ * <p>
+ * Each column is a primitive array indexed by row; names, country codes and
+ * districts are stored as ids into per-column {@link StringDictionary dictionaries}.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class CityTable {
+    /** SQL used to read the table in one scan. */
+    static final String LOAD_SQL = "SELECT ID, Name, CountryCode, District, Population FROM city";
+
+    final StringDictionary names = new StringDictionary();
+    final StringDictionary countryCodes = new StringDictionary();
+    final StringDictionary districts = new StringDictionary();
+
+    int[] id = new int[1024];
+    int[] name = new int[1024];
+    int[] countryCode = new int[1024];
+    int[] district = new int[1024];
+    int[] population = new int[1024];
+    int size;
+
+    /**
+     * Reads the whole {@code city} table.
+     *
+     * @param con the connection to read through
+     * @return the loaded table
+     * @throws SQLException if the table cannot be read
+     */
+    public static CityTable load(Connection con) throws SQLException {
+        CityTable table = new CityTable();
+        try (PreparedStatement pstmt = con.prepareStatement(LOAD_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                table.add(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5));
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param id          the city ID
+     * @param name        the city name
+     * @param countryCode the code of the country the city belongs to
+     * @param district    the district
+     * @param population  the population
+     */
+    public void add(int id, String name, String countryCode, String district, int population) {
+        if (size == this.id.length) {
+            int capacity = size * 2;
+            this.id = Arrays.copyOf(this.id, capacity);
+            this.name = Arrays.copyOf(this.name, capacity);
+            this.countryCode = Arrays.copyOf(this.countryCode, capacity);
+            this.district = Arrays.copyOf(this.district, capacity);
+            this.population = Arrays.copyOf(this.population, capacity);
+        }
+        this.id[size] = id;
+        this.name[size] = names.intern(name);
+        this.countryCode[size] = countryCodes.intern(countryCode);
+        this.district[size] = districts.intern(district);
+        this.population[size] = population;
+        size++;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,27 @@
+package com.napier.proj.snapshot;
+
+import java.util.Locale;
+
+/**
+ * Compares names the way the {@code world} database's collation does: ignoring
+ * case and trailing spaces. Every snapshot lookup by name goes through
+ * {@link #key(String)}, so a name matches in one report exactly when it matches
+ * in any other.
+ *
+ * @author Phone Myat Thu
+ */
+final class Collation {
+
+    private Collation() {
+    }
+
+    /**
+     * Returns the collation key of a name: lower case without trailing spaces.
+     *
+     * @param name the name, or {@code null}
+     * @return the key, empty for {@code null}
+     */
+    static String key(String name) {
+        return name == null ? "" : name.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,92 @@
+package com.napier.proj.snapshot;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Columnar copy of the {@code country} table columns used by the reports.
+ * <p>
+ * Each column is a primitive array indexed by row; names, continents and regions
+ * are stored as ids into per-column {@link StringDictionary dictionaries}.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class CountryTable {
+    /** SQL used to read the table in one scan. */
+    static final String LOAD_SQL = "SELECT Code, Name, Continent, Region, Population, Capital FROM country";
+
+    final StringDictionary names = new StringDictionary();
+    final StringDictionary continents = new StringDictionary();
+    final StringDictionary regions = new StringDictionary();
+
+    String[] code = new String[256];
+    int[] name = new int[256];
+    int[] continent = new int[256];
+    int[] region = new int[256];
+    int[] population = new int[256];
+    /** City ID of the capital, or {@code -1} if the country has none. */
+    int[] capital = new int[256];
+    int size;
+
+    /**
+     * Reads the whole {@code country} table.
+     *
+     * @param con the connection to read through
+     * @return the loaded table
+     * @throws SQLException if the table cannot be read
+     */
+    public static CountryTable load(Connection con) throws SQLException {
+        CountryTable table = new CountryTable();
+        try (PreparedStatement pstmt = con.prepareStatement(LOAD_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                int capitalId = rs.getInt(6);
+                table.add(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getInt(5), rs.wasNull() ? -1 : capitalId);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param code       the country code
+     * @param name       the country name
+     * @param continent  the continent
+     * @param region     the region
+     * @param population the population
+     * @param capitalId  the capital's city ID, or {@code -1} if none
+     */
+    public void add(String code, String name, String continent, String region, int population, int capitalId) {
+        if (size == this.code.length) {
+            int capacity = size * 2;
+            this.code = Arrays.copyOf(this.code, capacity);
+            this.name = Arrays.copyOf(this.name, capacity);
+            this.continent = Arrays.copyOf(this.continent, capacity);
+            this.region = Arrays.copyOf(this.region, capacity);
+            this.population = Arrays.copyOf(this.population, capacity);
+            this.capital = Arrays.copyOf(this.capital, capacity);
+        }
+        this.code[size] = code;
+        this.name[size] = names.intern(name);
+        this.continent[size] = continents.intern(continent);
+        this.region[size] = regions.intern(region);
+        this.population[size] = population;
+        this.capital[size] = capitalId;
+        size++;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,139 @@
+package com.napier.proj.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code countrylanguage} table as a sparse language-by-country matrix.
+ * <p>
+ * Each language owns one contiguous run of entries (compressed sparse rows), one
+ * entry per country that speaks it, holding the country row, whether the language
+ * is official there and its speakers in thousandths of a person
+ * ({@code population * percentage tenths}). Speaker totals for any language are
+ * then a sum over that language's run, and a breakdown by continent or region is
+ * the same sum bucketed by the country's group, without touching the other
+ * languages or any country that does not speak it.
+ * </p>
+ * <p>
+ * Languages are merged by name the way the MySQL collation compares them:
+ * ignoring case and trailing spaces. A language keeps the spelling of its first
+ * row. Rows whose country is missing from the {@code country} table are left out,
+ * as the SQL join leaves them out.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+final class LanguageMatrix {
+    /** Language index for every collation key. */
+    private final Map<String, Integer> byName = new HashMap<>();
+    /** Name of each language. */
+    private final List<String> names = new ArrayList<>();
+
+    /** Entries of language {@code l} are {@code start[l]} up to {@code start[l + 1]}. */
+    private final int[] start;
+    private final int[] country;
+    private final boolean[] official;
+    private final long[] speakerThousandths;
+
+    /**
+     * Builds the matrix.
+     *
+     * @param table         the {@code countrylanguage} table
+     * @param codeToCountry the country row of each of the table's country code ids, or {@code -1}
+     * @param population    the population of each country row
+     */
+    LanguageMatrix(LanguageTable table, int[] codeToCountry, int[] population) {
+        // Merge the table's language ids into collation-equal languages
+        int[] languageOf = new int[table.languages.size()];
+        for (int id = 0; id < languageOf.length; id++) {
+            String name = table.languages.get(id);
+            languageOf[id] = byName.computeIfAbsent(Collation.key(name), k -> {
+                names.add(name);
+                return names.size() - 1;
+            });
+        }
+
+        int languageCount = names.size();
+        this.start = new int[languageCount + 1];
+        for (int row = 0; row < table.size; row++) {
+            if (codeToCountry[table.countryCode[row]] >= 0) {
+                start[languageOf[table.language[row]] + 1]++;
+            }
+        }
+        for (int l = 0; l < languageCount; l++) {
+            start[l + 1] += start[l];
+        }
+
+        int entries = start[languageCount];
+        this.country = new int[entries];
+        this.official = new boolean[entries];
+        this.speakerThousandths = new long[entries];
+        int[] fill = new int[languageCount];
+        for (int row = 0; row < table.size; row++) {
+            int countryRow = codeToCountry[table.countryCode[row]];
+            if (countryRow < 0) {
+                continue;
+            }
+            int l = languageOf[table.language[row]];
+            int entry = start[l] + fill[l]++;
+            country[entry] = countryRow;
+            official[entry] = table.official[row];
+            speakerThousandths[entry] = (long) population[countryRow] * table.percentTenths[row];
+        }
+    }
+
+    /**
+     * Returns the language with the given name.
+     *
+     * @param name the language name, compared ignoring case and trailing spaces
+     * @return the language index, or {@code -1} if no row has that language
+     */
+    int language(String name) {
+        Integer language = name == null ? null : byName.get(Collation.key(name));
+        return language == null ? -1 : language;
+    }
+
+    /**
+     * Returns the name of a language.
+     *
+     * @param language the language index
+     * @return the language name
+     */
+    String name(int language) {
+        return names.get(language);
+    }
+
+    /**
+     * Adds the speakers of one language to per-group totals.
+     *
+     * @param language     the language index
+     * @param officialOnly whether to count only the countries where the language is official
+     * @param groupOf      the group of each country row, or {@code -1} to leave it out;
+     *                     {@code null} puts every country in group 0
+     * @param speakers     speakers in thousandths, added to by group
+     * @param counted      set for every group that had at least one entry of the language
+     */
+    void addSpeakers(int language, boolean officialOnly, int[] groupOf, long[] speakers, boolean[] counted) {
+        for (int entry = start[language]; entry < start[language + 1]; entry++) {
+            if (officialOnly && !official[entry]) {
+                continue;
+            }
+            int group = groupOf == null ? 0 : groupOf[country[entry]];
+            if (group >= 0) {
+                speakers[group] += speakerThousandths[entry];
+                counted[group] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of languages.
+     *
+     * @return the language count
+     */
+    int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,83 @@
+package com.napier.proj.snapshot;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Columnar copy of the {@code countrylanguage} table.
+ * <p>
+ * Percentages are kept in tenths of a percent ({@code DECIMAL(4,1)} scaled by ten)
+ * so speaker counts can be summed exactly in integer arithmetic.
+ * </p>
+ *
+ * @author Lin Myat Thu
+ */
+public final class LanguageTable {
+    /** SQL used to read the table in one scan. */
+    static final String LOAD_SQL = "SELECT CountryCode, Language, IsOfficial, Percentage FROM countrylanguage";
+
+    final StringDictionary countryCodes = new StringDictionary();
+    final StringDictionary languages = new StringDictionary();
+
+    int[] countryCode = new int[1024];
+    int[] language = new int[1024];
+    boolean[] official = new boolean[1024];
+    int[] percentTenths = new int[1024];
+    int size;
+
+    /**
+     * Reads the whole {@code countrylanguage} table.
+     *
+     * @param con the connection to read through
+     * @return the loaded table
+     * @throws SQLException if the table cannot be read
+     */
+    public static LanguageTable load(Connection con) throws SQLException {
+        LanguageTable table = new LanguageTable();
+        try (PreparedStatement pstmt = con.prepareStatement(LOAD_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                BigDecimal percentage = rs.getBigDecimal(4);
+                table.add(rs.getString(1), rs.getString(2), "T".equals(rs.getString(3)),
+                        percentage == null ? 0 : percentage.movePointRight(1).intValue());
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param countryCode   the country code
+     * @param language      the language name
+     * @param official      whether the language is official in the country
+     * @param percentTenths share of the country's population speaking it, in tenths of a percent
+     */
+    public void add(String countryCode, String language, boolean official, int percentTenths) {
+        if (size == this.countryCode.length) {
+            int capacity = size * 2;
+            this.countryCode = Arrays.copyOf(this.countryCode, capacity);
+            this.language = Arrays.copyOf(this.language, capacity);
+            this.official = Arrays.copyOf(this.official, capacity);
+            this.percentTenths = Arrays.copyOf(this.percentTenths, capacity);
+        }
+        this.countryCode[size] = countryCodes.intern(countryCode);
+        this.language[size] = languages.intern(language);
+        this.official[size] = official;
+        this.percentTenths[size] = percentTenths;
+        size++;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+}
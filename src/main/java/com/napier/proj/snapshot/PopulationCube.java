@@ -0,0 +1,234 @@
+package com.napier.proj.snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed population rollup of the world: world, continent, region, country,
+ * district and city.
+ * <p>
+ * The cube is built with one pass over the {@code city} table and one over the
+ * {@code country} table. Every level holds the total population and the part
+ * living in cities, so each population report is a hash lookup or a walk over a
+ * presorted list instead of an aggregate query. Names are matched
+ * ignoring case and trailing spaces, like the MySQL collation, and members whose
+ * names differ only in that way are rolled up together, as {@code GROUP BY} does.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ * @author Lin Myat Thu
+ */
+final class PopulationCube {
+
+    /**
+     * One member of a level with its total population and the part living in cities.
+     */
+    static final class Node {
+        final String name;
+        long total;
+        long city;
+
+        private Node(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Node world = new Node("World");
+    private final Map<String, Node> continents = new HashMap<>();
+    private final Map<String, Node> regions = new HashMap<>();
+    private final Map<String, Node> districts = new HashMap<>();
+    /** Population of every country with a given name, one value per country. */
+    private final Map<String, long[]> countries = new HashMap<>();
+    /** Population of every city with a given name, one value per city. */
+    private final Map<String, long[]> cities = new HashMap<>();
+
+    /** Continents in {@code country.Continent} ENUM order. */
+    private final List<Node> continentOrder;
+    /** Regions ordered by name. */
+    private final List<Node> regionOrder;
+    /** One node per country row, ordered by name. */
+    private final List<Node> countryOrder;
+
+    /**
+     * Rolls the two tables up.
+     *
+     * @param countryTable the {@code country} table
+     * @param cityTable    the {@code city} table
+     * @param cityCountry  the country row of each city row, or {@code -1} if the
+     *                     city's country is missing
+     */
+    PopulationCube(CountryTable countryTable, CityTable cityTable, int[] cityCountry) {
+        // City pass: district and city totals, and the city population of each country
+        long[] countryCity = new long[countryTable.size];
+        Map<String, List<Long>> cityValues = new HashMap<>();
+        for (int row = 0; row < cityTable.size; row++) {
+            int population = cityTable.population[row];
+            Node district = member(districts, cityTable.districts.get(cityTable.district[row]));
+            district.total += population;
+            district.city += population;
+            cityValues.computeIfAbsent(Collation.key(cityTable.names.get(cityTable.name[row])), k -> new ArrayList<>(1))
+                    .add((long) population);
+            if (cityCountry[row] >= 0) {
+                countryCity[cityCountry[row]] += population;
+            }
+        }
+        cityValues.forEach((name, values) -> cities.put(name, toArray(values)));
+
+        // Country pass: country rows roll up into regions, continents and the world
+        Map<String, List<Long>> countryValues = new HashMap<>();
+        Node[] countryNodes = new Node[countryTable.size];
+        for (int row = 0; row < countryTable.size; row++) {
+            long total = countryTable.population[row];
+            long city = countryCity[row];
+            String name = countryTable.names.get(countryTable.name[row]);
+
+            Node country = new Node(name);
+            country.total = total;
+            country.city = city;
+            countryNodes[row] = country;
+            countryValues.computeIfAbsent(Collation.key(name), k -> new ArrayList<>(1)).add(total);
+
+            add(member(regions, countryTable.regions.get(countryTable.region[row])), total, city);
+            add(member(continents, countryTable.continents.get(countryTable.continent[row])), total, city);
+            add(world, total, city);
+        }
+        countryValues.forEach((name, values) -> countries.put(name, toArray(values)));
+
+        List<Node> continentList = new ArrayList<>(continents.values());
+        continentList.sort((a, b) -> {
+            int ra = continentRank(a.name);
+            int rb = continentRank(b.name);
+            return ra != rb ? Integer.compare(ra, rb) : a.name.compareToIgnoreCase(b.name);
+        });
+        List<Node> regionList = new ArrayList<>(regions.values());
+        regionList.sort((a, b) -> a.name.compareToIgnoreCase(b.name));
+        Node[] countryList = countryNodes.clone();
+        Arrays.sort(countryList, (a, b) -> a.name.compareToIgnoreCase(b.name));
+
+        this.continentOrder = Collections.unmodifiableList(continentList);
+        this.regionOrder = Collections.unmodifiableList(regionList);
+        this.countryOrder = List.of(countryList);
+    }
+
+    /**
+     * Returns the world totals.
+     *
+     * @return the world node
+     */
+    Node world() {
+        return world;
+    }
+
+    /**
+     * Returns every continent in {@code country.Continent} ENUM order.
+     *
+     * @return the continent nodes
+     */
+    List<Node> continents() {
+        return continentOrder;
+    }
+
+    /**
+     * Returns every region ordered by name.
+     *
+     * @return the region nodes
+     */
+    List<Node> regions() {
+        return regionOrder;
+    }
+
+    /**
+     * Returns every country ordered by name.
+     *
+     * @return one node per country
+     */
+    List<Node> countries() {
+        return countryOrder;
+    }
+
+    /**
+     * Returns the total population of a continent.
+     *
+     * @param name the continent name, in any case
+     * @return the population, or 0 if there is no such continent
+     */
+    long continent(String name) {
+        return totalOf(continents, name);
+    }
+
+    /**
+     * Returns the total population of a region.
+     *
+     * @param name the region name, in any case
+     * @return the population, or 0 if there is no such region
+     */
+    long region(String name) {
+        return totalOf(regions, name);
+    }
+
+    /**
+     * Returns the total population of a district.
+     *
+     * @param name the district name, in any case
+     * @return the population, or 0 if there is no such district
+     */
+    long district(String name) {
+        return totalOf(districts, name);
+    }
+
+    /**
+     * Returns the population of every country with the given name.
+     *
+     * @param name the country name, in any case
+     * @return one value per matching country, empty if none match
+     */
+    long[] country(String name) {
+        return valuesOf(countries, name);
+    }
+
+    /**
+     * Returns the population of every city with the given name.
+     *
+     * @param name the city name, in any case
+     * @return one value per matching city, empty if none match
+     */
+    long[] city(String name) {
+        return valuesOf(cities, name);
+    }
+
+    private static Node member(Map<String, Node> level, String name) {
+        return level.computeIfAbsent(Collation.key(name), k -> new Node(name));
+    }
+
+    private static void add(Node node, long total, long city) {
+        node.total += total;
+        node.city += city;
+    }
+
+    private static long totalOf(Map<String, Node> level, String name) {
+        Node node = name == null ? null : level.get(Collation.key(name));
+        return node == null ? 0 : node.total;
+    }
+
+    private static long[] valuesOf(Map<String, long[]> level, String name) {
+        long[] values = name == null ? null : level.get(Collation.key(name));
+        return values == null ? new long[0] : values;
+    }
+
+    private static long[] toArray(List<Long> values) {
+        long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private static int continentRank(String continent) {
+        int rank = WorldSnapshot.CONTINENT_ORDER.indexOf(continent);
+        return rank < 0 ? WorldSnapshot.CONTINENT_ORDER.size() : rank;
+    }
+}
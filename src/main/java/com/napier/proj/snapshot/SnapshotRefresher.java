@@ -0,0 +1,153 @@
+package com.napier.proj.snapshot;
+
+import com.napier.proj.config.ConnectionPool;
+import com.napier.proj.dao.DaoFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link DaoFactory}'s in-process data up to date with the
+ * {@code world} database.
+ * <p>
+ * Each poll reads one checksum per table with {@code CHECKSUM TABLE}, which
+ * changes whenever any row of the table does, unlike row counts or
+ * {@code information_schema} update times, which InnoDB does not keep reliably.
+ * Only a table whose checksum changed is read again. The new snapshot reuses the
+ * other tables as loaded and rebuilds its indexes in memory, then replaces the
+ * current one in a single swap, so readers never wait for a refresh. The result
+ * cache is dropped on any change.
+ * </p>
+ * <p>
+ * The first poll only records the checksums, so a refresher should be started
+ * before the snapshot is first loaded. A table that changes again while it is
+ * being read is simply read once more on the next poll, and a poll that fails
+ * leaves the recorded checksums alone so its changes are retried.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class SnapshotRefresher implements AutoCloseable {
+    /** The tables a snapshot is built from. */
+    static final List<String> TABLES = List.of("city", "country", "countrylanguage");
+
+    static final String CHECKSUM_SQL = "CHECKSUM TABLE city, country, countrylanguage";
+
+    private final DaoFactory daos;
+    private final ConnectionPool.ConnectionFactory connections;
+    /** Checksum of each table at the last poll, or {@code null} before the first. */
+    private Map<String, Long> checksums;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a refresher for the given factory. Nothing is polled until
+     * {@link #refresh()} or {@link #start(Duration)}.
+     *
+     * @param daos        the factory whose snapshot and cache are refreshed
+     * @param connections leases a connection for each poll; it is closed when the poll ends
+     */
+    public SnapshotRefresher(DaoFactory daos, ConnectionPool.ConnectionFactory connections) {
+        this.daos = daos;
+        this.connections = connections;
+    }
+
+    /**
+     * Polls the table checksums once and reloads the tables that changed.
+     *
+     * @return the tables that changed since the last poll, empty on the first poll
+     * @throws SQLException if the checksums or a changed table cannot be read
+     */
+    public synchronized Set<String> refresh() throws SQLException {
+        try (Connection con = connections.create()) {
+            Map<String, Long> current = checksums(con);
+            if (checksums == null) {
+                checksums = current;
+                return new LinkedHashSet<>();
+            }
+            Set<String> changed = new LinkedHashSet<>();
+            for (String table : TABLES) {
+                if (!Objects.equals(checksums.get(table), current.get(table))) {
+                    changed.add(table);
+                }
+            }
+            if (changed.isEmpty()) {
+                return changed;
+            }
+
+            WorldSnapshot snapshot = daos.getSnapshot();
+            if (snapshot != null) {
+                CityTable cities = changed.contains("city") ? CityTable.load(con) : snapshot.cities;
+                CountryTable countries = changed.contains("country") ? CountryTable.load(con) : snapshot.countries;
+                LanguageTable languages = changed.contains("countrylanguage")
+                        ? LanguageTable.load(con) : snapshot.languages;
+                daos.replaceSnapshot(new WorldSnapshot(countries, cities, languages));
+            }
+            daos.invalidateCache();
+            checksums = current;
+            System.out.println("Refreshed changed tables: " + String.join(", ", changed));
+            return changed;
+        }
+    }
+
+    /**
+     * Polls in the background at a fixed delay until {@link #close()}. The first
+     * poll runs at once. A failed poll is reported and tried again at the next one.
+     *
+     * @param interval the time between the end of one poll and the start of the next
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Refresher already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("snapshot-refresher").daemon().factory());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+                System.out.println("Failed to refresh world snapshot");
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling. A poll that is running is interrupted.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Reads the checksum of every table, keyed by table name without its schema.
+     * A missing table has a {@code null} checksum.
+     */
+    private static Map<String, Long> checksums(Connection con) throws SQLException {
+        Map<String, Long> checksums = new HashMap<>();
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(CHECKSUM_SQL)) {
+            while (rs.next()) {
+                String table = rs.getString("Table");
+                long checksum = rs.getLong("Checksum");
+                checksums.put(table.substring(table.lastIndexOf('.') + 1), rs.wasNull() ? null : checksum);
+            }
+        }
+        return checksums;
+    }
+}
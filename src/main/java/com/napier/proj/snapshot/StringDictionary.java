@@ -0,0 +1,97 @@
+package com.napier.proj.snapshot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns strings to dense integer ids so snapshot columns can store an
+ * {@code int} per row instead of a {@link String} reference.
+ * <p>
+ * Each distinct value is stored once; rows that repeat a value (a district,
+ * a region, a continent) share its id. Values are also indexed by their
+ * collation key, lower case without trailing spaces, so a case-insensitive
+ * lookup is one hash lookup however large the dictionary is.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public final class StringDictionary {
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    /** The ids of every value with a given collation key, in id order. */
+    private final Map<String, int[]> idsIgnoreCase = new HashMap<>();
+    private String[] values = new String[64];
+    private int size;
+
+    /**
+     * Returns the id of the given value, adding it to the dictionary if needed.
+     *
+     * @param value the value to intern, may be {@code null}
+     * @return the value's id, or {@code -1} for {@code null}
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        ids.put(value, size);
+        idsIgnoreCase.merge(Collation.key(value), new int[]{size}, (old, added) -> {
+            int[] merged = Arrays.copyOf(old, old.length + 1);
+            merged[old.length] = added[0];
+            return merged;
+        });
+        return size++;
+    }
+
+    /**
+     * Returns the id of the given value without adding it.
+     *
+     * @param value the value to look up
+     * @return the value's id, or {@code -1} if it is not in the dictionary
+     */
+    public int lookup(String value) {
+        Integer id = value == null ? null : ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the ids of the values equal to the given one, ignoring case and
+     * trailing spaces, the way MySQL's default collation compares them.
+     *
+     * @param value the value to match
+     * @return the matching ids in id order, empty if nothing matches; the array is
+     *         shared and must not be modified
+     */
+    public int[] matchIgnoreCase(String value) {
+        int[] matches = value == null ? null : idsIgnoreCase.get(Collation.key(value));
+        return matches == null ? NO_IDS : matches;
+    }
+
+    /**
+     * Returns the value for the given id.
+     *
+     * @param id an id returned by {@link #intern(String)}
+     * @return the value, or {@code null} for {@code -1}
+     */
+    public String get(int id) {
+        return id < 0 ? null : values[id];
+    }
+
+    /**
+     * Returns the number of distinct values.
+     *
+     * @return the dictionary size
+     */
+    public int size() {
+        return size;
+    }
+}
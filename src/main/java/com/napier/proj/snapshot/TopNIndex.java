@@ -0,0 +1,148 @@
+package com.napier.proj.snapshot;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Rows of one table grouped by a scope (continent, region, country or district)
+ * and kept in population order within each group.
+ * <p>
+ * A top-N query for one scope value is a prefix copy of that value's group, so it
+ * costs O(N) however large the table is. A scope name can match several
+ * dictionary ids because names are compared case-insensitively. In that case the
+ * matching groups, passed as their ids, are merged with a heap that holds one
+ * cursor per group and stops after N rows.
+ * </p>
+ * <p>
+ * Within a group, rows keep the order of the population-sorted input: largest
+ * population first, ties by row number. Merged results use the same order, so
+ * every answer matches a filtered scan of the full sorted list.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+final class TopNIndex {
+    private static final int[] NO_ROWS = new int[0];
+
+    /** Rows of each group, in population order. */
+    private final int[][] groups;
+    /** Population of each row, used to order rows from different groups. */
+    private final int[] population;
+
+    /**
+     * Groups population-sorted rows by scope.
+     *
+     * @param sorted     the rows, largest population first
+     * @param groupOf    the group id of a row, or {@code -1} to leave it out
+     * @param groupCount the number of group ids
+     * @param population the population of each row
+     */
+    TopNIndex(int[] sorted, IntUnaryOperator groupOf, int groupCount, int[] population) {
+        this.population = population;
+
+        int[] sizes = new int[groupCount];
+        int[] group = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            group[i] = groupOf.applyAsInt(sorted[i]);
+            if (group[i] >= 0) {
+                sizes[group[i]]++;
+            }
+        }
+        this.groups = new int[groupCount][];
+        for (int g = 0; g < groupCount; g++) {
+            groups[g] = sizes[g] == 0 ? NO_ROWS : new int[sizes[g]];
+        }
+        int[] fill = new int[groupCount];
+        for (int i = 0; i < sorted.length; i++) {
+            if (group[i] >= 0) {
+                groups[group[i]][fill[group[i]]++] = sorted[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the most populated rows of the given groups.
+     *
+     * @param ids the group ids to include
+     * @param n   the maximum number of rows to return
+     * @return at most {@code n} rows, largest population first
+     */
+    int[] top(int[] ids, int n) {
+        int[] matched = new int[ids.length];
+        int size = 0;
+        int total = 0;
+        for (int g : ids) {
+            if (g >= 0 && g < groups.length && groups[g].length > 0) {
+                matched[size++] = g;
+                total += groups[g].length;
+            }
+        }
+        if (size == 0 || n <= 0) {
+            return NO_ROWS;
+        }
+        if (size == 1) {
+            int[] rows = groups[matched[0]];
+            return n >= rows.length ? rows.clone() : Arrays.copyOf(rows, n);
+        }
+        return merge(matched, size, total, n);
+    }
+
+    /**
+     * Merges the heads of several groups with a binary min-heap, ordered by the
+     * population (then row) of each group's next row. The heap holds positions
+     * in {@code matched}, so it costs nothing per group of the whole index.
+     */
+    private int[] merge(int[] matched, int size, int total, int n) {
+        int[] heap = new int[size];
+        int[] cursor = new int[size];
+        for (int i = 0; i < size; i++) {
+            heap[i] = i;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, size, i, matched, cursor);
+        }
+
+        int[] result = new int[Math.min(n, total)];
+        for (int out = 0; out < result.length; out++) {
+            int m = heap[0];
+            int[] rows = groups[matched[m]];
+            result[out] = rows[cursor[m]++];
+            if (cursor[m] == rows.length) {
+                heap[0] = heap[--size];
+            }
+            siftDown(heap, size, 0, matched, cursor);
+        }
+        return result;
+    }
+
+    private void siftDown(int[] heap, int size, int i, int[] matched, int[] cursor) {
+        while (true) {
+            int first = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && before(heap[left], heap[first], matched, cursor)) {
+                first = left;
+            }
+            if (right < size && before(heap[right], heap[first], matched, cursor)) {
+                first = right;
+            }
+            if (first == i) {
+                return;
+            }
+            int tmp = heap[i];
+            heap[i] = heap[first];
+            heap[first] = tmp;
+            i = first;
+        }
+    }
+
+    /** Whether matched group {@code a}'s next row comes before matched group {@code b}'s. */
+    private boolean before(int a, int b, int[] matched, int[] cursor) {
+        int rowA = groups[matched[a]][cursor[a]];
+        int rowB = groups[matched[b]][cursor[b]];
+        if (population[rowA] != population[rowB]) {
+            return population[rowA] > population[rowB];
+        }
+        return rowA < rowB;
+    }
+}
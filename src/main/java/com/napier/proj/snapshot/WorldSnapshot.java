@@ -0,0 +1,906 @@
+package com.napier.proj.snapshot;
+
+import com.napier.proj.dao.*;
+import com.napier.proj.model.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An immutable in-memory snapshot of the {@code world} database that answers
+ * every report query without SQL.
+ * <p>
+ * The {@code city}, {@code country} and {@code countrylanguage} tables are read
+ * once with a full scan each into columnar tables; joins between them are resolved
+ * once through a country-code-to-index map, and cities, countries and capitals are
+ * pre-sorted by population. Per-scope {@link TopNIndex}es group those sorted rows
+ * by continent, region, country and district, so a scoped query reads only the
+ * rows of its scope and a top-N query reads only its first N rows. Population
+ * totals at every level come from a {@link PopulationCube} built at the same time.
+ * </p>
+ * <p>
+ * It implements every DAO query interface and returns the same model objects in
+ * the same order as the SQL versions.
+ * </p>
+ * <p>
+ * A snapshot is never modified after construction, so it can be shared freely
+ * between threads.
+ * </p>
+ *
+ * @author Phone Myat Thu
+ */
+public class WorldSnapshot implements CountryQueries, CityQueries, CapitalCityQueries,
+        PopulationQueries, LanguageQueries {
+    /** Continents in the order of the {@code country.Continent} ENUM, which is how MySQL sorts them. */
+    static final List<String> CONTINENT_ORDER = List.of(
+            "Asia", "Europe", "North America", "Africa", "Oceania", "Antarctica", "South America");
+
+    final CountryTable countries;
+    final CityTable cities;
+    final LanguageTable languages;
+
+    /** Country row for every country code. */
+    final Map<String, Integer> countryByCode;
+    /** City row to country row, or {@code -1} if the city's country is missing. */
+    final int[] cityCountry;
+    /** Country row to the row of its capital city, or {@code -1} if it has none. */
+    final int[] countryCapital;
+
+    /** City rows that belong to a known country, most populated first. */
+    final int[] citiesByPopulation;
+    /** Country rows, most populated first. */
+    final int[] countriesByPopulation;
+    /** Rows of countries that have a capital, ordered by capital population, largest first. */
+    final int[] capitalsByPopulation;
+
+    /** Country rows grouped by continent and by region. */
+    final TopNIndex countriesByContinent;
+    final TopNIndex countriesByRegion;
+    /** City rows grouped by continent, region, country name and district. */
+    final TopNIndex citiesByContinent;
+    final TopNIndex citiesByRegion;
+    final TopNIndex citiesByCountry;
+    final TopNIndex citiesByDistrict;
+    /** Rows of countries with a capital, grouped by continent and by region. */
+    final TopNIndex capitalsByContinent;
+    final TopNIndex capitalsByRegion;
+
+    /** Population totals rolled up from cities to the world. */
+    final PopulationCube populationCube;
+
+    final long worldPopulation;
+
+    /** Speakers of every language in every country. */
+    final LanguageMatrix languageMatrix;
+    /** Country row to its index in {@link PopulationCube#continents()} and {@link PopulationCube#regions()}. */
+    final int[] countryContinent;
+    final int[] countryRegion;
+
+    /**
+     * Reads the three world tables through the given connection and builds a snapshot.
+     *
+     * @param con the connection to read through
+     * @return the loaded snapshot
+     * @throws SQLException if any table cannot be read
+     */
+    public static WorldSnapshot load(Connection con) throws SQLException {
+        return new WorldSnapshot(CountryTable.load(con), CityTable.load(con), LanguageTable.load(con));
+    }
+
+    /**
+     * Builds a snapshot from already loaded tables, resolving the joins between them.
+     *
+     * @param countries the {@code country} table
+     * @param cities    the {@code city} table
+     * @param languages the {@code countrylanguage} table
+     */
+    public WorldSnapshot(CountryTable countries, CityTable cities, LanguageTable languages) {
+        this.countries = countries;
+        this.cities = cities;
+        this.languages = languages;
+
+        this.countryByCode = new HashMap<>(countries.size * 2);
+        long world = 0;
+        for (int row = 0; row < countries.size; row++) {
+            countryByCode.put(countries.code[row], row);
+            world += countries.population[row];
+        }
+        this.worldPopulation = world;
+
+        // Resolve each distinct city country code once, then map every city through it
+        int[] codeToCountry = new int[cities.countryCodes.size()];
+        for (int id = 0; id < codeToCountry.length; id++) {
+            Integer row = countryByCode.get(cities.countryCodes.get(id));
+            codeToCountry[id] = row == null ? -1 : row;
+        }
+        this.cityCountry = new int[cities.size];
+        int[] joined = new int[cities.size];
+        int joinedCount = 0;
+        for (int row = 0; row < cities.size; row++) {
+            int country = codeToCountry[cities.countryCode[row]];
+            cityCountry[row] = country;
+            if (country >= 0) {
+                joined[joinedCount++] = row;
+            }
+        }
+        this.citiesByPopulation = sortByPopulation(joined, joinedCount, cities.population);
+
+        this.countryCapital = new int[countries.size];
+        CityIdIndex cityIds = new CityIdIndex(cities);
+        int[] withCapital = new int[countries.size];
+        int[] capitalPopulation = new int[countries.size];
+        int capitalCount = 0;
+        int[] allCountries = new int[countries.size];
+        for (int row = 0; row < countries.size; row++) {
+            allCountries[row] = row;
+            int capitalRow = countries.capital[row] < 0 ? -1 : cityIds.rowOf(countries.capital[row]);
+            countryCapital[row] = capitalRow;
+            if (capitalRow >= 0) {
+                withCapital[capitalCount++] = row;
+                capitalPopulation[row] = cities.population[capitalRow];
+            }
+        }
+        this.countriesByPopulation = sortByPopulation(allCountries, countries.size, countries.population);
+        this.capitalsByPopulation = sortByPopulation(withCapital, capitalCount, capitalPopulation);
+
+        int continentCount = countries.continents.size();
+        int regionCount = countries.regions.size();
+        this.countriesByContinent = new TopNIndex(countriesByPopulation,
+                row -> countries.continent[row], continentCount, countries.population);
+        this.countriesByRegion = new TopNIndex(countriesByPopulation,
+                row -> countries.region[row], regionCount, countries.population);
+        this.citiesByContinent = new TopNIndex(citiesByPopulation,
+                row -> countries.continent[cityCountry[row]], continentCount, cities.population);
+        this.citiesByRegion = new TopNIndex(citiesByPopulation,
+                row -> countries.region[cityCountry[row]], regionCount, cities.population);
+        this.citiesByCountry = new TopNIndex(citiesByPopulation,
+                row -> countries.name[cityCountry[row]], countries.names.size(), cities.population);
+        this.citiesByDistrict = new TopNIndex(citiesByPopulation,
+                row -> cities.district[row], cities.districts.size(), cities.population);
+        this.capitalsByContinent = new TopNIndex(capitalsByPopulation,
+                row -> countries.continent[row], continentCount, capitalPopulation);
+        this.capitalsByRegion = new TopNIndex(capitalsByPopulation,
+                row -> countries.region[row], regionCount, capitalPopulation);
+
+        this.populationCube = new PopulationCube(countries, cities, cityCountry);
+        this.countryContinent = groupRows(populationCube.continents(), countries.continents,
+                countries.continent, countries.size);
+        this.countryRegion = groupRows(populationCube.regions(), countries.regions, countries.region, countries.size);
+
+        int[] languageCountry = new int[languages.countryCodes.size()];
+        for (int id = 0; id < languageCountry.length; id++) {
+            Integer row = countryByCode.get(languages.countryCodes.get(id));
+            languageCountry[id] = row == null ? -1 : row;
+        }
+        this.languageMatrix = new LanguageMatrix(languages, languageCountry, countries.population);
+    }
+
+    // ---------------------------------------------------------------- countries
+
+    /**
+     * Returns all countries in the world, largest population first.
+     *
+     * @return every country
+     */
+    public List<Country> getAllCountriesByPopulation() {
+        return toCountries(first(countriesByPopulation, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns all countries in a continent, largest population first.
+     *
+     * @param continent the continent name
+     * @return the countries in the continent
+     */
+    public List<Country> getAllCountriesInContinentByPopulation(String continent) {
+        return toCountries(countriesByContinent.top(countries.continents.matchIgnoreCase(continent), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns all countries in a region, largest population first.
+     *
+     * @param region the region name
+     * @return the countries in the region
+     */
+    public List<Country> getAllCountriesInRegionByPopulation(String region) {
+        return toCountries(countriesByRegion.top(countries.regions.matchIgnoreCase(region), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns the N most populated countries in the world.
+     *
+     * @param n the number of countries
+     * @return at most {@code n} countries
+     */
+    public List<Country> getTopNPopulatedCountriesIntheworld(int n) {
+        return toCountries(first(countriesByPopulation, n));
+    }
+
+    /**
+     * Returns the N most populated countries in a continent.
+     *
+     * @param continent the continent name
+     * @param n         the number of countries
+     * @return at most {@code n} countries
+     */
+    public List<Country> getTopNPopulatedCountriesInContinent(String continent, int n) {
+        return toCountries(countriesByContinent.top(countries.continents.matchIgnoreCase(continent), n));
+    }
+
+    /**
+     * Returns the N most populated countries in a region.
+     *
+     * @param region the region name
+     * @param n      the number of countries
+     * @return at most {@code n} countries
+     */
+    public List<Country> getTopNPopulatedCountriesInRegion(String region, int n) {
+        return toCountries(countriesByRegion.top(countries.regions.matchIgnoreCase(region), n));
+    }
+
+    /**
+     * Returns the N most populated countries of every continent.
+     *
+     * @param n the number of countries per continent
+     * @return the countries of each continent, in continent order
+     */
+    public Map<String, List<Country>> getTopNPopulatedCountriesPerContinent(int n) {
+        Map<String, List<Country>> groups = new LinkedHashMap<>();
+        for (PopulationCube.Node continent : populationCube.continents()) {
+            putIfPresent(groups, continent.name, getTopNPopulatedCountriesInContinent(continent.name, n));
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the N most populated countries of every region.
+     *
+     * @param n the number of countries per region
+     * @return the countries of each region, in region name order
+     */
+    public Map<String, List<Country>> getTopNPopulatedCountriesPerRegion(int n) {
+        Map<String, List<Country>> groups = new LinkedHashMap<>();
+        for (PopulationCube.Node region : populationCube.regions()) {
+            putIfPresent(groups, region.name, getTopNPopulatedCountriesInRegion(region.name, n));
+        }
+        return groups;
+    }
+
+    // ------------------------------------------------------------------- cities
+
+    /**
+     * Returns all cities in the world, largest population first.
+     *
+     * @return every city
+     */
+    public List<City> getAllinWorldCitiesByPopulation() {
+        return toCities(first(citiesByPopulation, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns all cities in a continent, largest population first.
+     *
+     * @param continent the continent name
+     * @return the cities in the continent
+     */
+    public List<City> getAllCitiesInContinentByPopulation(String continent) {
+        return toCities(citiesByContinent.top(countries.continents.matchIgnoreCase(continent), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns all cities in a region, largest population first.
+     *
+     * @param region the region name
+     * @return the cities in the region
+     */
+    public List<City> getAllCitiesInRegionByPopulation(String region) {
+        return toCities(citiesByRegion.top(countries.regions.matchIgnoreCase(region), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns all cities in a country, largest population first.
+     *
+     * @param country the country name
+     * @return the cities in the country
+     */
+    public List<City> getAllCitiesInCountryByPopulation(String country) {
+        return toCities(citiesByCountry.top(countries.names.matchIgnoreCase(country), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns all cities in a district, largest population first.
+     *
+     * @param district the district name
+     * @return the cities in the district
+     */
+    public List<City> getAllCitiesInDistrictByPopulation(String district) {
+        return toCities(citiesByDistrict.top(cities.districts.matchIgnoreCase(district), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Streams all cities in the world, largest population first, without building a list.
+     *
+     * @param sink receives each city in order
+     * @return the number of cities streamed
+     */
+    @Override
+    public int streamAllCitiesInWorldByPopulation(Consumer<? super City> sink) {
+        return streamCities(citiesByPopulation, sink);
+    }
+
+    /**
+     * Streams all cities in a continent, largest population first.
+     *
+     * @param continent the continent name
+     * @param sink      receives each city in order
+     * @return the number of cities streamed
+     */
+    @Override
+    public int streamAllCitiesInContinentByPopulation(String continent, Consumer<? super City> sink) {
+        return streamCities(citiesByContinent.top(countries.continents.matchIgnoreCase(continent), Integer.MAX_VALUE), sink);
+    }
+
+    /**
+     * Streams all cities in a region, largest population first.
+     *
+     * @param region the region name
+     * @param sink   receives each city in order
+     * @return the number of cities streamed
+     */
+    @Override
+    public int streamAllCitiesInRegionByPopulation(String region, Consumer<? super City> sink) {
+        return streamCities(citiesByRegion.top(countries.regions.matchIgnoreCase(region), Integer.MAX_VALUE), sink);
+    }
+
+    /**
+     * Streams all cities in a country, largest population first.
+     *
+     * @param country the country name
+     * @param sink    receives each city in order
+     * @return the number of cities streamed
+     */
+    @Override
+    public int streamAllCitiesInCountryByPopulation(String country, Consumer<? super City> sink) {
+        return streamCities(citiesByCountry.top(countries.names.matchIgnoreCase(country), Integer.MAX_VALUE), sink);
+    }
+
+    /**
+     * Streams all cities in a district, largest population first.
+     *
+     * @param district the district name
+     * @param sink     receives each city in order
+     * @return the number of cities streamed
+     */
+    @Override
+    public int streamAllCitiesInDistrictByPopulation(String district, Consumer<? super City> sink) {
+        return streamCities(citiesByDistrict.top(cities.districts.matchIgnoreCase(district), Integer.MAX_VALUE), sink);
+    }
+
+    /**
+     * Returns the N most populated cities in the world.
+     *
+     * @param n the number of cities
+     * @return at most {@code n} cities
+     */
+    public List<City> getTopNPopulatedCitiesInWorld(int n) {
+        return toCities(first(citiesByPopulation, n));
+    }
+
+    /**
+     * Returns the N most populated cities in a continent.
+     *
+     * @param continent the continent name
+     * @param n         the number of cities
+     * @return at most {@code n} cities
+     */
+    public List<City> getTopNPopulatedCitiesInContinent(String continent, int n) {
+        return toCities(citiesByContinent.top(countries.continents.matchIgnoreCase(continent), n));
+    }
+
+    /**
+     * Returns the N most populated cities in a region.
+     *
+     * @param region the region name
+     * @param n      the number of cities
+     * @return at most {@code n} cities
+     */
+    public List<City> getTopNPopulatedCitiesInRegion(String region, int n) {
+        return toCities(citiesByRegion.top(countries.regions.matchIgnoreCase(region), n));
+    }
+
+    /**
+     * Returns the N most populated cities in a country.
+     *
+     * @param country the country name
+     * @param n       the number of cities
+     * @return at most {@code n} cities
+     */
+    public List<City> getTopNPopulatedCitiesInCountry(String country, int n) {
+        return toCities(citiesByCountry.top(countries.names.matchIgnoreCase(country), n));
+    }
+
+    /**
+     * Returns the N most populated cities in a district.
+     *
+     * @param district the district name
+     * @param n        the number of cities
+     * @return at most {@code n} cities
+     */
+    public List<City> getTopNPopulatedCitiesInDistrict(String district, int n) {
+        return toCities(citiesByDistrict.top(cities.districts.matchIgnoreCase(district), n));
+    }
+
+    /**
+     * Returns the N most populated cities of every continent that has cities.
+     *
+     * @param n the number of cities per continent
+     * @return the cities of each continent, in continent order
+     */
+    public Map<String, List<City>> getTopNPopulatedCitiesPerContinent(int n) {
+        Map<String, List<City>> groups = new LinkedHashMap<>();
+        for (PopulationCube.Node continent : populationCube.continents()) {
+            putIfPresent(groups, continent.name, getTopNPopulatedCitiesInContinent(continent.name, n));
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the N most populated cities of every region that has cities.
+     *
+     * @param n the number of cities per region
+     * @return the cities of each region, in region name order
+     */
+    public Map<String, List<City>> getTopNPopulatedCitiesPerRegion(int n) {
+        Map<String, List<City>> groups = new LinkedHashMap<>();
+        for (PopulationCube.Node region : populationCube.regions()) {
+            putIfPresent(groups, region.name, getTopNPopulatedCitiesInRegion(region.name, n));
+        }
+        return groups;
+    }
+
+    // ----------------------------------------------------------- capital cities
+
+    /**
+     * Returns all capital cities, largest population first.
+     *
+     * @return every capital city
+     */
+    public List<CapitalCity> getAllCapitalCities() {
+        return toCapitals(first(capitalsByPopulation, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns all capital cities in a continent, largest population first.
+     *
+     * @param continent the continent name
+     * @return the capital cities in the continent
+     */
+    public List<CapitalCity> getAllCapitalCitiesInContinent(String continent) {
+        return toCapitals(capitalsByContinent.top(countries.continents.matchIgnoreCase(continent), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns all capital cities in a region, largest population first.
+     *
+     * @param region the region name
+     * @return the capital cities in the region
+     */
+    public List<CapitalCity> getAllCapitalCitiesInRegion(String region) {
+        return toCapitals(capitalsByRegion.top(countries.regions.matchIgnoreCase(region), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns the N most populated capital cities in the world.
+     *
+     * @param n the number of capital cities
+     * @return at most {@code n} capital cities
+     */
+    public List<CapitalCity> getTopNPopulatedCapitalCities(int n) {
+        return toCapitals(first(capitalsByPopulation, n));
+    }
+
+    /**
+     * Returns the N most populated capital cities in a continent.
+     *
+     * @param continent the continent name
+     * @param n         the number of capital cities
+     * @return at most {@code n} capital cities
+     */
+    public List<CapitalCity> getTopNPopulatedCapitalCitiesByContinent(String continent, int n) {
+        return toCapitals(capitalsByContinent.top(countries.continents.matchIgnoreCase(continent), n));
+    }
+
+    /**
+     * Returns the N most populated capital cities in a region.
+     *
+     * @param region the region name
+     * @param n      the number of capital cities
+     * @return at most {@code n} capital cities
+     */
+    public List<CapitalCity> getTopNPopulatedCapitalCitiesByRegion(String region, int n) {
+        return toCapitals(capitalsByRegion.top(countries.regions.matchIgnoreCase(region), n));
+    }
+
+    // --------------------------------------------------------------- population
+
+    /**
+     * Returns the total, city and non-city population of each continent, in
+     * continent order.
+     *
+     * @return one entry per continent
+     */
+    public List<Population> getEachContinentPopulationWithUrbanAndNonUrban() {
+        return populations(populationCube.continents());
+    }
+
+    /**
+     * Returns the total, city and non-city population of each region, ordered by region.
+     *
+     * @return one entry per region
+     */
+    public List<Population> getEachRegionPopulationWithUrbanAndNonUrban() {
+        return populations(populationCube.regions());
+    }
+
+    /**
+     * Returns the total, city and non-city population of each country, ordered by name.
+     *
+     * @return one entry per country
+     */
+    public List<Population> getEachCountryPopulationWithUrbanAndNonUrban() {
+        return populations(populationCube.countries());
+    }
+
+    /**
+     * Returns the population of the world.
+     *
+     * @return a single entry named "World"
+     */
+    public List<Population> getWorldPopulation() {
+        return total("World", populationCube.world().total);
+    }
+
+    /**
+     * Returns the population of a continent.
+     *
+     * @param continentName the continent name
+     * @return a single entry for the continent
+     */
+    public List<Population> getContinentPopulation(String continentName) {
+        return total(continentName, populationCube.continent(continentName));
+    }
+
+    /**
+     * Returns the population of a region.
+     *
+     * @param regionName the region name
+     * @return a single entry for the region
+     */
+    public List<Population> getRegionPopulation(String regionName) {
+        return total(regionName, populationCube.region(regionName));
+    }
+
+    /**
+     * Returns the population of every country with the given name.
+     *
+     * @param countryName the country name
+     * @return one entry per matching country, usually one
+     */
+    public List<Population> getCountryPopulation(String countryName) {
+        return totals(countryName, populationCube.country(countryName));
+    }
+
+    /**
+     * Returns the population of a district.
+     *
+     * @param districtName the district name
+     * @return a single entry for the district
+     */
+    public List<Population> getDistrictPopulation(String districtName) {
+        return total(districtName, populationCube.district(districtName));
+    }
+
+    /**
+     * Returns the population of every city with the given name.
+     *
+     * @param cityName the city name
+     * @return one entry per matching city
+     */
+    public List<Population> getCityPopulation(String cityName) {
+        return totals(cityName, populationCube.city(cityName));
+    }
+
+    // ---------------------------------------------------------------- languages
+
+    /**
+     * Returns the number of speakers and share of the world population for the
+     * given languages, most spoken first.
+     *
+     * @param names        the language names, compared ignoring case
+     * @param officialOnly whether to count only the countries where a language is official
+     * @return one entry per language with speakers in the data
+     */
+    public List<Language> getLanguageReport(List<String> names, boolean officialOnly) {
+        Map<String, List<Language>> world = languageGroups(names, officialOnly, null,
+                List.of(populationCube.world()));
+        return world.isEmpty() ? new ArrayList<>() : world.get(populationCube.world().name);
+    }
+
+    /**
+     * Returns the speakers of the given languages in every continent, with their
+     * share of the continent's population.
+     *
+     * @param names        the language names, compared ignoring case
+     * @param officialOnly whether to count only the countries where a language is official
+     * @return the languages of each continent, in ENUM order, most spoken first
+     */
+    public Map<String, List<Language>> getLanguageReportPerContinent(List<String> names, boolean officialOnly) {
+        return languageGroups(names, officialOnly, countryContinent, populationCube.continents());
+    }
+
+    /**
+     * Returns the speakers of the given languages in every region, with their
+     * share of the region's population.
+     *
+     * @param names        the language names, compared ignoring case
+     * @param officialOnly whether to count only the countries where a language is official
+     * @return the languages of each region, in region name order, most spoken first
+     */
+    public Map<String, List<Language>> getLanguageReportPerRegion(List<String> names, boolean officialOnly) {
+        return languageGroups(names, officialOnly, countryRegion, populationCube.regions());
+    }
+
+    /**
+     * Sums the speakers of each requested language by group from the language
+     * matrix. Groups without any speakers are left out.
+     */
+    private Map<String, List<Language>> languageGroups(List<String> names, boolean officialOnly, int[] groupOf,
+                                                       List<PopulationCube.Node> groups) {
+        // Resolve the names once; names of the same language are counted once
+        List<Integer> wanted = new ArrayList<>();
+        for (String name : names) {
+            int language = languageMatrix.language(name);
+            if (language >= 0 && !wanted.contains(language)) {
+                wanted.add(language);
+            }
+        }
+
+        int groupCount = groups.size();
+        long[][] speakers = new long[wanted.size()][groupCount];
+        boolean[][] counted = new boolean[wanted.size()][groupCount];
+        for (int i = 0; i < wanted.size(); i++) {
+            languageMatrix.addSpeakers(wanted.get(i), officialOnly, groupOf, speakers[i], counted[i]);
+        }
+
+        Map<String, List<Language>> result = new LinkedHashMap<>();
+        for (int g = 0; g < groupCount; g++) {
+            List<Integer> present = new ArrayList<>();
+            for (int i = 0; i < wanted.size(); i++) {
+                if (counted[i][g]) {
+                    present.add(i);
+                }
+            }
+            int group = g;
+            present.sort((a, b) -> speakers[a][group] != speakers[b][group]
+                    ? Long.compare(speakers[b][group], speakers[a][group])
+                    : languageMatrix.name(wanted.get(a)).compareToIgnoreCase(languageMatrix.name(wanted.get(b))));
+
+            long total = groups.get(g).total;
+            List<Language> rows = new ArrayList<>(present.size());
+            for (int i : present) {
+                Language language = new Language();
+                language.setLanguage(languageMatrix.name(wanted.get(i)));
+                language.setSpeakers(speakers[i][g] / 1000);
+                language.setWorldPercentage(total == 0 ? 0 : speakers[i][g] / 1000.0 / total * 100);
+                rows.add(language);
+            }
+            putIfPresent(result, groups.get(g).name, rows);
+        }
+        return result;
+    }
+
+    // ------------------------------------------------------------------ helpers
+
+    /**
+     * Maps every country row to the index of its continent or region node, whose
+     * names were merged ignoring case and trailing spaces.
+     */
+    private static int[] groupRows(List<PopulationCube.Node> nodes, StringDictionary dict, int[] ids, int size) {
+        Map<String, Integer> index = new HashMap<>(nodes.size() * 2);
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i).name != null) {
+                index.put(Collation.key(nodes.get(i).name), i);
+            }
+        }
+        int[] idToNode = new int[dict.size()];
+        for (int id = 0; id < idToNode.length; id++) {
+            idToNode[id] = index.getOrDefault(Collation.key(dict.get(id)), -1);
+        }
+        int[] rows = new int[size];
+        for (int row = 0; row < size; row++) {
+            rows[row] = ids[row] < 0 ? -1 : idToNode[ids[row]];
+        }
+        return rows;
+    }
+
+    /** Adds a group's rows unless it has none, as a grouped SQL query leaves it out. */
+    private static <T> void putIfPresent(Map<String, List<T>> groups, String name, List<T> rows) {
+        if (!rows.isEmpty()) {
+            groups.put(name, rows);
+        }
+    }
+
+    /** The first {@code n} rows of a population-sorted list. */
+    private static int[] first(int[] sorted, int n) {
+        return n >= sorted.length ? sorted : Arrays.copyOf(sorted, Math.max(n, 0));
+    }
+
+    private List<Country> toCountries(int[] rows) {
+        List<Country> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(toCountry(row));
+        }
+        return result;
+    }
+
+    private List<City> toCities(int[] rows) {
+        List<City> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(toCity(row));
+        }
+        return result;
+    }
+
+    private int streamCities(int[] rows, Consumer<? super City> sink) {
+        for (int row : rows) {
+            sink.accept(toCity(row));
+        }
+        return rows.length;
+    }
+
+    private List<CapitalCity> toCapitals(int[] rows) {
+        List<CapitalCity> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(toCapitalCity(row));
+        }
+        return result;
+    }
+
+    /** Builds population rows with the city/non-city split for the given cube nodes. */
+    private static List<Population> populations(List<PopulationCube.Node> nodes) {
+        List<Population> populations = new ArrayList<>(nodes.size());
+        for (PopulationCube.Node node : nodes) {
+            populations.add(population(node.name, node.total, node.city));
+        }
+        return populations;
+    }
+
+    /** Builds a population row with the city/non-city split and percentages. */
+    static Population population(String name, long total, long city) {
+        Population population = new Population();
+        population.setName(name);
+        population.setTotalPopulation(total);
+        population.setCityPopulation(city);
+        population.setNonCityPopulation(total - city);
+        population.setCityPercentage();
+        population.setNonCityPercentage();
+        return population;
+    }
+
+    /** Builds a single total-population row. */
+    static List<Population> total(String name, long total) {
+        Population population = new Population();
+        population.setName(name);
+        population.setTotalPopulation(total);
+        List<Population> populations = new ArrayList<>(1);
+        populations.add(population);
+        return populations;
+    }
+
+    /** Builds one total-population row per value, all with the same name. */
+    static List<Population> totals(String name, long[] totals) {
+        List<Population> populations = new ArrayList<>(totals.length);
+        for (long total : totals) {
+            populations.addAll(total(name, total));
+        }
+        return populations;
+    }
+
+    String countryName(int row) {
+        return countries.names.get(countries.name[row]);
+    }
+
+    City toCity(int row) {
+        City city = new City();
+        city.setName(cities.names.get(cities.name[row]));
+        city.setCountry(countryName(cityCountry[row]));
+        city.setDistrict(cities.districts.get(cities.district[row]));
+        city.setPopulation(cities.population[row]);
+        return city;
+    }
+
+    Country toCountry(int row) {
+        Country country = new Country();
+        country.setCode(countries.code[row]);
+        country.setName(countryName(row));
+        country.setContinent(countries.continents.get(countries.continent[row]));
+        country.setRegion(countries.regions.get(countries.region[row]));
+        country.setPopulation(countries.population[row]);
+        int capital = countryCapital[row];
+        country.setCapital(capital < 0 ? null : cities.names.get(cities.name[capital]));
+        return country;
+    }
+
+    CapitalCity toCapitalCity(int countryRow) {
+        int row = countryCapital[countryRow];
+        CapitalCity capitalCity = new CapitalCity();
+        capitalCity.setName(cities.names.get(cities.name[row]));
+        capitalCity.setCountry(countryName(countryRow));
+        capitalCity.setPopulation(cities.population[row]);
+        return capitalCity;
+    }
+
+    /**
+     * Sorts the first {@code count} rows by descending population, breaking ties by
+     * row order. Each row is packed with its inverted key into one {@code long} so
+     * the sort runs on primitives.
+     */
+    static int[] sortByPopulation(int[] rows, int count, int[] population) {
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            packed[i] = ((long) ~population[row] << 32) | (row & 0xffffffffL);
+        }
+        Arrays.sort(packed);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (int) packed[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * Maps city IDs to rows, using a dense array when IDs are compact (as
+     * auto-increment IDs are) and a hash map otherwise.
+     */
+    private static final class CityIdIndex {
+        private int[] dense;
+        private Map<Integer, Integer> sparse;
+
+        private CityIdIndex(CityTable cities) {
+            int maxId = 0;
+            for (int row = 0; row < cities.size; row++) {
+                maxId = Math.max(maxId, cities.id[row]);
+            }
+            if (maxId <= cities.size * 4L + 1024) {
+                dense = new int[maxId + 1];
+                Arrays.fill(dense, -1);
+                for (int row = 0; row < cities.size; row++) {
+                    if (cities.id[row] >= 0) {
+                        dense[cities.id[row]] = row;
+                    }
+                }
+            } else {
+                sparse = new HashMap<>(cities.size * 2);
+                for (int row = 0; row < cities.size; row++) {
+                    sparse.put(cities.id[row], row);
+                }
+            }
+        }
+
+        private int rowOf(int id) {
+            if (dense != null) {
+                return id >= 0 && id < dense.length ? dense[id] : -1;
+            }
+            Integer row = sparse.get(id);
+            return row == null ? -1 : row;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+-- Indexes for the filters and orderings used by the report queries.
+-- Each filter column is followed by Population, so a filtered report reads its
+-- rows already sorted by the index instead of sorting them afterwards.
+
+-- CountryDAO and PopulationDAO: countries in a continent or region, largest first
+CREATE INDEX idx_country_continent_population ON country (Continent, Population);
+CREATE INDEX idx_country_region_population ON country (Region, Population);
+
+-- CountryDAO: top N countries in the world
+CREATE INDEX idx_country_population ON country (Population);
+
+-- CityDAO and PopulationDAO: lookups by country name
+CREATE INDEX idx_country_name ON country (Name);
+
+-- CityDAO: every city or the top N in the world, covering the columns the reports print
+CREATE INDEX idx_city_population ON city (Population, CountryCode, Name, District);
+
+-- CityDAO and PopulationDAO: cities in a district, largest first
+CREATE INDEX idx_city_district_population ON city (District, Population);
+
+-- CityDAO: cities of a country, largest first
+CREATE INDEX idx_city_country_population ON city (CountryCode, Population);
+
+-- PopulationDAO: lookups by city name
+CREATE INDEX idx_city_name ON city (Name);
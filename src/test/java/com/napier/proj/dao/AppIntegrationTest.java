@@ -2,17 +2,21 @@ package com.napier.proj.dao;
 
 import com.napier.proj.App;
 import com.napier.proj.config.DatabaseConfig;
+import com.napier.proj.config.SchemaMigrator;
 import com.napier.proj.model.CapitalCity;
 import com.napier.proj.model.City;
 import com.napier.proj.model.Country;
 import com.napier.proj.model.Language;
 import com.napier.proj.model.Population;
+import com.napier.proj.snapshot.WorldSnapshot;
 import org.junit.jupiter.api.*;
 import org.mockito.Mockito;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -1492,4 +1496,52 @@ class AppIntegrationTest {
         assertTrue(cities.isEmpty()); // It should be empty due to the exception
     }
 
-    }
\ No newline at end of file
+    /**
+     * Applies the schema migrations and checks with EXPLAIN that no filtered report
+     * query scans a whole table or sorts rows its index could deliver in order.
+     *
+     * @throws Exception if the migrations cannot be applied
+     */
+    @Test
+    void reportQueriesUseTheirIndexes() throws Exception {
+        SchemaMigrator migrator = new SchemaMigrator(conn);
+        migrator.migrate();
+        assertTrue(migrator.currentVersion() >= 1);
+        assertEquals(0, migrator.migrate()); // applying again does nothing
+
+        assertEquals(List.of(), new IndexAdvisor(conn).check());
+    }
+
+    /**
+     * Checks that the one-query top N per continent and per region reports return the
+     * same groups, in the same order, as one top N query per scope, and that they
+     * agree with the in-memory snapshot.
+     *
+     * @throws SQLException if the snapshot cannot be loaded
+     */
+    @Test
+    void topNPerGroupMatchesPerScopeQueries() throws SQLException {
+        Map<String, List<City>> cities = cityDAO.getTopNPopulatedCitiesPerContinent(3);
+        assertEquals(List.of("Asia", "Europe", "North America", "Africa", "Oceania", "South America"),
+                new ArrayList<>(cities.keySet()));
+        for (Map.Entry<String, List<City>> group : cities.entrySet()) {
+            List<City> single = cityDAO.getTopNPopulatedCitiesInContinent(group.getKey(), 3);
+            assertEquals(single.size(), group.getValue().size());
+            for (int i = 0; i < single.size(); i++) {
+                assertEquals(single.get(i).getPopulation(), group.getValue().get(i).getPopulation());
+            }
+        }
+
+        Map<String, List<Country>> countries = countryDAO.getTopNPopulatedCountriesPerRegion(2);
+        assertEquals(25, countries.size());
+        assertEquals("Caribbean", new ArrayList<>(countries.keySet()).get(4));
+        assertEquals(countryDAO.getTopNPopulatedCountriesInRegion("Caribbean", 2).get(0).getCode(),
+                countries.get("Caribbean").get(0).getCode());
+
+        WorldSnapshot snapshot = WorldSnapshot.load(conn);
+        assertEquals(new ArrayList<>(countries.keySet()),
+                new ArrayList<>(snapshot.getTopNPopulatedCountriesPerRegion(2).keySet()));
+        assertEquals(new ArrayList<>(cities.keySet()),
+                new ArrayList<>(snapshot.getTopNPopulatedCitiesPerContinent(3).keySet()));
+    }
+}
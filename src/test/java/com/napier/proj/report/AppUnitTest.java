@@ -2,6 +2,7 @@ package com.napier.proj.report;
 
 import com.napier.proj.App;
 import com.napier.proj.dao.*;
+import com.napier.proj.dataset.WorldGenerator;
 import com.napier.proj.model.CapitalCity;
 import com.napier.proj.model.City;
 import com.napier.proj.model.Country;
@@ -13,9 +14,53 @@ import com.napier.proj.model.Population;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
+import com.napier.proj.config.Backoff;
+import com.napier.proj.config.ConnectionPool;
+import com.napier.proj.config.DatabaseConfig;
+import com.napier.proj.config.SchemaMigrator;
+import com.napier.proj.export.ColumnarReader;
+import com.napier.proj.export.ColumnarWriter;
+import com.napier.proj.export.RecordType;
+import com.napier.proj.server.ReportServer;
+import com.napier.proj.snapshot.CityTable;
+import com.napier.proj.snapshot.CountryTable;
+import com.napier.proj.snapshot.LanguageTable;
+import com.napier.proj.snapshot.SnapshotRefresher;
+import com.napier.proj.snapshot.WorldSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,7 +83,7 @@ public class AppUnitTest {
     // Report generator that uses CountryDAO
     static CountryReport countryReport;
     // DAO for accessing city data (mocked in tests)
-    public static CityDAO cityDAO;
+    public static CityQueries cityDAO;
     // Report generator for city information
     static CityReport cityReport;
     // DAO for accessing capital cities
@@ -64,8 +109,10 @@ public class AppUnitTest {
         // This ensures the report uses fake data during tests.
         countryReport = new CountryReport(countryDAO);
 
-        // Mock the CityDAO so city-related methods return test data only.
-        cityDAO = Mockito.mock(CityDAO.class);
+        // Mock the city queries so city-related methods return test data only.
+        // Real default methods are kept, so the streaming "all cities" queries
+        // replay whatever the stubbed list queries return.
+        cityDAO = Mockito.mock(CityQueries.class, Mockito.CALLS_REAL_METHODS);
         // Create the CityReport using the mocked CityDAO.
         cityReport = new CityReport(cityDAO);
 
@@ -1297,5 +1344,1231 @@ public class AppUnitTest {
         assertDoesNotThrow(() -> languageReport.printMajorLanguageReport());
     }
 
+    /**
+     * This test verifies that the connection pool reuses returned connections,
+     * never opens more than its maximum size, and times out when every connection
+     * is leased. Physical connections are Mockito mocks so no database is needed.
+     */
+    @Test
+    void connectionPoolLeaseAndReturn() throws Exception {
+        Connection physical = Mockito.mock(Connection.class);
+        Mockito.when(physical.isValid(Mockito.anyInt())).thenReturn(true);
+        Mockito.when(physical.getAutoCommit()).thenReturn(true);
+
+        try (ConnectionPool pool = new ConnectionPool(() -> physical, 1, 50, 60000, 60000)) {
+            // CASE 1 — First borrow opens a new connection
+            Connection first = pool.borrow();
+            assertEquals(1, pool.getMissCount());
+            assertEquals(1, pool.getActiveConnections());
+
+            // CASE 2 — Pool is exhausted, the next borrow times out
+            assertThrows(SQLException.class, pool::borrow);
+            assertEquals(1, pool.getTimeoutCount());
+
+            // CASE 3 — Returning the lease makes the connection reusable
+            first.close();
+            assertTrue(first.isClosed());
+            assertThrows(SQLException.class, first::createStatement);
+            Mockito.verify(physical, Mockito.never()).close();
+
+            Connection second = pool.borrow();
+            assertEquals(1, pool.getHitCount());
+            assertEquals(1, pool.getTotalConnections());
+            second.close();
+            assertEquals(1, pool.getIdleConnections());
+        }
+
+        // CASE 4 — Closing the pool closes the physical connection
+        Mockito.verify(physical).close();
+    }
+
+    /**
+     * This test verifies that the in-memory snapshot answers report queries the same
+     * way the SQL versions do: joins through the country code, descending population
+     * order, case-insensitive filters and exact language speaker sums.
+     */
+    @Test
+    void worldSnapshotQueries() {
+        CountryTable countries = new CountryTable();
+        countries.add("JPN", "Japan", "Asia", "Eastern Asia", 1000, 1);
+        countries.add("FRA", "France", "Europe", "Western Europe", 500, 3);
+
+        CityTable cities = new CityTable();
+        cities.add(1, "Tokyo", "JPN", "Tokyo-to", 300);
+        cities.add(2, "Osaka", "JPN", "Osaka", 200);
+        cities.add(3, "Paris", "FRA", "Ile-de-France", 100);
+        cities.add(4, "Nowhere", "XXX", "Unknown", 999); // no matching country, dropped by the join
+
+        LanguageTable languages = new LanguageTable();
+        languages.add("JPN", "Japanese", true, 991);
+        languages.add("JPN", "English", false, 100);
+        languages.add("FRA", "English", false, 200);
+
+        WorldSnapshot snapshot = new WorldSnapshot(countries, cities, languages);
+
+        // Cities are joined to their country and ordered by population
+        List<City> top = snapshot.getTopNPopulatedCitiesInWorld(2);
+        assertEquals(2, top.size());
+        assertEquals("Tokyo", top.get(0).getName());
+        assertEquals("Japan", top.get(0).getCountry());
+        assertEquals("Osaka", top.get(1).getName());
+
+        // Filters ignore case like the MySQL collation
+        List<City> europe = snapshot.getAllCitiesInContinentByPopulation("europe");
+        assertEquals(1, europe.size());
+        assertEquals("Paris", europe.get(0).getName());
+
+        // Countries carry their capital city name
+        List<Country> countryList = snapshot.getAllCountriesByPopulation();
+        assertEquals("Japan", countryList.get(0).getName());
+        assertEquals("Tokyo", countryList.get(0).getCapital());
+        assertEquals("Paris", snapshot.getTopNPopulatedCapitalCitiesByContinent("Europe", 5).get(0).getName());
+
+        // Continent rows follow the ENUM order with city and non-city splits
+        List<Population> continents = snapshot.getEachContinentPopulationWithUrbanAndNonUrban();
+        assertEquals("Asia", continents.get(0).getName());
+        assertEquals(500, continents.get(0).getCityPopulation());
+        assertEquals(500, continents.get(0).getNonCityPopulation());
+        assertEquals(1500, snapshot.getWorldPopulation().get(0).getTotalPopulation());
+        assertEquals(200, snapshot.getDistrictPopulation("Osaka").get(0).getTotalPopulation());
+
+        // Only major languages are reported: 1000 * 10% + 500 * 20% English speakers
+        List<Language> major = snapshot.getMajorLanguageReport();
+        assertEquals(1, major.size());
+        assertEquals(200, major.get(0).getSpeakers());
+        assertEquals(200.0 / 1500 * 100, major.get(0).getWorldPercentage(), 1e-9);
+    }
+
+    /**
+     * This test verifies that the cached backend answers a repeated query from the
+     * shared cache, while empty results (which may hide a failed query), streamed rows
+     * and results that straddle an invalidation are not cached.
+     */
+    @Test
+    void cachingQueriesMemoizeResults() {
+        City c1 = new City();
+        c1.setName("Tokyo");
+        ArrayList<City> mockCities = new ArrayList<>();
+        mockCities.add(c1);
+        Mockito.when(cityDAO.getTopNPopulatedCitiesInContinent("Asia", 10)).thenReturn(mockCities);
+        Mockito.when(cityDAO.getTopNPopulatedCitiesInContinent("Atlantis", 10)).thenReturn(new ArrayList<>());
+
+        ResultCache cache = new ResultCache();
+        CityQueries cached = CachingQueries.wrap(CityQueries.class, cityDAO, cache);
+
+        // CASE 1 — Same method and arguments hit the DAO once
+        assertEquals(1, cached.getTopNPopulatedCitiesInContinent("Asia", 10).size());
+        assertEquals(1, cached.getTopNPopulatedCitiesInContinent("Asia", 10).size());
+        Mockito.verify(cityDAO, Mockito.times(1)).getTopNPopulatedCitiesInContinent("Asia", 10);
+
+        // CASE 2 — Empty results go to the DAO every time
+        cached.getTopNPopulatedCitiesInContinent("Atlantis", 10);
+        cached.getTopNPopulatedCitiesInContinent("Atlantis", 10);
+        Mockito.verify(cityDAO, Mockito.times(2)).getTopNPopulatedCitiesInContinent("Atlantis", 10);
+
+        // CASE 3 — Streaming queries bypass the cache and reach the DAO every time
+        Mockito.doReturn(1).when(cityDAO).streamAllCitiesInWorldByPopulation(Mockito.any());
+        assertEquals(1, cached.streamAllCitiesInWorldByPopulation(city -> { }));
+        assertEquals(1, cached.streamAllCitiesInWorldByPopulation(city -> { }));
+        Mockito.verify(cityDAO, Mockito.times(2)).streamAllCitiesInWorldByPopulation(Mockito.any());
+
+        // CASE 4 — A result read before the cache was invalidated is not stored
+        Mockito.doAnswer(inv -> {
+            cache.invalidateAll();
+            return mockCities;
+        }).when(cityDAO).getTopNPopulatedCitiesInRegion("Eastern Asia", 10);
+        assertEquals(1, cached.getTopNPopulatedCitiesInRegion("Eastern Asia", 10).size());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * This test verifies that the "all cities" report prints rows handed to it by the
+     * streaming query, and still reports missing data when nothing is streamed.
+     */
+    @Test
+    void printAllCitiesStreamsRows() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        CityQueries streaming = Mockito.mock(CityQueries.class);
+        CityReport report = new CityReport(streaming, new PrintStream(buffer, true));
+
+        City c1 = new City();
+        c1.setName("Tokyo");
+        c1.setCountry("Japan");
+        c1.setDistrict("Tokyo-to");
+        c1.setPopulation(7980230);
+        Mockito.when(streaming.streamAllCitiesInCountryByPopulation(Mockito.eq("Japan"), Mockito.any()))
+                .thenAnswer(inv -> {
+                    Consumer<City> sink = inv.getArgument(1);
+                    sink.accept(c1);
+                    return 1;
+                });
+
+        // CASE 1 — Streamed rows are printed without the list query being used
+        report.printAllCitiesInCountryByPopulation("Japan");
+        assertTrue(buffer.toString().contains("Tokyo"));
+        assertFalse(buffer.toString().contains("No data available."));
+        Mockito.verify(streaming, Mockito.never()).getAllCitiesInCountryByPopulation(Mockito.any());
+
+        // CASE 2 — Nothing streamed
+        buffer.reset();
+        report.printAllCitiesInCountryByPopulation("Atlantis");
+        assertTrue(buffer.toString().contains("No data available."));
+
+        // CASE 3 — The snapshot streams the same rows as its list query
+        CountryTable countries = new CountryTable();
+        countries.add("JPN", "Japan", "Asia", "Eastern Asia", 1000, 1);
+        CityTable cities = new CityTable();
+        cities.add(1, "Tokyo", "JPN", "Tokyo-to", 300);
+        cities.add(2, "Osaka", "JPN", "Osaka", 200);
+        WorldSnapshot snapshot = new WorldSnapshot(countries, cities, new LanguageTable());
+        List<City> streamed = new ArrayList<>();
+        assertEquals(2, snapshot.streamAllCitiesInContinentByPopulation("Asia", streamed::add));
+        assertEquals("Osaka", streamed.get(1).getName());
+    }
+
+    /**
+     * This test verifies that the query executor resolves each mapper column label
+     * once per result set and then reads every row by index.
+     */
+    @Test
+    void queryExecutorMapsRowsByIndex() throws SQLException {
+        Connection con = Mockito.mock(Connection.class);
+        PreparedStatement pstmt = Mockito.mock(PreparedStatement.class);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(con.prepareStatement(Mockito.anyString())).thenReturn(pstmt);
+        Mockito.when(pstmt.executeQuery()).thenReturn(rs);
+        Mockito.when(rs.next()).thenReturn(true, true, false);
+        Mockito.when(rs.findColumn("CapitalCity")).thenReturn(1);
+        Mockito.when(rs.findColumn("Country")).thenReturn(2);
+        Mockito.when(rs.findColumn("Population")).thenReturn(3);
+        Mockito.when(rs.getString(1)).thenReturn("Tokyo", "Paris");
+        Mockito.when(rs.getString(2)).thenReturn("Japan", "France");
+        Mockito.when(rs.getLong(3)).thenReturn(7980230L, 2125246L);
+
+        List<CapitalCity> rows = new QueryExecutor(con).query("SELECT ...", RowMappers.CAPITAL_CITY, "Asia", 5);
+
+        // CASE 1 — Rows are mapped in order
+        assertEquals(2, rows.size());
+        assertEquals("Paris", rows.get(1).getName());
+        assertEquals(2125246L, rows.get(1).getPopulation());
+
+        // CASE 2 — Parameters are bound by type and labels are looked up once
+        Mockito.verify(pstmt).setString(1, "Asia");
+        Mockito.verify(pstmt).setInt(2, 5);
+        Mockito.verify(rs, Mockito.times(1)).findColumn("CapitalCity");
+        Mockito.verify(rs, Mockito.never()).getString("CapitalCity");
+    }
+
+    /**
+     * This test verifies that a pooled connection reuses prepared statements by SQL
+     * across leases with their settings reset, hands out a separate statement while
+     * the cached one is in use, and evicts the least recently used statement when the
+     * cache is full.
+     */
+    @Test
+    void statementCacheReusesPreparedStatements() throws SQLException {
+        Connection physical = Mockito.mock(Connection.class);
+        Mockito.when(physical.isValid(Mockito.anyInt())).thenReturn(true);
+        Mockito.when(physical.getAutoCommit()).thenReturn(true);
+        List<PreparedStatement> prepared = new ArrayList<>();
+        Mockito.when(physical.prepareStatement(Mockito.anyString())).thenAnswer(inv -> {
+            PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+            prepared.add(statement);
+            return statement;
+        });
+
+        try (ConnectionPool pool = new ConnectionPool(() -> physical, 1, 100, 60000, 60000, 1)) {
+            // CASE 1 — The same SQL on a later lease reuses the server statement
+            try (Connection con = pool.borrow(); PreparedStatement ps = con.prepareStatement("SELECT 1")) {
+                ps.setInt(1, 5);
+                ps.setMaxRows(10);
+                ps.setQueryTimeout(5);
+                assertSame(con, ps.getConnection());
+            }
+            try (Connection con = pool.borrow(); PreparedStatement ps = con.prepareStatement("SELECT 1")) {
+                assertFalse(ps.isClosed());
+            }
+            Mockito.verify(physical, Mockito.times(1)).prepareStatement("SELECT 1");
+            assertEquals(1, pool.getStatementCacheHitCount());
+            assertEquals(1, pool.getStatementCacheMissCount());
+            // Settings the first caller changed were reset once, before the second lease
+            Mockito.verify(prepared.get(0), Mockito.times(1)).setMaxRows(0);
+            Mockito.verify(prepared.get(0), Mockito.times(1)).setQueryTimeout(0);
+
+            // CASE 2 — A statement still in use is not shared
+            try (Connection con = pool.borrow();
+                 PreparedStatement outer = con.prepareStatement("SELECT 1");
+                 PreparedStatement inner = con.prepareStatement("SELECT 1")) {
+                assertNotSame(outer, inner);
+            }
+            Mockito.verify(physical, Mockito.times(2)).prepareStatement("SELECT 1");
+
+            // CASE 3 — A full cache evicts the least recently used statement
+            try (Connection con = pool.borrow(); PreparedStatement ps = con.prepareStatement("SELECT 2")) {
+                assertThrows(SQLException.class, () -> {
+                    ps.close();
+                    ps.executeQuery();
+                });
+            }
+            assertEquals(1, pool.getStatementCacheEvictionCount());
+            assertTrue(pool.getSummary().contains("stmtHitRate="));
+        }
+    }
+
+    /**
+     * This test verifies that scoped top-N queries on the snapshot read the
+     * per-scope population indexes, including when one scope name is stored with
+     * different capitalisation and its groups have to be merged.
+     */
+    @Test
+    void worldSnapshotTopNIndexes() {
+        CountryTable countries = new CountryTable();
+        countries.add("FRA", "France", "Europe", "Western Europe", 500, 1);
+        countries.add("DEU", "Germany", "Europe", "western europe", 800, 3);
+        countries.add("JPN", "Japan", "Asia", "Eastern Asia", 1000, 5);
+
+        CityTable cities = new CityTable();
+        cities.add(1, "Paris", "FRA", "Ile-de-France", 200);
+        cities.add(2, "Lyon", "FRA", "Rhone-Alpes", 50);
+        cities.add(3, "Berlin", "DEU", "Berliini", 300);
+        cities.add(4, "Hamburg", "DEU", "Hamburg", 50);
+        cities.add(5, "Tokyo", "JPN", "Tokyo-to", 700);
+
+        WorldSnapshot snapshot = new WorldSnapshot(countries, cities, new LanguageTable());
+
+        // CASE 1 — Both capitalisations of the region are merged in population order
+        List<City> western = snapshot.getTopNPopulatedCitiesInRegion("Western Europe", 3);
+        assertEquals(3, western.size());
+        assertEquals("Berlin", western.get(0).getName());
+        assertEquals("Paris", western.get(1).getName());
+        assertEquals("Lyon", western.get(2).getName()); // ties keep table order
+
+        // CASE 2 — A single scope is a prefix of its index
+        assertEquals("Paris", snapshot.getTopNPopulatedCitiesInCountry("france", 1).get(0).getName());
+        assertEquals(2, snapshot.getTopNPopulatedCountriesInContinent("Europe", 5).size());
+        assertEquals("Berlin", snapshot.getTopNPopulatedCapitalCitiesByRegion("WESTERN EUROPE", 1).get(0).getName());
+        assertEquals(2, snapshot.getTopNPopulatedCountriesInRegion("western europe  ", 5).size());
+
+        // CASE 3 — Unknown scopes and non-positive N return nothing
+        assertTrue(snapshot.getTopNPopulatedCitiesInDistrict("Atlantis", 3).isEmpty());
+        assertTrue(snapshot.getTopNPopulatedCitiesInContinent("Asia", 0).isEmpty());
+        assertEquals(5, snapshot.getTopNPopulatedCitiesInWorld(10).size());
+    }
 
-}
\ No newline at end of file
+    /**
+     * This test verifies that the population rollup answers every level from one
+     * build: case-insensitive lookups, rolled-up city and non-city splits, and
+     * entries for names that do not exist.
+     */
+    @Test
+    void worldSnapshotPopulationCube() {
+        CountryTable countries = new CountryTable();
+        countries.add("FRA", "France", "Europe", "Western Europe", 500, 1);
+        countries.add("DEU", "Germany", "Europe", "western europe", 800, 2);
+        countries.add("JPN", "Japan", "Asia", "Eastern Asia", 1000, 3);
+
+        CityTable cities = new CityTable();
+        cities.add(1, "Paris", "FRA", "Ile-de-France", 200);
+        cities.add(2, "Berlin", "DEU", "Berliini", 300);
+        cities.add(3, "Tokyo", "JPN", "Tokyo-to", 700);
+        cities.add(4, "Paris", "XXX", "Texas", 25); // country missing, still a city of its district
+
+        WorldSnapshot snapshot = new WorldSnapshot(countries, cities, new LanguageTable());
+
+        // CASE 1 — Levels roll up in one pass and keep the SQL ordering
+        List<Population> continents = snapshot.getEachContinentPopulationWithUrbanAndNonUrban();
+        assertEquals("Asia", continents.get(0).getName());
+        assertEquals(1300, continents.get(1).getTotalPopulation());
+        assertEquals(500, continents.get(1).getCityPopulation());
+        assertEquals(800, continents.get(1).getNonCityPopulation());
+
+        // CASE 2 — Region names that differ only in case are grouped like GROUP BY
+        List<Population> regions = snapshot.getEachRegionPopulationWithUrbanAndNonUrban();
+        assertEquals(2, regions.size());
+        assertEquals(1300, snapshot.getRegionPopulation("WESTERN EUROPE").get(0).getTotalPopulation());
+
+        // CASE 3 — Point lookups ignore case and report missing names as zero or nothing
+        assertEquals(2300, snapshot.getWorldPopulation().get(0).getTotalPopulation());
+        assertEquals(1000, snapshot.getCountryPopulation("japan").get(0).getTotalPopulation());
+        assertEquals(25, snapshot.getDistrictPopulation("texas").get(0).getTotalPopulation());
+        assertEquals(2, snapshot.getCityPopulation("Paris").size());
+        assertEquals(0, snapshot.getContinentPopulation("Atlantis").get(0).getTotalPopulation());
+        assertTrue(snapshot.getCountryPopulation(null).isEmpty());
+
+        // CASE 4 — Trailing spaces are ignored here too, as in the top-N lookups
+        assertEquals(snapshot.getContinentPopulation("Asia").get(0).getTotalPopulation(),
+                snapshot.getContinentPopulation("asia ").get(0).getTotalPopulation());
+        assertEquals(snapshot.getTopNPopulatedCitiesInContinent("Asia", 5).size(),
+                snapshot.getTopNPopulatedCitiesInContinent("asia ", 5).size());
+    }
+
+    /**
+     * This test verifies that the table writer lays out rows exactly like the printf
+     * patterns the reports used before, and only writes to the stream when flushed.
+     */
+    @Test
+    void tableWriterMatchesPrintfLayout() {
+        StringBuilder out = new StringBuilder();
+        TableWriter table = new TableWriter(out);
+
+        // CASE 1 — Padded text and number cells, including null and over-long values
+        table.columns(7, 25, 15).cell("JPN").cell((String) null).cell(126714000L).endRow();
+        table.cell("ABCDEFGH").cell("A name longer than its column").cell(-5).endRow();
+        assertEquals("", out.toString());
+        table.flush();
+        assertEquals(String.format("%-7s %-25s %-15d%n", "JPN", null, 126714000L)
+                + String.format("%-7s %-25s %-15d%n", "ABCDEFGH", "A name longer than its column", -5),
+                out.toString());
+
+        // CASE 2 — Percentages as the population and language reports print them
+        out.setLength(0);
+        table.columns(15, 20, 0).cell("Chinese").percent(23.456).percent(19.6059, 2).endRow();
+        table.message("No data available.");
+        table.flush();
+        assertEquals(String.format("%-15s %-20s %.2f%%%n", "Chinese", 23.456 + "%", 19.6059)
+                + "No data available." + System.lineSeparator(), out.toString());
+
+        // CASE 3 — A report prints the same text through the table writer
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        LanguageQueries languages = Mockito.mock(LanguageQueries.class);
+        Language english = new Language();
+        english.setLanguage("English");
+        english.setSpeakers(347077867L);
+        english.setWorldPercentage(5.7125);
+        Mockito.when(languages.getMajorLanguageReport()).thenReturn(List.of(english));
+        new LanguageReport(languages, new PrintStream(buffer, true)).printMajorLanguageReport();
+        assertTrue(buffer.toString().endsWith(String.format("%-15s %-20d %.2f%%%n", "English", 347077867L, 5.7125)));
+    }
+
+    /**
+     * This test verifies that a report can be written as CSV, JSON Lines and Markdown,
+     * with titles, rules and messages kept only where the format has a place for them.
+     */
+    @Test
+    void reportSinksWriteEachFormat() {
+        CapitalCity tokyo = new CapitalCity();
+        tokyo.setName("Tokyo");
+        tokyo.setCountry("Japan");
+        tokyo.setPopulation(7980230);
+        CapitalCity quoted = new CapitalCity();
+        quoted.setName("Washington, \"D.C.\"");
+        quoted.setCountry("United States | USA");
+        quoted.setPopulation(572059);
+        CapitalCityQueries capitals = Mockito.mock(CapitalCityQueries.class);
+        Mockito.when(capitals.getAllCapitalCities()).thenReturn(List.of(tokyo, quoted));
+        String nl = System.lineSeparator();
+
+        // CASE 1 — CSV: header and records only, fields with commas or quotes are quoted
+        StringBuilder csv = new StringBuilder();
+        new CapitalCityReport(capitals, ReportFormat.CSV.open(csv)).printAllCapitalCities();
+        assertEquals("CapitalCity,Country,Population" + nl
+                + "Tokyo,Japan,7980230" + nl
+                + "\"Washington, \"\"D.C.\"\"\",United States | USA,572059" + nl, csv.toString());
+
+        // CASE 2 — JSON Lines: one object per row, keyed by the header and tagged with the report
+        StringBuilder json = new StringBuilder();
+        new CapitalCityReport(capitals, ReportFormat.JSONL.open(json)).printAllCapitalCities();
+        String[] objects = json.toString().split(nl);
+        assertEquals(2, objects.length);
+        assertEquals("{\"report\":\"All the capital cities in the world organised by largest population to smallest.\","
+                + "\"CapitalCity\":\"Tokyo\",\"Country\":\"Japan\",\"Population\":7980230}", objects[0]);
+        assertTrue(objects[1].contains("\"CapitalCity\":\"Washington, \\\"D.C.\\\"\""));
+
+        // CASE 3 — Markdown: heading, pipe table with escaped pipes, messages as paragraphs
+        StringBuilder markdown = new StringBuilder();
+        ReportSink sink = ReportFormat.MARKDOWN.open(markdown);
+        new CapitalCityReport(capitals, sink).printAllCapitalCities();
+        Mockito.when(capitals.getAllCapitalCitiesInRegion("Atlantis")).thenReturn(new ArrayList<>());
+        new CapitalCityReport(capitals, sink).printAllCapitalCitiesInRegion("Atlantis");
+        String md = markdown.toString();
+        assertTrue(md.startsWith("## All the capital cities in the world organised by largest population to smallest." + nl
+                + nl + "| CapitalCity | Country | Population |" + nl + "|---|---|---|" + nl
+                + "| Tokyo | Japan | 7980230 |" + nl));
+        assertTrue(md.contains("| United States \\| USA |"));
+        assertTrue(md.endsWith(nl + "No capital city found" + nl));
+        assertFalse(md.contains("-----"));
+    }
+
+    /**
+     * This test verifies that report results written in the columnar export format
+     * read back unchanged through the memory-mapped reader, and that the reader
+     * rejects files that are not exports.
+     */
+    @Test
+    void columnarExportRoundTrip(@TempDir Path dir) throws IOException {
+        // CASE 1 — Cities with repeated and null strings and populations of very different sizes
+        List<City> cities = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            City city = new City();
+            city.setName("City " + i);
+            city.setCountry(i % 3 == 0 ? "Japan" : "Brazil");
+            city.setDistrict(i % 7 == 0 ? null : "District " + (i % 5));
+            city.setPopulation(i * 9_876_543L + 42);
+            cities.add(city);
+        }
+        cities.add(null);
+        Path cityFile = dir.resolve("cities.wexp");
+        ColumnarWriter.writeCities(cities, cityFile);
+
+        ColumnarReader reader = ColumnarReader.open(cityFile);
+        assertEquals(RecordType.CITY, reader.getRecordType());
+        assertEquals(1000, reader.getRowCount());
+        List<City> read = reader.readCities();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(cities.get(i).getName(), read.get(i).getName());
+            assertEquals(cities.get(i).getCountry(), read.get(i).getCountry());
+            assertEquals(cities.get(i).getDistrict(), read.get(i).getDistrict());
+            assertEquals(cities.get(i).getPopulation(), read.get(i).getPopulation());
+        }
+        assertEquals(999 * 9_876_543L + 42, reader.getLong(reader.findColumn("Population"), 999));
+        assertTrue(Files.size(cityFile) < 1000 * 20);
+
+        // CASE 2 — Population percentages are recomputed and language percentages kept exactly
+        Population japan = new Population();
+        japan.setName("Japan");
+        japan.setTotalPopulation(126714000);
+        japan.setCityPopulation(77965107);
+        japan.setNonCityPopulation(48748893);
+        Path populationFile = dir.resolve("populations.wexp");
+        ColumnarWriter.writePopulations(List.of(japan), populationFile);
+        Population readJapan = ColumnarReader.open(populationFile).readPopulations().get(0);
+        assertEquals(48748893, readJapan.getNonCityPopulation());
+        assertEquals(62.0, readJapan.getCityPercentage());
+
+        Language english = new Language();
+        english.setLanguage("English");
+        english.setSpeakers(347077867L);
+        english.setWorldPercentage(5.712345);
+        Path languageFile = dir.resolve("languages.wexp");
+        ColumnarWriter.writeLanguages(List.of(english), languageFile);
+        assertEquals(5.712345, ColumnarReader.open(languageFile).readLanguages().get(0).getWorldPercentage());
+
+        // CASE 3 — Empty exports, wrong record types and foreign files
+        Path empty = dir.resolve("empty.wexp");
+        ColumnarWriter.writeCountries(null, empty);
+        assertTrue(ColumnarReader.open(empty).readCountries().isEmpty());
+        assertThrows(IllegalStateException.class, () -> ColumnarReader.open(empty).readCities());
+        Path text = dir.resolve("report.txt");
+        Files.writeString(text, "City Country District Population");
+        assertThrows(IOException.class, () -> ColumnarReader.open(text));
+    }
+
+    /**
+     * This test verifies that the HTTP report service answers reports as JSON arrays
+     * over leased connections, and rejects unknown reports, bad parameters, other methods
+     * and reports whose queries failed.
+     */
+    @Test
+    void reportServerAnswersJson() throws Exception {
+        CapitalCity tokyo = new CapitalCity();
+        tokyo.setName("Tokyo");
+        tokyo.setCountry("Japan");
+        tokyo.setPopulation(7980230);
+        CapitalCityQueries capitals = Mockito.mock(CapitalCityQueries.class);
+        Mockito.when(capitals.getTopNPopulatedCapitalCitiesByContinent("North America", 1)).thenReturn(List.of(tokyo));
+        Mockito.when(capitals.getTopNPopulatedCapitalCitiesByContinent("Antarctica", 1)).thenReturn(new ArrayList<>());
+        DaoFactory daos = Mockito.mock(DaoFactory.class);
+        Mockito.when(daos.capitalCityQueries(Mockito.any())).thenReturn(capitals);
+        Mockito.when(daos.getBackend()).thenReturn(Backend.SNAPSHOT);
+        Connection conn = Mockito.mock(Connection.class);
+
+        ReportServer server = new ReportServer(daos, () -> conn);
+        server.start(0);
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            String base = "http://localhost:" + server.getPort();
+
+            // CASE 1 — A report with a decoded scope parameter, and the health check
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                    URI.create(base + "/capitals/top?continent=North+America&n=1")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals("application/json; charset=utf-8", response.headers().firstValue("Content-Type").orElse(""));
+            assertTrue(response.body().startsWith("[{\"report\":"));
+            assertTrue(response.body().contains("\"CapitalCity\":\"Tokyo\""));
+            assertTrue(response.body().contains("\"Population\":7980230"));
+            Mockito.verify(conn).close();
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/health")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"backend\":\"SNAPSHOT\""));
+
+            // CASE 2 — An empty report is an empty array
+            response = client.send(HttpRequest.newBuilder(
+                    URI.create(base + "/capitals/top?continent=Antarctica&n=1")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals("[]", response.body().trim());
+
+            // CASE 3 — Unknown reports, bad parameters and other methods
+            assertEquals(404, client.send(HttpRequest.newBuilder(URI.create(base + "/planets")).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/cities/top?n=ten")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode());
+            assertTrue(response.body().contains("\"error\""));
+            assertEquals(400, client.send(HttpRequest.newBuilder(URI.create(base + "/population/split?by=planet")).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+            assertEquals(405, client.send(HttpRequest.newBuilder(URI.create(base + "/capitals"))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+
+            // CASE 4 — A report that fails unexpectedly is answered with a 500, not left hanging
+            Mockito.when(capitals.getAllCapitalCities()).thenThrow(new IllegalStateException("boom"));
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/capitals")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(500, response.statusCode());
+            assertTrue(response.body().contains("\"error\""));
+
+            // CASE 5 — A query the DAO reports as failed is a 503, not an empty array
+            Mockito.when(daos.cityQueries(Mockito.any())).thenAnswer(inv -> new CityDAO(inv.getArgument(0)));
+            Mockito.when(conn.prepareStatement(Mockito.anyString())).thenThrow(new SQLException("database gone"));
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/cities/top?n=3")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, response.statusCode());
+            assertTrue(response.body().contains("\"error\""));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * This test verifies that the result cache expires results after their time to live,
+     * evicts the least recently used result when full, counts every outcome and can be
+     * emptied when the data is reloaded.
+     */
+    @Test
+    void resultCacheExpiresAndEvicts() {
+        long[] now = {0};
+        ResultCache cache = new ResultCache(2, Duration.ofSeconds(60), () -> now[0]);
+        City tokyo = new City();
+        tokyo.setName("Tokyo");
+        Mockito.when(cityDAO.getTopNPopulatedCitiesInContinent("Asia", 10)).thenReturn(new ArrayList<>(List.of(tokyo)));
+        Mockito.when(cityDAO.getTopNPopulatedCitiesInContinent("Europe", 10)).thenReturn(new ArrayList<>(List.of(tokyo)));
+        Mockito.when(cityDAO.getTopNPopulatedCitiesInContinent("Africa", 10)).thenReturn(new ArrayList<>(List.of(tokyo)));
+        CityQueries cached = CachingQueries.wrap(CityQueries.class, cityDAO, cache);
+
+        // CASE 1 — A result is served until its time to live has passed
+        cached.getTopNPopulatedCitiesInContinent("Asia", 10);
+        now[0] = Duration.ofSeconds(59).toNanos();
+        cached.getTopNPopulatedCitiesInContinent("Asia", 10);
+        Mockito.verify(cityDAO, Mockito.times(1)).getTopNPopulatedCitiesInContinent("Asia", 10);
+        now[0] = Duration.ofSeconds(61).toNanos();
+        cached.getTopNPopulatedCitiesInContinent("Asia", 10);
+        Mockito.verify(cityDAO, Mockito.times(2)).getTopNPopulatedCitiesInContinent("Asia", 10);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getExpirationCount());
+
+        // CASE 2 — The least recently used result is evicted when the cache is full
+        cached.getTopNPopulatedCitiesInContinent("Europe", 10);
+        cached.getTopNPopulatedCitiesInContinent("Asia", 10);
+        cached.getTopNPopulatedCitiesInContinent("Africa", 10);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cached.getTopNPopulatedCitiesInContinent("Asia", 10);
+        Mockito.verify(cityDAO, Mockito.times(2)).getTopNPopulatedCitiesInContinent("Asia", 10);
+        cached.getTopNPopulatedCitiesInContinent("Europe", 10);
+        Mockito.verify(cityDAO, Mockito.times(2)).getTopNPopulatedCitiesInContinent("Europe", 10);
+
+        // CASE 3 — Invalidation empties the cache
+        DaoFactory daos = new DaoFactory(Backend.CACHED, cache);
+        daos.invalidateCache();
+        assertEquals(0, cache.size());
+        cached.getTopNPopulatedCitiesInContinent("Asia", 10);
+        Mockito.verify(cityDAO, Mockito.times(3)).getTopNPopulatedCitiesInContinent("Asia", 10);
+        assertTrue(cache.getSummary().startsWith("size=1/2 "));
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(0, Duration.ZERO));
+    }
+
+    /**
+     * This test verifies that a city scan batch answers every requested city and capital
+     * city query from one sorted scan, and sends queries it was not given to the DAOs.
+     */
+    @Test
+    void cityScanBatchSharesOneScan() throws SQLException {
+        Connection con = Mockito.mock(Connection.class);
+        PreparedStatement pstmt = Mockito.mock(PreparedStatement.class);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(con.prepareStatement(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt())).thenReturn(pstmt);
+        Mockito.when(pstmt.executeQuery()).thenReturn(rs);
+        String[] columns = {"CityName", "Country", "District", "Population", "Continent", "Region", "IsCapital"};
+        for (int i = 0; i < columns.length; i++) {
+            Mockito.when(rs.findColumn(columns[i])).thenReturn(i + 1);
+        }
+        Mockito.when(rs.next()).thenReturn(true, true, true, true, false);
+        Mockito.when(rs.getString(1)).thenReturn("Mumbai", "Seoul", "Shanghai", "Tokyo");
+        Mockito.when(rs.getString(2)).thenReturn("India", "South Korea", "China", "Japan");
+        Mockito.when(rs.getString(3)).thenReturn("Maharashtra", "Seoul", "Shanghai", "Tokyo-to");
+        Mockito.when(rs.getLong(4)).thenReturn(10500000L, 9981619L, 9696300L, 7980230L);
+        Mockito.when(rs.getString(5)).thenReturn("Asia", "Asia", "Asia", "Asia");
+        Mockito.when(rs.getString(6)).thenReturn("Southern and Central Asia", "Eastern Asia", "Eastern Asia", "Eastern Asia");
+        Mockito.when(rs.getBoolean(7)).thenReturn(false, true, false, true);
+
+        CityScanBatch batch = new CityScanBatch(con);
+
+        // CASE 1 — Requests run no query; duplicates are kept once
+        batch.requestCities(CityScanBatch.Scope.REGION, "Eastern Asia", 1)
+                .requestCities(CityScanBatch.Scope.REGION, "EASTERN ASIA", 1)
+                .requestCapitals(CityScanBatch.Scope.WORLD, null, 10);
+        assertEquals(2, batch.size());
+        assertThrows(IllegalArgumentException.class,
+                () -> batch.requestCities(CityScanBatch.Scope.WORLD, null, -1));
+        Mockito.verifyNoInteractions(con);
+
+        // CASE 2 — One scan fills every collector in population order
+        assertEquals(4, batch.execute());
+        assertEquals(0, batch.execute());
+        assertThrows(IllegalStateException.class,
+                () -> batch.requestCities(CityScanBatch.Scope.WORLD, null, 10));
+        Mockito.verify(con, Mockito.times(1)).prepareStatement(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt());
+        assertEquals("Seoul", batch.getTopNPopulatedCitiesInRegion("eastern asia", 1).get(0).getName());
+        List<CapitalCity> top = batch.getTopNPopulatedCapitalCities(10);
+        assertEquals(2, top.size());
+        assertEquals("Tokyo", top.get(1).getName());
+        assertEquals(7980230L, top.get(1).getPopulation());
+
+        // CASE 3 — A query outside the batch goes to the DAO
+        PreparedStatement fallback = Mockito.mock(PreparedStatement.class);
+        Mockito.when(con.prepareStatement(Mockito.anyString())).thenReturn(fallback);
+        Mockito.when(fallback.executeQuery()).thenThrow(new SQLException("not recorded"));
+        assertTrue(batch.getAllCitiesInDistrictByPopulation("Benguela").isEmpty());
+        Mockito.verify(con).prepareStatement(Mockito.anyString());
+
+        // CASE 4 — All-cities reports stream their own query row by row
+        assertEquals(0, batch.streamAllCitiesInContinentByPopulation("Asia", city -> fail("no rows left")));
+        Mockito.verify(con, Mockito.times(2)).prepareStatement(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    /**
+     * This test verifies that connection retries back off exponentially with jitter up to
+     * the configured maximum, and that the readiness probe tells an open port from a closed one.
+     */
+    @Test
+    void connectionBackoffAndReadinessProbe() throws IOException {
+        // CASE 1 — Each wait lies in the upper half of a step that doubles up to the maximum
+        Backoff backoff = new Backoff(100, 1000, new Random(42));
+        long[] steps = {100, 200, 400, 800, 1000, 1000};
+        for (long step : steps) {
+            long wait = backoff.nextDelayMillis();
+            assertTrue(wait >= step / 2 && wait <= step, "wait " + wait + " for step " + step);
+        }
+        backoff.reset();
+        assertTrue(backoff.nextDelayMillis() <= 100);
+
+        // CASE 2 — A zero maximum never waits
+        Backoff none = new Backoff(100, 0, new Random(42));
+        assertEquals(0, none.nextDelayMillis());
+        assertEquals(0, none.nextDelayMillis());
+        assertThrows(IllegalArgumentException.class, () -> new Backoff(-1, 10, new Random()));
+
+        // CASE 3 — The probe connects to a listening port and fails once it is closed
+        int port;
+        try (ServerSocket server = new ServerSocket(0)) {
+            port = server.getLocalPort();
+            assertTrue(DatabaseConfig.isReachable("localhost:" + port, 1000));
+        }
+        assertFalse(DatabaseConfig.isReachable("localhost:" + port, 1000));
+    }
+
+    /**
+     * This test verifies that the dataset generator copies every table at the requested
+     * scale, keeps each city in a copy of its own country and each capital in its country,
+     * and reproduces the source data exactly at scale 1.
+     */
+    @Test
+    void worldGeneratorScalesWithLinks() throws IOException {
+        List<String> source = List.of(
+                "CREATE TABLE `city` (`ID` int);",
+                "set autocommit=0;",
+                "INSERT INTO `city` VALUES (1,'Kabul','AFG','Kabol',1780000);",
+                "INSERT INTO `city` VALUES (2,'Qandahar','AFG','Qandahar',237500);",
+                "INSERT INTO `city` VALUES (3,'N\\'Djamena','TCD','Chari-Baguirmi',530965);",
+                "commit;",
+                "INSERT INTO `country` VALUES ('AFG','Afghanistan','Asia','Southern and Central Asia',652090.00,1919,22720000,45.9,5976.00,NULL,'Afganistan/Afqanestan','Islamic Emirate','Mohammad Omar',1,'AF');",
+                "INSERT INTO `country` VALUES ('TCD','Chad','Africa','Central Africa',1284000.00,1960,7651000,50.5,1208.00,1102.00,'Tchad/Tshad','Republic','Idriss Déby',3,'TD');",
+                "INSERT INTO `countrylanguage` VALUES ('AFG','Pashto','T',52.4);",
+                "INSERT INTO `countrylanguage` VALUES ('TCD','Arabic','T',12.3);");
+
+        // CASE 1 — Scale 1 reproduces the source rows, including escaped names
+        StringBuilder same = new StringBuilder();
+        WorldGenerator.Counts counts = WorldGenerator.generate(source, same, 1, 7);
+        assertEquals(3, counts.getCities());
+        assertTrue(same.toString().contains("(3,'N\\'Djamena','TCD','Chari-Baguirmi',530965)"));
+        assertTrue(same.toString().startsWith("CREATE TABLE `city` (`ID` int);\nset autocommit=0;\nINSERT INTO `city` VALUES (1,"));
+
+        // CASE 2 — Every table is copied and every link points to a copy in the same country
+        StringBuilder scaled = new StringBuilder();
+        counts = WorldGenerator.generate(source, scaled, 3, 7);
+        assertEquals(6, counts.getCountries());
+        assertEquals(9, counts.getCities());
+        assertEquals(6, counts.getLanguages());
+        String sql = scaled.toString();
+        assertTrue(sql.contains("(4,'Kabul 1','AAA','Kabol 1',"));
+        assertTrue(sql.contains("('AAA','Afghanistan 1','Asia','Southern and Central Asia',"));
+        assertTrue(sql.contains(",'Mohammad Omar',4,'AF')"));
+        assertTrue(sql.contains(",'Idriss Déby',9,'TD')"));
+        assertTrue(sql.contains("(9,'N\\'Djamena 2','AAD','Chari-Baguirmi 2',"));
+        assertTrue(sql.contains("('AAD','Arabic','T',12.3)"));
+        StringBuilder again = new StringBuilder();
+        WorldGenerator.generate(source, again, 3, 7);
+        assertEquals(sql, again.toString());
+        assertThrows(IllegalArgumentException.class, () -> WorldGenerator.generate(source, new StringBuilder(), 0, 7));
+    }
+
+    /**
+     * This test verifies that schema migrations run once in order and tolerate indexes that
+     * already exist, and that the index advisor reports full scans and filesorts in a plan.
+     */
+    @Test
+    void schemaMigrationAndIndexAdvisor() throws SQLException {
+        // CASE 1 — Pending migrations are applied and recorded; an existing index is skipped
+        Connection con = Mockito.mock(Connection.class);
+        Statement stmt = Mockito.mock(Statement.class);
+        ResultSet version = Mockito.mock(ResultSet.class);
+        PreparedStatement record = Mockito.mock(PreparedStatement.class);
+        Mockito.when(con.createStatement()).thenReturn(stmt);
+        Mockito.when(con.prepareStatement(Mockito.startsWith("INSERT INTO schema_version"))).thenReturn(record);
+        Mockito.when(stmt.executeQuery(Mockito.anyString())).thenReturn(version);
+        Mockito.when(version.next()).thenReturn(true);
+        Mockito.when(version.getInt("version")).thenReturn(0);
+        Mockito.when(stmt.execute(Mockito.startsWith("CREATE INDEX idx_country_name")))
+                .thenThrow(new SQLException("Duplicate key name 'idx_country_name'", "42000", 1061));
+        assertEquals(1, new SchemaMigrator(con).migrate());
+        Mockito.verify(stmt).execute(Mockito.startsWith("CREATE TABLE IF NOT EXISTS schema_version"));
+        Mockito.verify(stmt, Mockito.times(8)).execute(Mockito.startsWith("CREATE INDEX "));
+        Mockito.verify(stmt).execute("CREATE INDEX idx_city_district_population ON city (District, Population)");
+        Mockito.verify(record).setInt(1, 1);
+        Mockito.verify(record).setString(2, "report indexes");
+        Mockito.verify(record).executeUpdate();
+
+        // CASE 2 — Nothing runs once the database is at the newest version
+        Mockito.when(version.getInt("version")).thenReturn(1);
+        Mockito.clearInvocations(stmt, record);
+        assertEquals(0, new SchemaMigrator(con).migrate());
+        Mockito.verify(stmt, Mockito.never()).execute(Mockito.startsWith("CREATE INDEX "));
+        Mockito.verifyNoInteractions(record);
+
+        // CASE 3 — The advisor reports plans that scan or sort, and accepts plans that use an index
+        Connection db = Mockito.mock(Connection.class);
+        PreparedStatement explain = Mockito.mock(PreparedStatement.class);
+        ResultSet plan = Mockito.mock(ResultSet.class);
+        Mockito.when(db.prepareStatement(Mockito.startsWith("EXPLAIN "), Mockito.anyInt(), Mockito.anyInt())).thenReturn(explain);
+        Mockito.when(explain.executeQuery()).thenReturn(plan);
+        int[] rows = {0};
+        // One plan row per explained query
+        Mockito.when(plan.next()).thenAnswer(invocation -> rows[0]++ % 2 == 0);
+        Mockito.when(plan.getString("table")).thenReturn("city");
+        Mockito.when(plan.getString("type")).thenReturn("ALL");
+        Mockito.when(plan.getString("Extra")).thenReturn("Using where; Using filesort");
+        List<String> findings = new IndexAdvisor(db).check();
+        assertTrue(findings.contains("cities in district: full scan of city"));
+        assertTrue(findings.contains("cities in district: filesort on city"));
+        assertFalse(findings.contains("cities in continent: filesort on city"));
+
+        Mockito.when(plan.getString("type")).thenReturn("ref");
+        Mockito.when(plan.getString("Extra")).thenReturn("Using where; Backward index scan");
+        assertEquals(List.of(), new IndexAdvisor(db).check());
+    }
+
+    /**
+     * This test verifies that every DAO query is recorded under its method name with its
+     * calls, rows, bytes and errors, and that percentiles and the summary table come from
+     * the recorded histogram.
+     */
+    @Test
+    void queryMetricsRecordEveryDaoCall() throws SQLException {
+        // CASE 1 — Calls, rows, bytes and errors are recorded under the DAO method's name
+        QueryMetrics metrics = QueryMetrics.global();
+        metrics.reset();
+        Connection con = Mockito.mock(Connection.class);
+        PreparedStatement pstmt = Mockito.mock(PreparedStatement.class);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        java.sql.ResultSetMetaData meta = Mockito.mock(java.sql.ResultSetMetaData.class);
+        Mockito.when(con.prepareStatement(Mockito.anyString())).thenReturn(pstmt);
+        Mockito.when(pstmt.executeQuery()).thenReturn(rs);
+        Mockito.when(rs.getMetaData()).thenReturn(meta);
+        Mockito.when(meta.getColumnDisplaySize(Mockito.anyInt())).thenReturn(10);
+        String[] columns = {"CityName", "Country", "District", "Population"};
+        for (int i = 0; i < columns.length; i++) {
+            Mockito.when(rs.findColumn(columns[i])).thenReturn(i + 1);
+        }
+        Mockito.when(rs.next()).thenReturn(true, true, false, true, false);
+        Mockito.when(rs.getString(1)).thenReturn("Tokyo", "Jakarta", "Tokyo");
+
+        CityDAO dao = new CityDAO(con);
+        assertEquals(2, dao.getAllCitiesInContinentByPopulation("Asia").size());
+        assertEquals(1, dao.getAllCitiesInContinentByPopulation("Asia").size());
+        QueryMetrics.QueryStats stats = metrics.get("CityDAO.getAllCitiesInContinentByPopulation");
+        assertNotNull(stats);
+        assertEquals(2, stats.getCalls());
+        assertEquals(0, stats.getErrors());
+        assertEquals(3, stats.getRows());
+        assertEquals(3 * 40, stats.getBytes());
+
+        // CASE 2 — A failing query is counted as an error even though the DAO swallows it
+        Mockito.when(con.prepareStatement(Mockito.anyString())).thenThrow(new SQLException("gone"));
+        assertTrue(dao.getAllCitiesInContinentByPopulation("Asia").isEmpty());
+        stats = metrics.get("CityDAO.getAllCitiesInContinentByPopulation");
+        assertEquals(3, stats.getCalls());
+        assertEquals(1, stats.getErrors());
+        assertEquals(3, stats.getRows());
+
+        // CASE 3 — Percentiles come from the histogram and never exceed the slowest call
+        QueryMetrics own = new QueryMetrics();
+        for (int i = 0; i < 98; i++) {
+            own.record("fast", 100_000, 1, 0, false);
+        }
+        own.record("fast", 5_000_000, 1, 0, false);
+        own.record("fast", 9_000_000, 1, 0, false);
+        own.record("slow", 2_000_000_000L, 0, 0, true);
+        stats = own.get("fast");
+        assertEquals(100, stats.getCalls());
+        assertEquals(127, stats.getP50Micros());
+        assertEquals(127, stats.getP95Micros());
+        assertEquals(8191, stats.getP99Micros());
+        assertEquals(9000, stats.getMaxMicros());
+        assertEquals(238, stats.getMeanMicros());
+        assertEquals("slow", own.snapshot().get(0).getName());
+        assertNull(own.get("missing"));
+
+        // CASE 4 — The summary table lists every query, and the JSON form one object per query
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        new QueryMetricsReport(own, new TableWriter(new PrintStream(text, true, StandardCharsets.UTF_8)))
+                .printQueryMetrics();
+        String table = text.toString(StandardCharsets.UTF_8);
+        assertTrue(table.contains("Query metrics"));
+        assertTrue(table.contains("slow"));
+        assertTrue(table.contains("fast"));
+        StringBuilder json = new StringBuilder();
+        JsonLinesWriter sink = JsonLinesWriter.array(json);
+        new QueryMetricsReport(own, sink).printQueryMetrics();
+        sink.endArray();
+        assertTrue(json.toString().contains("\"Query\":\"slow\""));
+        assertTrue(json.toString().contains("\"Errors\":1"));
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        new QueryMetricsReport(new QueryMetrics(), new TableWriter(new PrintStream(empty, true, StandardCharsets.UTF_8)))
+                .printQueryMetrics();
+        assertTrue(empty.toString(StandardCharsets.UTF_8).contains("No queries were run."));
+        metrics.reset();
+    }
+
+    /**
+     * This test verifies that a recording captures one query event per DAO call, with its
+     * name, parameters, rows and phase times, and one event per connection lease.
+     */
+    @Test
+    void flightRecorderEventsSplitQueryPhases(@TempDir Path dir) throws Exception {
+        Connection con = Mockito.mock(Connection.class);
+        PreparedStatement pstmt = Mockito.mock(PreparedStatement.class);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(pstmt.executeQuery()).thenReturn(rs);
+        Mockito.when(rs.findColumn(Mockito.anyString())).thenReturn(1);
+        Mockito.when(rs.next()).thenReturn(true, true, false);
+        Mockito.when(rs.getString(1)).thenReturn("Tokyo", "Osaka");
+        ConnectionPool pool = new ConnectionPool(() -> con, 1, 1000, 60000, 60000, 0);
+        Path file = dir.resolve("reports.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.napier.proj.Query");
+            recording.enable("com.napier.proj.Connect");
+            recording.start();
+            try (Connection lease = pool.borrow()) {
+                Mockito.when(con.prepareStatement(Mockito.anyString())).thenReturn(pstmt);
+                assertEquals(2, new CityDAO(lease).getTopNPopulatedCitiesInCountry("Japan", 2).size());
+            }
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            pool.close();
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        // CASE 1 — The query event names the DAO method and carries its parameters, rows and phases
+        RecordedEvent query = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.napier.proj.Query"))
+                .findFirst().orElseThrow();
+        assertEquals("CityDAO.getTopNPopulatedCitiesInCountry", query.getString("query"));
+        assertEquals("[Japan, 2]", query.getString("parameters"));
+        assertEquals(2, query.getLong("rows"));
+        assertFalse(query.getBoolean("failed"));
+        long phases = query.getDuration("prepareTime").toNanos() + query.getDuration("executeTime").toNanos()
+                + query.getDuration("fetchTime").toNanos() + query.getDuration("mapTime").toNanos();
+        assertTrue(phases <= query.getDuration().toNanos() + 1_000_000);
+
+        // CASE 2 — The lease that opened the connection is recorded
+        RecordedEvent connect = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.napier.proj.Connect"))
+                .findFirst().orElseThrow();
+        assertTrue(connect.getBoolean("opened"));
+        assertFalse(connect.getBoolean("failed"));
+    }
+
+    /**
+     * This test verifies that the asynchronous facade fans queries out on leased
+     * connections without exceeding its limit, keeps results in key order and reports
+     * connection failures through the future.
+     */
+    @Test
+    void asyncQueriesFanOutWithinTheirLimit() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ConnectionPool.ConnectionFactory connections = () -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Connection con = Mockito.mock(Connection.class);
+            PreparedStatement pstmt = Mockito.mock(PreparedStatement.class);
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            Mockito.when(con.prepareStatement(Mockito.anyString())).thenReturn(pstmt);
+            Mockito.when(pstmt.executeQuery()).thenReturn(rs);
+            Mockito.when(rs.findColumn(Mockito.anyString())).thenReturn(1);
+            Mockito.when(rs.next()).thenAnswer(invocation -> {
+                Thread.sleep(20);
+                return false;
+            });
+            Mockito.doAnswer(invocation -> active.decrementAndGet()).when(con).close();
+            return con;
+        };
+
+        try (AsyncQueries async = new AsyncQueries(new DaoFactory(Backend.JDBC), connections, 2)) {
+            // CASE 1 — One query per key, results kept in key order, never more than the limit at once
+            List<String> continents = List.of("Asia", "Europe", "Africa", "Oceania", "Antarctica");
+            Map<String, List<City>> top = async.fanOut(continents,
+                    (cities, continent) -> cities.getTopNPopulatedCitiesInContinent(continent, 10)).get();
+            assertEquals(continents, new ArrayList<>(top.keySet()));
+            assertTrue(top.values().stream().allMatch(List::isEmpty));
+            assertEquals(2, peak.get());
+            assertEquals(0, active.get());
+
+            // CASE 2 — Single queries compose without blocking
+            CompletableFuture<Integer> both = async.population(q -> q.getCountryPopulation("Argentina"))
+                    .thenCombine(async.languages(LanguageQueries::getMajorLanguageReport),
+                            (population, languages) -> population.size() + languages.size());
+            assertEquals(0, both.get());
+        }
+
+        // CASE 3 — A connection failure completes the future exceptionally
+        try (AsyncQueries failing = new AsyncQueries(new DaoFactory(Backend.JDBC), () -> {
+            throw new SQLException("pool exhausted");
+        }, 1)) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> failing.countries(CountryQueries::getAllCountriesByPopulation).get());
+            assertInstanceOf(SQLException.class, e.getCause());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new AsyncQueries(new DaoFactory(Backend.JDBC), connections, 0));
+    }
+
+    /**
+     * This test verifies that the top N per group queries return every group in one
+     * query, that the snapshot and the cache answer them the same way as the per-scope
+     * queries, and that the printers write one table per group.
+     */
+    @Test
+    void topNPerGroupInOneQuery() throws SQLException {
+        // CASE 1 — One window query, rows grouped in the order MySQL returns them
+        Connection con = Mockito.mock(Connection.class);
+        PreparedStatement pstmt = Mockito.mock(PreparedStatement.class);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(con.prepareStatement(Mockito.anyString())).thenReturn(pstmt);
+        Mockito.when(pstmt.executeQuery()).thenReturn(rs);
+        String[] columns = {"CityName", "Country", "District", "Population", "GroupName"};
+        for (int i = 0; i < columns.length; i++) {
+            Mockito.when(rs.findColumn(columns[i])).thenReturn(i + 1);
+        }
+        Mockito.when(rs.next()).thenReturn(true, true, true, false);
+        Mockito.when(rs.getString(1)).thenReturn("Mumbai", "Seoul", "Berlin");
+        Mockito.when(rs.getString(5)).thenReturn("Asia", "Asia", "Europe");
+        Map<String, List<City>> top = new CityDAO(con).getTopNPopulatedCitiesPerContinent(2);
+        assertEquals(List.of("Asia", "Europe"), new ArrayList<>(top.keySet()));
+        assertEquals("Seoul", top.get("Asia").get(1).getName());
+        assertEquals("Berlin", top.get("Europe").get(0).getName());
+        Mockito.verify(con).prepareStatement(Mockito.contains("ROW_NUMBER() OVER (PARTITION BY c.Continent"));
+        Mockito.verify(pstmt).setInt(1, 2);
+        Mockito.when(con.prepareStatement(Mockito.anyString())).thenThrow(new SQLException("gone"));
+        assertTrue(new CountryDAO(con).getTopNPopulatedCountriesPerRegion(3).isEmpty());
+
+        // CASE 2 — The snapshot matches a per-scope loop, in continent and region order
+        CountryTable countries = new CountryTable();
+        countries.add("FRA", "France", "Europe", "Western Europe", 500, 1);
+        countries.add("DEU", "Germany", "Europe", "Western Europe", 800, 3);
+        countries.add("JPN", "Japan", "Asia", "Eastern Asia", 1000, 5);
+        countries.add("ATA", "Antarctica", "Antarctica", "Antarctica", 0, 0);
+        CityTable cities = new CityTable();
+        cities.add(1, "Paris", "FRA", "Ile-de-France", 200);
+        cities.add(2, "Lyon", "FRA", "Rhone-Alpes", 50);
+        cities.add(3, "Berlin", "DEU", "Berliini", 300);
+        cities.add(5, "Tokyo", "JPN", "Tokyo-to", 700);
+        WorldSnapshot snapshot = new WorldSnapshot(countries, cities, new LanguageTable());
+        Map<String, List<City>> perContinent = snapshot.getTopNPopulatedCitiesPerContinent(2);
+        assertEquals(List.of("Asia", "Europe"), new ArrayList<>(perContinent.keySet()));
+        assertEquals(snapshot.getTopNPopulatedCitiesInContinent("Europe", 2).get(1).getName(),
+                perContinent.get("Europe").get(1).getName());
+        assertEquals(List.of("Eastern Asia", "Western Europe"),
+                new ArrayList<>(snapshot.getTopNPopulatedCitiesPerRegion(1).keySet()));
+        Map<String, List<Country>> countriesPerContinent = snapshot.getTopNPopulatedCountriesPerContinent(1);
+        assertEquals(List.of("Asia", "Europe", "Antarctica"), new ArrayList<>(countriesPerContinent.keySet()));
+        assertEquals("Germany", countriesPerContinent.get("Europe").get(0).getName());
+        assertEquals(2, snapshot.getTopNPopulatedCountriesPerRegion(5).get("Western Europe").size());
+        assertTrue(snapshot.getTopNPopulatedCitiesPerRegion(0).isEmpty());
+
+        // CASE 3 — Grouped results are cached like lists
+        CountryQueries dao = Mockito.mock(CountryQueries.class);
+        Mockito.when(dao.getTopNPopulatedCountriesPerContinent(1)).thenReturn(countriesPerContinent);
+        CountryQueries cached = CachingQueries.wrap(CountryQueries.class, dao, new ResultCache());
+        assertEquals(countriesPerContinent, cached.getTopNPopulatedCountriesPerContinent(1));
+        assertEquals(countriesPerContinent, cached.getTopNPopulatedCountriesPerContinent(1));
+        Mockito.verify(dao, Mockito.times(1)).getTopNPopulatedCountriesPerContinent(1);
+
+        // CASE 4 — One table per group, titled like the single-scope report
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(text, true, StandardCharsets.UTF_8);
+        new CityReport(snapshot, out).printTopNPopulatedCitiesPerContinent(2);
+        new CountryReport(snapshot, out).printTopNPopulatedCountriesPerRegion(1);
+        new CityReport(Mockito.mock(CityQueries.class), out).printTopNPopulatedCitiesPerRegion(3);
+        String printed = text.toString(StandardCharsets.UTF_8);
+        assertTrue(printed.contains("The top 2 populated cities in continent: Asia."));
+        assertTrue(printed.contains("The top 2 populated cities in continent: Europe."));
+        assertTrue(printed.indexOf("Berlin") < printed.indexOf("Paris"));
+        assertTrue(printed.contains("The top 1 populated countries in region: Western Europe."));
+        assertTrue(printed.contains("The top 3 populated cities in every region."));
+    }
+
+    /**
+     * This test verifies that the language engine reports any set of languages, with
+     * an official-only filter and per-continent and per-region breakdowns, from the
+     * in-memory matrix, and that the DAO sends the languages as parameters instead
+     * of a hard-coded list.
+     */
+    @Test
+    void languageEngineAnswersAnyLanguageSet() throws SQLException {
+        CountryTable countries = new CountryTable();
+        countries.add("FRA", "France", "Europe", "Western Europe", 1000, 1);
+        countries.add("BEL", "Belgium", "Europe", "Western Europe", 500, 2);
+        countries.add("CAN", "Canada", "North America", "North America", 2000, 3);
+        countries.add("JPN", "Japan", "Asia", "Eastern Asia", 4000, 4);
+        LanguageTable languages = new LanguageTable();
+        languages.add("FRA", "French", true, 900);
+        languages.add("BEL", "French", true, 400);
+        languages.add("BEL", "Dutch", true, 600);
+        languages.add("CAN", "French", false, 250);
+        languages.add("CAN", "English", true, 600);
+        languages.add("JPN", "English", false, 15);
+        languages.add("XXX", "French", true, 1000); // no matching country, dropped by the join
+        WorldSnapshot snapshot = new WorldSnapshot(countries, new CityTable(), languages);
+
+        // CASE 1 — Any languages, most spoken first; names match ignoring case and repeats count once
+        List<Language> world = snapshot.getLanguageReport(List.of("english", "French", "FRENCH", "Klingon"), false);
+        assertEquals(2, world.size());
+        assertEquals("French", world.get(0).getLanguage());
+        assertEquals(900 + 200 + 500, world.get(0).getSpeakers());
+        assertEquals(1600.0 / 7500 * 100, world.get(0).getWorldPercentage(), 1e-9);
+        assertEquals(1200 + 60, world.get(1).getSpeakers());
+
+        // CASE 2 — Official-only leaves out the countries where a language is not official
+        List<Language> official = snapshot.getLanguageReport(List.of("French", "English"), true);
+        assertEquals("English", official.get(0).getLanguage());
+        assertEquals(1200, official.get(0).getSpeakers());
+        assertEquals(1100, official.get(1).getSpeakers());
+
+        // CASE 3 — Breakdowns use the group population and leave out groups without speakers
+        Map<String, List<Language>> perContinent =
+                snapshot.getLanguageReportPerContinent(List.of("French", "Dutch"), false);
+        assertEquals(List.of("Europe", "North America"), new ArrayList<>(perContinent.keySet()));
+        assertEquals(1100, perContinent.get("Europe").get(0).getSpeakers());
+        assertEquals(1100.0 / 1500 * 100, perContinent.get("Europe").get(0).getWorldPercentage(), 1e-9);
+        assertEquals("Dutch", perContinent.get("Europe").get(1).getLanguage());
+        Map<String, List<Language>> perRegion = snapshot.getLanguageReportPerRegion(List.of("English"), true);
+        assertEquals(List.of("North America"), new ArrayList<>(perRegion.keySet()));
+        assertEquals(snapshot.getMajorLanguageReport().get(0).getSpeakers(),
+                snapshot.getLanguageReport(List.of("English"), false).get(0).getSpeakers());
+        WorldSnapshot empty = new WorldSnapshot(new CountryTable(), new CityTable(), new LanguageTable());
+        assertTrue(empty.getLanguageReportPerContinent(List.of("English"), false).isEmpty());
+
+        // CASE 4 — The DAO binds one placeholder per language and filters official rows in SQL
+        Connection con = Mockito.mock(Connection.class);
+        PreparedStatement pstmt = Mockito.mock(PreparedStatement.class);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(con.prepareStatement(Mockito.anyString())).thenReturn(pstmt);
+        Mockito.when(pstmt.executeQuery()).thenReturn(rs);
+        Mockito.when(rs.next()).thenReturn(false);
+        assertTrue(new LanguageDAO(con).getLanguageReport(List.of("Dutch", "French"), true).isEmpty());
+        Mockito.verify(con).prepareStatement(Mockito.contains("IN (?, ?) AND cl.IsOfficial = 'T'"));
+        Mockito.verify(pstmt).setString(1, "Dutch");
+        Mockito.verify(pstmt).setString(2, "French");
+        assertTrue(new LanguageDAO(con).getLanguageReportPerRegion(List.of(), false).isEmpty());
+
+        // CASE 5 — One table per group, and the major languages report is unchanged
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(text, true, StandardCharsets.UTF_8);
+        new LanguageReport(snapshot, out).printLanguageReportPerContinent(List.of("French", "Dutch"), false);
+        new LanguageReport(snapshot, out).printMajorLanguageReport();
+        String printed = text.toString(StandardCharsets.UTF_8);
+        assertTrue(printed.contains("The speakers of French, Dutch in continent: Europe."));
+        assertTrue(printed.contains("% of Continent Population"));
+        assertTrue(printed.contains("Chinese, English, Hindi, Spanish, Arabic."));
+    }
+
+    /**
+     * This test verifies that the snapshot refresher records the table checksums on
+     * its first poll, reloads only a table whose checksum changed, swaps the new
+     * snapshot in for later readers and drops the result cache.
+     */
+    @Test
+    void snapshotRefresherReloadsOnlyChangedTables() throws SQLException {
+        Connection con = Mockito.mock(Connection.class);
+        Statement stmt = Mockito.mock(Statement.class);
+        Mockito.when(con.createStatement()).thenReturn(stmt);
+        long[][] polls = {{1, 2, 3}, {1, 2, 3}, {1, 9, 3}};
+        ResultSet[] checksums = new ResultSet[polls.length];
+        for (int i = 0; i < polls.length; i++) {
+            checksums[i] = Mockito.mock(ResultSet.class);
+            Mockito.when(checksums[i].next()).thenReturn(true, true, true, false);
+            Mockito.when(checksums[i].getString("Table"))
+                    .thenReturn("world.city", "world.country", "world.countrylanguage");
+            Mockito.when(checksums[i].getLong("Checksum")).thenReturn(polls[i][0], polls[i][1], polls[i][2]);
+        }
+        Mockito.when(stmt.executeQuery(Mockito.anyString()))
+                .thenReturn(checksums[0], Arrays.copyOfRange(checksums, 1, polls.length));
+
+        // The reloaded country table: France has grown past Japan
+        PreparedStatement pstmt = Mockito.mock(PreparedStatement.class);
+        ResultSet countryRows = Mockito.mock(ResultSet.class);
+        Mockito.when(con.prepareStatement(Mockito.contains("FROM country"))).thenReturn(pstmt);
+        Mockito.when(pstmt.executeQuery()).thenReturn(countryRows);
+        Mockito.when(countryRows.next()).thenReturn(true, true, false);
+        Mockito.when(countryRows.getString(1)).thenReturn("JPN", "FRA");
+        Mockito.when(countryRows.getString(2)).thenReturn("Japan", "France");
+        Mockito.when(countryRows.getString(3)).thenReturn("Asia", "Europe");
+        Mockito.when(countryRows.getString(4)).thenReturn("Eastern Asia", "Western Europe");
+        Mockito.when(countryRows.getInt(5)).thenReturn(1000, 3000);
+        Mockito.when(countryRows.getInt(6)).thenReturn(1, 3);
+
+        CountryTable countries = new CountryTable();
+        countries.add("JPN", "Japan", "Asia", "Eastern Asia", 1000, 1);
+        countries.add("FRA", "France", "Europe", "Western Europe", 500, 3);
+        CityTable cities = new CityTable();
+        cities.add(1, "Tokyo", "JPN", "Tokyo-to", 300);
+        cities.add(3, "Paris", "FRA", "Ile-de-France", 100);
+        WorldSnapshot original = new WorldSnapshot(countries, cities, new LanguageTable());
+        DaoFactory daos = Mockito.spy(new DaoFactory(Backend.SNAPSHOT));
+        daos.replaceSnapshot(original);
+        CountryQueries before = daos.countryQueries(con);
+        SnapshotRefresher refresher = new SnapshotRefresher(daos, () -> con);
+
+        // CASE 1 — The first poll only records the checksums
+        assertTrue(refresher.refresh().isEmpty());
+        // CASE 2 — Nothing changed: the same snapshot is kept and the cache stays
+        assertTrue(refresher.refresh().isEmpty());
+        assertSame(original, daos.getSnapshot());
+        Mockito.verify(daos, Mockito.never()).invalidateCache();
+
+        // CASE 3 — Only the changed table is read again and swapped in for later readers
+        assertEquals(Set.of("country"), refresher.refresh());
+        Mockito.verify(con, Mockito.times(1)).prepareStatement(Mockito.anyString());
+        Mockito.verify(daos).invalidateCache();
+        assertNotSame(original, daos.getSnapshot());
+        assertEquals("France", daos.countryQueries(con).getAllCountriesByPopulation().get(0).getName());
+        assertEquals("Paris", daos.countryQueries(con).getAllCountriesByPopulation().get(0).getCapital());
+        // Readers that already hold the old snapshot keep answering from it
+        assertEquals("Japan", before.getAllCountriesByPopulation().get(0).getName());
+        refresher.close();
+    }
+}